@@ -0,0 +1,112 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures the time to build a {@code BPlusTree} of {@code size} entries by inserting them one by one in increasing,
+ * nearly sorted or random order, which shows the effect of appending to the cached rightmost {@code LeafNode} and of
+ * splitting the right edge unevenly. The leaf fill factor of the tree is printed after each iteration.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AppendBenchmark {
+
+	/**
+	 * The orders in which the keys are inserted.
+	 */
+	public enum Order {
+		/**
+		 * Keys {@code 0, 1, ..., size - 1} in increasing order.
+		 */
+		SEQUENTIAL,
+		/**
+		 * Keys in increasing order except that 1% of them are swapped with a key at most {@link #DISPLACEMENT}
+		 * positions later, like timestamps arriving slightly out of order.
+		 */
+		NEARLY_SORTED,
+		/**
+		 * A random permutation of {@code 0, 1, ..., size - 1}.
+		 */
+		RANDOM
+	}
+
+	/**
+	 * The maximum distance by which a key of a {@code NEARLY_SORTED} sequence is moved.
+	 */
+	public static final int DISPLACEMENT = 16;
+
+	@Param({ "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000000" })
+	public int size;
+
+	@Param({ "SEQUENTIAL", "NEARLY_SORTED", "RANDOM" })
+	public Order order;
+
+	/**
+	 * The keys in insertion order.
+	 */
+	protected int[] keys;
+
+	/**
+	 * The tree to build (empty at the beginning of every iteration).
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	@Setup(Level.Trial)
+	public void generateKeys() {
+		keys = order == Order.RANDOM ? Workloads.shuffled(size, 42) : Workloads.sequential(size);
+		if (order == Order.NEARLY_SORTED) {
+			SplittableRandom random = new SplittableRandom(42);
+			for (int n = 0; n < size / 100; n++) {
+				int i = random.nextInt(size - DISPLACEMENT);
+				int j = i + 1 + random.nextInt(DISPLACEMENT);
+				int k = keys[i];
+				keys[i] = keys[j];
+				keys[j] = k;
+			}
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void createTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+	}
+
+	@TearDown(Level.Iteration)
+	public void printFill() {
+		System.out.printf(" leaf fill factor %.3f%n", tree.stats().leafFillFactor());
+	}
+
+	@Benchmark
+	public BPlusTree<Integer, Integer> insert() {
+		for (int k : keys)
+			tree.insert(k, k);
+		return tree;
+	}
+
+}
@@ -0,0 +1,91 @@
+package bptree.bench;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures the time to build a {@code BPlusTree} of {@code size} entries from batches of {@code batch} entries,
+ * inserted either one by one or with {@link BPlusTree#insertAll(java.util.Collection)}.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+	@Param({ "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000000" })
+	public int size;
+
+	@Param({ "SEQUENTIAL", "RANDOM", "ZIPFIAN" })
+	public Workloads.Order order;
+
+	@Param({ "100", "10000" })
+	public int batch;
+
+	/**
+	 * The batches to insert.
+	 */
+	protected List<List<Map.Entry<Integer, Integer>>> batches;
+
+	/**
+	 * The tree to insert into (empty at the beginning of every iteration).
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	@Setup(Level.Trial)
+	public void generateBatches() {
+		batches = new ArrayList<List<Map.Entry<Integer, Integer>>>();
+		List<Map.Entry<Integer, Integer>> b = null;
+		for (int key : Workloads.keys(order, size, 42)) {
+			if (b == null || b.size() == batch)
+				batches.add(b = new ArrayList<Map.Entry<Integer, Integer>>(batch));
+			b.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(key, key));
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void createTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+	}
+
+	@Benchmark
+	public BPlusTree<Integer, Integer> oneByOne() {
+		for (List<Map.Entry<Integer, Integer>> b : batches)
+			for (Map.Entry<Integer, Integer> e : b)
+				tree.insert(e.getKey(), e.getValue());
+		return tree;
+	}
+
+	@Benchmark
+	public BPlusTree<Integer, Integer> insertAll() {
+		for (List<Map.Entry<Integer, Integer>> b : batches)
+			tree.insertAll(b);
+		return tree;
+	}
+
+}
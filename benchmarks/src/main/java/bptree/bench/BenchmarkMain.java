@@ -0,0 +1,41 @@
+package bptree.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point of {@code benchmarks.jar}. It accepts the usual JMH command line options but, unless {@code -rf} is
+ * given, writes the results as JSON to {@code jmh-result.json} so that runs of different releases can be compared
+ * mechanically.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BenchmarkMain {
+
+	/**
+	 * The main program.
+	 * 
+	 * @param args
+	 *            the JMH command line options.
+	 * @throws Exception
+	 *             if an error occurs.
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+				|| cmd.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if (!cmd.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if (!cmd.getResult().hasValue())
+			options.result("jmh-result.json");
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,140 @@
+package bptree.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.storage.BufferPool;
+import bptree.storage.ClockPolicy;
+import bptree.storage.Codec;
+import bptree.storage.EvictionPolicy;
+import bptree.storage.FileNodeStore;
+import bptree.storage.LruKPolicy;
+import bptree.storage.PagedBPlusTree;
+import bptree.storage.TwoQueuePolicy;
+
+/**
+ * Measures Zipfian lookups in a file-backed {@code PagedBPlusTree} whose {@code BufferPool} holds only
+ * {@code cachePercent} percent of the pages, for each {@code EvictionPolicy}. The hit ratio of the pool is printed
+ * after each iteration.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferPoolBenchmark {
+
+	/**
+	 * The eviction policies compared.
+	 */
+	public enum Policy {
+		CLOCK(ClockPolicy::new), LRU_K(LruKPolicy::new), TWO_Q(TwoQueuePolicy::new);
+
+		/**
+		 * Creates the {@code EvictionPolicy} given the number of frames.
+		 */
+		final IntFunction<EvictionPolicy> factory;
+
+		Policy(IntFunction<EvictionPolicy> factory) {
+			this.factory = factory;
+		}
+	}
+
+	@Param({ "CLOCK", "LRU_K", "TWO_Q" })
+	public Policy policy;
+
+	@Param({ "1", "10" })
+	public int cachePercent;
+
+	@Param({ "1000000", "10000000" })
+	public int size;
+
+	@Param({ "4096" })
+	public int pageSize;
+
+	/**
+	 * The page file.
+	 */
+	protected Path file;
+
+	/**
+	 * The buffer pool.
+	 */
+	protected BufferPool pool;
+
+	/**
+	 * The tree to search.
+	 */
+	protected PagedBPlusTree<Integer, Integer> tree;
+
+	/**
+	 * The probes.
+	 */
+	protected Integer[] probes;
+
+	/**
+	 * The position of the next probe.
+	 */
+	protected int next;
+
+	@Setup(Level.Trial)
+	public void buildTree() throws Exception {
+		file = Files.createTempFile("bptree", ".db");
+		FileNodeStore store = new FileNodeStore(file, pageSize);
+		BufferPool loader = new BufferPool(store, 64L << 20);
+		PagedBPlusTree<Integer, Integer> t = new PagedBPlusTree<Integer, Integer>(loader, Codec.INTEGER,
+				Codec.INTEGER);
+		for (int key : Workloads.shuffled(size, 42))
+			t.insert(key, key);
+		loader.close();
+		long pages = Files.size(file) / pageSize;
+		store = new FileNodeStore(file, pageSize);
+		pool = new BufferPool(store, Math.max(8, pages * cachePercent / 100) * pageSize, policy.factory);
+		tree = new PagedBPlusTree<Integer, Integer>(pool, Codec.INTEGER, Codec.INTEGER);
+		int[] keys = Workloads.zipfian(size, FindBenchmark.PROBES, Workloads.ZIPFIAN_THETA, 7);
+		probes = new Integer[FindBenchmark.PROBES];
+		for (int i = 0; i < probes.length; i++)
+			probes[i] = keys[i];
+	}
+
+	@Setup(Level.Iteration)
+	public void resetCounters() {
+		pool.resetCounters();
+	}
+
+	@TearDown(Level.Iteration)
+	public void printCounters() {
+		System.out.printf(" %s hit ratio %.3f%n", pool, pool.hitRatio());
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFile() throws Exception {
+		pool.close();
+		Files.delete(file);
+	}
+
+	@Benchmark
+	public Integer get() {
+		return tree.get(probes[next++ & (FindBenchmark.PROBES - 1)]);
+	}
+
+}
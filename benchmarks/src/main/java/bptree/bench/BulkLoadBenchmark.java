@@ -0,0 +1,104 @@
+package bptree.bench;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures the time to build a {@code BPlusTree} of {@code size} entries from sorted input with
+ * {@code BPlusTree.bulkLoad}. Compare with {@code InsertBenchmark} for {@code SEQUENTIAL} keys.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkLoadBenchmark {
+
+	@Param({ "3", "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000", "100000000" })
+	public int size;
+
+	@Param({ "0.7", "1.0" })
+	public double fillFactor;
+
+	/**
+	 * The tree to load (empty at the beginning of every iteration).
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	@Setup(Level.Iteration)
+	public void createTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+	}
+
+	@Benchmark
+	public BPlusTree<Integer, Integer> bulkLoad() {
+		tree.bulkLoad(new SequentialEntries(size), fillFactor);
+		return tree;
+	}
+
+	/**
+	 * An {@code Iterator} over the entries (i, i) for i = 0, 1, ..., n - 1. It returns the same {@code Map.Entry}
+	 * every time so that the benchmark measures the loader rather than the allocation of entries.
+	 */
+	static class SequentialEntries implements Iterator<Map.Entry<Integer, Integer>>, Map.Entry<Integer, Integer> {
+
+		final int n;
+
+		int next;
+
+		Integer current;
+
+		SequentialEntries(int n) {
+			this.n = n;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < n;
+		}
+
+		@Override
+		public Map.Entry<Integer, Integer> next() {
+			current = next++;
+			return this;
+		}
+
+		@Override
+		public Integer getKey() {
+			return current;
+		}
+
+		@Override
+		public Integer getValue() {
+			return current;
+		}
+
+		@Override
+		public Integer setValue(Integer value) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures sustained churn on a {@code BPlusTree} of {@code size} entries: each operation removes an existing key with
+ * {@link BPlusTree#remove(Comparable)} and inserts a new one, so the size of the tree stays the same. With the
+ * {@code RANDOM} pattern, a random live key is replaced with a new key scattered over the key space; with the
+ * {@code WINDOW} pattern, the oldest key is removed and the next larger key is inserted, so the entries slide to the
+ * right like a time window.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+
+	/**
+	 * The patterns of churn.
+	 */
+	public enum Pattern {
+		RANDOM, WINDOW
+	}
+
+	@Param({ "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000000" })
+	public int size;
+
+	@Param({ "RANDOM", "WINDOW" })
+	public Pattern pattern;
+
+	/**
+	 * The tree under churn.
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	/**
+	 * The live keys; the oldest key is at {@code next % size} with the {@code WINDOW} pattern.
+	 */
+	protected int[] live;
+
+	/**
+	 * The number of keys generated so far.
+	 */
+	protected int next;
+
+	/**
+	 * The random number generator choosing the keys to remove.
+	 */
+	protected SplittableRandom random;
+
+	@Setup(Level.Trial)
+	public void buildTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+		live = new int[size];
+		for (next = 0; next < size; next++) {
+			live[next] = key(next);
+			tree.insert(live[next], next);
+		}
+		random = new SplittableRandom(7);
+	}
+
+	/**
+	 * Returns the {@code i}-th generated key. Keys are distinct because multiplying by an odd constant is a bijection
+	 * on {@code int}s.
+	 *
+	 * @param i
+	 *            the sequence number of the key.
+	 * @return the {@code i}-th generated key.
+	 */
+	int key(int i) {
+		return pattern == Pattern.WINDOW ? i : i * 0x9E3779B1;
+	}
+
+	@Benchmark
+	public Integer replace() {
+		int slot = pattern == Pattern.WINDOW ? next % size : random.nextInt(size);
+		Integer removed = tree.remove(live[slot]);
+		live[slot] = key(next);
+		tree.insert(live[slot], next++);
+		return removed;
+	}
+
+}
@@ -0,0 +1,142 @@
+package bptree.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BLinkTree;
+import bptree.BPlusTree;
+import bptree.ConcurrentBPlusTree;
+
+/**
+ * Measures the throughput of mixed lookups, insertions and deletions of uniformly random keys by {@code threads}
+ * threads. The {@code locked} trees serialize all operations with one global lock, as a service wrapping a
+ * {@code BPlusTree} would; the {@code latched} trees are {@code ConcurrentBPlusTree}s that use latch crabbing; the
+ * {@code blink} trees are {@code BLinkTree}s whose lookups take no latches. Each invocation runs {@link #OPERATIONS}
+ * operations divided among the threads.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBenchmark {
+
+	/**
+	 * The number of operations per invocation.
+	 */
+	static final int OPERATIONS = 1 << 16;
+
+	@Param({ "locked", "latched", "blink" })
+	public String tree;
+
+	@Param({ "1", "2", "4", "8", "16", "32", "64" })
+	public int threads;
+
+	@Param({ "50", "95" })
+	public int readPercent;
+
+	@Param({ "64" })
+	public int degree;
+
+	@Param({ "1000000" })
+	public int size;
+
+	/**
+	 * The tree. The {@code locked} trees use a {@code ConcurrentBPlusTree}, whose deletions rebalance the tree,
+	 * but access it under {@code lock} only.
+	 */
+	protected BPlusTree<Integer, Integer> map;
+
+	/**
+	 * The global lock; {@code null} for the {@code latched} trees.
+	 */
+	protected ReentrantLock lock;
+
+	/**
+	 * The threads running the operations.
+	 */
+	protected ExecutorService pool;
+
+	@Setup(Level.Trial)
+	public void buildTree() {
+		map = tree.equals("blink") ? new BLinkTree<Integer, Integer>(degree)
+				: new ConcurrentBPlusTree<Integer, Integer>(degree);
+		map.bulkLoad(new BulkLoadBenchmark.SequentialEntries(size), 0.7);
+		lock = tree.equals("locked") ? new ReentrantLock() : null;
+		pool = Executors.newFixedThreadPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERATIONS)
+	public long mixed() throws Exception {
+		@SuppressWarnings("unchecked")
+		Future<Long>[] futures = new Future[threads];
+		for (int t = 0; t < threads; t++)
+			futures[t] = pool.submit(() -> run(OPERATIONS / threads));
+		long sum = 0;
+		for (Future<Long> f : futures)
+			sum += f.get();
+		return sum;
+	}
+
+	/**
+	 * Runs the specified number of operations. Each update inserts or deletes, with equal probability, a random key
+	 * within twice the initial key range.
+	 *
+	 * @param operations
+	 *            the number of operations.
+	 * @return a checksum of the values found.
+	 */
+	long run(int operations) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long sum = 0;
+		for (int i = 0; i < operations; i++) {
+			int op = random.nextInt(200);
+			int key = random.nextInt(2 * size);
+			if (lock != null)
+				lock.lock();
+			try {
+				if (op < 2 * readPercent) {
+					Integer v = map.get(key);
+					if (v != null)
+						sum += v;
+				} else if ((op & 1) == 0)
+					map.insert(key, key);
+				else
+					map.delete(key, null);
+			} finally {
+				if (lock != null)
+					lock.unlock();
+			}
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,73 @@
+package bptree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures the time to empty a {@code BPlusTree} of {@code size} entries by deleting every key in random order.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeleteBenchmark {
+
+	@Param({ "3", "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000", "100000000" })
+	public int size;
+
+	/**
+	 * The keys in the order of deletion.
+	 */
+	protected Integer[] keys;
+
+	/**
+	 * The tree to delete from (rebuilt before every iteration).
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	@Setup(Level.Trial)
+	public void generateKeys() {
+		int[] order = Workloads.shuffled(size, 7);
+		keys = new Integer[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = order[i];
+	}
+
+	@Setup(Level.Iteration)
+	public void buildTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+		for (int key : Workloads.shuffled(size, 42)) {
+			Integer k = key;
+			tree.insert(k, k);
+		}
+	}
+
+	@Benchmark
+	public BPlusTree<Integer, Integer> delete() {
+		for (Integer key : keys)
+			tree.delete(key, key);
+		return tree;
+	}
+
+}
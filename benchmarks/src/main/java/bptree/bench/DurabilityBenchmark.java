@@ -0,0 +1,95 @@
+package bptree.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.storage.Codec;
+import bptree.storage.DurableBPlusTree;
+import bptree.storage.WriteAheadLog;
+
+/**
+ * Measures the throughput of durable insertions into a {@code DurableBPlusTree} under each
+ * {@code WriteAheadLog.Durability} mode with several concurrent writers, which lets group commit share forces among
+ * them. The number of forces per iteration is printed.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class DurabilityBenchmark {
+
+	@Param({ "SYNC", "GROUP", "ASYNC" })
+	public WriteAheadLog.Durability durability;
+
+	@Param({ "64" })
+	public int degree;
+
+	/**
+	 * The directory of the tree.
+	 */
+	protected Path directory;
+
+	/**
+	 * The tree.
+	 */
+	protected DurableBPlusTree<Long, Long> tree;
+
+	/**
+	 * The number of forces before the current iteration.
+	 */
+	protected long forces;
+
+	@Setup(Level.Trial)
+	public void openTree() throws Exception {
+		directory = Files.createTempDirectory("bptree");
+		tree = new DurableBPlusTree<Long, Long>(directory, degree, Codec.LONG, Codec.LONG, durability);
+	}
+
+	@Setup(Level.Iteration)
+	public void countForces() {
+		forces = tree.log().forces();
+	}
+
+	@TearDown(Level.Iteration)
+	public void printForces() {
+		System.out.println(" forces: " + (tree.log().forces() - forces));
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteTree() throws Exception {
+		tree.close();
+		try (java.util.stream.Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public void insert() {
+		long key = ThreadLocalRandom.current().nextLong();
+		tree.insert(key, key);
+	}
+
+}
@@ -0,0 +1,102 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+import bptree.KeySearch;
+
+/**
+ * Measures point lookups that hit and miss in a {@code BPlusTree} of {@code size} entries. The tree holds the even
+ * keys {@code 0, 2, ..., 2 * (size - 1)}, so even probes hit and odd probes miss.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindBenchmark {
+
+	/**
+	 * The number of pre-generated probes (a power of two).
+	 */
+	static final int PROBES = 1 << 16;
+
+	@Param({ "3", "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000", "100000000" })
+	public int size;
+
+	@Param({ "LINEAR", "BINARY", "BRANCHLESS" })
+	public KeySearch search;
+
+	/**
+	 * The tree to search.
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	/**
+	 * Keys that are in the tree.
+	 */
+	protected Integer[] hits;
+
+	/**
+	 * Keys that are not in the tree.
+	 */
+	protected Integer[] misses;
+
+	/**
+	 * The position of the next probe.
+	 */
+	protected int next;
+
+	@Setup(Level.Trial)
+	public void buildTree() {
+		tree = new BPlusTree<Integer, Integer>(degree, search);
+		for (int key : Workloads.shuffled(size, 42)) {
+			Integer k = 2 * key;
+			tree.insert(k, k);
+		}
+		SplittableRandom random = new SplittableRandom(7);
+		hits = new Integer[PROBES];
+		misses = new Integer[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			int key = random.nextInt(size);
+			hits[i] = 2 * key;
+			misses[i] = 2 * key + 1;
+		}
+	}
+
+	@Benchmark
+	public Integer getHit() {
+		return tree.get(hits[next++ & (PROBES - 1)]);
+	}
+
+	@Benchmark
+	public Integer getMiss() {
+		return tree.get(misses[next++ & (PROBES - 1)]);
+	}
+
+	@Benchmark
+	public Object findLeaf() {
+		return tree.find(hits[next++ & (PROBES - 1)]);
+	}
+
+}
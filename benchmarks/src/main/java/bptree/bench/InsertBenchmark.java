@@ -0,0 +1,71 @@
+package bptree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures the time to build a {@code BPlusTree} of {@code size} entries by point inserts.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InsertBenchmark {
+
+	@Param({ "3", "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000", "100000000" })
+	public int size;
+
+	@Param({ "SEQUENTIAL", "RANDOM", "ZIPFIAN" })
+	public Workloads.Order order;
+
+	/**
+	 * The keys to insert.
+	 */
+	protected int[] keys;
+
+	/**
+	 * The tree to insert into (empty at the beginning of every iteration).
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	@Setup(Level.Trial)
+	public void generateKeys() {
+		keys = Workloads.keys(order, size, 42);
+	}
+
+	@Setup(Level.Iteration)
+	public void createTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+	}
+
+	@Benchmark
+	public BPlusTree<Integer, Integer> insert() {
+		for (int key : keys) {
+			Integer k = key;
+			tree.insert(k, k);
+		}
+		return tree;
+	}
+
+}
@@ -0,0 +1,177 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+import bptree.LongBPlusTree;
+import bptree.LongLongBPlusTree;
+
+/**
+ * Compares a {@code BPlusTree<Long, Long>} with a {@code LongBPlusTree<Long>} and a {@code LongLongBPlusTree} holding
+ * the same entries. Probes are primitive {@code long}s, so the generic tree boxes each key just as its callers would.
+ * The tree holds the even keys {@code 0, 2, ..., 2 * (size - 1)}, shifted above the range of the {@code Long} cache.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LongTreeBenchmark {
+
+	/**
+	 * The kinds of trees compared.
+	 */
+	public enum Kind {
+		GENERIC, LONG, LONG_LONG
+	}
+
+	/**
+	 * The offset added to every key so that boxing cannot use the {@code Long} cache.
+	 */
+	static final long OFFSET = 1L << 32;
+
+	@Param({ "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	public int size;
+
+	@Param({ "GENERIC", "LONG", "LONG_LONG" })
+	public Kind kind;
+
+	/**
+	 * The keys to insert, in random order.
+	 */
+	protected long[] keys;
+
+	/**
+	 * Keys that are in the trees.
+	 */
+	protected long[] hits;
+
+	/**
+	 * Keys that are not in the trees.
+	 */
+	protected long[] misses;
+
+	/**
+	 * The position of the next probe.
+	 */
+	protected int next;
+
+	protected BPlusTree<Long, Long> generic;
+
+	protected LongBPlusTree<Long> longTree;
+
+	protected LongLongBPlusTree longLongTree;
+
+	@Setup(Level.Trial)
+	public void generateKeys() {
+		int[] shuffled = Workloads.shuffled(size, 42);
+		keys = new long[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = OFFSET + 2L * shuffled[i];
+		SplittableRandom random = new SplittableRandom(7);
+		hits = new long[FindBenchmark.PROBES];
+		misses = new long[FindBenchmark.PROBES];
+		for (int i = 0; i < FindBenchmark.PROBES; i++) {
+			long key = OFFSET + 2L * random.nextInt(size);
+			hits[i] = key;
+			misses[i] = key + 1;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void buildTree() {
+		generic = null;
+		longTree = null;
+		longLongTree = null;
+		build();
+	}
+
+	/**
+	 * Builds the tree of the current kind from all keys.
+	 * 
+	 * @return the size of the tree built.
+	 */
+	int build() {
+		switch (kind) {
+		case GENERIC:
+			generic = new BPlusTree<Long, Long>(degree);
+			for (long key : keys)
+				generic.insert(key, key);
+			return keys.length;
+		case LONG:
+			longTree = new LongBPlusTree<Long>(degree);
+			for (long key : keys)
+				longTree.insert(key, key);
+			return longTree.size();
+		default:
+			longLongTree = new LongLongBPlusTree(degree);
+			for (long key : keys)
+				longLongTree.insert(key, key);
+			return longLongTree.size();
+		}
+	}
+
+	/**
+	 * Looks up the specified key in the tree of the current kind.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the value found; -1 if none.
+	 */
+	long get(long key) {
+		switch (kind) {
+		case GENERIC:
+			Long v = generic.get(key);
+			return v == null ? -1 : v;
+		case LONG:
+			Long w = longTree.get(key);
+			return w == null ? -1 : w;
+		default:
+			return longLongTree.get(key, -1);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public int insert() {
+		return build();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public long getHit() {
+		return get(hits[next++ & (FindBenchmark.PROBES - 1)]);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public long getMiss() {
+		return get(misses[next++ & (FindBenchmark.PROBES - 1)]);
+	}
+
+}
@@ -0,0 +1,115 @@
+package bptree.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures looking up batches of {@code batch} random keys in a {@code BPlusTree} of {@code size} entries, one by one
+ * with {@link BPlusTree#get(Comparable)} or together with {@link BPlusTree#getAll(Comparable[], Object[])}, given
+ * unsorted or sorted. As in {@link FindBenchmark}, the tree holds the even keys, so about half of the probes miss.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiGetBenchmark {
+
+	/**
+	 * The number of pre-generated batches (a power of two).
+	 */
+	static final int BATCHES = 1 << 6;
+
+	@Param({ "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000000", "10000000" })
+	public int size;
+
+	@Param({ "100", "1000", "10000" })
+	public int batch;
+
+	/**
+	 * The tree to search.
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	/**
+	 * The batches of probes.
+	 */
+	protected Integer[][] probes;
+
+	/**
+	 * The batches of probes, each sorted.
+	 */
+	protected Integer[][] sortedProbes;
+
+	/**
+	 * The array receiving the values.
+	 */
+	protected Integer[] out;
+
+	/**
+	 * The position of the next batch.
+	 */
+	protected int next;
+
+	@Setup(Level.Trial)
+	public void buildTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+		for (int key : Workloads.shuffled(size, 42)) {
+			Integer k = 2 * key;
+			tree.insert(k, k);
+		}
+		SplittableRandom random = new SplittableRandom(7);
+		probes = new Integer[BATCHES][batch];
+		sortedProbes = new Integer[BATCHES][];
+		for (int b = 0; b < BATCHES; b++) {
+			for (int i = 0; i < batch; i++)
+				probes[b][i] = random.nextInt(2 * size);
+			sortedProbes[b] = probes[b].clone();
+			Arrays.sort(sortedProbes[b]);
+		}
+		out = new Integer[batch];
+	}
+
+	@Benchmark
+	public Integer[] get() {
+		Integer[] keys = probes[next++ & (BATCHES - 1)];
+		for (int i = 0; i < keys.length; i++)
+			out[i] = tree.get(keys[i]);
+		return out;
+	}
+
+	@Benchmark
+	public Integer[] getAll() {
+		tree.getAll(probes[next++ & (BATCHES - 1)], out);
+		return out;
+	}
+
+	@Benchmark
+	public Integer[] getAllSorted() {
+		tree.getAll(sortedProbes[next++ & (BATCHES - 1)], out);
+		return out;
+	}
+
+}
@@ -0,0 +1,69 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.KeySearch;
+
+/**
+ * Measures a single in-node search over the {@code degree - 1} keys of a full {@code Node} to locate the crossover
+ * points between the {@code KeySearch} strategies.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeSearchBenchmark {
+
+	/**
+	 * The number of pre-generated probes (a power of two).
+	 */
+	static final int PROBES = 1 << 12;
+
+	@Param({ "4", "8", "16", "32", "64", "128", "256", "512" })
+	public int degree;
+
+	@Param({ "LINEAR", "BINARY", "BRANCHLESS" })
+	public KeySearch search;
+
+	Integer[] keys;
+
+	Integer[] probes;
+
+	int next;
+
+	@Setup(Level.Trial)
+	public void generateKeys() {
+		int n = degree - 1;
+		keys = new Integer[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = 2 * i;
+		SplittableRandom random = new SplittableRandom(7);
+		probes = new Integer[PROBES];
+		for (int i = 0; i < PROBES; i++)
+			probes[i] = random.nextInt(2 * n + 1);
+	}
+
+	@Benchmark
+	public int lowerBound() {
+		return search.lowerBound(keys, keys.length, probes[next++ & (PROBES - 1)]);
+	}
+
+}
@@ -0,0 +1,113 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.storage.Codec;
+import bptree.storage.OffHeapNodeStore;
+import bptree.storage.PagedBPlusTree;
+
+/**
+ * Measures a {@code PagedBPlusTree} whose pages live in an {@code OffHeapNodeStore}. Run with {@code -prof gc} and
+ * compare with {@link FindBenchmark} and {@link InsertBenchmark} to see how much less the garbage collector has to do
+ * when the nodes are kept off the heap.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class OffHeapBenchmark {
+
+	@Param({ "4096", "16384" })
+	public int pageSize;
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	public int size;
+
+	/**
+	 * The keys to insert, in random order.
+	 */
+	protected int[] keys;
+
+	/**
+	 * Keys that are in the tree.
+	 */
+	protected Integer[] hits;
+
+	/**
+	 * The position of the next probe.
+	 */
+	protected int next;
+
+	/**
+	 * The tree to search.
+	 */
+	protected PagedBPlusTree<Integer, Integer> tree;
+
+	@Setup(Level.Trial)
+	public void generateKeys() {
+		keys = Workloads.shuffled(size, 42);
+		SplittableRandom random = new SplittableRandom(7);
+		hits = new Integer[FindBenchmark.PROBES];
+		for (int i = 0; i < FindBenchmark.PROBES; i++)
+			hits[i] = random.nextInt(size);
+	}
+
+	@Setup(Level.Iteration)
+	public void buildTree() {
+		tree = build();
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeStore() throws Exception {
+		tree.store().close();
+	}
+
+	/**
+	 * Builds a tree from all keys.
+	 * 
+	 * @return the tree built.
+	 */
+	PagedBPlusTree<Integer, Integer> build() {
+		PagedBPlusTree<Integer, Integer> t = new PagedBPlusTree<Integer, Integer>(new OffHeapNodeStore(pageSize),
+				Codec.INTEGER, Codec.INTEGER);
+		for (int key : keys)
+			t.insert(key, key);
+		return t;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public PagedBPlusTree<Integer, Integer> insert() throws Exception {
+		PagedBPlusTree<Integer, Integer> t = build();
+		t.store().close();
+		return t;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public Integer getHit() {
+		return tree.get(hits[next++ & (FindBenchmark.PROBES - 1)]);
+	}
+
+}
@@ -0,0 +1,84 @@
+package bptree.bench;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+
+/**
+ * Measures sum and count aggregations over all entries of a {@code BPlusTree} with parallel streams on a
+ * {@code ForkJoinPool} of {@code threads} threads.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelScanBenchmark {
+
+	@Param({ "64", "256" })
+	public int degree;
+
+	@Param({ "1000000", "100000000" })
+	public int size;
+
+	@Param({ "1", "2", "4", "8", "16" })
+	public int threads;
+
+	/**
+	 * The tree to scan.
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	/**
+	 * The pool running the parallel streams.
+	 */
+	protected ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void buildTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+		tree.bulkLoad(new BulkLoadBenchmark.SequentialEntries(size), 0.7);
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public long sum() throws Exception {
+		return pool.submit(() -> tree.stream().parallel().mapToLong(e -> e.getKey()).sum()).get();
+	}
+
+	@Benchmark
+	public long count() throws Exception {
+		return pool.submit(() -> tree.stream().parallel().count()).get();
+	}
+
+	@Benchmark
+	public long sumRange() throws Exception {
+		return pool.submit(() -> tree.rangeStream(size / 4, 3 * size / 4).parallel()
+				.mapToLong(Map.Entry::getKey).sum()).get();
+	}
+
+}
@@ -0,0 +1,103 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BPlusTree;
+import bptree.Cursor;
+import bptree.LeafNode;
+
+/**
+ * Measures scans of {@code length} consecutive keys along the {@code LeafNode} chain, starting from a random key,
+ * both by walking the {@code LeafNode}s directly and through a {@code Cursor}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanBenchmark {
+
+	/**
+	 * The number of pre-generated start keys (a power of two).
+	 */
+	static final int STARTS = 1 << 12;
+
+	@Param({ "3", "16", "64", "256" })
+	public int degree;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000", "100000000" })
+	public int size;
+
+	@Param({ "100", "10000" })
+	public int length;
+
+	/**
+	 * The tree to scan.
+	 */
+	protected BPlusTree<Integer, Integer> tree;
+
+	/**
+	 * The keys at which scans start.
+	 */
+	protected Integer[] starts;
+
+	/**
+	 * The position of the next start key.
+	 */
+	protected int next;
+
+	@Setup(Level.Trial)
+	public void buildTree() {
+		tree = new BPlusTree<Integer, Integer>(degree);
+		for (int key : Workloads.shuffled(size, 42)) {
+			Integer k = key;
+			tree.insert(k, k);
+		}
+		SplittableRandom random = new SplittableRandom(7);
+		starts = new Integer[STARTS];
+		for (int i = 0; i < STARTS; i++)
+			starts[i] = random.nextInt(size);
+	}
+
+	@Benchmark
+	public long scan() {
+		Integer start = starts[next++ & (STARTS - 1)];
+		LeafNode<Integer, Integer> leaf = tree.find(start);
+		int i = 0;
+		while (i < leaf.numberOfKeys() && leaf.key(i) < start)
+			i++;
+		long sum = 0;
+		for (int n = 0; n < length && leaf != null; leaf = leaf.successor(), i = 0) {
+			for (; i < leaf.numberOfKeys() && n < length; i++, n++)
+				sum += leaf.key(i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long cursor() {
+		Cursor<Integer, Integer> c = tree.range(starts[next++ & (STARTS - 1)], true, null, false);
+		long sum = 0;
+		for (int n = 0; n < length && c.next(); n++)
+			sum += c.key();
+		return sum;
+	}
+
+}
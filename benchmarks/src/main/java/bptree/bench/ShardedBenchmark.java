@@ -0,0 +1,141 @@
+package bptree.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.BLinkTree;
+import bptree.ShardedBPlusTree;
+
+/**
+ * Measures the ingest throughput of {@code threads} threads inserting random keys. The {@code blink} tree is one
+ * {@code BLinkTree} updated by all the threads; the {@code sharded} tree is a {@code ShardedBPlusTree} with
+ * {@code shards} shards that start with equal key ranges and is rebalanced after each invocation. With the
+ * {@code skewed} distribution, 90% of the keys fall into the lowest tenth of the key range. Each invocation inserts
+ * {@link #OPERATIONS} keys and, for the {@code sharded} tree, waits until they have been applied.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedBenchmark {
+
+	/**
+	 * The number of insertions per invocation.
+	 */
+	static final int OPERATIONS = 1 << 16;
+
+	/**
+	 * The size of the key range.
+	 */
+	static final int RANGE = 1 << 30;
+
+	@Param({ "blink", "sharded" })
+	public String tree;
+
+	@Param({ "1", "4", "16" })
+	public int threads;
+
+	@Param({ "4" })
+	public int shards;
+
+	@Param({ "uniform", "skewed" })
+	public String distribution;
+
+	@Param({ "64" })
+	public int degree;
+
+	/**
+	 * The {@code BLinkTree}; {@code null} for the {@code sharded} tree.
+	 */
+	protected BLinkTree<Integer, Integer> blink;
+
+	/**
+	 * The {@code ShardedBPlusTree}; {@code null} for the {@code blink} tree.
+	 */
+	protected ShardedBPlusTree<Integer, Integer> sharded;
+
+	/**
+	 * The threads running the insertions.
+	 */
+	protected ExecutorService pool;
+
+	@Setup(Level.Trial)
+	public void buildTree() {
+		if (tree.equals("blink"))
+			blink = new BLinkTree<Integer, Integer>(degree);
+		else {
+			Integer[] boundaries = new Integer[shards - 1];
+			for (int i = 0; i < boundaries.length; i++)
+				boundaries[i] = (int) ((long) RANGE * (i + 1) / shards);
+			sharded = new ShardedBPlusTree<Integer, Integer>(degree, boundaries);
+		}
+		pool = Executors.newFixedThreadPool(threads);
+	}
+
+	@TearDown(Level.Invocation)
+	public void rebalance() {
+		if (sharded != null)
+			sharded.rebalance();
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		pool.shutdown();
+		if (sharded != null)
+			sharded.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERATIONS)
+	public void ingest() throws Exception {
+		@SuppressWarnings("unchecked")
+		Future<?>[] futures = new Future[threads];
+		for (int t = 0; t < threads; t++)
+			futures[t] = pool.submit(() -> run(OPERATIONS / threads));
+		for (Future<?> f : futures)
+			f.get();
+		if (sharded != null)
+			sharded.flush();
+	}
+
+	/**
+	 * Inserts the specified number of random keys.
+	 *
+	 * @param operations
+	 *            the number of insertions.
+	 */
+	void run(int operations) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		boolean skewed = distribution.equals("skewed");
+		for (int i = 0; i < operations; i++) {
+			int key = skewed && random.nextInt(10) != 0 ? random.nextInt(RANGE / 10) : random.nextInt(RANGE);
+			if (blink != null)
+				blink.insert(key, key);
+			else
+				sharded.insert(key, key);
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package bptree.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.storage.Codec;
+import bptree.storage.MappedSnapshot;
+import bptree.storage.SnapshotWriter;
+
+/**
+ * Measures opening a {@code MappedSnapshot} of {@code size} entries, point lookups that hit, and scans of
+ * {@code length} entries against the mapped file. The snapshot holds the even keys {@code 0, 2, ..., 2 * (size - 1)}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class SnapshotBenchmark {
+
+	@Param({ "4096", "65536" })
+	public int pageSize;
+
+	@Param({ "1000000", "10000000", "100000000" })
+	public int size;
+
+	@Param({ "10000" })
+	public int length;
+
+	/**
+	 * The snapshot file.
+	 */
+	protected Path file;
+
+	/**
+	 * The snapshot.
+	 */
+	protected MappedSnapshot<Integer, Integer> snapshot;
+
+	/**
+	 * Keys that are in the snapshot.
+	 */
+	protected Integer[] hits;
+
+	/**
+	 * The position of the next probe.
+	 */
+	protected int next;
+
+	@Setup(Level.Trial)
+	public void writeSnapshot() throws Exception {
+		file = Files.createTempFile("bptree", ".snapshot");
+		new SnapshotWriter<Integer, Integer>(Codec.INTEGER, Codec.INTEGER, pageSize).write(
+				new BulkLoadBenchmark.SequentialEntries(size) {
+
+					@Override
+					public Integer getKey() {
+						return 2 * super.getKey();
+					}
+				}, file);
+		snapshot = new MappedSnapshot<Integer, Integer>(file, Codec.INTEGER, Codec.INTEGER);
+		SplittableRandom random = new SplittableRandom(7);
+		hits = new Integer[FindBenchmark.PROBES];
+		for (int i = 0; i < FindBenchmark.PROBES; i++)
+			hits[i] = 2 * random.nextInt(size);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteSnapshot() throws Exception {
+		snapshot.close();
+		Files.delete(file);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public long open() throws Exception {
+		MappedSnapshot<Integer, Integer> s = new MappedSnapshot<Integer, Integer>(file, Codec.INTEGER, Codec.INTEGER);
+		long n = s.size();
+		s.close();
+		return n;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public Integer getHit() {
+		return snapshot.get(hits[next++ & (FindBenchmark.PROBES - 1)]);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public long scan() {
+		MappedSnapshot<Integer, Integer>.Range r = snapshot.range(hits[next++ & (FindBenchmark.PROBES - 1)], true,
+				null, true);
+		long sum = 0;
+		for (int n = 0; n < length && r.next(); n++)
+			sum += r.value();
+		return sum;
+	}
+
+}
@@ -0,0 +1,164 @@
+package bptree.bench;
+
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the workloads of {@link InsertBenchmark}, {@link FindBenchmark}, {@link DeleteBenchmark} and
+ * {@link ScanBenchmark} against {@code java.util.TreeMap} as a baseline.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@Fork(1)
+public class TreeMapBenchmark {
+
+	/**
+	 * The state for building and emptying maps.
+	 */
+	@State(Scope.Benchmark)
+	public static class Bulk {
+
+		@Param({ "1000", "10000", "100000", "1000000", "10000000", "100000000" })
+		public int size;
+
+		@Param({ "SEQUENTIAL", "RANDOM", "ZIPFIAN" })
+		public Workloads.Order order;
+
+		int[] keys;
+
+		Integer[] deletions;
+
+		TreeMap<Integer, Integer> empty;
+
+		TreeMap<Integer, Integer> full;
+
+		@Setup(Level.Trial)
+		public void generateKeys() {
+			keys = Workloads.keys(order, size, 42);
+			int[] d = Workloads.shuffled(size, 7);
+			deletions = new Integer[size];
+			for (int i = 0; i < size; i++)
+				deletions[i] = d[i];
+		}
+
+		@Setup(Level.Iteration)
+		public void createMaps() {
+			empty = new TreeMap<Integer, Integer>();
+			full = new TreeMap<Integer, Integer>();
+			for (int key : Workloads.shuffled(size, 42)) {
+				Integer k = key;
+				full.put(k, k);
+			}
+		}
+	}
+
+	/**
+	 * The state for lookups and scans.
+	 */
+	@State(Scope.Benchmark)
+	public static class Lookup {
+
+		@Param({ "1000", "10000", "100000", "1000000", "10000000", "100000000" })
+		public int size;
+
+		@Param({ "100", "10000" })
+		public int length;
+
+		TreeMap<Integer, Integer> map;
+
+		Integer[] hits;
+
+		Integer[] misses;
+
+		int next;
+
+		@Setup(Level.Trial)
+		public void buildMap() {
+			map = new TreeMap<Integer, Integer>();
+			for (int key : Workloads.shuffled(size, 42)) {
+				Integer k = 2 * key;
+				map.put(k, k);
+			}
+			SplittableRandom random = new SplittableRandom(7);
+			hits = new Integer[FindBenchmark.PROBES];
+			misses = new Integer[FindBenchmark.PROBES];
+			for (int i = 0; i < FindBenchmark.PROBES; i++) {
+				int key = random.nextInt(size);
+				hits[i] = 2 * key;
+				misses[i] = 2 * key + 1;
+			}
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public TreeMap<Integer, Integer> insert(Bulk s) {
+		for (int key : s.keys) {
+			Integer k = key;
+			s.empty.put(k, k);
+		}
+		return s.empty;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public TreeMap<Integer, Integer> delete(Bulk s) {
+		for (Integer key : s.deletions)
+			s.full.remove(key);
+		return s.full;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public Integer getHit(Lookup s) {
+		return s.map.get(s.hits[s.next++ & (FindBenchmark.PROBES - 1)]);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public Integer getMiss(Lookup s) {
+		return s.map.get(s.misses[s.next++ & (FindBenchmark.PROBES - 1)]);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public long scan(Lookup s) {
+		Integer start = s.hits[s.next++ & (FindBenchmark.PROBES - 1)];
+		Iterator<Integer> i = s.map.tailMap(start, true).keySet().iterator();
+		long sum = 0;
+		for (int n = 0; n < s.length && i.hasNext(); n++)
+			sum += i.next();
+		return sum;
+	}
+
+}
@@ -0,0 +1,90 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bptree.VectorKeySearch;
+
+/**
+ * Measures a search over the {@code degree - 1} primitive keys of a full node to locate the crossover point between
+ * scalar and SIMD ({@code VectorKeySearch}) search.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorSearchBenchmark {
+
+	/**
+	 * The number of pre-generated probes (a power of two).
+	 */
+	static final int PROBES = 1 << 12;
+
+	@Param({ "4", "8", "16", "32", "64", "128", "256", "512" })
+	public int degree;
+
+	long[] keys;
+
+	long[] probes;
+
+	int next;
+
+	@Setup(Level.Trial)
+	public void generateKeys() {
+		int n = degree - 1;
+		keys = new long[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = 2 * i;
+		SplittableRandom random = new SplittableRandom(7);
+		probes = new long[PROBES];
+		for (int i = 0; i < PROBES; i++)
+			probes[i] = random.nextInt(2 * n + 1);
+	}
+
+	@Benchmark
+	public int scalar() {
+		long key = probes[next++ & (PROBES - 1)];
+		int i = 0;
+		while (i < keys.length && keys[i] < key)
+			i++;
+		return i;
+	}
+
+	@Benchmark
+	public int binary() {
+		long key = probes[next++ & (PROBES - 1)];
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] < key)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	@Benchmark
+	public int vector() {
+		return VectorKeySearch.lowerBound(keys, keys.length, probes[next++ & (PROBES - 1)]);
+	}
+
+}
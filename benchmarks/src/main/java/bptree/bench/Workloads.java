@@ -0,0 +1,150 @@
+package bptree.bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * The {@code Workloads} class generates the key sequences used by the benchmarks.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public final class Workloads {
+
+	/**
+	 * The orders in which keys can be presented to a tree.
+	 */
+	public enum Order {
+		/**
+		 * Keys {@code 0, 1, ..., n - 1} in increasing order.
+		 */
+		SEQUENTIAL,
+		/**
+		 * A random permutation of {@code 0, 1, ..., n - 1}.
+		 */
+		RANDOM,
+		/**
+		 * Keys drawn from {@code 0, 1, ..., n - 1} following a Zipfian distribution (with repetitions).
+		 */
+		ZIPFIAN
+	}
+
+	/**
+	 * The skew used for Zipfian key sequences (the YCSB default).
+	 */
+	public static final double ZIPFIAN_THETA = 0.99;
+
+	private Workloads() {
+	}
+
+	/**
+	 * Returns {@code n} keys in the specified order.
+	 * 
+	 * @param order
+	 *            the order of the keys.
+	 * @param n
+	 *            the number of keys.
+	 * @param seed
+	 *            the seed for the random number generator.
+	 * @return {@code n} keys in the specified order.
+	 */
+	public static int[] keys(Order order, int n, long seed) {
+		switch (order) {
+		case SEQUENTIAL:
+			return sequential(n);
+		case RANDOM:
+			return shuffled(n, seed);
+		default:
+			return zipfian(n, n, ZIPFIAN_THETA, seed);
+		}
+	}
+
+	/**
+	 * Returns the keys {@code 0, 1, ..., n - 1} in increasing order.
+	 * 
+	 * @param n
+	 *            the number of keys.
+	 * @return the keys {@code 0, 1, ..., n - 1} in increasing order.
+	 */
+	public static int[] sequential(int n) {
+		int[] keys = new int[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = i;
+		return keys;
+	}
+
+	/**
+	 * Returns a random permutation of the keys {@code 0, 1, ..., n - 1}.
+	 * 
+	 * @param n
+	 *            the number of keys.
+	 * @param seed
+	 *            the seed for the random number generator.
+	 * @return a random permutation of the keys {@code 0, 1, ..., n - 1}.
+	 */
+	public static int[] shuffled(int n, long seed) {
+		int[] keys = sequential(n);
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int i = n - 1; i > 0; i--) { // Fisher-Yates shuffle
+			int j = random.nextInt(i + 1);
+			int t = keys[i];
+			keys[i] = keys[j];
+			keys[j] = t;
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns {@code count} keys drawn from {@code 0, 1, ..., n - 1} following a Zipfian distribution. The generator
+	 * follows Gray et al., "Quickly Generating Billion-Record Synthetic Databases" (SIGMOD 1994). The popular ranks are
+	 * scattered over the key space so that hot keys do not all sit in the leftmost leaves.
+	 * 
+	 * @param n
+	 *            the number of distinct keys.
+	 * @param count
+	 *            the number of keys to draw.
+	 * @param theta
+	 *            the skew of the distribution (0 &lt; theta &lt; 1).
+	 * @param seed
+	 *            the seed for the random number generator.
+	 * @return {@code count} keys drawn from {@code 0, 1, ..., n - 1}.
+	 */
+	public static int[] zipfian(int n, int count, double theta, long seed) {
+		double zetan = 0;
+		for (int i = 1; i <= n; i++)
+			zetan += 1 / Math.pow(i, theta);
+		double zeta2 = 1 + 1 / Math.pow(2, theta);
+		double alpha = 1 / (1 - theta);
+		double eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetan);
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] keys = new int[count];
+		for (int i = 0; i < count; i++) {
+			double u = random.nextDouble();
+			double uz = u * zetan;
+			long rank;
+			if (uz < 1)
+				rank = 0;
+			else if (uz < zeta2)
+				rank = 1;
+			else
+				rank = (long) (n * Math.pow(eta * u - eta + 1, alpha));
+			keys[i] = (int) Math.floorMod(scramble(Math.min(rank, n - 1)), (long) n);
+		}
+		return keys;
+	}
+
+	/**
+	 * Scrambles the specified rank (FNV-1a over the bytes of the rank).
+	 * 
+	 * @param rank
+	 *            a rank.
+	 * @return the scrambled rank.
+	 */
+	private static long scramble(long rank) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < 8; i++) {
+			h ^= (rank >>> (i * 8)) & 0xff;
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+}
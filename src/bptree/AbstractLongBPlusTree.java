@@ -0,0 +1,460 @@
+package bptree;
+
+/**
+ * The {@code AbstractLongBPlusTree} class implements the structure of B+-trees with primitive {@code long} keys.
+ * Unlike a {@code BPlusTree<Long, V>}, such a tree keeps its keys in {@code long[]} arrays, so that keys are neither
+ * boxed nor compared through {@code compareTo}, and each key comparison reads contiguous memory. Subclasses decide how
+ * values are stored in their {@code LongLeafNode}s (see {@link LongBPlusTree} and {@link LongLongBPlusTree}). As in a
+ * {@code BPlusTree}, a key may be inserted more than once.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public abstract class AbstractLongBPlusTree {
+
+	/**
+	 * The maximum number of pointers that each {@code LongNode} of this {@code AbstractLongBPlusTree} can have.
+	 */
+	protected int degree;
+
+	/**
+	 * The root node of this {@code AbstractLongBPlusTree}; {@code null} if this {@code AbstractLongBPlusTree} is
+	 * empty.
+	 */
+	protected LongNode root;
+
+	/**
+	 * The strategy for searching the keys within each {@code LongNode} of this {@code AbstractLongBPlusTree}.
+	 */
+	protected LongKeySearch search;
+
+	/**
+	 * The number of entries in this {@code AbstractLongBPlusTree}.
+	 */
+	protected int size;
+
+	/**
+	 * The {@code LongNonLeafNode}s visited by the last update, from the root down.
+	 */
+	protected LongNonLeafNode[] path = new LongNonLeafNode[8];
+
+	/**
+	 * The index of the child taken at each {@code LongNonLeafNode} on {@code path}.
+	 */
+	protected int[] slots = new int[8];
+
+	/**
+	 * The number of {@code LongNonLeafNode}s on {@code path}.
+	 */
+	protected int depth;
+
+	/**
+	 * Constructs an {@code AbstractLongBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code LongNode} can have (at least 3).
+	 * @param search
+	 *            the strategy for searching the keys within each {@code LongNode}.
+	 */
+	protected AbstractLongBPlusTree(int degree, LongKeySearch search) {
+		if (degree < 3)
+			throw new IllegalArgumentException("degree must be at least 3: " + degree);
+		this.degree = degree;
+		this.search = search;
+	}
+
+	/**
+	 * Creates an empty {@code LongLeafNode} for this {@code AbstractLongBPlusTree}.
+	 * 
+	 * @return an empty {@code LongLeafNode}.
+	 */
+	protected abstract LongLeafNode newLeafNode();
+
+	/**
+	 * Returns the degree of this {@code AbstractLongBPlusTree}.
+	 * 
+	 * @return the degree of this {@code AbstractLongBPlusTree}.
+	 */
+	public int degree() {
+		return degree;
+	}
+
+	/**
+	 * Returns the root {@code LongNode} of this {@code AbstractLongBPlusTree}.
+	 * 
+	 * @return the root {@code LongNode} of this {@code AbstractLongBPlusTree}; {@code null} if it is empty.
+	 */
+	public LongNode root() {
+		return root;
+	}
+
+	/**
+	 * Returns the strategy for searching the keys within each {@code LongNode} of this {@code AbstractLongBPlusTree}.
+	 * 
+	 * @return the strategy for searching the keys within each {@code LongNode}.
+	 */
+	public LongKeySearch search() {
+		return search;
+	}
+
+	/**
+	 * Returns the number of entries in this {@code AbstractLongBPlusTree}.
+	 * 
+	 * @return the number of entries in this {@code AbstractLongBPlusTree}.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the {@code LongLeafNode} in this {@code AbstractLongBPlusTree} that must be responsible for the specified
+	 * key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the {@code LongLeafNode} that must be responsible for the specified key; {@code null} if this
+	 *         {@code AbstractLongBPlusTree} is empty.
+	 */
+	public LongLeafNode find(long key) {
+		LongNode c = root;
+		while (c instanceof LongNonLeafNode)
+			c = ((LongNonLeafNode) c).child(key);
+		return (LongLeafNode) c;
+	}
+
+	/**
+	 * Finds the {@code LongLeafNode} that holds the first entry with the specified key if there is one (see
+	 * {@link BPlusTree#findFirst(Comparable)}).
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the {@code LongLeafNode} that holds the first entry with the specified key if there is one; {@code null}
+	 *         if this {@code AbstractLongBPlusTree} is empty.
+	 */
+	protected LongLeafNode findFirst(long key) {
+		LongNode c = root;
+		LongNode next = null; // the subtree right of the nearest separator that equals the key, if any
+		while (c instanceof LongNonLeafNode) {
+			LongNonLeafNode p = (LongNonLeafNode) c;
+			int i = search.lowerBound(p.keys, p.numberOfKeys, key);
+			if (i < p.numberOfKeys)
+				next = p.keys[i] == key ? p.children[i + 1] : null;
+			c = p.children[i];
+		}
+		LongLeafNode leaf = (LongLeafNode) c;
+		if (next != null && search.lowerBound(leaf.keys, leaf.numberOfKeys, key) == leaf.numberOfKeys) {
+			for (c = next; c instanceof LongNonLeafNode; c = ((LongNonLeafNode) c).children[0])
+				;
+			leaf = (LongLeafNode) c;
+		}
+		return leaf;
+	}
+
+	/**
+	 * Finds the leftmost {@code LongLeafNode} that may contain the specified key (see
+	 * {@link BPlusTree#findLeftmost(Comparable)}).
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the leftmost {@code LongLeafNode} that may contain the specified key; {@code null} if this
+	 *         {@code AbstractLongBPlusTree} is empty.
+	 */
+	protected LongLeafNode findLeftmost(long key) {
+		LongNode c = root;
+		while (c instanceof LongNonLeafNode) {
+			LongNonLeafNode p = (LongNonLeafNode) c;
+			c = p.children[search.lowerBound(p.keys, p.numberOfKeys, key)];
+		}
+		return (LongLeafNode) c;
+	}
+
+	/**
+	 * Returns the index of the specified key in the specified {@code LongLeafNode}.
+	 * 
+	 * @param leaf
+	 *            a {@code LongLeafNode}; may be {@code null}.
+	 * @param key
+	 *            the search key.
+	 * @return the index of the first occurrence of the key in the {@code LongLeafNode}; -1 if there is none.
+	 */
+	protected int indexOf(LongLeafNode leaf, long key) {
+		if (leaf == null)
+			return -1;
+		int i = search.lowerBound(leaf.keys, leaf.numberOfKeys, key);
+		return i < leaf.numberOfKeys && leaf.keys[i] == key ? i : -1;
+	}
+
+	/**
+	 * Finds the {@code LongLeafNode} that must be responsible for the specified key and records the
+	 * {@code LongNonLeafNode}s visited on the way in {@code path} (see {@link BPlusTree#descend(Comparable)}).
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the {@code LongLeafNode} that must be responsible for the specified key.
+	 */
+	protected LongLeafNode descend(long key) {
+		return descend(key, false);
+	}
+
+	/**
+	 * Finds the {@code LongLeafNode} that must be responsible for the specified key, or the one that holds the first
+	 * entry with the key as {@link #findFirst(long)} does, and records the {@code LongNonLeafNode}s visited on the way
+	 * in {@code path}.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @param first
+	 *            a flag indicating whether to find the first entry with the key, as removals do, rather than where a
+	 *            new entry with the key goes.
+	 * @return the {@code LongLeafNode} reached.
+	 */
+	protected LongLeafNode descend(long key, boolean first) {
+		depth = 0;
+		LongNode c = root;
+		while (c instanceof LongNonLeafNode) {
+			LongNonLeafNode p = (LongNonLeafNode) c;
+			int i = first ? search.lowerBound(p.keys, p.numberOfKeys, key)
+					: search.upperBound(p.keys, p.numberOfKeys, key);
+			c = push(p, i);
+		}
+		LongLeafNode leaf = (LongLeafNode) c;
+		if (first && search.lowerBound(leaf.keys, leaf.numberOfKeys, key) == leaf.numberOfKeys) {
+			int l = depth - 1;
+			while (l >= 0 && slots[l] == path[l].numberOfKeys)
+				l--;
+			if (l >= 0 && path[l].keys[slots[l]] == key) { // if the separator to the right equals the key
+				depth = l;
+				for (c = push(path[l], slots[l] + 1); c instanceof LongNonLeafNode; c = push((LongNonLeafNode) c, 0))
+					;
+				leaf = (LongLeafNode) c;
+			}
+		}
+		return leaf;
+	}
+
+	/**
+	 * Appends the specified {@code LongNonLeafNode} and the index of a child to {@code path}.
+	 * 
+	 * @param p
+	 *            a {@code LongNonLeafNode}.
+	 * @param i
+	 *            the index of the child to descend to.
+	 * @return the child at the specified index.
+	 */
+	LongNode push(LongNonLeafNode p, int i) {
+		if (depth == path.length) { // if the tree has grown taller than the path
+			path = java.util.Arrays.copyOf(path, 2 * depth);
+			slots = java.util.Arrays.copyOf(slots, 2 * depth);
+		}
+		path[depth] = p;
+		slots[depth++] = i;
+		return p.children[i];
+	}
+
+	/**
+	 * The position of the entry added by the last {@link #insertKey(long)}.
+	 */
+	protected int position;
+
+	/**
+	 * Inserts the specified key into this {@code AbstractLongBPlusTree}, splitting {@code LongNode}s as needed. The
+	 * caller then stores the value at index {@code position} of the returned {@code LongLeafNode}.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @return the {@code LongLeafNode} that received the key.
+	 */
+	protected LongLeafNode insertKey(long key) {
+		LongLeafNode leaf;
+		if (root == null) {
+			leaf = newLeafNode();
+			root = leaf;
+			depth = 0;
+		} else
+			leaf = descend(key);
+		int i = search.upperBound(leaf.keys, leaf.numberOfKeys, key);
+		size++;
+		if (leaf.hasRoom()) {
+			leaf.insertKey(key, i);
+			position = i;
+			return leaf;
+		}
+		LongLeafNode sibling = newLeafNode();
+		int m = (degree + 1) / 2; // compute the split point
+		leaf.split(key, i, m, sibling);
+		insertInParent(depth - 1, leaf, sibling.keys[0], sibling);
+		if (i < m) {
+			position = i;
+			return leaf;
+		}
+		position = i - m;
+		return sibling;
+	}
+
+	/**
+	 * Inserts a pointer to a new {@code LongNode} right after the specified {@code LongNode}.
+	 * 
+	 * @param level
+	 *            the position on {@code path} of the parent of {@code n}; -1 if {@code n} is the root.
+	 * @param n
+	 *            a {@code LongNode}.
+	 * @param key
+	 *            the key that separates the {@code LongNode}s.
+	 * @param nn
+	 *            the new {@code LongNode}.
+	 */
+	void insertInParent(int level, LongNode n, long key, LongNode nn) {
+		if (level < 0) { // if the root was split
+			LongNonLeafNode r = new LongNonLeafNode(degree, search);
+			r.keys[0] = key;
+			r.children[0] = n;
+			r.children[1] = nn;
+			r.numberOfKeys = 1;
+			root = r;
+			return;
+		}
+		LongNonLeafNode p = path[level];
+		int i = slots[level]; // the index of n in p
+		if (p.hasRoom()) {
+			p.insertAfter(key, nn, i);
+		} else {
+			LongNonLeafNode np = new LongNonLeafNode(degree, search);
+			long middle = p.split(key, nn, i, (degree + 1) / 2, np);
+			insertInParent(level - 1, p, middle, np);
+		}
+	}
+
+	/**
+	 * Removes the entry at the specified index of the specified {@code LongLeafNode}, which must have been returned by
+	 * the last {@link #descend(long)}. Underfull {@code LongNode}s borrow an entry from a sibling under the same
+	 * parent or are merged with it, from the {@code LongLeafNode} up along the recorded path.
+	 * 
+	 * @param leaf
+	 *            the {@code LongLeafNode} returned by the last {@link #descend(long)}.
+	 * @param i
+	 *            the index of the entry to remove.
+	 */
+	protected void removeAt(LongLeafNode leaf, int i) {
+		leaf.remove(i);
+		size--;
+		if (depth == 0) { // if the leaf is the root
+			if (leaf.numberOfKeys == 0)
+				root = null;
+			return;
+		}
+		int minimum = degree / 2; // the minimum number of keys in a leaf node
+		if (leaf.numberOfKeys >= minimum)
+			return;
+		LongNonLeafNode p = path[depth - 1];
+		int s = slots[depth - 1];
+		LongLeafNode left = s > 0 ? (LongLeafNode) p.children[s - 1] : null;
+		LongLeafNode right = s < p.numberOfKeys ? (LongLeafNode) p.children[s + 1] : null;
+		if (left != null && left.numberOfKeys > minimum) { // if the left sibling can lend an entry
+			left.moveTo(left.numberOfKeys - 1, left.numberOfKeys, leaf, 0);
+			p.keys[s - 1] = leaf.keys[0];
+		} else if (right != null && right.numberOfKeys > minimum) { // if the right sibling can lend an entry
+			right.moveTo(0, 1, leaf, leaf.numberOfKeys);
+			p.keys[s] = right.keys[0];
+		} else if (left != null) { // merge the leaf into the left sibling
+			leaf.moveTo(0, leaf.numberOfKeys, left, left.numberOfKeys);
+			left.successor = leaf.successor;
+			removeInParent(depth - 1, s - 1);
+		} else { // merge the right sibling into the leaf
+			right.moveTo(0, right.numberOfKeys, leaf, leaf.numberOfKeys);
+			leaf.successor = right.successor;
+			removeInParent(depth - 1, s);
+		}
+	}
+
+	/**
+	 * Removes the key at the specified index and the child that follows it from the {@code LongNonLeafNode} at the
+	 * specified position on {@code path}, rebalancing that {@code LongNonLeafNode} if it becomes underfull.
+	 * 
+	 * @param level
+	 *            the position on {@code path} of the {@code LongNonLeafNode}.
+	 * @param i
+	 *            the index of the key to remove.
+	 */
+	void removeInParent(int level, int i) {
+		LongNonLeafNode n = path[level];
+		n.removeAfter(i);
+		if (level == 0) { // if n is the root
+			if (n.numberOfKeys == 0)
+				root = n.children[0];
+			return;
+		}
+		int minimum = (degree + 1) / 2 - 1; // the minimum number of keys in a non-leaf node
+		if (n.numberOfKeys >= minimum)
+			return;
+		LongNonLeafNode p = path[level - 1];
+		int s = slots[level - 1];
+		LongNonLeafNode left = s > 0 ? (LongNonLeafNode) p.children[s - 1] : null;
+		LongNonLeafNode right = s < p.numberOfKeys ? (LongNonLeafNode) p.children[s + 1] : null;
+		if (left != null && left.numberOfKeys > minimum) { // rotate the last child of the left sibling
+			System.arraycopy(n.keys, 0, n.keys, 1, n.numberOfKeys);
+			System.arraycopy(n.children, 0, n.children, 1, n.numberOfKeys + 1);
+			n.keys[0] = p.keys[s - 1];
+			n.children[0] = left.children[left.numberOfKeys];
+			n.numberOfKeys++;
+			p.keys[s - 1] = left.keys[left.numberOfKeys - 1];
+			left.children[left.numberOfKeys] = null;
+			left.numberOfKeys--;
+		} else if (right != null && right.numberOfKeys > minimum) { // rotate the first child of the right sibling
+			n.keys[n.numberOfKeys] = p.keys[s];
+			n.children[n.numberOfKeys + 1] = right.children[0];
+			n.numberOfKeys++;
+			p.keys[s] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.numberOfKeys - 1);
+			System.arraycopy(right.children, 1, right.children, 0, right.numberOfKeys);
+			right.children[right.numberOfKeys] = null;
+			right.numberOfKeys--;
+		} else if (left != null) { // merge n into the left sibling
+			merge(left, p.keys[s - 1], n);
+			removeInParent(level - 1, s - 1);
+		} else { // merge the right sibling into n
+			merge(n, p.keys[s], right);
+			removeInParent(level - 1, s);
+		}
+	}
+
+	/**
+	 * Appends the specified separator and the contents of the right {@code LongNonLeafNode} to the left one.
+	 * 
+	 * @param left
+	 *            the left {@code LongNonLeafNode}.
+	 * @param separator
+	 *            the key that separated the {@code LongNonLeafNode}s in their parent.
+	 * @param right
+	 *            the right {@code LongNonLeafNode}.
+	 */
+	static void merge(LongNonLeafNode left, long separator, LongNonLeafNode right) {
+		int n = left.numberOfKeys;
+		left.keys[n] = separator;
+		System.arraycopy(right.keys, 0, left.keys, n + 1, right.numberOfKeys);
+		System.arraycopy(right.children, 0, left.children, n + 1, right.numberOfKeys + 1);
+		left.numberOfKeys += right.numberOfKeys + 1;
+	}
+
+	/**
+	 * Returns the {@code LongLeafNode} and the index at which a range starting at the specified key begins. The index
+	 * is stored in {@code position}.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys.
+	 * @param fromInclusive
+	 *            a flag indicating whether or not the lower bound is inclusive.
+	 * @return the {@code LongLeafNode} containing the first entry in the range; {@code null} if this
+	 *         {@code AbstractLongBPlusTree} is empty.
+	 */
+	protected LongLeafNode seek(long from, boolean fromInclusive) {
+		LongLeafNode leaf;
+		if (fromInclusive) {
+			leaf = findLeftmost(from);
+			position = leaf == null ? 0 : search.lowerBound(leaf.keys, leaf.numberOfKeys, from);
+		} else {
+			leaf = find(from);
+			position = leaf == null ? 0 : search.upperBound(leaf.keys, leaf.numberOfKeys, from);
+		}
+		return leaf;
+	}
+
+}
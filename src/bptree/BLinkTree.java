@@ -0,0 +1,805 @@
+package bptree;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The {@code BLinkTree} class implements B-link trees (Lehman and Yao), i.e., B+-trees in which every {@code Node}
+ * has a high key, an upper bound on the keys it covers, and a link to its right sibling at the same level. When a
+ * {@code Node} splits, its upper half moves to a new right sibling before the parent learns about the sibling, so a
+ * search that arrives at a {@code Node} whose high key is not greater than the search key simply moves right. Since a
+ * run of equal keys may be longer than a {@code Node}, a split may leave copies of its new high key on both sides:
+ * the keys of a {@code Node} are at most its high key and those of its right sibling at least that key. Insertions
+ * therefore move right at a high key equal to their key, while lookups and deletions descend to the leftmost
+ * {@code Node} that may hold the key and move right at an equal high key only if the {@code Node} holds no copy.
+ *
+ * Lookups take no latches: each {@code Node} has a {@code StampedLock}, and a lookup reads a {@code Node} under an
+ * optimistic stamp and retries (under a shared lock if the {@code Node} is being modified) only if the stamp is
+ * invalidated. A lookup therefore waits at most for the single {@code Node} it is reading, never for a split cascade.
+ * Updates descend the same way and lock only the {@code Node}s they modify: the {@code LeafNode}, and during a split
+ * the parent, which is locked before the child is released. Locks are acquired bottom-up and left to right, so there
+ * are no deadlocks. Deletions are lazy: they remove entries from {@code LeafNode}s but never merge {@code Node}s.
+ *
+ * Cursors and streams ({@link #range(Comparable, boolean, Comparable, boolean)} and
+ * {@link #rangeStream(Comparable, boolean, Comparable, boolean)}) take no locks and must not be used while the tree is
+ * being updated, and {@link #bulkLoad(java.util.Iterator, double)} must not run concurrently with other operations.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class BLinkTree<K extends Comparable<K>, V> extends BPlusTree<K, V> {
+
+	/**
+	 * The handle for reading and publishing {@code root} with acquire/release semantics.
+	 */
+	static final VarHandle ROOT;
+
+	static {
+		try {
+			ROOT = MethodHandles.lookup().findVarHandle(BPlusTree.class, "root", Node.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The value returned by a lookup that finds no entry.
+	 */
+	static final Object NOT_FOUND = new Object();
+
+	/**
+	 * Constructs an empty {@code BLinkTree} that chooses the {@code KeySearch} strategy from its degree.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code BLinkTree} can have.
+	 */
+	public BLinkTree(int degree) {
+		this(degree, KeySearch.forDegree(degree));
+	}
+
+	/**
+	 * Constructs an empty {@code BLinkTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code BLinkTree} can have.
+	 * @param search
+	 *            the strategy for searching the keys within each {@code Node} of this {@code BLinkTree}.
+	 */
+	public BLinkTree(int degree, KeySearch search) {
+		super(degree, search);
+		this.root = newLeafNode(); // the root is never null, so that lookups need not synchronize on it
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(K key) {
+		Node<K> n = top();
+		while (n instanceof Inner)
+			n = next((Inner<K>) n, key, true);
+		Leaf<K, V> leaf = (Leaf<K, V>) n;
+		while (true) {
+			Leaf<K, V> right = null;
+			Object value = NOT_FOUND;
+			long stamp = leaf.lock.tryOptimisticRead();
+			boolean locked = false;
+			while (true) {
+				try {
+					int i = search.lowerBound(leaf.keys, leaf.numberOfKeys, key);
+					if (i == leaf.numberOfKeys && leaf.highKey != null && key.compareTo(leaf.highKey) >= 0) {
+						right = (Leaf<K, V>) leaf.successor(); // if the key can only be in the right sibling
+					} else {
+						right = null;
+						value = i < leaf.numberOfKeys && key.compareTo(leaf.keys[i]) == 0 ? leaf.pointers[i]
+								: NOT_FOUND;
+					}
+				} catch (RuntimeException e) { // if the leaf was read while being modified
+					if (locked)
+						throw e;
+				}
+				if (locked) {
+					leaf.lock.unlockRead(stamp);
+					break;
+				}
+				if (stamp != 0 && leaf.lock.validate(stamp))
+					break;
+				stamp = leaf.lock.readLock(); // wait until the leaf is modified
+				locked = true;
+			}
+			if (right == null)
+				return value == NOT_FOUND ? null : (V) value;
+			leaf = right;
+		}
+	}
+
+	/**
+	 * Inserts the specified key and the value into this {@code BLinkTree}.
+	 *
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void insert(K key, V value) {
+		Node<K> n = top();
+		Inner<K>[] path = (Inner<K>[]) new Inner[level(n) + 1]; // the node visited at each level
+		while (n instanceof Inner) {
+			Inner<K> p = (Inner<K>) n;
+			n = next(p, key);
+			if (level(n) < p.level) // if moved down rather than right
+				path[p.level] = p;
+		}
+		Leaf<K, V> leaf = (Leaf<K, V>) lockCovering(n, key);
+		if (leaf.hasRoom()) {
+			leaf.insert(key, value);
+			leaf.lock.tryUnlockWrite();
+			return;
+		}
+		Leaf<K, V> sibling = (Leaf<K, V>) newLeafNode();
+		leaf.split(key, value, (int) Math.ceil(degree / 2.0), sibling); // links the sibling to the right of the leaf
+		sibling.highKey = leaf.highKey;
+		leaf.highKey = sibling.firstKey();
+		insertInParent(path, leaf, leaf.highKey, sibling);
+	}
+
+	/**
+	 * Removes an entry with the specified key from this {@code BLinkTree}. The {@code LeafNode} is never merged with
+	 * its siblings, even if it becomes empty.
+	 *
+	 * @param key
+	 *            the key to remove.
+	 * @return the value of the removed entry; {@code null} if this {@code BLinkTree} has no such key.
+	 */
+	@Override
+	public V remove(K key) {
+		Node<K> n = top();
+		while (n instanceof Inner)
+			n = next((Inner<K>) n, key, true);
+		Leaf<K, V> leaf = lockFirst(n, key);
+		V value = null;
+		int i = leaf.findIndexGE(key);
+		if (i >= 0 && key.compareTo(leaf.keys[i]) == 0) {
+			value = leaf.value(i);
+			leaf.remove(i);
+		}
+		leaf.lock.tryUnlockWrite();
+		return value;
+	}
+
+	/**
+	 * Removes the entry with the specified key and value from this {@code BLinkTree}, rather than an arbitrary entry
+	 * with the key. The copies of the key are searched from the first one, moving right while they may continue in the
+	 * right sibling. Values are compared with {@code equals}.
+	 *
+	 * @param key
+	 *            the key to remove.
+	 * @param value
+	 *            the value to remove.
+	 * @return {@code true} if an entry has been removed; {@code false} if this {@code BLinkTree} has no such entry.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean remove(K key, V value) {
+		Node<K> n = top();
+		while (n instanceof Inner)
+			n = next((Inner<K>) n, key, true);
+		Leaf<K, V> leaf = lockFirst(n, key);
+		int i = search.lowerBound(leaf.keys, leaf.numberOfKeys, key);
+		while (true) {
+			for (; i < leaf.numberOfKeys && key.compareTo(leaf.keys[i]) == 0; i++)
+				if (java.util.Objects.equals(value, leaf.pointers[i])) {
+					leaf.remove(i);
+					leaf.lock.tryUnlockWrite();
+					return true;
+				}
+			if (i < leaf.numberOfKeys || leaf.highKey == null || key.compareTo(leaf.highKey) < 0) { // if no more copies
+				leaf.lock.tryUnlockWrite();
+				return false;
+			}
+			Leaf<K, V> right = (Leaf<K, V>) leaf.successor();
+			right.lock.writeLock();
+			leaf.lock.tryUnlockWrite();
+			leaf = right;
+			i = 0;
+		}
+	}
+
+	/**
+	 * Looks up the specified keys one by one with {@link #get(Comparable)}, each without latches, so that the lookups
+	 * are safe while this {@code BLinkTree} is being updated.
+	 *
+	 * @param keys
+	 *            the search keys.
+	 * @param out
+	 *            the array that receives the values; at least as long as {@code keys}.
+	 */
+	@Override
+	public void getAll(K[] keys, V[] out) {
+		for (int i = 0; i < keys.length; i++)
+			out[i] = get(keys[i]);
+	}
+
+	/**
+	 * Inserts the specified entries into this {@code BLinkTree}. The entries are sorted by key, and each run of entries
+	 * that falls below the high key of the {@code Leaf} responsible for its first entry, and fits into it, is merged
+	 * into that {@code Leaf} under one lock. Entries that need a split are inserted one by one.
+	 *
+	 * @param entries
+	 *            the entries to insert.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void insertAll(java.util.Collection<? extends java.util.Map.Entry<? extends K, ? extends V>> entries) {
+		Object[] values = new Object[entries.size()];
+		K[] keys = sort(entries, values);
+		for (int i = 0; i < keys.length;) {
+			Node<K> n = top();
+			while (n instanceof Inner)
+				n = next((Inner<K>) n, keys[i]);
+			Leaf<K, V> leaf = (Leaf<K, V>) lockCovering(n, keys[i]);
+			int room = leaf.keys.length - leaf.numberOfKeys;
+			int j = i;
+			while (j < keys.length && j - i < room && (leaf.highKey == null || keys[j].compareTo(leaf.highKey) < 0))
+				j++;
+			if (j > i)
+				leaf.insertAll(keys, values, i, j);
+			leaf.lock.tryUnlockWrite();
+			if (j == i) { // if a split is needed
+				insert(keys[i], (V) values[i]);
+				j++;
+			}
+			i = j;
+		}
+	}
+
+	/**
+	 * Deletes one entry for each of the specified keys from this {@code BLinkTree}. The keys are sorted, and the
+	 * entries of each {@code Leaf} are removed in one pass under one lock. The {@code Leaf} is the one that holds the
+	 * first entry with the first key of the pass, and the pass takes the following keys that are less than its high
+	 * key, whose entries can only be in that {@code Leaf}.
+	 *
+	 * @param keys
+	 *            the keys to delete.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void deleteAll(java.util.Collection<? extends K> keys) {
+		K[] sorted = keys.toArray((K[]) new Comparable[keys.size()]);
+		java.util.Arrays.sort(sorted);
+		for (int i = 0; i < sorted.length;) {
+			Node<K> n = top();
+			while (n instanceof Inner)
+				n = next((Inner<K>) n, sorted[i], true);
+			Leaf<K, V> leaf = lockFirst(n, sorted[i]);
+			int j = i + 1;
+			while (j < sorted.length && (leaf.highKey == null || sorted[j].compareTo(leaf.highKey) < 0))
+				j++;
+			leaf.removeAll(sorted, i, j);
+			leaf.lock.tryUnlockWrite();
+			i = j;
+		}
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the entries of this {@code BLinkTree} whose keys are greater than or equal to
+	 * {@code from} and less than {@code to}, in key order. Unlike a {@code Cursor}, the {@code Iterator} can be used
+	 * while the tree is being updated: it copies one {@code LeafNode} at a time under an optimistic stamp and continues
+	 * at the right link with the high key of the copied {@code LeafNode} as its new lower bound, so entries that a
+	 * concurrent split moves to the right are not returned twice. The {@code Iterator} is weakly consistent: it may or
+	 * may not reflect updates made after it was created.
+	 *
+	 * @param from
+	 *            the lower bound of the keys, inclusive; {@code null} if unbounded.
+	 * @param to
+	 *            the upper bound of the keys, exclusive; {@code null} if unbounded.
+	 * @return an {@code Iterator} over the entries of this {@code BLinkTree} whose keys are within the specified range.
+	 */
+	@SuppressWarnings("unchecked")
+	public java.util.Iterator<java.util.Map.Entry<K, V>> entries(K from, K to) {
+		Node<K> n = top();
+		while (n instanceof Inner) // the first child of an inner node never changes since nodes are never merged
+			n = from == null ? (Node<K>) n.pointers[0] : next((Inner<K>) n, from, true);
+		return new Scan((Leaf<K, V>) n, from, to);
+	}
+
+	/**
+	 * Throws an {@code UnsupportedOperationException}: the {@code Node}s of a {@code BLinkTree} are never merged, since
+	 * lock-free readers may still be moving right through them.
+	 */
+	@Override
+	public boolean compact(double fillFactor, int nodes) {
+		throw new UnsupportedOperationException("BLinkTree nodes are never merged");
+	}
+
+	/**
+	 * Replaces the contents of this {@code BLinkTree} with the specified entries, which must be given in key order, and
+	 * then sets the high keys and right links of the new {@code Node}s. This method must not run concurrently with
+	 * other operations.
+	 */
+	@Override
+	public void bulkLoad(java.util.Iterator<? extends java.util.Map.Entry<? extends K, ? extends V>> entries,
+			double fillFactor) {
+		super.bulkLoad(entries, fillFactor);
+		if (root == null)
+			root = newLeafNode();
+		else
+			link(root, null, new java.util.ArrayList<Inner<K>>());
+		ROOT.setRelease(this, root);
+	}
+
+	/**
+	 * Sets the high keys, right links and levels of the specified {@code Node} and its descendants.
+	 *
+	 * @param node
+	 *            a {@code Node}.
+	 * @param highKey
+	 *            the high key of the {@code Node}; {@code null} if it is the rightmost {@code Node} of its level.
+	 * @param last
+	 *            the rightmost {@code Inner} linked so far at each level.
+	 * @return the level of the {@code Node}.
+	 */
+	@SuppressWarnings("unchecked")
+	int link(Node<K> node, K highKey, java.util.ArrayList<Inner<K>> last) {
+		if (node instanceof Leaf) { // leaves are already chained
+			((Leaf<K, V>) node).highKey = highKey;
+			return 0;
+		}
+		Inner<K> p = (Inner<K>) node;
+		int level = 0;
+		for (int i = 0; i <= p.numberOfKeys; i++)
+			level = link(p.child(i), i < p.numberOfKeys ? p.keys[i] : highKey, last) + 1;
+		p.level = level;
+		p.highKey = highKey;
+		while (last.size() <= level)
+			last.add(null);
+		if (last.get(level) != null)
+			last.get(level).right = p;
+		last.set(level, p);
+		return level;
+	}
+
+	/**
+	 * Inserts the specified separator and new right sibling of the specified {@code Node} into the parent of the
+	 * {@code Node}, splitting ancestors as needed. The {@code Node} must be locked; its lock is released once the
+	 * parent is locked.
+	 *
+	 * @param path
+	 *            the {@code Inner} visited at each level on the way down.
+	 * @param n
+	 *            the {@code Node} that has been split.
+	 * @param separator
+	 *            the key that separates the {@code Node} from its new sibling.
+	 * @param nn
+	 *            the new sibling.
+	 */
+	void insertInParent(Inner<K>[] path, Node<K> n, K separator, Node<K> nn) {
+		while (true) {
+			int level = level(n);
+			if (top() == n) { // if the root was split (only the holder of the lock on the root can replace it)
+				Inner<K> r = (Inner<K>) newNonLeafNode();
+				r.level = level + 1;
+				r.insert(separator, n, 0);
+				r.pointers[1] = nn;
+				ROOT.setRelease(this, r);
+				lock(n).tryUnlockWrite();
+				return;
+			}
+			Inner<K> p = level + 1 < path.length ? path[level + 1] : null;
+			if (p == null) // if the tree has grown taller since the descent
+				p = leftmost(level + 1);
+			p.lock.writeLock();
+			int i;
+			while ((i = indexOf(p, n, separator)) < 0) { // move right until the parent of n, which never moves left
+				Inner<K> right = p.right;
+				right.lock.writeLock();
+				p.lock.tryUnlockWrite();
+				p = right;
+			}
+			lock(n).tryUnlockWrite();
+			if (p.hasRoom()) {
+				p.insertAfter(separator, nn, i);
+				p.lock.tryUnlockWrite();
+				return;
+			}
+			Inner<K> np = (Inner<K>) newNonLeafNode();
+			np.level = p.level;
+			K middle = p.split(separator, nn, i, (int) Math.ceil(degree / 2.0), np);
+			np.highKey = p.highKey;
+			np.right = p.right;
+			p.highKey = middle;
+			p.right = np;
+			n = p;
+			separator = middle;
+			nn = np;
+		}
+	}
+
+	/**
+	 * Returns the leftmost {@code Inner} at the specified level. Since {@code Node}s are never merged, the parent of any
+	 * {@code Node} at the level below is this {@code Inner} or to its right.
+	 *
+	 * @param level
+	 *            the target level.
+	 * @return the leftmost {@code Inner} at the specified level.
+	 */
+	@SuppressWarnings("unchecked")
+	Inner<K> leftmost(int level) {
+		Node<K> n = top();
+		while (level(n) > level)
+			n = (Node<K>) n.pointers[0];
+		return (Inner<K>) n;
+	}
+
+	/**
+	 * Returns the index of the specified child in the specified locked {@code Inner}. The child is looked for next to
+	 * the separator first, and then among all the pointers, since duplicates of the separator may put it elsewhere.
+	 *
+	 * @param p
+	 *            an {@code Inner}.
+	 * @param child
+	 *            a {@code Node}.
+	 * @param separator
+	 *            the key that separates the child from its new sibling.
+	 * @return the index of the child in the {@code Inner}; -1 if the child is not in the {@code Inner}.
+	 */
+	int indexOf(Inner<K> p, Node<K> child, K separator) {
+		int i = search.upperBound(p.keys, p.numberOfKeys, separator);
+		if (p.pointers[i] == child)
+			return i;
+		for (i = 0; i <= p.numberOfKeys; i++)
+			if (p.pointers[i] == child)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Reads the specified {@code Inner} without locking it and returns the {@code Node} to visit next for inserting
+	 * the specified key: the right sibling if the key is not less than the high key, or otherwise the responsible
+	 * child.
+	 *
+	 * @param p
+	 *            an {@code Inner}.
+	 * @param key
+	 *            the search key.
+	 * @return the {@code Node} to visit next.
+	 */
+	Node<K> next(Inner<K> p, K key) {
+		return next(p, key, false);
+	}
+
+	/**
+	 * Reads the specified {@code Inner} without locking it and returns the {@code Node} to visit next for the
+	 * specified key. To insert the key, that is the right sibling if the key is not less than the high key, or
+	 * otherwise the child right of the separators equal to the key. To find the first entry with the key, that is the
+	 * right sibling only if the key is greater than the high key, and otherwise the child left of the separators equal
+	 * to the key, since copies of a separator may be on both sides of it.
+	 *
+	 * @param p
+	 *            an {@code Inner}.
+	 * @param key
+	 *            the search key.
+	 * @param first
+	 *            a flag indicating whether or not to go to the first entry with the key.
+	 * @return the {@code Node} to visit next.
+	 */
+	@SuppressWarnings("unchecked")
+	Node<K> next(Inner<K> p, K key, boolean first) {
+		long stamp = p.lock.tryOptimisticRead();
+		boolean locked = false;
+		Node<K> next = null;
+		while (true) {
+			try {
+				int c = p.highKey == null ? -1 : key.compareTo(p.highKey);
+				if (c > 0 || c == 0 && !first)
+					next = p.right;
+				else
+					next = (Node<K>) p.pointers[first ? search.lowerBound(p.keys, p.numberOfKeys, key)
+							: search.upperBound(p.keys, p.numberOfKeys, key)];
+			} catch (RuntimeException e) { // if the node was read while being modified
+				if (locked)
+					throw e;
+			}
+			if (locked) {
+				p.lock.unlockRead(stamp);
+				return next;
+			}
+			if (stamp != 0 && p.lock.validate(stamp) && next != null)
+				return next;
+			stamp = p.lock.readLock(); // wait until the node is modified
+			locked = true;
+		}
+	}
+
+	/**
+	 * Locks the specified {@code Node} exclusively and moves right, locking each right sibling before unlocking its
+	 * left sibling, until it reaches the {@code Node} that covers the specified key.
+	 *
+	 * @param n
+	 *            a {@code Node} at or to the left of the {@code Node} covering the key.
+	 * @param key
+	 *            the search key.
+	 * @return the {@code Node} that covers the specified key, locked exclusively.
+	 */
+	@SuppressWarnings("unchecked")
+	Node<K> lockCovering(Node<K> n, K key) {
+		lock(n).writeLock();
+		while (true) {
+			K highKey = n instanceof Leaf ? ((Leaf<K, V>) n).highKey : ((Inner<K>) n).highKey;
+			if (highKey == null || key.compareTo(highKey) < 0)
+				return n;
+			Node<K> right = n instanceof Leaf ? ((Leaf<K, V>) n).successor() : ((Inner<K>) n).right;
+			lock(right).writeLock();
+			lock(n).tryUnlockWrite();
+			n = right;
+		}
+	}
+
+	/**
+	 * Locks the specified {@code Leaf} exclusively and moves right, locking each right sibling before unlocking its
+	 * left sibling, until it reaches the {@code Leaf} that holds the first entry with the specified key if there is
+	 * one: a {@code Leaf} is passed only if it holds no key greater than or equal to the key and the key is not less
+	 * than its high key.
+	 *
+	 * @param n
+	 *            a {@code Leaf} at or to the left of the {@code Leaf} holding the first entry with the key.
+	 * @param key
+	 *            the search key.
+	 * @return the {@code Leaf} that holds the first entry with the specified key if there is one, locked exclusively.
+	 */
+	@SuppressWarnings("unchecked")
+	Leaf<K, V> lockFirst(Node<K> n, K key) {
+		Leaf<K, V> leaf = (Leaf<K, V>) n;
+		leaf.lock.writeLock();
+		while (leaf.highKey != null && key.compareTo(leaf.highKey) >= 0
+				&& search.lowerBound(leaf.keys, leaf.numberOfKeys, key) == leaf.numberOfKeys) {
+			Leaf<K, V> right = (Leaf<K, V>) leaf.successor();
+			right.lock.writeLock();
+			leaf.lock.tryUnlockWrite();
+			leaf = right;
+		}
+		return leaf;
+	}
+
+	/**
+	 * Returns the root {@code Node} of this {@code BLinkTree} with acquire semantics.
+	 *
+	 * @return the root {@code Node} of this {@code BLinkTree}.
+	 */
+	@SuppressWarnings("unchecked")
+	Node<K> top() {
+		return (Node<K>) ROOT.getAcquire(this);
+	}
+
+	/**
+	 * Returns the level of the specified {@code Node}.
+	 *
+	 * @param n
+	 *            a {@code Node} of a {@code BLinkTree}.
+	 * @return 0 if the {@code Node} is a {@code LeafNode}; the level of the {@code Inner} otherwise.
+	 */
+	static int level(Node<?> n) {
+		return n instanceof Inner ? ((Inner<?>) n).level : 0;
+	}
+
+	/**
+	 * Returns the lock of the specified {@code Node}.
+	 *
+	 * @param n
+	 *            a {@code Node} of a {@code BLinkTree}.
+	 * @return the lock of the specified {@code Node}.
+	 */
+	static StampedLock lock(Node<?> n) {
+		return n instanceof Leaf ? ((Leaf<?, ?>) n).lock : ((Inner<?>) n).lock;
+	}
+
+	@Override
+	protected LeafNode<K, V> newLeafNode() {
+		return new Leaf<K, V>(degree, search);
+	}
+
+	@Override
+	protected NonLeafNode<K> newNonLeafNode() {
+		return new Inner<K>(degree, search);
+	}
+
+	/**
+	 * A {@code Scan} iterates over a range of entries by copying one {@code Leaf} at a time.
+	 */
+	class Scan implements java.util.Iterator<java.util.Map.Entry<K, V>> {
+
+		/**
+		 * The {@code Leaf} to copy next; {@code null} if there is none.
+		 */
+		Leaf<K, V> leaf;
+
+		/**
+		 * The lower bound (inclusive) of the keys to return from the next {@code Leaf}; {@code null} if unbounded.
+		 */
+		K lower;
+
+		/**
+		 * The upper bound (exclusive) of the keys; {@code null} if unbounded.
+		 */
+		K to;
+
+		/**
+		 * The keys copied from the last {@code Leaf}.
+		 */
+		K[] keys;
+
+		/**
+		 * The values copied from the last {@code Leaf}.
+		 */
+		Object[] values;
+
+		/**
+		 * The number of entries copied from the last {@code Leaf}.
+		 */
+		int count;
+
+		/**
+		 * The index of the next entry to return.
+		 */
+		int index;
+
+		/**
+		 * Constructs a {@code Scan}.
+		 *
+		 * @param leaf
+		 *            the {@code Leaf} at or to the left of the {@code Leaf} covering the lower bound.
+		 * @param from
+		 *            the lower bound of the keys, inclusive; {@code null} if unbounded.
+		 * @param to
+		 *            the upper bound of the keys, exclusive; {@code null} if unbounded.
+		 */
+		@SuppressWarnings("unchecked")
+		Scan(Leaf<K, V> leaf, K from, K to) {
+			this.leaf = leaf;
+			this.lower = from;
+			this.to = to;
+			this.keys = (K[]) new Comparable[degree - 1];
+			this.values = new Object[degree - 1];
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (index >= count) { // if the copy is exhausted
+				if (leaf == null)
+					return false;
+				copy();
+			}
+			if (to != null && keys[index].compareTo(to) >= 0) { // if past the upper bound
+				leaf = null;
+				count = 0;
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public java.util.Map.Entry<K, V> next() {
+			if (!hasNext())
+				throw new java.util.NoSuchElementException();
+			java.util.Map.Entry<K, V> e = new java.util.AbstractMap.SimpleImmutableEntry<K, V>(keys[index],
+					(V) values[index]);
+			index++;
+			return e;
+		}
+
+		/**
+		 * Copies the entries of {@code leaf} and moves to its right link.
+		 */
+		@SuppressWarnings("unchecked")
+		void copy() {
+			long stamp = leaf.lock.tryOptimisticRead();
+			boolean locked = false;
+			K highKey;
+			Leaf<K, V> right;
+			while (true) {
+				count = leaf.numberOfKeys;
+				System.arraycopy(leaf.keys, 0, keys, 0, count);
+				System.arraycopy(leaf.pointers, 0, values, 0, count);
+				highKey = leaf.highKey;
+				right = (Leaf<K, V>) leaf.successor();
+				if (locked) {
+					leaf.lock.unlockRead(stamp);
+					break;
+				}
+				if (stamp != 0 && leaf.lock.validate(stamp))
+					break;
+				stamp = leaf.lock.readLock(); // wait until the leaf is modified
+				locked = true;
+			}
+			index = lower == null ? 0 : search.lowerBound(keys, count, lower);
+			lower = highKey;
+			leaf = highKey == null ? null : right;
+		}
+
+	}
+
+	/**
+	 * A {@code Leaf} is a {@code LeafNode} with a lock and a high key. Its successor is its right link.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	static class Leaf<K extends Comparable<K>, V> extends LeafNode<K, V> {
+
+		/**
+		 * The lock of this {@code Leaf}.
+		 */
+		final StampedLock lock = new StampedLock();
+
+		/**
+		 * The upper bound of the keys in this {@code Leaf}, below which no key is in the right sibling; {@code null} if
+		 * this {@code Leaf} is the rightmost one. Copies of the high key may be in this {@code Leaf} and to its right.
+		 */
+		K highKey;
+
+		/**
+		 * Constructs a {@code Leaf}.
+		 *
+		 * @param degree
+		 *            the degree of the {@code Leaf}.
+		 * @param search
+		 *            the strategy for searching the keys of the {@code Leaf}.
+		 */
+		Leaf(int degree, KeySearch search) {
+			super(degree, search);
+		}
+
+	}
+
+	/**
+	 * An {@code Inner} is a {@code NonLeafNode} with a lock, a high key and a link to its right sibling.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 */
+	static class Inner<K extends Comparable<K>> extends NonLeafNode<K> {
+
+		/**
+		 * The lock of this {@code Inner}.
+		 */
+		final StampedLock lock = new StampedLock();
+
+		/**
+		 * The upper bound of the keys under this {@code Inner}, below which no key is under the right sibling;
+		 * {@code null} if this {@code Inner} is the rightmost one at its level.
+		 */
+		K highKey;
+
+		/**
+		 * The right sibling of this {@code Inner}; {@code null} if this {@code Inner} is the rightmost one at its
+		 * level.
+		 */
+		Inner<K> right;
+
+		/**
+		 * The level of this {@code Inner} (1 for the parents of {@code LeafNode}s).
+		 */
+		int level;
+
+		/**
+		 * Constructs an {@code Inner}.
+		 *
+		 * @param degree
+		 *            the degree of the {@code Inner}.
+		 * @param search
+		 *            the strategy for searching the keys of the {@code Inner}.
+		 */
+		Inner(int degree, KeySearch search) {
+			super(degree, search);
+		}
+
+	}
+
+}
@@ -2,7 +2,8 @@ package bptree;
 
 /**
 * The {@code BPlusTree} class implements B+-trees. Each {@code BPlusTree} stores its elements in the main memory (not
-* on disks) for simplicity.
+* on disks) for simplicity; see {@link bptree.storage.PagedBPlusTree} for B+-trees whose nodes are pages kept off
+* the heap or in a file.
 * 
 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
 * 
@@ -13,6 +14,18 @@ package bptree;
 */
 public class BPlusTree<K extends Comparable<K>, V> {
 
+	/**
+	* The number of descents that {@link #getAll(Comparable[], Object[])} interleaves.
+	*/
+	public static final int INTERLEAVED_DESCENTS = 8;
+
+	/**
+	* The fraction of the entries that stay in a {@code Node} split by an append at the right edge of the tree. Keys
+	* that arrive in increasing order never return to the left {@code Node}, so keeping most of the entries there
+	* leaves the {@code Node}s nearly full instead of half full.
+	*/
+	public static final double RIGHT_EDGE_FILL = 0.9;
+
 	/**
 	* The maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
 	*/
@@ -24,13 +37,79 @@ public class BPlusTree<K extends Comparable<K>, V> {
 	protected Node<K> root;
 
 	/**
-	* Constructs a {@code BPlusTree}.
+	* The strategy for searching the keys within each {@code Node} of this {@code BPlusTree}.
+	*/
+	protected KeySearch search;
+
+	/**
+	* The minimum number of keys in a {@code LeafNode} other than the root.
+	*/
+	protected final int leafMinimum;
+
+	/**
+	* The minimum number of keys in a {@code NonLeafNode} other than the root.
+	*/
+	protected final int nonLeafMinimum;
+
+	/**
+	* The {@code NonLeafNode}s visited by the last update, from the root down. Splits and merges use this path instead
+	* of searching for parents from the root again.
+	*/
+	protected NonLeafNode<K>[] path;
+
+	/**
+	* The index of the child taken at each {@code NonLeafNode} on {@code path}.
+	*/
+	protected int[] slots;
+
+	/**
+	* The number of {@code NonLeafNode}s on {@code path}.
+	*/
+	protected int depth;
+
+	/**
+	* The key from which the next step of {@link #compact(double, int)} resumes; {@code null} to start from the
+	* smallest key.
+	*/
+	protected K compactionCursor;
+
+	/**
+	* The height of the {@code Node}s that {@link #compact(double, int)} is packing (0 for {@code LeafNode}s).
+	*/
+	protected int compactionHeight;
+
+	/**
+	* The rightmost {@code LeafNode} as of the last {@link #insert(Comparable, Object)} that reached it; {@code null}
+	* if unknown.
+	*/
+	protected LeafNode<K, V> rightmost;
+
+	/**
+	* Constructs a {@code BPlusTree} that chooses the {@code KeySearch} strategy from its degree.
 	* 
 	* @param degree
 	*            the maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
 	*/
 	public BPlusTree(int degree) {
+		this(degree, KeySearch.forDegree(degree));
+	}
+
+	/**
+	* Constructs a {@code BPlusTree}.
+	* 
+	* @param degree
+	*            the maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
+	* @param search
+	*            the strategy for searching the keys within each {@code Node} of this {@code BPlusTree}.
+	*/
+	@SuppressWarnings("unchecked")
+	public BPlusTree(int degree, KeySearch search) {
 		this.degree = degree;
+		this.search = search;
+		this.leafMinimum = Math.max(1, degree / 2);
+		this.nonLeafMinimum = (degree + 1) / 2 - 1;
+		this.path = (NonLeafNode<K>[]) new NonLeafNode[8];
+		this.slots = new int[8];
 	}
 
 	/**
@@ -41,7 +120,7 @@ public class BPlusTree<K extends Comparable<K>, V> {
 	*/
 	@SuppressWarnings("unchecked")
 	public BPlusTree(BPlusTree<K, V> tree) {
-		this.degree = tree.degree;
+		this(tree.degree, tree.search);
 		if (tree.root instanceof LeafNode)
 		this.root = new LeafNode<K, V>((LeafNode<K, V>) tree.root);
 		else
@@ -66,6 +145,15 @@ public class BPlusTree<K extends Comparable<K>, V> {
 		return root;
 	}
 
+	/**
+	* Returns the strategy for searching the keys within each {@code Node} of this {@code BPlusTree}.
+	* 
+	* @return the strategy for searching the keys within each {@code Node} of this {@code BPlusTree}.
+	*/
+	public KeySearch search() {
+		return search;
+	}
+
 	/**
 	* Finds the {@code LeafNode} in this {@code BPlusTree} that must be responsible for the specified key.
 	* 
@@ -76,12 +164,488 @@ public class BPlusTree<K extends Comparable<K>, V> {
 	@SuppressWarnings("unchecked")
 	public LeafNode<K, V> find(K key) {
 		Node<K> c = root;
+		int visits = 1;
 		while (c instanceof NonLeafNode) {
 			c = ((NonLeafNode<K>) c).child(key);
+			visits++;
 		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.visited(visits);
 		return (LeafNode<K, V>) c;
 	}
 
+	/**
+	* Finds the leftmost {@code LeafNode} in this {@code BPlusTree} that may contain the specified key. Unlike
+	* {@link #find(Comparable)}, this method moves to the left child at a separator equal to the key, so that no
+	* duplicate of the key is missed.
+	* 
+	* @param key
+	*            the search key.
+	* @return the leftmost {@code LeafNode} in this {@code BPlusTree} that may contain the specified key.
+	*/
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, V> findLeftmost(K key) {
+		Node<K> c = root;
+		while (c instanceof NonLeafNode) {
+			c = ((NonLeafNode<K>) c).child(search.lowerBound(c.keys, c.numberOfKeys, key));
+		}
+		return (LeafNode<K, V>) c;
+	}
+
+	/**
+	* Finds the {@code LeafNode} in this {@code BPlusTree} that holds the first entry with the specified key, if there
+	* is one. Copies of a key can be on both sides of a separator equal to the key, so this method descends like
+	* {@link #findLeftmost(Comparable)} and moves on to the next {@code LeafNode} if the one reached holds no key
+	* greater than or equal to the key while the separator to its right equals the key.
+	* 
+	* @param key
+	*            the search key.
+	* @return the {@code LeafNode} that holds the first entry with the specified key if there is one; {@code null} if
+	*         this {@code BPlusTree} is empty.
+	*/
+	protected LeafNode<K, V> findFirst(K key) {
+		return findFirst(key, root);
+	}
+
+	/**
+	* Finds the {@code LeafNode} that holds the first entry with the specified key as {@link #findFirst(Comparable)}
+	* does, starting from the specified root.
+	* 
+	* @param key
+	*            the search key.
+	* @param root
+	*            the root to start from.
+	* @return the {@code LeafNode} that holds the first entry with the specified key if there is one; {@code null} if
+	*         the tree is empty.
+	*/
+	@SuppressWarnings("unchecked")
+	LeafNode<K, V> findFirst(K key, Node<K> root) {
+		Node<K> c = root;
+		Node<K> next = null; // the subtree right of a separator equal to the key just right of the path
+		int visits = 1;
+		while (c instanceof NonLeafNode) {
+			NonLeafNode<K> p = (NonLeafNode<K>) c;
+			int i = search.lowerBound(p.keys, p.numberOfKeys, key); // smallest i such that keys[i] >= key
+			if (i < p.numberOfKeys)
+				next = key.compareTo(p.keys[i]) == 0 ? p.child(i + 1) : null;
+			c = p.child(i);
+			visits++;
+		}
+		if (next != null && ((LeafNode<K, V>) c).findIndexGE(key) < 0) { // if the key can only be further right
+			for (c = next; c instanceof NonLeafNode; c = ((NonLeafNode<K>) c).child(0))
+				visits++;
+			visits++;
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.visited(visits);
+		return (LeafNode<K, V>) c;
+	}
+
+	/**
+	* Returns a {@code Cursor} over the entries of this {@code BPlusTree} whose keys are within the specified range. The
+	* {@code Cursor} descends from the root once and then follows the chain of {@code LeafNode}s.
+	* 
+	* @param from
+	*            the lower bound of the keys; {@code null} if unbounded.
+	* @param fromInclusive
+	*            a flag indicating whether or not the lower bound is inclusive.
+	* @param to
+	*            the upper bound of the keys; {@code null} if unbounded.
+	* @param toInclusive
+	*            a flag indicating whether or not the upper bound is inclusive.
+	* @return a {@code Cursor} over the entries of this {@code BPlusTree} whose keys are within the specified range.
+	*/
+	@SuppressWarnings("unchecked")
+	public Cursor<K, V> range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		LeafNode<K, V> leaf;
+		int i;
+		if (from == null) { // if unbounded, start at the leftmost leaf
+			Node<K> c = root;
+			while (c instanceof NonLeafNode)
+				c = ((NonLeafNode<K>) c).child(0);
+			leaf = (LeafNode<K, V>) c;
+			i = 0;
+		} else if (fromInclusive) {
+			leaf = findLeftmost(from);
+			i = leaf == null ? 0 : search.lowerBound(leaf.keys, leaf.numberOfKeys, from);
+		} else {
+			leaf = find(from);
+			i = leaf == null ? 0 : search.upperBound(leaf.keys, leaf.numberOfKeys, from);
+		}
+		return new Cursor<K, V>(this, leaf, i, to, toInclusive);
+	}
+
+	/**
+	* Returns a {@code Stream} of the entries of this {@code BPlusTree} whose keys are within the specified range. The
+	* {@code Stream} can be made parallel, in which case the work is divided along the subtrees of this
+	* {@code BPlusTree} (see {@link RangeSpliterator}).
+	* 
+	* @param from
+	*            the lower bound of the keys; {@code null} if unbounded.
+	* @param fromInclusive
+	*            a flag indicating whether or not the lower bound is inclusive.
+	* @param to
+	*            the upper bound of the keys; {@code null} if unbounded.
+	* @param toInclusive
+	*            a flag indicating whether or not the upper bound is inclusive.
+	* @return a {@code Stream} of the entries of this {@code BPlusTree} whose keys are within the specified range.
+	*/
+	public java.util.stream.Stream<java.util.Map.Entry<K, V>> rangeStream(K from, boolean fromInclusive, K to,
+			boolean toInclusive) {
+		return java.util.stream.StreamSupport.stream(new RangeSpliterator<K, V>(this, from, fromInclusive, to,
+				toInclusive), false);
+	}
+
+	/**
+	* Returns a {@code Stream} of the entries of this {@code BPlusTree} whose keys are greater than or equal to
+	* {@code from} and less than {@code to}.
+	* 
+	* @param from
+	*            the lower bound of the keys, inclusive; {@code null} if unbounded.
+	* @param to
+	*            the upper bound of the keys, exclusive; {@code null} if unbounded.
+	* @return a {@code Stream} of the entries of this {@code BPlusTree} whose keys are within the specified range.
+	*/
+	public java.util.stream.Stream<java.util.Map.Entry<K, V>> rangeStream(K from, K to) {
+		return rangeStream(from, true, to, false);
+	}
+
+	/**
+	* Returns a {@code Stream} of all entries of this {@code BPlusTree}.
+	* 
+	* @return a {@code Stream} of all entries of this {@code BPlusTree}.
+	*/
+	public java.util.stream.Stream<java.util.Map.Entry<K, V>> stream() {
+		return rangeStream(null, true, null, true);
+	}
+
+	/**
+	* Finds the {@code LeafNode} that must be responsible for the specified key and records the {@code NonLeafNode}s
+	* visited on the way in {@code path}. Unlike {@link #find(Object)}, this method is not safe to call concurrently
+	* with other readers, so it is only used by updates.
+	* 
+	* @param key
+	*            the search key.
+	* @return the {@code LeafNode} in this {@code BPlusTree} that must be responsible for the specified key.
+	*/
+	protected LeafNode<K, V> descend(K key) {
+		return descend(key, 0);
+	}
+
+	/**
+	* Finds the {@code LeafNode} that must be responsible for the specified key, keeping the first {@code level}
+	* {@code NonLeafNode}s on the path recorded by the last descent and starting from {@code path[level]}, which must
+	* cover the key (see {@link #coveringLevel(Comparable)}).
+	* 
+	* @param key
+	*            the search key.
+	* @param level
+	*            the number of {@code NonLeafNode}s to keep on {@code path}; 0 to start from the root.
+	* @return the {@code LeafNode} in this {@code BPlusTree} that must be responsible for the specified key.
+	*/
+	protected LeafNode<K, V> descend(K key, int level) {
+		return descend(key, level, false);
+	}
+
+	/**
+	* Finds the {@code LeafNode} where a new entry with the specified key goes or, if {@code first} is set, the
+	* {@code LeafNode} that holds the first entry with the key (see {@link #findFirst(Comparable)}), and records the
+	* path to it. The first {@code level} {@code NonLeafNode}s on the path recorded by the last descent are kept and the
+	* descent starts from {@code path[level]}, which must cover the key (see {@link #coveringLevel(Comparable, boolean)}).
+	* 
+	* @param key
+	*            the search key.
+	* @param level
+	*            the number of {@code NonLeafNode}s to keep on {@code path}; 0 to start from the root.
+	* @param first
+	*            a flag indicating whether to find the first entry with the key, as removals do, rather than where a
+	*            new entry with the key goes.
+	* @return the {@code LeafNode} reached.
+	*/
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, V> descend(K key, int level, boolean first) {
+		Node<K> c = level == 0 ? root : path[level];
+		depth = level;
+		while (c instanceof NonLeafNode) {
+			NonLeafNode<K> p = (NonLeafNode<K>) c;
+			int i = first ? search.lowerBound(p.keys, p.numberOfKeys, key) // smallest i such that keys[i] >= key
+					: search.upperBound(p.keys, p.numberOfKeys, key); // smallest i such that keys[i] > key
+			c = push(p, i);
+		}
+		int visits = depth - level + 1;
+		if (first && ((LeafNode<K, V>) c).findIndexGE(key) < 0) { // if the key can only be in the next leaf
+			int l = depth - 1;
+			while (l >= 0 && slots[l] == path[l].numberOfKeys)
+				l--;
+			if (l >= 0 && key.compareTo(path[l].keys[slots[l]]) == 0) { // if the separator to the right equals the key
+				depth = l;
+				for (c = push(path[l], slots[l] + 1); c instanceof NonLeafNode; c = push((NonLeafNode<K>) c, 0))
+					visits++;
+				visits++;
+			}
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.visited(visits);
+		return (LeafNode<K, V>) c;
+	}
+
+	/**
+	* Appends the specified {@code NonLeafNode} and the index of a child to the path of the current descent.
+	* 
+	* @param p
+	*            a {@code NonLeafNode}.
+	* @param i
+	*            the index of the child to descend to.
+	* @return the child at the specified index.
+	*/
+	Node<K> push(NonLeafNode<K> p, int i) {
+		if (depth == path.length) { // if the tree has grown taller than the path
+			path = java.util.Arrays.copyOf(path, 2 * depth);
+			slots = java.util.Arrays.copyOf(slots, 2 * depth);
+		}
+		path[depth] = p;
+		slots[depth++] = i;
+		return p.child(i);
+	}
+
+	/**
+	* Returns the parent of the specified {@code Node} on the path recorded by the last {@link #descend(Comparable)}.
+	* 
+	* @param node
+	*            a {@code Node}.
+	* @return the position i on {@code path} such that {@code path[i]} is the parent of the specified {@code Node}; -1
+	*         if the parent is not on the path.
+	*/
+	protected int parentLevel(Node<K> node) {
+		for (int i = depth - 1; i >= 0; i--) {
+			if (path[i].pointers[slots[i]] == node)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	* Returns the parent of the specified {@code Node}, using the path recorded by the last
+	* {@link #descend(Comparable)} if possible.
+	* 
+	* @param node
+	*            a {@code Node}.
+	* @return the parent {@code Node} of the specified {@code Node}; {@code null} if the parent cannot be found.
+	*/
+	NonLeafNode<K> parent(Node<K> node) {
+		int i = parentLevel(node);
+		return i >= 0 ? path[i] : findParent(node);
+	}
+
+	/**
+	* Returns the value associated with the specified key in this {@code BPlusTree}.
+	* 
+	* @param key
+	*            the search key.
+	* @return the value associated with the specified key; {@code null} if this {@code BPlusTree} has no such key.
+	*/
+	public V get(K key) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		LeafNode<K, V> leaf = findFirst(key);
+		V value = leaf == null ? null : lookup(leaf, key); // null if this tree is empty
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.GET, start);
+		TreeEvents.end(event, TreeMetrics.Operation.GET, degree, key, 1);
+		return value;
+	}
+
+	/**
+	* Looks up the specified keys and stores the value associated with {@code keys[i]} in {@code out[i]}, or
+	* {@code null} if there is none. The keys are visited in sorted order (they are sorted first unless they already
+	* are), and the path from the root to the current {@code LeafNode} is kept: a key covered by the current
+	* {@code LeafNode} is looked up without descending, and any other key descends only from the deepest
+	* {@code NonLeafNode} on the path that covers it. Keys that need a descent are collected in groups of
+	* {@link #INTERLEAVED_DESCENTS}, which descend together one level at a time so that their cache misses overlap.
+	* Misses allocate nothing.
+	*
+	* @param keys
+	*            the search keys.
+	* @param out
+	*            the array that receives the values; at least as long as {@code keys}.
+	*/
+	public void getAll(K[] keys, V[] out) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		getAll(keys, out, this.root);
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.GET_ALL, start);
+		TreeEvents.end(event, TreeMetrics.Operation.GET_ALL, degree, null, keys.length);
+	}
+
+	/**
+	* Looks up the specified keys as {@link #getAll(Comparable[], Object[])} describes, starting from the specified
+	* root.
+	*
+	* @param keys
+	*            the search keys.
+	* @param out
+	*            the array that receives the values; at least as long as {@code keys}.
+	* @param root
+	*            the root to start from.
+	*/
+	@SuppressWarnings("unchecked")
+	void getAll(K[] keys, V[] out, Node<K> root) {
+		if (root == null) { // if this tree is empty
+			java.util.Arrays.fill(out, 0, keys.length, null);
+			return;
+		}
+		int[] order = null; // the indices of the keys in key order; null if the keys are sorted
+		for (int i = 1; i < keys.length && order == null; i++)
+			if (keys[i - 1].compareTo(keys[i]) > 0)
+				order = sortedOrder(keys);
+		int height = 0;
+		for (Node<K> c = root; c instanceof NonLeafNode; c = ((NonLeafNode<K>) c).child(0))
+			height++;
+		Node<K>[] nodes = new Node[height + 1]; // the path to the current leaf, nodes[height] being the leaf
+		K[] bounds = (K[]) new Comparable[height + 1]; // the inclusive upper bound of each node on the path
+		nodes[0] = root;
+		int[] group = new int[INTERLEAVED_DESCENTS]; // the indices of the keys descending together
+		Node<K>[] current = new Node[INTERLEAVED_DESCENTS]; // the node reached by each key in the group
+		int size = 0;
+		for (int i = 0; i < keys.length; i++) {
+			int k = order == null ? i : order[i];
+			K key = keys[k];
+			int level = height;
+			while (nodes[level] == null || bounds[level] != null && key.compareTo(bounds[level]) > 0)
+				level--; // nodes[0], the root, covers every key
+			if (level == height) { // if the current leaf covers the key
+				out[k] = lookupFirst((LeafNode<K, V>) nodes[height], key, root);
+				continue;
+			}
+			group[size] = k;
+			current[size++] = nodes[level];
+			if (size == INTERLEAVED_DESCENTS || i == keys.length - 1) {
+				descend(keys, group, current, size, nodes, bounds);
+				for (int g = 0; g < size; g++)
+					out[group[g]] = lookupFirst((LeafNode<K, V>) current[g], keys[group[g]], root);
+				size = 0;
+			}
+		}
+	}
+
+	/**
+	* Moves each of the specified {@code Node}s down to the leftmost {@code LeafNode} that may hold the corresponding
+	* key, one level at a time for all of them, and records the path taken by the last key.
+	*
+	* @param keys
+	*            the search keys.
+	* @param group
+	*            the indices of the keys to look up.
+	* @param current
+	*            the {@code Node} from which each key descends; replaced with the {@code LeafNode} reached.
+	* @param size
+	*            the number of keys to look up.
+	* @param nodes
+	*            the path to update, indexed by level.
+	* @param bounds
+	*            the inclusive upper bound of each {@code Node} on the path.
+	*/
+	@SuppressWarnings("unchecked")
+	void descend(K[] keys, int[] group, Node<K>[] current, int size, Node<K>[] nodes, K[] bounds) {
+		int last = size - 1;
+		int visits = 0;
+		int level = 0; // the level of current[last]
+		while (nodes[level] != current[last])
+			level++;
+		for (boolean moved = true; moved;) {
+			moved = false;
+			for (int g = 0; g < size; g++) {
+				if (current[g] instanceof NonLeafNode) {
+					NonLeafNode<K> p = (NonLeafNode<K>) current[g];
+					int i = search.lowerBound(p.keys, p.numberOfKeys, keys[group[g]]);
+					current[g] = p.child(i);
+					visits++;
+					if (g == last) {
+						nodes[++level] = current[g];
+						bounds[level] = i < p.numberOfKeys ? p.keys[i] : bounds[level - 1];
+					}
+					moved = true;
+				}
+			}
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.visited(visits);
+	}
+
+	/**
+	* Returns the value associated with the specified key in the specified {@code LeafNode}.
+	*
+	* @param leaf
+	*            a {@code LeafNode}.
+	* @param key
+	*            the search key.
+	* @return the value associated with the specified key; {@code null} if the {@code LeafNode} has no such key.
+	*/
+	@SuppressWarnings("unchecked")
+	V lookup(LeafNode<K, V> leaf, K key) {
+		int i = leaf.findIndexGE(key);
+		return i < 0 || key.compareTo(leaf.keys[i]) != 0 ? null : (V) leaf.pointers[i];
+	}
+
+	/**
+	* Returns the value of the first entry with the specified key, given the {@code LeafNode} reached by descending
+	* with {@code lowerBound} as {@link #findLeftmost(Comparable)} does. If that {@code LeafNode} holds no key greater
+	* than or equal to the key, the key may still be at the front of the next {@code LeafNode}, which
+	* {@link #findFirst(Comparable)} finds from the specified root.
+	*
+	* @param leaf
+	*            the {@code LeafNode} reached.
+	* @param key
+	*            the search key.
+	* @param root
+	*            the root of the tree.
+	* @return the value of the first entry with the specified key; {@code null} if there is no such entry.
+	*/
+	V lookupFirst(LeafNode<K, V> leaf, K key, Node<K> root) {
+		if (leaf.findIndexGE(key) < 0)
+			leaf = findFirst(key, root);
+		return lookup(leaf, key);
+	}
+
+	/**
+	* Returns the indices of the specified keys in key order.
+	*
+	* @param keys
+	*            the keys.
+	* @return the indices of the specified keys in key order.
+	*/
+	static <K extends Comparable<K>> int[] sortedOrder(K[] keys) {
+		Integer[] indices = new Integer[keys.length];
+		for (int i = 0; i < indices.length; i++)
+			indices[i] = i;
+		java.util.Arrays.sort(indices, (a, b) -> keys[a].compareTo(keys[b]));
+		int[] order = new int[indices.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = indices[i];
+		return order;
+	}
+
+	/**
+	* Returns the structural statistics of this {@code BPlusTree}, computed by walking all of its {@code Node}s. It must
+	* not be called while this {@code BPlusTree} is being updated.
+	* 
+	* @return the structural statistics of this {@code BPlusTree}.
+	*/
+	public TreeStats stats() {
+		return TreeStats.of(root, degree, false);
+	}
+
+	/**
+	* Returns the structural statistics of this {@code BPlusTree} like {@link #stats()}, walking the subtrees in
+	* parallel in the common {@code ForkJoinPool}.
+	* 
+	* @return the structural statistics of this {@code BPlusTree}.
+	*/
+	public TreeStats parallelStats() {
+		return TreeStats.of(root, degree, true);
+	}
+
 	/**
 	* Finds the parent {@code Node} of the specified {@code Node}.
 	* 
@@ -91,19 +655,52 @@ public class BPlusTree<K extends Comparable<K>, V> {
 	*/
 	public NonLeafNode<K> findParent(Node<K> node) {
 		Node<K> p = root;
+		int steps = 0;
 		while (p != null) {
 			K key = node.firstKey();
 			Node<K> c = ((NonLeafNode<K>) p).child(key);
+			steps++;
 			if (c == node) { // if found the parent of the node.
+				if (TreeMetrics.ENABLED)
+					TreeMetrics.parentSearched(steps);
 				return (NonLeafNode<K>) p;
 			}
 			p = c;
 		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.parentSearched(steps);
 		return null;
 	}
 
 	/**
-	* Inserts the specified key and the value into this {@code BPlusTree}.
+	* Replaces the contents of this {@code BPlusTree} with the specified entries, which must be given in key order. The
+	* tree is built bottom-up in a single pass: {@code LeafNode}s are packed from left to right up to the specified fill
+	* factor and chained, and the {@code NonLeafNode} levels are built on top of them as they are completed. If the
+	* entries are not sorted, this {@code BPlusTree} is left unchanged.
+	* 
+	* @param entries
+	*            the entries in key order.
+	* @param fillFactor
+	*            the fraction of each {@code Node} to fill (0 &lt; fillFactor &lt;= 1); 1 packs the {@code Node}s
+	*            completely, while smaller values leave room for later inserts.
+	* @throws IllegalArgumentException
+	*             if the entries are not sorted by key or the fill factor is not in (0, 1].
+	*/
+	public void bulkLoad(java.util.Iterator<? extends java.util.Map.Entry<? extends K, ? extends V>> entries,
+			double fillFactor) {
+		BulkLoader<K, V> loader = new BulkLoader<K, V>(this, fillFactor);
+		while (entries.hasNext()) {
+			java.util.Map.Entry<? extends K, ? extends V> e = entries.next();
+			loader.add(e.getKey(), e.getValue());
+		}
+		root = loader.finish();
+		rightmost = null;
+	}
+
+	/**
+	* Inserts the specified key and the value into this {@code BPlusTree}. A key that is greater than every key in
+	* the tree is appended to the cached rightmost {@code LeafNode} without a descent from the root as long as that
+	* {@code LeafNode} has room, which makes loading increasing keys cheap.
 	* 
 	* @param key
 	*            the key to insert.
@@ -111,32 +708,308 @@ public class BPlusTree<K extends Comparable<K>, V> {
 	*            the value to insert.
 	*/
 	public void insert(K key, V value) {
-		LeafNode<K, V> leaf; // the leaf node where insertion will occur
-		if (root == null) { // if the root is null
-			leaf = new LeafNode<K, V>(degree);
-			root = leaf;
-		} else { // if root is not null
-			leaf = find(key);
-		}
-		if (leaf.hasRoom()) { // if the leaf node has room for the new entry
-			leaf.insert(key, value);
-		} else { // if split is required
-			LeafNode<K, V> t = new LeafNode<K, V>(degree + 1); // create a temporary leaf node
-			t.copy(leaf, 0, leaf.numberOfKeys());// copy everything to the temporary node
-			t.insert(key, value); // insert the key and value to the temporary node
-			LeafNode<K, V> nLeaf = new LeafNode<K, V>(degree); // create a new leaf node
-			nLeaf.setSuccessor(leaf.successor()); // chaining
-			leaf.clear(); // clear the leaf node
-			leaf.setSuccessor(nLeaf); // chaining from leaf to nLeaf
-			int m = (int) Math.ceil(degree / 2.0); // compute the split point
-			leaf.copy(t, 0, m); // put the first half into leaf
-			nLeaf.copy(t, m, t.numberOfKeys()); // put the second half to nLeaf
-			insertInParent(leaf, nLeaf.firstKey(), nLeaf); // use the first key of nLeaf as the separator.
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		LeafNode<K, V> leaf = rightmostLeaf(); // the leaf node where insertion will occur
+		if (leaf != null && leaf.hasRoom() && key.compareTo(leaf.keys[leaf.numberOfKeys - 1]) > 0) {
+			leaf.insert(key, value, leaf.numberOfKeys); // append to the rightmost leaf node without a descent
+		} else {
+			if (root == null) { // if the root is null
+				leaf = newLeafNode();
+				root = leaf;
+				depth = 0;
+			} else { // if root is not null
+				leaf = descend(key);
+			}
+			boolean edge = onRightEdge(depth); // is the leaf node the rightmost one?
+			if (leaf.hasRoom()) { // if the leaf node has room for the new entry
+				leaf.insert(key, value);
+			} else { // if split is required
+				LeafNode<K, V> nLeaf = newLeafNode(); // create a new leaf node
+				int m = splitPoint(edge && key.compareTo(leaf.keys[leaf.numberOfKeys - 1]) > 0);
+				leaf.split(key, value, m, nLeaf); // keep the first m entries in leaf and move the rest to nLeaf
+				if (TreeMetrics.ENABLED)
+					TreeMetrics.split(0);
+				TreeEvents.split(0, degree, leaf, nLeaf);
+				insertInParent(leaf, nLeaf.firstKey(), nLeaf); // use the first key of nLeaf as the separator.
+				leaf = nLeaf;
+			}
+			if (edge)
+				rightmost = leaf;
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.INSERT, start);
+		TreeEvents.end(event, TreeMetrics.Operation.INSERT, degree, key, 1);
+	}
+
+	/**
+	* Returns the rightmost {@code LeafNode} of this {@code BPlusTree} if it is cached. A cached {@code LeafNode} is no
+	* longer the rightmost once it has a successor, and it has been emptied if it was merged into its left sibling or
+	* the tree was emptied.
+	* 
+	* @return the rightmost {@code LeafNode} of this {@code BPlusTree}; {@code null} if it is not known.
+	*/
+	protected LeafNode<K, V> rightmostLeaf() {
+		LeafNode<K, V> leaf = rightmost;
+		return leaf != null && leaf.numberOfKeys > 0 && leaf.successor() == null ? leaf : null;
+	}
+
+	/**
+	* Determines whether or not the first {@code levels} {@code NonLeafNode}s on the path recorded by the last descent
+	* were left through their last children, i.e., whether the {@code Node} reached from them is the rightmost
+	* {@code Node} at its height.
+	* 
+	* @param levels
+	*            the number of {@code NonLeafNode}s to check.
+	* @return {@code true} if each of the {@code NonLeafNode}s was left through its last child; {@code false}
+	*         otherwise.
+	*/
+	protected boolean onRightEdge(int levels) {
+		for (int l = 0; l < levels; l++) {
+			if (slots[l] != path[l].numberOfKeys)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	* Returns the number of entries (for a {@code LeafNode}) or children (for a {@code NonLeafNode}) that stay in a
+	* full {@code Node} being split. A split that appends to the rightmost {@code Node} keeps
+	* {@link #RIGHT_EDGE_FILL} of them, so sequential inserts leave nearly full {@code Node}s behind; other splits
+	* keep half of them. The new rightmost {@code Node} may then hold fewer than the minimum number of keys until more
+	* keys are appended, and removals rebalance it like any other underfull {@code Node}.
+	* 
+	* @param append
+	*            a flag indicating whether or not the new entry goes after all the entries of the rightmost
+	*            {@code Node} at its height.
+	* @return the split point.
+	*/
+	protected int splitPoint(boolean append) {
+		int half = (int) Math.ceil(degree / 2.0);
+		return append ? Math.max(half, Math.min(degree - 1, (int) (RIGHT_EDGE_FILL * degree))) : half;
+	}
+
+	/**
+	* Inserts the specified entries into this {@code BPlusTree}. The entries are sorted by key and each run of entries
+	* that belong to the same {@code LeafNode} is merged into that {@code LeafNode} after a single descent from the
+	* root. If the run does not fit, the merged entries are spread over as few {@code LeafNode}s as possible before the
+	* new {@code LeafNode}s are added to the parent. Entries with the same key end up in the order that inserting them
+	* one by one would produce.
+	*
+	* @param entries
+	*            the entries to insert.
+	*/
+	public void insertAll(java.util.Collection<? extends java.util.Map.Entry<? extends K, ? extends V>> entries) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		Object[] values = new Object[entries.size()];
+		K[] keys = sort(entries, values);
+		if (root == null && keys.length > 0)
+			root = newLeafNode();
+		for (int i = 0; i < keys.length;) {
+			LeafNode<K, V> leaf = descend(keys[i], i == 0 ? 0 : coveringLevel(keys[i]));
+			int j = runEnd(keys, i);
+			insertRun(leaf, keys, values, i, j);
+			i = j;
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.INSERT_ALL, start);
+		TreeEvents.end(event, TreeMetrics.Operation.INSERT_ALL, degree, null, keys.length);
+	}
+
+	/**
+	* Sorts the specified entries by key. Entries with the same key are put in reverse order, which is the order that
+	* inserting them one by one leaves them in.
+	*
+	* @param entries
+	*            the entries to sort.
+	* @param values
+	*            the array that receives the values in sorted order.
+	* @return the keys in sorted order.
+	*/
+	@SuppressWarnings("unchecked")
+	protected K[] sort(java.util.Collection<? extends java.util.Map.Entry<? extends K, ? extends V>> entries,
+			Object[] values) {
+		int n = values.length;
+		java.util.Map.Entry<? extends K, ? extends V>[] sorted = new java.util.Map.Entry[n];
+		for (java.util.Map.Entry<? extends K, ? extends V> e : entries)
+			sorted[--n] = e; // reversed, since the sort is stable
+		java.util.Arrays.sort(sorted, (a, b) -> a.getKey().compareTo(b.getKey()));
+		K[] keys = (K[]) new Comparable[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			keys[i] = sorted[i].getKey();
+			values[i] = sorted[i].getValue();
 		}
+		return keys;
 	}
 
 	/**
-	* Inserts pointers to the specified {@code Node}s into an appropriate parent {@code Node}.
+	* Deletes one entry for each of the specified keys from this {@code BPlusTree}. The keys are sorted and the entries
+	* of each {@code LeafNode} are removed in one pass after a single descent from the root, after which the
+	* {@code LeafNode} is rebalanced if it has become underfull.
+	*
+	* @param keys
+	*            the keys to delete.
+	*/
+	@SuppressWarnings("unchecked")
+	public void deleteAll(java.util.Collection<? extends K> keys) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		K[] sorted = keys.toArray((K[]) new Comparable[keys.size()]);
+		java.util.Arrays.sort(sorted);
+		boolean rebalanced = true; // whether or not the recorded path may have changed
+		for (int i = 0; i < sorted.length && root != null;) {
+			LeafNode<K, V> leaf = descend(sorted[i], rebalanced ? 0 : coveringLevel(sorted[i], true), true);
+			int j = runEnd(sorted, i);
+			leaf.removeAll(sorted, i, j);
+			rebalanced = leaf.numberOfKeys < leafMinimum;
+			if (rebalanced)
+				rebalance(leaf);
+			i = j;
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.DELETE_ALL, start);
+		TreeEvents.end(event, TreeMetrics.Operation.DELETE_ALL, degree, null, sorted.length);
+	}
+
+	/**
+	* Returns the end of the run of the specified sorted keys, starting at the specified index, that belong to the
+	* {@code LeafNode} reached by the last {@link #descend(Comparable)}. The run ends at the first key that is not less
+	* than the separator to the right of that {@code LeafNode} on the recorded path.
+	*
+	* @param keys
+	*            the sorted keys.
+	* @param i
+	*            the index of the first key of the run.
+	* @return the index of the first key after the run.
+	*/
+	protected int runEnd(K[] keys, int i) {
+		K bound = null;
+		for (int l = depth - 1; l >= 0 && bound == null; l--) // the lowest separator to the right of the path
+			if (slots[l] < path[l].numberOfKeys)
+				bound = path[l].keys[slots[l]];
+		int j = i + 1;
+		if (bound == null) // if the leaf is the rightmost one
+			return keys.length;
+		while (j < keys.length && keys[j].compareTo(bound) < 0)
+			j++;
+		return j;
+	}
+
+	/**
+	* Returns the deepest level on the path recorded by the last {@link #descend(Comparable)} whose {@code NonLeafNode}
+	* covers the specified key, which must not be less than the key of that descent. Consecutive sorted keys thus share
+	* the upper part of their descents.
+	*
+	* @param key
+	*            the search key.
+	* @return the deepest level i such that {@code path[i]} covers the specified key; 0 if there is none.
+	*/
+	protected int coveringLevel(K key) {
+		return coveringLevel(key, false);
+	}
+
+	/**
+	* Returns the deepest level on the path recorded by the last descent whose {@code NonLeafNode} covers the specified
+	* key as {@link #coveringLevel(Comparable)} does, for descents that find the first entry with the key if
+	* {@code first} is set. Such a descent takes the child to the left of a separator equal to the key, so the
+	* {@code NonLeafNode} left of that separator still covers the key.
+	*
+	* @param key
+	*            the search key.
+	* @param first
+	*            a flag indicating whether the descent finds the first entry with the key.
+	* @return the deepest level i such that {@code path[i]} covers the specified key; 0 if there is none.
+	*/
+	protected int coveringLevel(K key, boolean first) {
+		int level = depth - 1;
+		for (int l = depth - 1; l >= 0; l--) {
+			if (slots[l] < path[l].numberOfKeys) { // if path[l + 1] has a separator to its right
+				int c = key.compareTo(path[l].keys[slots[l]]);
+				if (c < 0 || first && c == 0)
+					return level;
+				level = l; // path[l + 1] does not cover the key
+			}
+		}
+		return Math.max(level, 0);
+	}
+
+	/**
+	* Merges the specified entries, which must be sorted by key and belong to the specified {@code LeafNode}, into that
+	* {@code LeafNode}, which must have been reached by the last {@link #descend(Comparable)}. If they do not fit, the
+	* merged entries are spread evenly over the {@code LeafNode} and as few new {@code LeafNode}s as possible, which are
+	* then inserted into the parent from left to right.
+	*
+	* @param leaf
+	*            the {@code LeafNode}.
+	* @param keys
+	*            the keys to insert.
+	* @param values
+	*            the values to insert.
+	* @param from
+	*            the beginning index of the entries to insert, inclusive.
+	* @param to
+	*            the ending index of the entries to insert, exclusive.
+	*/
+	@SuppressWarnings("unchecked")
+	protected void insertRun(LeafNode<K, V> leaf, K[] keys, Object[] values, int from, int to) {
+		int total = leaf.numberOfKeys + to - from;
+		int capacity = leaf.keys.length;
+		if (total <= capacity) {
+			leaf.insertAll(keys, values, from, to);
+			return;
+		}
+		K[] mergedKeys = (K[]) new Comparable[total];
+		Object[] mergedValues = new Object[total];
+		leaf.merge(keys, values, from, to, mergedKeys, mergedValues);
+		int count = (total + capacity - 1) / capacity; // the number of leaves needed
+		int end = total / count;
+		System.arraycopy(mergedKeys, 0, leaf.keys, 0, end);
+		System.arraycopy(mergedValues, 0, leaf.pointers, 0, end);
+		if (leaf.numberOfKeys > end) { // clear the entries that have moved to the new leaves
+			java.util.Arrays.fill(leaf.keys, end, leaf.numberOfKeys, null);
+			java.util.Arrays.fill(leaf.pointers, end, leaf.numberOfKeys, null);
+		}
+		leaf.numberOfKeys = end;
+		LeafNode<K, V> last = leaf;
+		for (int k = 1; k < count; k++) {
+			int start = end;
+			end = (int) ((long) total * (k + 1) / count);
+			LeafNode<K, V> nLeaf = newLeafNode();
+			System.arraycopy(mergedKeys, start, nLeaf.keys, 0, end - start);
+			System.arraycopy(mergedValues, start, nLeaf.pointers, 0, end - start);
+			nLeaf.numberOfKeys = end - start;
+			nLeaf.setSuccessor(last.setSuccessor(nLeaf)); // chaining
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.split(0);
+			TreeEvents.split(0, degree, last, nLeaf);
+			insertInParent(last, nLeaf.firstKey(), nLeaf); // the path now leads to nLeaf
+			last = nLeaf;
+		}
+	}
+
+	/**
+	* Creates an empty {@code LeafNode} for this {@code BPlusTree}.
+	* 
+	* @return an empty {@code LeafNode} for this {@code BPlusTree}.
+	*/
+	protected LeafNode<K, V> newLeafNode() {
+		return new LeafNode<K, V>(degree, search);
+	}
+
+	/**
+	* Creates an empty {@code NonLeafNode} for this {@code BPlusTree}.
+	* 
+	* @return an empty {@code NonLeafNode} for this {@code BPlusTree}.
+	*/
+	protected NonLeafNode<K> newNonLeafNode() {
+		return new NonLeafNode<K>(degree, search);
+	}
+
+	/**
+	* Inserts pointers to the specified {@code Node}s into an appropriate parent {@code Node}. The specified
+	* {@code Node} must be on the path recorded by the last {@link #descend(Comparable)}, which afterwards leads to the
+	* new {@code Node} instead, even across splits of the ancestors.
 	* 
 	* @param n
 	*            a {@code Node}.
@@ -146,402 +1019,391 @@ public class BPlusTree<K extends Comparable<K>, V> {
 	*            a new {@code Node}.
 	*/
 	void insertInParent(Node<K> n, K key, Node<K> nn) {
-		if (n == root) { // if the root was split
-			root = new NonLeafNode<K>(degree); // create a new node
+		insertInParent(n == root ? -1 : parentLevel(n), n, key, nn, true);
+	}
+
+	/**
+	* Inserts pointers to the specified {@code Node}s into {@code path[level]}, splitting it and its ancestors if
+	* necessary, and updates the path so that it leads to the new {@code Node} or to the old one.
+	* 
+	* @param level
+	*            the position of the parent of {@code n} on {@code path}; -1 if {@code n} is the root.
+	* @param n
+	*            a {@code Node}.
+	* @param key
+	*            the key that splits the {@code Node}s
+	* @param nn
+	*            a new {@code Node}.
+	* @param toNew
+	*            {@code true} if the path must lead to {@code nn}; {@code false} if it must lead to {@code n}.
+	*/
+	void insertInParent(int level, Node<K> n, K key, Node<K> nn, boolean toNew) {
+		if (level < 0) { // if the root was split
+			root = newNonLeafNode(); // create a new node
 			root.insert(key, n, 0); // make the new root point to the nodes.
 			root.pointers[1] = nn;
+			TreeEvents.rootGrown(depth + 1, degree, key);
+			if (depth == path.length) {
+				path = java.util.Arrays.copyOf(path, 2 * depth + 1);
+				slots = java.util.Arrays.copyOf(slots, 2 * depth + 1);
+			}
+			System.arraycopy(path, 0, path, 1, depth);
+			System.arraycopy(slots, 0, slots, 1, depth);
+			path[0] = (NonLeafNode<K>) root;
+			slots[0] = toNew ? 1 : 0;
+			depth++;
 			return;
 		}
-		NonLeafNode<K> p = findParent(n);
+		NonLeafNode<K> p = path[level];
+		int i = slots[level]; // the index of n in p
+		int target = toNew ? i + 1 : i; // the index of the node to lead to after the insertion
 		if (p.hasRoom()) {
-			p.insertAfter(key, nn, n); // insert key and nn right after n
+			p.insertAfter(key, nn, i); // insert key and nn right after n
+			slots[level] = target;
 		} else { // if split is required
-			NonLeafNode<K> t = new NonLeafNode<K>(degree + 1); // crate a temporary node
-			t.copy(p, 0, p.numberOfKeys()); // copy everything of p to the temporary node
-			t.insertAfter(key, nn, n); // insert key and nn after n
-			p.clear(); // clear p
-			int m = (int) Math.ceil(degree / 2.0); // compute the split point
-			p.copy(t, 0, m - 1);
-			NonLeafNode<K> np = new NonLeafNode<K>(degree); // create a new node
-			np.copy(t, m, t.numberOfKeys()); // put the second half to np
-			insertInParent(p, t.keys[m - 1], np); // use the middle key as the separator
+			NonLeafNode<K> np = newNonLeafNode(); // create a new node
+			int m = splitPoint(i == p.numberOfKeys && onRightEdge(level)); // compute the split point
+			K middle = p.split(key, nn, i, m, np); // keep the first m children in p and move the rest to np
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.split(depth - level);
+			TreeEvents.split(depth - level, degree, p, np);
+			boolean moved = target >= m; // does the path now go through np?
+			path[level] = moved ? np : p;
+			slots[level] = moved ? target - m : target;
+			insertInParent(level - 1, p, middle, np, moved); // use the middle key as the separator
 		}
 	}
 
 	/**
-	* Deletes the specified key and the value from this {@code BPlusTree}.
+	* Deletes an entry with the specified key from this {@code BPlusTree}.
 	* 
 	* @param key
 	*            the key to delete.
 	* @param value
-	*            the value to delete.
+	*            the value to delete (ignored).
 	*/
 	public void delete(K key, V value) {
-		// please implement the body of this method so that we can remove
-		// key-value pairs from the tree (refer to page
-		// 498 in the text book).
-		Node<K> leaf = find(key);
-		// if there is no element in the B + tree.
-
-		if (root == null) {
-			System.out.println("This B+ tree is empty !!");
-			return;
-		} else if (leaf.findIndexGE(key) < 0) {
-			System.out.println("This B+ tree doesn't contain value.");
-			return;
-		}
-		// find the leaf node L that could contain the (key,value) pair
-		/*
-		* if (l.findIndexL(key) < 0) { System.out.println(
-		* "This B+ tree doesn't contain value."); return; }
-		*/
-		// Delete entry
-		delete_key(leaf, key, value);
-	}
-	
-	public void delete_key(Node<K> currentNode, K key, V value) {
-
-		System.out.println("Before Shift and del cURRE"+currentNode.ToString()+currentNode.ToPointers());
-		int i = 0;
-		int currentIndex = 0;
-
-		// Delete of Key
-		for (i = 0; i < currentNode.numberOfKeys; i++) 
-		if (currentNode.keys[i] == key) { // Key found in the node.
-			currentNode.keys[i] = null; // Delete the key
-			
-			currentIndex = i; // Storing the Index of deletion, to be used
-		}					// for shifting
-		
-		shift(currentIndex,currentNode);
-		System.out.println("After Shift and del cURRE"+currentNode.ToString()+currentNode.ToPointers());
-
-		// N has only one child & only one child.
-		if (currentNode == root && noOfpointers(root) == 1) {
-			System.out.println(" N has only one child & only one child. Current Node/pointer"+currentNode.ToString()+currentNode.ToPointers()+root.ToString());
-			
-			//			root.copy(currentNode, 0, currentNode.numberOfKeys);
-			
-			for (i = 0; i < currentNode.pointers.length; i++) {
-				if (currentNode.pointers[i] != null) // Checking for child. This will be the new root node.
-				root = (Node<K>)currentNode.pointers[i];
-			}
-			
-			
-			System.out.println(" N has only one B4 clear. Current Node/pointer"+currentNode.ToString()+currentNode.ToPointers()+root.ToString());
-			currentNode.clear();
-			System.out.println(" N has only one ATR clear one child. Current Nodepointers"+currentNode.ToString()+currentNode.ToPointers()+root.ToString());
-			// Few Pointers
-		} else if (noOfpointers(currentNode) < 2) {
-			System.out.println("Underflow LeafNode has FEW POINTERS/VALUES.");
-			
-			Node<K> parent = findParent(currentNode);
-			// int siblingIndex = 0;
-			// if (siblingNode.equals((parent).child(key))) {
-			// siblingNode = parent.child(1);
-			// siblingIndex = currentIndex + 1;
-			// System.out.println("Current Node index(" + currentIndex + ")-" +
-			// currentNode.ToString()
-			// + " Sibling Node index(" + siblingIndex + ")-" +
-			// siblingNode.ToString());
-			// } else {
-			// System.out.println("Current Node index(" + currentIndex + ")-" +
-			// currentNode.ToString()
-			// + " Sibling Node index(" + siblingIndex + ")-" +
-			// siblingNode.ToString());
-			// }
-			//			System.out.println("Parent Node" + parent.ToString() + parent.ToPointers());
-			//			System.out.println("Current Node" + currentNode.ToString() + currentNode.ToPointers());
-
-
-			// Find index position of current node in parent node.
-			int currentPointer = 0;
-			int siblingPointer = 0;
-
-			// Get the position of N in parent.
-			for (int k = 0; k < parent.pointers.length; k++) {
-				if (parent.pointers[k] == currentNode) {
-					currentPointer = k;
-				}
-			}
+		remove(key);
+	}
 
-			System.out.println("Current Node Pointer Index" + currentPointer);
-			
-			K keyValue;
-			int k_pos=0;
-
-			if (currentPointer == 0) {
-				keyValue = parent.keys[currentPointer];
-				siblingPointer = currentPointer + 1;
-				k_pos = currentPointer;
-				//				siblingNode = (Node<K>) parent.pointers[currentPointer + 1];
-				// siblingNode = ((NonLeafNode<K>) parent).child(currentPointer
-				// + 1);
-				//				keyValue = parent.keys[currentIndex];
-			} else {
-				siblingPointer = currentPointer -1;
-				k_pos = currentPointer;//siblingPointer
-				keyValue = parent.keys[siblingPointer];
-				//				siblingNode = (Node<K>) parent.pointers[currentPointer - 1];
-				//				keyValue = parent.keys[currentPointer - 1];
+	/**
+	* Removes an entry with the specified key from this {@code BPlusTree}. A {@code Node} left with fewer than the
+	* minimum number of keys borrows a key from a sibling under the same parent or is merged with it, using the path
+	* recorded on the way down, so a removal takes O(log n) time.
+	* 
+	* @param key
+	*            the key to remove.
+	* @return the value of the removed entry; {@code null} if this {@code BPlusTree} has no such key.
+	*/
+	public V remove(K key) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		V value = null;
+		if (root != null) {
+			LeafNode<K, V> leaf = descend(key, 0, true);
+			int i = leaf.findIndexGE(key);
+			if (i >= 0 && key.compareTo(leaf.keys[i]) == 0) { // if the key is found
+				value = leaf.value(i);
+				leaf.remove(i);
+				rebalance(leaf);
 			}
-			Node<K> siblingNode = (Node<K>)parent.pointers[siblingPointer];
-
-			// entries in N and N' can fit in a single node, and then coalesce
-			// nodes
-			if ((currentNode.numberOfKeys + siblingNode.numberOfKeys) < degree) {
-				// if N is a predecessor of N' swap_variables (N,N')
-				
-				System.out.println("Merege call.");
-				if (currentPointer<siblingPointer) {
-					
-					NonLeafNode<K> temp = new NonLeafNode<K>(degree);
-					temp.numberOfKeys = 0;
-					
-					// Temp <-- N
-
-					for(i=0; i<N.numberOfKeys; i++){
-						temp.keys[i] = N.keys[i];
-						temp.numberOfKeys++;
-					}
-
-					for(i=0; i<degree; i++)
-					temp.pointers[i] = N.pointers[i];
-
-
-
-					// N <-- N'
-					N.numberOfKeys=0;
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.REMOVE, start);
+		TreeEvents.end(event, TreeMetrics.Operation.REMOVE, degree, key, 1);
+		return value;
+	}
 
-					for(i=0; i<n_.numberOfKeys; i++){
-						N.keys[i] = n_.keys[i];
-						N.numberOfKeys++;
-					}
+	/**
+	* Restores the minimum number of keys in the specified {@code Node}, the last one reached by the last
+	* {@link #descend(Comparable)}, after removals. An underfull {@code Node} borrows from a sibling as long as the
+	* sibling has more than the minimum number of keys, and is merged with it if it is still underfull, which may leave
+	* the parent underfull in turn. The right sibling is preferred. A root left without keys is replaced with its only
+	* child.
+	* 
+	* @param n
+	*            the {@code Node} that may be underfull.
+	*/
+	protected void rebalance(Node<K> n) {
+		rebalance(n, depth - 1);
+	}
 
-					for(i=0; i<degree; i++)
-					N.pointers[i] = n_.pointers[i];
-					
-					// N' <-- Temp
-					n_.numberOfKeys=0;
+	/**
+	* Restores the minimum number of keys in the specified {@code Node} as {@link #rebalance(Node)} does, given the
+	* level of its parent on the recorded path.
+	* 
+	* @param n
+	*            the {@code Node} that may be underfull.
+	* @param level
+	*            the level of the parent of the {@code Node} on {@code path}; -1 if the {@code Node} is the root.
+	*/
+	protected void rebalance(Node<K> n, int level) {
+		for (;; level--) {
+			if (level < 0) { // if n is the root
+				if (n.numberOfKeys == 0)
+					root = n instanceof LeafNode ? null : ((NonLeafNode<K>) n).child(0);
+				return;
+			}
+			int minimum = n instanceof LeafNode ? leafMinimum : nonLeafMinimum;
+			if (n.numberOfKeys >= minimum)
+				return;
+			NonLeafNode<K> p = path[level];
+			int s = slots[level];
+			boolean right = s < p.numberOfKeys; // use the right sibling if there is one
+			Node<K> sibling = sibling(p, right ? s + 1 : s - 1);
+			while (n.numberOfKeys < minimum && sibling.numberOfKeys > minimum) { // while the sibling can lend a key
+				borrow(p, s, n, sibling, right);
+				if (TreeMetrics.ENABLED)
+					TreeMetrics.borrowed(depth - 1 - level);
+			}
+			if (n.numberOfKeys >= minimum) { // if borrowing sufficed
+				TreeEvents.redistributed(depth - 1 - level, degree, n, sibling);
+				return;
+			}
+			if (right)
+				merge(p, s, n, sibling);
+			else
+				merge(p, s - 1, sibling, n);
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.merged(depth - 1 - level);
+			TreeEvents.merged(depth - 1 - level, degree, right ? n : sibling);
+			n = p;
+		}
+	}
 
-					for(i=0; i<temp.numberOfKeys; i++){
-						n_.keys[i] = temp.keys[i];
-						n_.numberOfKeys++;
-					}
+	/**
+	* Packs the {@code Node}s of this {@code BPlusTree} to the specified fill factor in a bounded step that visits at
+	* most the specified number of {@code Node}s, so compaction can be interleaved with other operations without a long
+	* pause. A pass packs the {@code LeafNode}s from left to right and then each level of {@code NonLeafNode}s from the
+	* bottom up: each {@code Node} is filled with the leading entries or children of its right siblings under the same
+	* parent, and siblings left empty are removed, which in turn leaves fewer children for the level above. A parent
+	* left underfull is rebalanced as after a deletion, and the root is replaced with its only child if it has one.
+	* Steps resume from the key where the previous step stopped, so updates between steps are allowed. This method is
+	* not safe to call concurrently with other operations.
+	* 
+	* @param fillFactor
+	*            the target fraction of each {@code Node} to fill (0 &lt; fillFactor &lt;= 1); {@code Node}s are never
+	*            filled below the minimum number of keys.
+	* @param nodes
+	*            the maximum number of {@code Node}s to visit in this step (at least 2).
+	* @return {@code true} if this step has completed a pass over the whole tree; {@code false} if more steps are
+	*         needed.
+	* @throws IllegalArgumentException
+	*             if the fill factor is not in (0, 1] or fewer than 2 {@code Node}s are allowed.
+	*/
+	public boolean compact(double fillFactor, int nodes) {
+		if (!(fillFactor > 0 && fillFactor <= 1))
+			throw new IllegalArgumentException("fill factor " + fillFactor + " is not in (0, 1]");
+		if (nodes < 2)
+			throw new IllegalArgumentException("a step must visit at least 2 nodes");
+		for (int visited = 0; nodes - visited >= 2;) {
+			int v = compactChildren(fillFactor, nodes - visited);
+			if (v < 0) // if the pass is over
+				return true;
+			visited += v;
+		}
+		return false;
+	}
 
-					for(i=0; i<degree; i++)
-					n_.pointers[i] = temp.pointers[i];
-
-					temp.clear(); // Delete temp, as its not needed
-					
-					
-					
-					Node<K> temp = currentNode;
-					System.out.println("In Merge C/S/T"+currentNode.ToString()+siblingNode.ToString()+temp.ToString());
-					currentNode = siblingNode;
-					siblingNode = temp;
-					//temp.clear();
-					System.out.println("In Merge C/S/T"+currentNode.ToString()+siblingNode.ToString()+temp.ToString());
-				}
+	/**
+	* Packs the {@code Node}s that share a parent, starting from the one that covers the key where the last step of
+	* {@link #compact(double, int)} stopped, and advances that key.
+	* 
+	* @param fillFactor
+	*            the target fraction of each {@code Node} to fill.
+	* @param nodes
+	*            the maximum number of {@code Node}s to visit (at least 2).
+	* @return the number of {@code Node}s visited; -1 if a pass over the whole tree has been completed.
+	*/
+	int compactChildren(double fillFactor, int nodes) {
+		Node<K> c = root;
+		K key = compactionCursor;
+		for (; key == null && c instanceof NonLeafNode; c = ((NonLeafNode<K>) c).child(0))
+			; // find the leftmost leaf
+		if (key == null && c != null)
+			key = c.firstKey();
+		int h = compactionHeight;
+		LeafNode<K, V> leaf = root == null ? null : descend(key);
+		if (root == null || h >= depth) { // if the Nodes at the current height have no parent, the pass is over
+			compactionCursor = null;
+			compactionHeight = 0;
+			return -1;
+		}
+		int level = depth - h - 1; // the level of the parent on the path
+		NonLeafNode<K> p = path[level];
+		int s = slots[level];
+		Node<K> left = h == 0 ? leaf : path[level + 1];
+		int capacity = degree - 1; // the maximum number of keys in a Node
+		int target = h == 0 ? Math.max(leafMinimum, (int) (fillFactor * capacity))
+				: Math.max(nonLeafMinimum, (int) (fillFactor * degree) - 1);
+		target = Math.min(target, capacity);
+		int visited = 1;
+		for (; s < p.numberOfKeys && visited < nodes; visited++) {
+			Node<K> right = sibling(p, s + 1);
+			if (pack(p, s, left, right, target)) { // if the right sibling is still there
+				left = right;
+				s++;
+			}
+		}
+		K resume = null; // where the next step starts
+		if (s < p.numberOfKeys) // if the step stopped within the parent
+			resume = firstKey(left);
+		else
+			for (int l = level - 1; l >= 0 && resume == null; l--) // the lowest separator to the right of the parent
+				if (slots[l] < path[l].numberOfKeys)
+					resume = path[l].keys[slots[l]];
+		int minimum = h == 0 ? leafMinimum : nonLeafMinimum;
+		if (left.numberOfKeys < minimum && s > 0) { // if the last Node was drained below the minimum
+			Node<K> previous = sibling(p, s - 1);
+			if (previous.numberOfKeys + left.numberOfKeys + (h == 0 ? 0 : 1) <= capacity)
+				merge(p, s - 1, previous, left);
+			else
+				while (left.numberOfKeys < minimum)
+					borrow(p, s, left, previous, false);
+		}
+		rebalance(p, level - 1);
+		compactionCursor = resume;
+		if (resume == null) // if the level is done, continue with the one above
+			compactionHeight++;
+		return visited;
+	}
 
-				if (!currentNode.isLeafNode()) {
-					System.out.println("INSIDE MERGE CURRENT NODE IS NO LEAFNODE IF CONDITION.");
-					siblingNode.keys[siblingNode.numberOfKeys++] = key;
-					for (i = 0; i < siblingNode.numberOfKeys; i++) {/////////// change
-						siblingNode.pointers[siblingNode.numberOfKeys] = currentNode.pointers[i];
-						siblingNode.keys[siblingNode.numberOfKeys++] = currentNode.keys[i];
-					}
-					if(currentNode.pointers[currentNode.numberOfKeys]!=null)
-					siblingNode.pointers[siblingNode.numberOfKeys] = currentNode.pointers[currentNode.numberOfKeys];
-				} else {
-					System.out.println("INSIDE MERGE CURRENT NODE IS NO LEAFNODE ELSE CONDITION.");
-					
-					// N is leaf node, append all (Ki, Pi) pairs in N to N' ;
-					for (i = 0; i < currentNode.numberOfKeys; i++) {
-						siblingNode.pointers[siblingNode.numberOfKeys] = currentNode.pointers[i];
-						siblingNode.keys[siblingNode.numberOfKeys++] = currentNode.keys[i];
-					}
-					// update the number of keys in NPrime and set N'.Pn = N.Pn
-					siblingNode.pointers[degree - 1] = currentNode.pointers[degree - 1];
-					System.out.println("In C/S"+currentNode.ToString()+siblingNode.ToString()+parent.ToString()+parent.ToPointers());
-				}
-				if(parent.numberOfKeys == 1)
-				parent.pointers[currentPointer] = null;
-				System.out.println("AFFF"+currentNode.ToString()+siblingNode.ToString()+parent.ToString()+parent.ToPointers()+keyValue);
-				delete_key(parent, keyValue, value);
-				currentNode.clear();
-				
-			} else {
-				// Redistribution
-				if (siblingPointer<currentPointer) {
-					if (!currentNode.isLeafNode()) {
-						int mPos = 0; 
-						
-						for(i=0;i<siblingNode.pointers.length;i++){
-							if(siblingNode.pointers[i]!=null){
-								mPos++;
-							}
-						}
-						
-						Object m = siblingNode.pointers[mPos];
-						Object tempKm = siblingNode.keys[mPos - 1];
-						siblingNode.keys[mPos-1]= null;
-						siblingNode.numberOfKeys--;
-						siblingNode.keys[mPos]= null;
-						currentNode.insert(keyValue, m, 0);
-						parent = findParent(currentNode);
-						parent.keys[k_pos] = parent.keys[mPos-1];
-						//						K M = (K) siblingNode.pointers[mPos];
-						//						K tempP = siblingNode.keys[mPos - 1];
-						// siblingNode.keys[mPos-1]=null;
-						//						siblingNode.numberOfKeys--; // remove (N'.Km-1,N'.Pm)
-						// from N'
-						// siblingNode.keys[mPos]=null;
-						//						currentNode.insert(keyValue, M, 0);
-						// parent = findParent(currentNode);
-						//						parent.keys[currentPointer] = tempP;
-						// parent.keys[currentPointer] = NPrimeKMMinus ;
-						// //replace K' in parent(N) by N'.Km-1
-						//						keyValue = parent.keys[currentPointer];
-					} else {
-						int mPos = 0;
-						
-						K lastkey = currentNode.keys[currentNode.numberOfKeys];
-						
-						for(i=0;i<siblingNode.pointers.length;i++){
-							if(siblingNode.pointers[i]!=null){
-								mPos++;
-							}
-						}
-						
-						Object tempKm = siblingNode.keys[mPos]; // Storing this for further use before removal
-
-						Object m = siblingNode.pointers[mPos];
-
-						siblingNode.pointers[mPos] = null;
-						siblingNode.keys[mPos] = null;
-						siblingNode.numberOfKeys--;
-
-						currentNode.insert(lastkey,m, 0);
-
-						//replace K' in parent(N) by N'.Km
-						parent =  findParent(currentNode);
-						parent.keys[k_pos] = parent.keys[mPos];
-						
-						
-						
-						
-						//						int mPos = currentNode.numberOfKeys - 1;
-						//						K NPrimePointerM = (K) currentNode.pointers[mPos];
-						//						K NPrimeKM = currentNode.keys[mPos];
-						//						siblingNode.numberOfKeys--; // remove (N'.Km-1,N'.Pm)
-						//													// from N'
-						//						siblingNode.insert(NPrimeKM, NPrimePointerM, 0); 
-						//						parent.keys[currentPointer] = NPrimeKM; 
-					}
-					//					keyValue = parent.keys[currentIndex];
-				} else {
-					if (!currentNode.isLeafNode()) {
-						int mPos= 0;
-
-						for(i=0; i<siblingNode.pointers.length; i++){
-							if(siblingNode.pointers[i]!=null){
-								mPos++;
-								//break;
-							}
-						}
-
-						Object m = siblingNode.pointers[mPos];
-						Object tempKm = siblingNode.keys[mPos-1];  // Storing this for further use before removal
-						siblingNode.keys[mPos-1] = null;
-						siblingNode.numberOfKeys--;
-						siblingNode.pointers[mPos] = null;
-						currentNode.insert(keyValue, m, 0);				
-						parent =  findParent(currentNode);
-						parent.keys[k_pos] = parent.keys[mPos-1];					
-						
-						
-						//						int m = currentNode.numberOfKeys;
-						//						K NPointerM = (K) currentNode.pointers[m];
-						//						K NKMMinus = currentNode.keys[m - 1];
-						//						currentNode.numberOfKeys--; 
-						//						siblingNode.insert(NPointerM, keyValue, 0);
-						//						parent.keys[currentIndex] = NKMMinus; 
-						//						keyValue = parent.keys[currentIndex];
-
-					} else {
-						
-						int mPos = 0; // Position of last pointer
-						K lastkey = currentNode.keys[currentNode.numberOfKeys]; // Last key
-
-						for(i=0; i<siblingNode.pointers.length; i++){
-							if(siblingNode.pointers[i]!=null){
-								mPos++;
-								//break;
-							}
-						}
-
-						Object tempKm = siblingNode.keys[mPos];
-
-						Object m = siblingNode.pointers[mPos];
-
-						siblingNode.pointers[mPos] = null;
-						siblingNode.keys[mPos] = null;
-						siblingNode.numberOfKeys--;
-
-						currentNode.insert(lastkey, m, 0);
-						parent =  findParent(currentNode);
-						parent.keys[k_pos] = parent.keys[mPos];
-						
-
-						//						int m = currentNode.numberOfKeys - 1; 
-						//						K NPointerM = (K) currentNode.pointers[m];
-						//						K NKM = currentNode.keys[m];
-						//						currentNode.numberOfKeys--;
-						//						siblingNode.insert(NKM, NPointerM, 0);
-						//						parent.keys[currentIndex] = NKM; 
-						//						keyValue = parent.keys[currentIndex];
+	/**
+	* Compacts this {@code BPlusTree} to the specified fill factor in one pass (see {@link #compact(double, int)}).
+	* 
+	* @param fillFactor
+	*            the target fraction of each {@code Node} to fill (0 &lt; fillFactor &lt;= 1).
+	*/
+	public void compact(double fillFactor) {
+		while (!compact(fillFactor, Integer.MAX_VALUE))
+			;
+	}
 
-					}
-				}
+	/**
+	* Fills the specified {@code Node} up to the specified number of keys with the leading entries or children of its
+	* right sibling, merging the two {@code Node}s if the sibling fits entirely.
+	* 
+	* @param p
+	*            the parent.
+	* @param s
+	*            the index of the left {@code Node} in the parent.
+	* @param left
+	*            the {@code Node} to fill.
+	* @param right
+	*            the right sibling.
+	* @param target
+	*            the number of keys to fill the left {@code Node} to.
+	* @return {@code true} if the right sibling remains; {@code false} if it has been merged into the left
+	*         {@code Node}.
+	*/
+	@SuppressWarnings("unchecked")
+	boolean pack(NonLeafNode<K> p, int s, Node<K> left, Node<K> right, int target) {
+		int room = target - left.numberOfKeys;
+		if (left instanceof LeafNode) {
+			if (right.numberOfKeys <= room) {
+				merge(p, s, left, right);
+				return false;
 			}
-
+			if (room > 0) {
+				((LeafNode<K, V>) right).moveTo(0, room, (LeafNode<K, V>) left, left.numberOfKeys);
+				p.keys[s] = right.keys[0];
+			}
+		} else {
+			if (right.numberOfKeys + 1 <= room) { // the separator comes down with the children
+				merge(p, s, left, right);
+				return false;
+			}
+			if (room > 0)
+				p.keys[s] = ((NonLeafNode<K>) left).borrowFromRight(p.keys[s], (NonLeafNode<K>) right, room);
 		}
-		
+		return true;
+	}
+
+	/**
+	* Returns the smallest key in the subtree rooted at the specified {@code Node}.
+	* 
+	* @param n
+	*            a {@code Node}.
+	* @return the first key of the leftmost {@code LeafNode} under the specified {@code Node}.
+	*/
+	K firstKey(Node<K> n) {
+		while (n instanceof NonLeafNode)
+			n = ((NonLeafNode<K>) n).child(0);
+		return n.firstKey();
 	}
-	
-	private int noOfpointers(Node p) {
-		int count = 0;
-		for (int j = 0; j < p.pointers.length; j++) {
-			if (p.pointers[j] != null)
-			count++;
-		}
-		return count;
 
+	/**
+	* Returns the child at the specified index of the specified {@code NonLeafNode} on the recorded path, as the sibling
+	* of a {@code Node} being rebalanced.
+	* 
+	* @param p
+	*            a {@code NonLeafNode} on the recorded path.
+	* @param i
+	*            the index of the sibling.
+	* @return the sibling, which may be modified.
+	*/
+	protected Node<K> sibling(NonLeafNode<K> p, int i) {
+		return p.child(i);
 	}
 
-	private void shift(int index, Node n) {
-		int i = 0;
-		// Shifting keys/ pointers to the left. Suppose I'm deleting |10|20|, 10
-		// here, I need to shift 20 to the left, else it'll have null value
-		if (index != n.numberOfKeys - 1) {
-			for (i = index; i < n.numberOfKeys - 1; i++) {
-				n.keys[i] = n.keys[i + 1];
-				n.pointers[i] = n.pointers[i + 1];
+	/**
+	* Moves one entry or child from the specified sibling to the specified underfull {@code Node} and updates the
+	* separator between them in their parent.
+	*
+	* @param p
+	*            the parent.
+	* @param s
+	*            the index of the underfull {@code Node} in the parent.
+	* @param n
+	*            the underfull {@code Node}.
+	* @param sibling
+	*            the sibling that lends an entry or child.
+	* @param right
+	*            a flag indicating whether or not the sibling is to the right of the underfull {@code Node}.
+	*/
+	@SuppressWarnings("unchecked")
+	void borrow(NonLeafNode<K> p, int s, Node<K> n, Node<K> sibling, boolean right) {
+		if (n instanceof LeafNode) {
+			LeafNode<K, V> leaf = (LeafNode<K, V>) n;
+			LeafNode<K, V> lender = (LeafNode<K, V>) sibling;
+			if (right) {
+				lender.moveTo(0, 1, leaf, leaf.numberOfKeys);
+				p.keys[s] = lender.keys[0];
+			} else {
+				lender.moveTo(lender.numberOfKeys - 1, lender.numberOfKeys, leaf, 0);
+				p.keys[s - 1] = leaf.keys[0];
 			}
-			n.pointers[i] = n.pointers[i + 1];
-			n.pointers[i + 1] = null; // After shifting, we get 1 last pointer
-			// which is not gonna be used. Hence
-			// null.
-			n.keys[n.numberOfKeys - 1] = null; // This key is shifted, left,
-			// hence null now.
+		} else if (right) {
+			p.keys[s] = ((NonLeafNode<K>) n).borrowFromRight(p.keys[s], (NonLeafNode<K>) sibling);
+		} else {
+			p.keys[s - 1] = ((NonLeafNode<K>) n).borrowFromLeft(p.keys[s - 1], (NonLeafNode<K>) sibling);
 		}
-		n.numberOfKeys--; // After deletion, decrease the no. of Keys for the
-		// node.
+	}
 
+	/**
+	* Merges the specified right {@code Node} into the specified left {@code Node} and removes the right
+	* {@code Node} from their parent.
+	*
+	* @param p
+	*            the parent.
+	* @param s
+	*            the index of the left {@code Node} in the parent.
+	* @param left
+	*            the left {@code Node}.
+	* @param right
+	*            the right {@code Node}.
+	*/
+	@SuppressWarnings("unchecked")
+	void merge(NonLeafNode<K> p, int s, Node<K> left, Node<K> right) {
+		if (left instanceof LeafNode) {
+			LeafNode<K, V> l = (LeafNode<K, V>) left;
+			LeafNode<K, V> r = (LeafNode<K, V>) right;
+			r.moveTo(0, r.numberOfKeys, l, l.numberOfKeys);
+			l.setSuccessor(r.successor());
+		} else {
+			((NonLeafNode<K>) left).merge(p.keys[s], (NonLeafNode<K>) right);
+		}
+		p.removeAfter(s);
 	}
-	
-	
-	
-}
 
+}
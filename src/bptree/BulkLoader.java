@@ -0,0 +1,223 @@
+package bptree;
+
+import java.util.ArrayList;
+
+/**
+ * The {@code BulkLoader} class builds a B+-tree bottom-up from entries given in key order. {@code LeafNode}s are packed
+ * from left to right and chained, and each completed {@code Node} is appended to the rightmost {@code NonLeafNode} of
+ * the level above, so the whole tree is built in a single pass over the entries. When the last entry has been added,
+ * the rightmost {@code Node} of each level borrows from (or is merged into) its left neighbor if it is under the
+ * minimum occupancy.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+class BulkLoader<K extends Comparable<K>, V> {
+
+	/**
+	 * The {@code BPlusTree} that creates the {@code Node}s to build.
+	 */
+	protected BPlusTree<K, V> tree;
+
+	/**
+	 * The number of entries to put in each {@code LeafNode}.
+	 */
+	protected int leafCapacity;
+
+	/**
+	 * The number of children to put in each {@code NonLeafNode}.
+	 */
+	protected int nonLeafCapacity;
+
+	/**
+	 * The minimum number of entries in a {@code LeafNode} other than the root.
+	 */
+	protected int leafMinimum;
+
+	/**
+	 * The minimum number of children of a {@code NonLeafNode} other than the root.
+	 */
+	protected int nonLeafMinimum;
+
+	/**
+	 * The {@code LeafNode} currently being filled.
+	 */
+	protected LeafNode<K, V> leaf;
+
+	/**
+	 * The {@code LeafNode} that precedes {@code leaf}.
+	 */
+	protected LeafNode<K, V> previousLeaf;
+
+	/**
+	 * The {@code NonLeafNode} currently being filled at each level (level 0 is right above the {@code LeafNode}s).
+	 */
+	protected ArrayList<NonLeafNode<K>> nodes = new ArrayList<NonLeafNode<K>>();
+
+	/**
+	 * The {@code NonLeafNode} that precedes the one in {@code nodes} at each level.
+	 */
+	protected ArrayList<NonLeafNode<K>> previousNodes = new ArrayList<NonLeafNode<K>>();
+
+	/**
+	 * The key that separates the {@code NonLeafNode} in {@code nodes} from its predecessor at each level.
+	 */
+	protected ArrayList<K> separators = new ArrayList<K>();
+
+	/**
+	 * Constructs a {@code BulkLoader}.
+	 * 
+	 * @param tree
+	 *            the {@code BPlusTree} that creates the {@code Node}s to build.
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill (0 &lt; fillFactor &lt;= 1). The fraction is raised to the
+	 *            minimum occupancy of a B+-tree if necessary.
+	 */
+	BulkLoader(BPlusTree<K, V> tree, double fillFactor) {
+		if (!(fillFactor > 0 && fillFactor <= 1))
+			throw new IllegalArgumentException("fill factor must be in (0, 1]: " + fillFactor);
+		this.tree = tree;
+		int degree = tree.degree;
+		this.leafMinimum = Math.max(1, degree / 2);
+		this.nonLeafMinimum = (degree + 1) / 2;
+		this.leafCapacity = Math.max(leafMinimum, (int) Math.round(fillFactor * (degree - 1)));
+		this.nonLeafCapacity = Math.max(Math.max(2, nonLeafMinimum), (int) Math.round(fillFactor * degree));
+	}
+
+	/**
+	 * Appends the specified key and value.
+	 * 
+	 * @param key
+	 *            the key to append.
+	 * @param value
+	 *            the value to append.
+	 * @throws IllegalArgumentException
+	 *             if the key is smaller than the previously appended key.
+	 */
+	void add(K key, V value) {
+		if (leaf == null) {
+			leaf = tree.newLeafNode();
+		} else {
+			K last = leaf.keys[leaf.numberOfKeys - 1];
+			if (key.compareTo(last) < 0)
+				throw new IllegalArgumentException("keys are not sorted: " + key + " after " + last);
+			if (leaf.numberOfKeys == leafCapacity) { // if the current leaf is full
+				LeafNode<K, V> l = tree.newLeafNode();
+				leaf.setSuccessor(l);
+				add(0, previousLeaf == null ? null : leaf.firstKey(), leaf);
+				previousLeaf = leaf;
+				leaf = l;
+			}
+		}
+		leaf.keys[leaf.numberOfKeys] = key;
+		leaf.pointers[leaf.numberOfKeys++] = value;
+	}
+
+	/**
+	 * Appends the specified key and child {@code Node} to the specified level.
+	 * 
+	 * @param level
+	 *            the level of the {@code NonLeafNode}s to append to.
+	 * @param key
+	 *            the key that separates the child {@code Node} from its predecessor ({@code null} for the first child
+	 *            of the level).
+	 * @param child
+	 *            the child {@code Node}.
+	 */
+	protected void add(int level, K key, Node<K> child) {
+		if (level == nodes.size()) { // if the first child of a new level
+			NonLeafNode<K> n = tree.newNonLeafNode();
+			n.pointers[0] = child;
+			nodes.add(n);
+			previousNodes.add(null);
+			separators.add(null);
+			return;
+		}
+		NonLeafNode<K> n = nodes.get(level);
+		if (n.numberOfKeys + 1 < nonLeafCapacity) {
+			n.keys[n.numberOfKeys++] = key;
+			n.pointers[n.numberOfKeys] = child;
+		} else { // if the current node is full
+			add(level + 1, separators.get(level), n);
+			previousNodes.set(level, n);
+			NonLeafNode<K> m = tree.newNonLeafNode();
+			m.pointers[0] = child;
+			nodes.set(level, m);
+			separators.set(level, key);
+		}
+	}
+
+	/**
+	 * Completes the tree.
+	 * 
+	 * @return the root {@code Node} of the tree; {@code null} if no entries have been added.
+	 */
+	Node<K> finish() {
+		if (leaf == null)
+			return null;
+		if (previousLeaf == null) // if all entries fit in one leaf
+			return leaf;
+		if (leaf.numberOfKeys < leafMinimum) { // if the last leaf is underfull
+			int total = previousLeaf.numberOfKeys + leaf.numberOfKeys;
+			if (total >= 2 * leafMinimum) { // if enough entries to share
+				int moved = leafMinimum - leaf.numberOfKeys;
+				int from = previousLeaf.numberOfKeys - moved;
+				System.arraycopy(leaf.keys, 0, leaf.keys, moved, leaf.numberOfKeys);
+				System.arraycopy(leaf.pointers, 0, leaf.pointers, moved, leaf.numberOfKeys);
+				System.arraycopy(previousLeaf.keys, from, leaf.keys, 0, moved);
+				System.arraycopy(previousLeaf.pointers, from, leaf.pointers, 0, moved);
+				java.util.Arrays.fill(previousLeaf.keys, from, previousLeaf.numberOfKeys, null);
+				java.util.Arrays.fill(previousLeaf.pointers, from, previousLeaf.numberOfKeys, null);
+				previousLeaf.numberOfKeys = from;
+				leaf.numberOfKeys += moved;
+				add(0, leaf.firstKey(), leaf);
+			} else { // merge the last leaf into its predecessor
+				System.arraycopy(leaf.keys, 0, previousLeaf.keys, previousLeaf.numberOfKeys, leaf.numberOfKeys);
+				System.arraycopy(leaf.pointers, 0, previousLeaf.pointers, previousLeaf.numberOfKeys, leaf.numberOfKeys);
+				previousLeaf.numberOfKeys = total;
+				previousLeaf.setSuccessor(null);
+			}
+		} else {
+			add(0, leaf.firstKey(), leaf);
+		}
+		for (int level = 0;; level++) {
+			NonLeafNode<K> n = nodes.get(level);
+			NonLeafNode<K> p = previousNodes.get(level);
+			if (p == null) { // if n is the only node of the level
+				Node<K> root = n;
+				while (root instanceof NonLeafNode && root.numberOfKeys == 0) // if the root has only one child
+					root = ((NonLeafNode<K>) root).child(0);
+				return root;
+			}
+			if (n.numberOfKeys + 1 < nonLeafMinimum) { // if the last node of the level is underfull
+				K separator = separators.get(level);
+				if (p.numberOfKeys + n.numberOfKeys + 2 >= 2 * nonLeafMinimum) { // if enough children to share
+					while (n.numberOfKeys + 1 < nonLeafMinimum) { // rotate the last child of p into n
+						System.arraycopy(n.keys, 0, n.keys, 1, n.numberOfKeys);
+						System.arraycopy(n.pointers, 0, n.pointers, 1, n.numberOfKeys + 1);
+						n.keys[0] = separator;
+						n.pointers[0] = p.pointers[p.numberOfKeys];
+						n.numberOfKeys++;
+						separator = p.keys[p.numberOfKeys - 1];
+						p.keys[p.numberOfKeys - 1] = null;
+						p.pointers[p.numberOfKeys] = null;
+						p.numberOfKeys--;
+					}
+					add(level + 1, separator, n);
+				} else { // merge n into p
+					p.keys[p.numberOfKeys] = separator;
+					System.arraycopy(n.keys, 0, p.keys, p.numberOfKeys + 1, n.numberOfKeys);
+					System.arraycopy(n.pointers, 0, p.pointers, p.numberOfKeys + 1, n.numberOfKeys + 1);
+					p.numberOfKeys += n.numberOfKeys + 1;
+				}
+			} else {
+				add(level + 1, separators.get(level), n);
+			}
+		}
+	}
+
+}
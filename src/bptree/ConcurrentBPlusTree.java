@@ -0,0 +1,866 @@
+package bptree;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * The {@code ConcurrentBPlusTree} class implements B+-trees that can be read and updated by many threads at once. Each
+ * {@code Node} has a read/write latch, and operations descend with latch crabbing: a thread latches a child before it
+ * releases the latch on the parent. Readers take shared latches. An update first descends optimistically with shared
+ * latches and an exclusive latch on the {@code LeafNode}, which succeeds unless the {@code LeafNode} must be split or
+ * rebalanced. Otherwise it descends again with exclusive latches and releases the latches on the ancestors whenever a
+ * child is safe, i.e., has room for one more key (insertions) or has more than the minimum number of keys (deletions),
+ * so that the split or merge cannot propagate past it. A separate latch protects the reference to the root. Every
+ * operation also holds a tree-wide latch shared, which {@link #compact(double, int)} and
+ * {@link #bulkLoad(java.util.Iterator, double)} take exclusively, since they restructure {@code Node}s without
+ * latching them.
+ * Copies of a key can be on both sides of a separator equal to the key, so lookups and deletions go to the first copy
+ * as {@link BPlusTree#findFirst(Comparable)} does, keeping the latch on such a separator's {@code NonLeafNode} until
+ * they know whether to continue right of it.
+ *
+ * Cursors and streams ({@link #range(Comparable, boolean, Comparable, boolean)} and
+ * {@link #rangeStream(Comparable, boolean, Comparable, boolean)}) take no latches; use
+ * {@link #forEach(Comparable, Comparable, BiConsumer)} to scan while the tree is being updated.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class ConcurrentBPlusTree<K extends Comparable<K>, V> extends BPlusTree<K, V> {
+
+	/**
+	 * The latch that protects {@code root}.
+	 */
+	protected final ReentrantReadWriteLock rootLatch = new ReentrantReadWriteLock();
+
+	/**
+	 * The latch that every operation holds shared from start to end, and that {@link #compact(double, int)} and
+	 * {@link #bulkLoad(java.util.Iterator, double)} hold exclusively, since they move entries and children between
+	 * {@code Node}s without latching them.
+	 */
+	protected final ReentrantReadWriteLock treeLatch = new ReentrantReadWriteLock();
+
+	/**
+	 * The result of {@link #deleteOptimistically(Comparable)} when the deletion must be retried pessimistically.
+	 */
+	protected static final Object RETRY = new Object();
+
+	/**
+	 * Constructs a {@code ConcurrentBPlusTree} that chooses the {@code KeySearch} strategy from its degree.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code ConcurrentBPlusTree} can have.
+	 */
+	public ConcurrentBPlusTree(int degree) {
+		this(degree, KeySearch.forDegree(degree));
+	}
+
+	/**
+	 * Constructs a {@code ConcurrentBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code ConcurrentBPlusTree} can have.
+	 * @param search
+	 *            the strategy for searching the keys within each {@code Node} of this {@code ConcurrentBPlusTree}.
+	 */
+	public ConcurrentBPlusTree(int degree, KeySearch search) {
+		super(degree, search);
+	}
+
+	@Override
+	public V get(K key) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		V value = null;
+		treeLatch.readLock().lock();
+		try {
+			LeafNode<K, V> leaf = lockFirst(key, false);
+			if (leaf != null) {
+				try {
+					value = lookup(leaf, key);
+				} finally {
+					latch(leaf).readLock().unlock();
+				}
+			}
+		} finally {
+			treeLatch.readLock().unlock();
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.GET, start);
+		TreeEvents.end(event, TreeMetrics.Operation.GET, degree, key, 1);
+		return value;
+	}
+
+	/**
+	 * Inserts the specified key and the value into this {@code ConcurrentBPlusTree}.
+	 *
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	@Override
+	public void insert(K key, V value) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		treeLatch.readLock().lock();
+		try {
+			if (!insertOptimistically(key, value))
+				insertPessimistically(key, value);
+		} finally {
+			treeLatch.readLock().unlock();
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.INSERT, start);
+		TreeEvents.end(event, TreeMetrics.Operation.INSERT, degree, key, 1);
+	}
+
+	/**
+	 * Removes an entry with the specified key from this {@code ConcurrentBPlusTree}.
+	 *
+	 * @param key
+	 *            the key to remove.
+	 * @return the value of the removed entry; {@code null} if this {@code ConcurrentBPlusTree} has no such key.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(K key) {
+		long start = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeEvents.Operation event = TreeEvents.begin();
+		Object value;
+		treeLatch.readLock().lock();
+		try {
+			value = deleteOptimistically(key);
+			if (value == RETRY)
+				value = deletePessimistically(key);
+		} finally {
+			treeLatch.readLock().unlock();
+		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.completed(TreeMetrics.Operation.REMOVE, start);
+		TreeEvents.end(event, TreeMetrics.Operation.REMOVE, degree, key, 1);
+		return (V) value;
+	}
+
+	/**
+	 * Looks up the specified keys one by one with {@link #get(Comparable)}, each with latch crabbing, so that the
+	 * lookups are safe while this {@code ConcurrentBPlusTree} is being updated.
+	 *
+	 * @param keys
+	 *            the search keys.
+	 * @param out
+	 *            the array that receives the values; at least as long as {@code keys}.
+	 */
+	@Override
+	public void getAll(K[] keys, V[] out) {
+		for (int i = 0; i < keys.length; i++)
+			out[i] = get(keys[i]);
+	}
+
+	/**
+	 * Inserts the specified entries into this {@code ConcurrentBPlusTree}. The entries are sorted by key, and each run
+	 * of entries that falls strictly below the last key of the {@code LeafNode} responsible for its first entry, and
+	 * fits into it, is merged into that {@code LeafNode} under one exclusive latch. Entries that need a split are
+	 * inserted one by one.
+	 *
+	 * @param entries
+	 *            the entries to insert.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void insertAll(java.util.Collection<? extends java.util.Map.Entry<? extends K, ? extends V>> entries) {
+		Object[] values = new Object[entries.size()];
+		K[] keys = sort(entries, values);
+		for (int i = 0; i < keys.length;) {
+			int j = i;
+			treeLatch.readLock().lock();
+			try {
+				LeafNode<K, V> leaf = lockLeaf(keys[i]);
+				if (leaf != null) {
+					try {
+						int room = leaf.keys.length - leaf.numberOfKeys;
+						if (room > 0) { // keys[i] belongs to the leaf, and so does every key below its last key
+							j++;
+							while (j < keys.length && j - i < room && leaf.numberOfKeys > 0
+									&& keys[j].compareTo(leaf.keys[leaf.numberOfKeys - 1]) < 0)
+								j++;
+							leaf.insertAll(keys, values, i, j);
+						}
+					} finally {
+						latch(leaf).writeLock().unlock();
+					}
+				}
+			} finally {
+				treeLatch.readLock().unlock();
+			}
+			if (j == i) { // if a split is needed
+				insert(keys[i], (V) values[i]);
+				j++;
+			}
+			i = j;
+		}
+	}
+
+	/**
+	 * Deletes one entry for each of the specified keys from this {@code ConcurrentBPlusTree}, in key order, so that the
+	 * {@code Node}s are rebalanced as by {@link #delete(Comparable, Object)}.
+	 *
+	 * @param keys
+	 *            the keys to delete.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void deleteAll(java.util.Collection<? extends K> keys) {
+		K[] sorted = keys.toArray((K[]) new Comparable[keys.size()]);
+		java.util.Arrays.sort(sorted);
+		for (K key : sorted)
+			delete(key, null);
+	}
+
+	/**
+	 * Replaces the contents of this {@code ConcurrentBPlusTree} with the specified entries, which must be given in key
+	 * order, while excluding all other operations.
+	 */
+	@Override
+	public void bulkLoad(java.util.Iterator<? extends java.util.Map.Entry<? extends K, ? extends V>> entries,
+			double fillFactor) {
+		treeLatch.writeLock().lock();
+		try {
+			super.bulkLoad(entries, fillFactor);
+		} finally {
+			treeLatch.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Performs the specified action for each entry of this {@code ConcurrentBPlusTree} whose key is greater than or
+	 * equal to {@code from} and less than {@code to}, in key order. The scan holds a shared latch on the current
+	 * {@code LeafNode} and latches the successor before releasing it. To avoid deadlocks with deletions, which latch
+	 * the left sibling of a {@code LeafNode} they hold, the scan never waits for a successor: if the successor is
+	 * latched exclusively, it releases its latch and descends again from the root to the last key it has passed. The
+	 * scan holds {@code treeLatch} shared throughout, so compaction steps wait until it ends. The action runs while
+	 * latches are held, so it must not update this {@code ConcurrentBPlusTree}.
+	 *
+	 * @param from
+	 *            the lower bound of the keys, inclusive; {@code null} if unbounded.
+	 * @param to
+	 *            the upper bound of the keys, exclusive; {@code null} if unbounded.
+	 * @param action
+	 *            the action to perform for each entry.
+	 */
+	public void forEach(K from, K to, BiConsumer<? super K, ? super V> action) {
+		treeLatch.readLock().lock();
+		try {
+			scan(from, to, action);
+		} finally {
+			treeLatch.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Performs {@link #forEach(Comparable, Comparable, BiConsumer)} while {@code treeLatch} is held.
+	 *
+	 * @param from
+	 *            the lower bound of the keys, inclusive; {@code null} if unbounded.
+	 * @param to
+	 *            the upper bound of the keys, exclusive; {@code null} if unbounded.
+	 * @param action
+	 *            the action to perform for each entry.
+	 */
+	@SuppressWarnings("unchecked")
+	protected void scan(K from, K to, BiConsumer<? super K, ? super V> action) {
+		LeafNode<K, V> leaf = lockLeftmost(from);
+		if (leaf == null)
+			return;
+		int i = from == null ? 0 : search.lowerBound(leaf.keys, leaf.numberOfKeys, from);
+		K last = null; // the last key passed to the action
+		int duplicates = 0; // the number of entries passed to the action whose keys equal the last key
+		int skip = 0; // the number of entries with the last key to skip after descending again
+		while (true) {
+			for (; i < leaf.numberOfKeys; i++) {
+				K key = leaf.keys[i];
+				if (to != null && key.compareTo(to) >= 0) { // if past the upper bound
+					latch(leaf).readLock().unlock();
+					return;
+				}
+				if (skip > 0 && key.compareTo(last) == 0) { // if passed to the action before descending again
+					skip--;
+					continue;
+				}
+				skip = 0;
+				action.accept(key, (V) leaf.pointers[i]);
+				if (last != null && key.compareTo(last) == 0)
+					duplicates++;
+				else {
+					last = key;
+					duplicates = 1;
+				}
+			}
+			LeafNode<K, V> next = leaf.successor();
+			if (next == null) {
+				latch(leaf).readLock().unlock();
+				return;
+			}
+			if (latch(next).readLock().tryLock()) {
+				latch(leaf).readLock().unlock();
+				leaf = next;
+				i = 0;
+				continue;
+			}
+			latch(leaf).readLock().unlock(); // let the writer finish and descend again
+			K restart = last == null ? from : last;
+			leaf = lockLeftmost(restart);
+			if (leaf == null)
+				return;
+			i = restart == null ? 0 : search.lowerBound(leaf.keys, leaf.numberOfKeys, restart);
+			skip = duplicates;
+		}
+	}
+
+	/**
+	 * Finds the leftmost {@code LeafNode} that may contain the specified key with latch crabbing and returns it with
+	 * its shared latch held.
+	 *
+	 * @param key
+	 *            the search key; {@code null} to find the leftmost {@code LeafNode}.
+	 * @return the leftmost {@code LeafNode} that may contain the specified key; {@code null} if this
+	 *         {@code ConcurrentBPlusTree} is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, V> lockLeftmost(K key) {
+		Lock held = rootLatch.readLock();
+		held.lock();
+		Node<K> c = root;
+		if (c == null) {
+			held.unlock();
+			return null;
+		}
+		held = crab(held, latch(c).readLock());
+		while (c instanceof NonLeafNode) {
+			c = ((NonLeafNode<K>) c).child(key == null ? 0 : search.lowerBound(c.keys, c.numberOfKeys, key));
+			held = crab(held, latch(c).readLock());
+		}
+		return (LeafNode<K, V>) c;
+	}
+
+	/**
+	 * Inserts the specified key and value if the {@code LeafNode} responsible for the key has room for them, holding
+	 * shared latches on the way down and an exclusive latch on the {@code LeafNode} only.
+	 *
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 * @return {@code true} if the key and value have been inserted; {@code false} if a split is needed.
+	 */
+	@SuppressWarnings("unchecked")
+	protected boolean insertOptimistically(K key, V value) {
+		LeafNode<K, V> leaf = lockLeaf(key);
+		if (leaf == null)
+			return false;
+		try {
+			if (!leaf.hasRoom())
+				return false;
+			leaf.insert(key, value);
+			return true;
+		} finally {
+			latch(leaf).writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Inserts the specified key and value, holding exclusive latches on the {@code Node}s that a split may reach.
+	 *
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	@SuppressWarnings("unchecked")
+	protected void insertPessimistically(K key, V value) {
+		Descent<K> d = new Descent<K>(rootLatch);
+		if (root == null)
+			root = newLeafNode();
+		Node<K> c = root;
+		latch(c).writeLock().lock();
+		if (c.hasRoom())
+			d.releaseAncestors();
+		while (c instanceof NonLeafNode) {
+			NonLeafNode<K> p = (NonLeafNode<K>) c;
+			c = d.push(p, search.upperBound(p.keys, p.numberOfKeys, key));
+			latch(c).writeLock().lock();
+			if (c.hasRoom()) // if a split cannot propagate past c
+				d.releaseAncestors();
+		}
+		LeafNode<K, V> leaf = (LeafNode<K, V>) c;
+		try {
+			if (leaf.hasRoom()) {
+				leaf.insert(key, value);
+				return;
+			}
+			int m = (int) Math.ceil(degree / 2.0); // compute the split point
+			LeafNode<K, V> nLeaf = newLeafNode();
+			leaf.split(key, value, m, nLeaf);
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.split(0);
+			TreeEvents.split(0, degree, leaf, nLeaf);
+			Node<K> n = leaf;
+			Node<K> nn = nLeaf;
+			K separator = nLeaf.firstKey();
+			for (int level = d.depth - 1;; level--) { // all the nodes up to the last unsafe one are latched
+				if (level < 0) { // if the root was split
+					NonLeafNode<K> r = newNonLeafNode();
+					r.insert(separator, n, 0);
+					r.pointers[1] = nn;
+					root = r;
+					TreeEvents.rootGrown(d.depth + 1, degree, separator);
+					return;
+				}
+				NonLeafNode<K> p = d.path[level];
+				int i = d.slots[level];
+				if (p.hasRoom()) {
+					p.insertAfter(separator, nn, i);
+					return;
+				}
+				NonLeafNode<K> np = newNonLeafNode();
+				separator = p.split(separator, nn, i, (int) Math.ceil(degree / 2.0), np);
+				if (TreeMetrics.ENABLED)
+					TreeMetrics.split(d.depth - level);
+				TreeEvents.split(d.depth - level, degree, p, np);
+				n = p;
+				nn = np;
+			}
+		} finally {
+			d.releaseAncestors();
+			latch(leaf).writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Deletes an entry with the specified key if the {@code LeafNode} responsible for the key stays at or above the
+	 * minimum occupancy, holding shared latches on the way down and an exclusive latch on the {@code LeafNode} only.
+	 *
+	 * @param key
+	 *            the key to delete.
+	 * @return the value of the deleted entry; {@code null} if there is no entry with the key; {@link #RETRY} if
+	 *         rebalancing may be needed.
+	 */
+	protected Object deleteOptimistically(K key) {
+		LeafNode<K, V> leaf = lockFirst(key, true);
+		if (leaf == null)
+			return null;
+		try {
+			int i = leaf.findIndexGE(key);
+			if (i < 0 || key.compareTo(leaf.keys[i]) != 0) // if there is no such key
+				return null;
+			if (leaf.numberOfKeys <= leafMinimum) // if the leaf may be the root or become underfull
+				return RETRY;
+			V value = leaf.value(i);
+			leaf.remove(i);
+			return value;
+		} finally {
+			latch(leaf).writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Deletes an entry with the specified key, holding exclusive latches on the {@code Node}s that a merge may reach.
+	 * An underfull {@code Node} borrows a key from a sibling under the same parent or is merged with it; the right
+	 * sibling is preferred. The descent goes to the {@code LeafNode} that holds the first entry with the key, as
+	 * {@link #lockFirst(Comparable, boolean)} does; while a separator equal to the key may send it to the subtree right
+	 * of that separator, no latch is released, so the merges that the new path may cause are still covered.
+	 *
+	 * @param key
+	 *            the key to delete.
+	 * @return the value of the deleted entry; {@code null} if there is no entry with the key.
+	 */
+	@SuppressWarnings("unchecked")
+	protected V deletePessimistically(K key) {
+		Descent<K> d = new Descent<K>(rootLatch);
+		Node<K> c = root;
+		if (c == null) {
+			d.releaseAncestors();
+			return null;
+		}
+		latch(c).writeLock().lock();
+		if (c.numberOfKeys > 1) // if the root cannot become empty
+			d.releaseAncestors();
+		int anchor = -1; // the position on the path of the NonLeafNode whose separator right of the path equals the key
+		while (c instanceof NonLeafNode) {
+			NonLeafNode<K> p = (NonLeafNode<K>) c;
+			int i = search.lowerBound(p.keys, p.numberOfKeys, key);
+			c = d.push(p, i);
+			latch(c).writeLock().lock();
+			if (i < p.numberOfKeys)
+				anchor = key.compareTo(p.keys[i]) == 0 ? d.depth - 1 : -1;
+			if (anchor < 0 && c.numberOfKeys > (c instanceof LeafNode ? leafMinimum : nonLeafMinimum)) // if safe
+				d.releaseAncestors();
+		}
+		if (anchor >= 0 && ((LeafNode<K, V>) c).findIndexGE(key) < 0) { // if the key can only be further right
+			latch(c).writeLock().unlock();
+			for (int level = d.depth - 1; level > anchor; level--)
+				latch(d.path[level]).writeLock().unlock();
+			d.depth = anchor;
+			c = d.push(d.path[anchor], d.slots[anchor] + 1);
+			latch(c).writeLock().lock();
+			if (c.numberOfKeys > (c instanceof LeafNode ? leafMinimum : nonLeafMinimum))
+				d.releaseAncestors();
+			while (c instanceof NonLeafNode) {
+				c = d.push((NonLeafNode<K>) c, 0);
+				latch(c).writeLock().lock();
+				if (c.numberOfKeys > (c instanceof LeafNode ? leafMinimum : nonLeafMinimum))
+					d.releaseAncestors();
+			}
+		}
+		LeafNode<K, V> leaf = (LeafNode<K, V>) c;
+		try {
+			int i = leaf.findIndexGE(key);
+			if (i < 0 || key.compareTo(leaf.keys[i]) != 0) // if there is no such key
+				return null;
+			V value = leaf.value(i);
+			leaf.remove(i);
+			Node<K> n = leaf;
+			for (int level = d.depth - 1;; level--) {
+				if (level < 0) { // if n is the root
+					if (n.numberOfKeys == 0)
+						root = n instanceof LeafNode ? null : ((NonLeafNode<K>) n).child(0);
+					return value;
+				}
+				int minimum = n instanceof LeafNode ? leafMinimum : nonLeafMinimum;
+				if (n.numberOfKeys >= minimum)
+					return value;
+				NonLeafNode<K> p = d.path[level];
+				int s = d.slots[level];
+				boolean right = s < p.numberOfKeys; // use the right sibling if there is one
+				Node<K> sibling = p.child(right ? s + 1 : s - 1);
+				Lock l = latch(sibling).writeLock();
+				l.lock();
+				try {
+					if (sibling.numberOfKeys > minimum) { // if the sibling can lend a key
+						borrow(p, s, n, sibling, right);
+						if (TreeMetrics.ENABLED)
+							TreeMetrics.borrowed(d.depth - 1 - level);
+						TreeEvents.redistributed(d.depth - 1 - level, degree, n, sibling);
+						return value;
+					}
+					if (right) {
+						merge(p, s, n, sibling);
+					} else {
+						merge(p, s - 1, sibling, n);
+					}
+					if (TreeMetrics.ENABLED)
+						TreeMetrics.merged(d.depth - 1 - level);
+					TreeEvents.merged(d.depth - 1 - level, degree, right ? n : sibling);
+				} finally {
+					l.unlock();
+				}
+				n = p;
+			}
+		} finally {
+			d.releaseAncestors();
+			latch(leaf).writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Packs the {@code Node}s of this {@code ConcurrentBPlusTree} as {@link BPlusTree#compact(double, int)} does. Each
+	 * step holds {@code treeLatch} exclusively, as {@link #bulkLoad(java.util.Iterator, double)} does: it waits for the
+	 * operations in progress to finish, and other operations, including other steps, wait until it ends. Operations
+	 * run between steps, so the pause is bounded by the number of {@code Node}s a step may visit.
+	 */
+	@Override
+	public boolean compact(double fillFactor, int nodes) {
+		treeLatch.writeLock().lock();
+		try {
+			return super.compact(fillFactor, nodes);
+		} finally {
+			treeLatch.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that holds the first entry with the specified key, if there is one, as
+	 * {@link BPlusTree#findFirst(Comparable)} does, and returns it with its latch held. The descent uses
+	 * {@code lowerBound} and shared latches with latch crabbing, except that it keeps the latch on the last
+	 * {@code NonLeafNode} whose separator right of the path equals the key: if the {@code LeafNode} reached holds no key
+	 * greater than or equal to the key, the copies of the key can only be in the subtree right of that separator, which
+	 * the descent enters while the {@code NonLeafNode} is still latched. The latches are still taken from the top down.
+	 *
+	 * @param key
+	 *            the search key.
+	 * @param exclusive
+	 *            a flag indicating whether or not to latch the {@code LeafNode} exclusively.
+	 * @return the {@code LeafNode} that holds the first entry with the specified key if there is one; {@code null} if
+	 *         this {@code ConcurrentBPlusTree} is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, V> lockFirst(K key, boolean exclusive) {
+		Lock held = rootLatch.readLock();
+		held.lock();
+		Node<K> c = root;
+		if (c == null) {
+			held.unlock();
+			return null;
+		}
+		held = crab(held, latch(c, exclusive));
+		NonLeafNode<K> anchor = null; // the NonLeafNode, still latched, whose separator right of the path equals the key
+		int slot = 0; // the index of that separator
+		while (c instanceof NonLeafNode) {
+			NonLeafNode<K> p = (NonLeafNode<K>) c;
+			int i = search.lowerBound(p.keys, p.numberOfKeys, key);
+			c = p.child(i);
+			held = latch(c, exclusive);
+			held.lock();
+			if (i < p.numberOfKeys) { // if keys[i] bounds the subtree of c from the right
+				if (anchor != null)
+					latch(anchor).readLock().unlock();
+				anchor = null;
+				if (key.compareTo(p.keys[i]) == 0) {
+					anchor = p;
+					slot = i;
+				}
+			}
+			if (p != anchor)
+				latch(p).readLock().unlock();
+		}
+		if (anchor == null)
+			return (LeafNode<K, V>) c;
+		if (((LeafNode<K, V>) c).findIndexGE(key) >= 0) {
+			latch(anchor).readLock().unlock();
+			return (LeafNode<K, V>) c;
+		}
+		held.unlock(); // the key can only be further right
+		c = anchor.child(slot + 1);
+		held = crab(latch(anchor).readLock(), latch(c, exclusive));
+		while (c instanceof NonLeafNode) {
+			c = ((NonLeafNode<K>) c).child(0);
+			held = crab(held, latch(c, exclusive));
+		}
+		return (LeafNode<K, V>) c;
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key with shared latches and returns it with
+	 * its exclusive latch held.
+	 *
+	 * @param key
+	 *            the search key.
+	 * @return the {@code LeafNode} that must be responsible for the specified key; {@code null} if this
+	 *         {@code ConcurrentBPlusTree} is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, V> lockLeaf(K key) {
+		Lock held = rootLatch.readLock();
+		held.lock();
+		Node<K> c = root;
+		if (c == null) {
+			held.unlock();
+			return null;
+		}
+		while (true) {
+			if (c instanceof LeafNode) {
+				crab(held, latch(c).writeLock());
+				return (LeafNode<K, V>) c;
+			}
+			held = crab(held, latch(c).readLock());
+			c = ((NonLeafNode<K>) c).child(key);
+		}
+	}
+
+	/**
+	 * Acquires the specified latch and then releases the latch held so far.
+	 *
+	 * @param held
+	 *            the latch held so far.
+	 * @param next
+	 *            the latch to acquire.
+	 * @return the latch acquired.
+	 */
+	static Lock crab(Lock held, Lock next) {
+		next.lock();
+		held.unlock();
+		return next;
+	}
+
+	/**
+	 * Returns the latch of the specified {@code Node}.
+	 *
+	 * @param node
+	 *            a {@code Node} of a {@code ConcurrentBPlusTree}.
+	 * @return the latch of the specified {@code Node}.
+	 */
+	static ReentrantReadWriteLock latch(Node<?> node) {
+		return node instanceof Leaf ? ((Leaf<?, ?>) node).latch : ((Inner<?>) node).latch;
+	}
+
+	/**
+	 * Returns the latch that a descent takes on the specified {@code Node}: the exclusive latch of a {@code LeafNode}
+	 * if requested, and the shared latch otherwise.
+	 *
+	 * @param node
+	 *            a {@code Node} of a {@code ConcurrentBPlusTree}.
+	 * @param exclusive
+	 *            a flag indicating whether or not to latch a {@code LeafNode} exclusively.
+	 * @return the latch that a descent takes on the specified {@code Node}.
+	 */
+	static Lock latch(Node<?> node, boolean exclusive) {
+		return exclusive && node instanceof LeafNode ? latch(node).writeLock() : latch(node).readLock();
+	}
+
+	@Override
+	protected LeafNode<K, V> newLeafNode() {
+		return new Leaf<K, V>(degree, search);
+	}
+
+	@Override
+	protected NonLeafNode<K> newNonLeafNode() {
+		return new Inner<K>(degree, search);
+	}
+
+	/**
+	 * A {@code Leaf} is a {@code LeafNode} with a latch.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	static class Leaf<K extends Comparable<K>, V> extends LeafNode<K, V> {
+
+		/**
+		 * The latch of this {@code Leaf}.
+		 */
+		final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+
+		/**
+		 * Constructs a {@code Leaf}.
+		 *
+		 * @param degree
+		 *            the degree of the {@code Leaf}.
+		 * @param search
+		 *            the strategy for searching the keys of the {@code Leaf}.
+		 */
+		Leaf(int degree, KeySearch search) {
+			super(degree, search);
+		}
+
+	}
+
+	/**
+	 * An {@code Inner} is a {@code NonLeafNode} with a latch.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 */
+	static class Inner<K extends Comparable<K>> extends NonLeafNode<K> {
+
+		/**
+		 * The latch of this {@code Inner}.
+		 */
+		final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+
+		/**
+		 * Constructs an {@code Inner}.
+		 *
+		 * @param degree
+		 *            the degree of the {@code Inner}.
+		 * @param search
+		 *            the strategy for searching the keys of the {@code Inner}.
+		 */
+		Inner(int degree, KeySearch search) {
+			super(degree, search);
+		}
+
+	}
+
+	/**
+	 * A {@code Descent} records the {@code NonLeafNode}s that an update has latched exclusively on its way down.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 */
+	static class Descent<K extends Comparable<K>> {
+
+		/**
+		 * The latch that protects the root; held exclusively until the root is known to be safe.
+		 */
+		final ReentrantReadWriteLock rootLatch;
+
+		/**
+		 * A flag indicating whether or not the latch on the root is held.
+		 */
+		boolean rootHeld;
+
+		/**
+		 * The {@code NonLeafNode}s visited, from the root down.
+		 */
+		NonLeafNode<K>[] path;
+
+		/**
+		 * The index of the child taken at each {@code NonLeafNode} on {@code path}.
+		 */
+		int[] slots;
+
+		/**
+		 * The number of {@code NonLeafNode}s on {@code path}.
+		 */
+		int depth;
+
+		/**
+		 * The position on {@code path} of the first {@code NonLeafNode} whose latch is still held.
+		 */
+		int top;
+
+		/**
+		 * Constructs a {@code Descent} and acquires the latch on the root exclusively.
+		 *
+		 * @param rootLatch
+		 *            the latch that protects the root.
+		 */
+		@SuppressWarnings("unchecked")
+		Descent(ReentrantReadWriteLock rootLatch) {
+			this.rootLatch = rootLatch;
+			this.path = (NonLeafNode<K>[]) new NonLeafNode[8];
+			this.slots = new int[8];
+			rootLatch.writeLock().lock();
+			rootHeld = true;
+		}
+
+		/**
+		 * Records the specified {@code NonLeafNode}, whose latch is held, and the child taken at it.
+		 *
+		 * @param node
+		 *            a {@code NonLeafNode}.
+		 * @param i
+		 *            the index of the child taken.
+		 * @return the child {@code Node} at the specified index.
+		 */
+		Node<K> push(NonLeafNode<K> node, int i) {
+			if (depth == path.length) { // if the tree is taller than the path
+				path = java.util.Arrays.copyOf(path, 2 * depth);
+				slots = java.util.Arrays.copyOf(slots, 2 * depth);
+			}
+			path[depth] = node;
+			slots[depth++] = i;
+			return node.child(i);
+		}
+
+		/**
+		 * Releases the latches on the root and on all the recorded {@code NonLeafNode}s.
+		 */
+		void releaseAncestors() {
+			if (rootHeld) {
+				rootLatch.writeLock().unlock();
+				rootHeld = false;
+			}
+			for (; top < depth; top++)
+				latch(path[top]).writeLock().unlock();
+		}
+
+	}
+
+}
@@ -0,0 +1,234 @@
+package bptree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@code Cursor} iterates over the entries of a {@code BPlusTree} in key order by walking the chain of
+ * {@code LeafNode}s. Moving a {@code Cursor} allocates nothing: {@link #key()} and {@link #value()} read the current
+ * entry directly from its {@code LeafNode}. A {@code Cursor} is positioned before its first entry when created and
+ * becomes invalid if the {@code BPlusTree} is modified.
+ * 
+ * <pre>
+ * Cursor&lt;K, V&gt; c = tree.range(from, true, to, false);
+ * while (c.next())
+ * 	process(c.key(), c.value());
+ * </pre>
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class Cursor<K extends Comparable<K>, V> {
+
+	/**
+	 * The maximum number of {@code LeafNode}s that {@link #seek(Comparable)} walks before it descends from the root.
+	 */
+	protected static final int SEEK_WALK = 2;
+
+	/**
+	 * The {@code BPlusTree} of this {@code Cursor}.
+	 */
+	protected BPlusTree<K, V> tree;
+
+	/**
+	 * The {@code LeafNode} containing the current entry; {@code null} if this {@code Cursor} is exhausted.
+	 */
+	protected LeafNode<K, V> leaf;
+
+	/**
+	 * The index of the current entry in {@code leaf}.
+	 */
+	protected int index;
+
+	/**
+	 * A flag indicating whether or not {@code index} refers to an entry returned by {@link #next()}.
+	 */
+	protected boolean valid;
+
+	/**
+	 * The upper bound of the keys; {@code null} if unbounded.
+	 */
+	protected K to;
+
+	/**
+	 * A flag indicating whether or not the upper bound is inclusive.
+	 */
+	protected boolean toInclusive;
+
+	/**
+	 * Constructs a {@code Cursor}.
+	 * 
+	 * @param tree
+	 *            the {@code BPlusTree} to iterate over.
+	 * @param leaf
+	 *            the {@code LeafNode} containing the first entry; {@code null} if there are no entries.
+	 * @param index
+	 *            the index of the first entry in the {@code LeafNode}.
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if unbounded.
+	 * @param toInclusive
+	 *            a flag indicating whether or not the upper bound is inclusive.
+	 */
+	protected Cursor(BPlusTree<K, V> tree, LeafNode<K, V> leaf, int index, K to, boolean toInclusive) {
+		this.tree = tree;
+		this.leaf = leaf;
+		this.index = index - 1;
+		this.to = to;
+		this.toInclusive = toInclusive;
+	}
+
+	/**
+	 * Moves this {@code Cursor} to the next entry.
+	 * 
+	 * @return {@code true} if there is a next entry; {@code false} if this {@code Cursor} is exhausted.
+	 */
+	public boolean next() {
+		if (leaf == null)
+			return false;
+		index++;
+		while (index >= leaf.numberOfKeys) { // if past the end of the leaf
+			leaf = successor(leaf);
+			index = 0;
+			if (leaf == null) {
+				valid = false;
+				return false;
+			}
+		}
+		if (to != null) {
+			int c = leaf.keys[index].compareTo(to);
+			if (c > 0 || (c == 0 && !toInclusive)) { // if past the upper bound
+				leaf = null;
+				valid = false;
+				return false;
+			}
+		}
+		valid = true;
+		return true;
+	}
+
+	/**
+	 * Returns the key of the current entry.
+	 * 
+	 * @return the key of the current entry.
+	 * @throws NoSuchElementException
+	 *             if there is no current entry.
+	 */
+	public K key() {
+		if (!valid)
+			throw new NoSuchElementException();
+		return leaf.keys[index];
+	}
+
+	/**
+	 * Returns the value of the current entry.
+	 * 
+	 * @return the value of the current entry.
+	 * @throws NoSuchElementException
+	 *             if there is no current entry.
+	 */
+	@SuppressWarnings("unchecked")
+	public V value() {
+		if (!valid)
+			throw new NoSuchElementException();
+		return (V) leaf.pointers[index];
+	}
+
+	/**
+	 * Moves this {@code Cursor} forward so that the next call to {@link #next()} returns the first remaining entry whose
+	 * key is greater than or equal to the specified key. This {@code Cursor} never moves backward. If the key is within
+	 * a few {@code LeafNode}s, this {@code Cursor} follows the chain of {@code LeafNode}s; otherwise, it descends from
+	 * the root.
+	 * 
+	 * @param key
+	 *            the key to seek.
+	 */
+	public void seek(K key) {
+		if (leaf == null)
+			return;
+		LeafNode<K, V> l = leaf;
+		for (int walked = 0; l.numberOfKeys == 0 || l.keys[l.numberOfKeys - 1].compareTo(key) < 0; walked++) {
+			if (walked == SEEK_WALK) { // if the key is far away
+				l = findLeftmost(key);
+				break;
+			}
+			l = successor(l);
+			if (l == null) { // if all remaining keys are smaller than the key
+				leaf = null;
+				valid = false;
+				return;
+			}
+		}
+		int i = l.search.lowerBound(l.keys, l.numberOfKeys, key);
+		if (l != leaf || i - 1 > index) { // if the position is ahead of the current entry
+			leaf = l;
+			index = i - 1;
+			valid = false;
+		}
+	}
+
+	/**
+	 * Returns the {@code LeafNode} that follows the specified {@code LeafNode}, which is the {@code LeafNode} this
+	 * {@code Cursor} has reached.
+	 * 
+	 * @param leaf
+	 *            the {@code LeafNode} this {@code Cursor} has reached.
+	 * @return the {@code LeafNode} that follows the specified {@code LeafNode}; {@code null} if there is none.
+	 */
+	protected LeafNode<K, V> successor(LeafNode<K, V> leaf) {
+		return leaf.successor();
+	}
+
+	/**
+	 * Finds the leftmost {@code LeafNode} that may contain the specified key by descending from the root.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the leftmost {@code LeafNode} that may contain the specified key.
+	 */
+	protected LeafNode<K, V> findLeftmost(K key) {
+		return tree.findLeftmost(key);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the remaining entries of this {@code Cursor}. Unlike this {@code Cursor}, the
+	 * {@code Iterator} allocates a {@code Map.Entry} for each entry.
+	 * 
+	 * @return an {@code Iterator} over the remaining entries of this {@code Cursor}.
+	 */
+	public Iterator<java.util.Map.Entry<K, V>> asIterator() {
+		return new Iterator<java.util.Map.Entry<K, V>>() {
+
+			/**
+			 * A flag indicating whether or not the {@code Cursor} has been moved to the entry to return next.
+			 */
+			boolean ready;
+
+			/**
+			 * A flag indicating whether or not there is an entry to return next.
+			 */
+			boolean hasNext;
+
+			@Override
+			public boolean hasNext() {
+				if (!ready) {
+					hasNext = Cursor.this.next();
+					ready = true;
+				}
+				return hasNext;
+			}
+
+			@Override
+			public java.util.Map.Entry<K, V> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				ready = false;
+				return new java.util.AbstractMap.SimpleImmutableEntry<K, V>(key(), value());
+			}
+		};
+	}
+
+}
@@ -0,0 +1,154 @@
+package bptree;
+
+/**
+ * The {@code KeySearch} enum defines strategies for searching the sorted keys within a {@code Node}. Each
+ * {@code BPlusTree} uses one strategy for all of its {@code Node}s (see {@link #forDegree(int)}).
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public enum KeySearch {
+
+	/**
+	 * Scans the keys from left to right. This is the fastest strategy for small {@code Node}s.
+	 */
+	LINEAR {
+		@Override
+		public <K extends Comparable<K>> int lowerBound(K[] keys, int n, K key) {
+			int i = 0;
+			while (i < n && keys[i].compareTo(key) < 0)
+				i++;
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.compared(Math.min(i + 1, n));
+			return i;
+		}
+
+		@Override
+		public <K extends Comparable<K>> int upperBound(K[] keys, int n, K key) {
+			int i = 0;
+			while (i < n && keys[i].compareTo(key) <= 0)
+				i++;
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.compared(Math.min(i + 1, n));
+			return i;
+		}
+	},
+
+	/**
+	 * Performs a textbook binary search over the keys.
+	 */
+	BINARY {
+		@Override
+		public <K extends Comparable<K>> int lowerBound(K[] keys, int n, K key) {
+			int low = 0;
+			int high = n;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (TreeMetrics.ENABLED)
+					TreeMetrics.compared(1);
+				if (keys[mid].compareTo(key) < 0)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+
+		@Override
+		public <K extends Comparable<K>> int upperBound(K[] keys, int n, K key) {
+			int low = 0;
+			int high = n;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (TreeMetrics.ENABLED)
+					TreeMetrics.compared(1);
+				if (keys[mid].compareTo(key) <= 0)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+	},
+
+	/**
+	 * Performs a binary search whose loop runs a fixed number of times for a given number of keys and only moves a base
+	 * index forward, so the JIT can use conditional moves instead of hard-to-predict branches.
+	 */
+	BRANCHLESS {
+		@Override
+		public <K extends Comparable<K>> int lowerBound(K[] keys, int n, K key) {
+			if (n == 0)
+				return 0;
+			int base = 0;
+			int length = n;
+			while (length > 1) {
+				int half = length >>> 1;
+				base += keys[base + half].compareTo(key) < 0 ? half : 0;
+				length -= half;
+			}
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.compared(33 - Integer.numberOfLeadingZeros(n - 1)); // ceil(log2(n)) + 1
+			return base + (keys[base].compareTo(key) < 0 ? 1 : 0);
+		}
+
+		@Override
+		public <K extends Comparable<K>> int upperBound(K[] keys, int n, K key) {
+			if (n == 0)
+				return 0;
+			int base = 0;
+			int length = n;
+			while (length > 1) {
+				int half = length >>> 1;
+				base += keys[base + half].compareTo(key) <= 0 ? half : 0;
+				length -= half;
+			}
+			if (TreeMetrics.ENABLED)
+				TreeMetrics.compared(33 - Integer.numberOfLeadingZeros(n - 1)); // ceil(log2(n)) + 1
+			return base + (keys[base].compareTo(key) <= 0 ? 1 : 0);
+		}
+	};
+
+	/**
+	 * The largest degree for which {@link #forDegree(int)} chooses {@link #LINEAR}.
+	 */
+	public static final int LINEAR_SEARCH_MAX_DEGREE = 16;
+
+	/**
+	 * Returns the first index i such that keys[i] >= the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] >= the given key; n if there is no such i.
+	 */
+	public abstract <K extends Comparable<K>> int lowerBound(K[] keys, int n, K key);
+
+	/**
+	 * Returns the first index i such that keys[i] > the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] > the given key; n if there is no such i.
+	 */
+	public abstract <K extends Comparable<K>> int upperBound(K[] keys, int n, K key);
+
+	/**
+	 * Returns the {@code KeySearch} suitable for {@code Node}s of the specified degree.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code Node}s.
+	 * @return {@link #LINEAR} for degrees up to {@link #LINEAR_SEARCH_MAX_DEGREE}; {@link #BRANCHLESS} otherwise (see
+	 *         {@code NodeSearchBenchmark} for the crossover points).
+	 */
+	public static KeySearch forDegree(int degree) {
+		return degree <= LINEAR_SEARCH_MAX_DEGREE ? LINEAR : BRANCHLESS;
+	}
+
+}
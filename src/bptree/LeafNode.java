@@ -18,6 +18,18 @@ public class LeafNode<K extends Comparable<K>, V> extends Node<K> {
 		super(degree);
 	}
 
+	/**
+	 * Constructs a {@code LeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LeafNode}.
+	 * @param search
+	 *            the strategy for searching the keys of the {@code LeafNode}.
+	 */
+	public LeafNode(int degree, KeySearch search) {
+		super(degree, search);
+	}
+
 	/**
 	 * Copy-constructs a {@code LeafNode}.
 	 * 
@@ -45,6 +57,180 @@ public class LeafNode<K extends Comparable<K>, V> extends Node<K> {
 		}
 	}
 
+	/**
+	 * Returns the value at the specified index.
+	 * 
+	 * @param i
+	 *            the index of the value.
+	 * @return the value at the specified index.
+	 */
+	@SuppressWarnings("unchecked")
+	public V value(int i) {
+		return (V) pointers[i];
+	}
+
+	/**
+	 * Splits this full {@code LeafNode} while inserting the specified key and value. Of the resulting entries, the first
+	 * {@code m} stay in this {@code LeafNode} and the rest move to the specified empty {@code LeafNode}, which becomes
+	 * the successor of this {@code LeafNode}.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 * @param m
+	 *            the number of entries that stay in this {@code LeafNode} (1 &lt;= m &lt;= the number of keys).
+	 * @param sibling
+	 *            the empty {@code LeafNode} that receives the remaining entries.
+	 */
+	public void split(K key, V value, int m, LeafNode<K, V> sibling) {
+		int pos = search.lowerBound(keys, numberOfKeys, key); // where the new entry belongs
+		int from = pos < m ? m - 1 : m; // the first existing entry that moves to the sibling
+		int moved = numberOfKeys - from;
+		System.arraycopy(keys, from, sibling.keys, 0, moved);
+		System.arraycopy(pointers, from, sibling.pointers, 0, moved);
+		java.util.Arrays.fill(keys, from, numberOfKeys, null);
+		java.util.Arrays.fill(pointers, from, numberOfKeys, null);
+		sibling.numberOfKeys = moved;
+		numberOfKeys = from;
+		if (pos < m)
+			insert(key, value, pos);
+		else
+			sibling.insert(key, value, pos - m);
+		sibling.setSuccessor(setSuccessor(sibling)); // chaining
+	}
+
+	/**
+	 * Merges the entries of this {@code LeafNode} with the specified entries, which must be sorted by key, into the
+	 * specified arrays in one pass from the back: the position of each specified entry is found by a search among the
+	 * entries not yet placed, and the entries of this {@code LeafNode} above it are moved as a block. Each specified
+	 * entry is placed before the entries of this {@code LeafNode} with the same key, as
+	 * {@link #insert(Comparable, Object)} would place it. The destination may be the arrays of this {@code LeafNode} if
+	 * they have room for all the entries; this {@code LeafNode} itself is left unchanged otherwise.
+	 *
+	 * @param keys
+	 *            the keys to insert.
+	 * @param values
+	 *            the values to insert.
+	 * @param from
+	 *            the beginning index of the entries to insert, inclusive.
+	 * @param to
+	 *            the ending index of the entries to insert, exclusive.
+	 * @param mergedKeys
+	 *            the array that receives the merged keys.
+	 * @param mergedValues
+	 *            the array that receives the merged values.
+	 */
+	protected void merge(K[] keys, Object[] values, int from, int to, K[] mergedKeys, Object[] mergedValues) {
+		int i = numberOfKeys; // the number of existing entries not yet placed
+		int w = numberOfKeys + to - from; // the beginning of the entries placed so far
+		for (int j = to - 1; j >= from; j--) {
+			int p = search.lowerBound(this.keys, i, keys[j]); // the existing entries from p on come after keys[j]
+			w -= i - p;
+			System.arraycopy(this.keys, p, mergedKeys, w, i - p);
+			System.arraycopy(pointers, p, mergedValues, w, i - p);
+			i = p;
+			mergedKeys[--w] = keys[j];
+			mergedValues[w] = values[j];
+		}
+		if (mergedKeys != this.keys) { // the remaining entries are already in place otherwise
+			System.arraycopy(this.keys, 0, mergedKeys, 0, i);
+			System.arraycopy(pointers, 0, mergedValues, 0, i);
+		}
+	}
+
+	/**
+	 * Inserts the specified entries, which must be sorted by key, assuming that this {@code LeafNode} has room for
+	 * them.
+	 *
+	 * @param keys
+	 *            the keys to insert.
+	 * @param values
+	 *            the values to insert.
+	 * @param from
+	 *            the beginning index of the entries to insert, inclusive.
+	 * @param to
+	 *            the ending index of the entries to insert, exclusive.
+	 */
+	protected void insertAll(K[] keys, Object[] values, int from, int to) {
+		merge(keys, values, from, to, this.keys, pointers);
+		numberOfKeys += to - from;
+	}
+
+	/**
+	 * Removes one entry for each of the specified keys, which must be sorted, in one pass. Keys that this
+	 * {@code LeafNode} does not contain are ignored.
+	 *
+	 * @param keys
+	 *            the keys to remove.
+	 * @param from
+	 *            the beginning index of the keys, inclusive.
+	 * @param to
+	 *            the ending index of the keys, exclusive.
+	 * @return the number of entries removed.
+	 */
+	protected int removeAll(K[] keys, int from, int to) {
+		int w = 0;
+		int j = from;
+		for (int i = 0; i < numberOfKeys; i++) {
+			int c = -1;
+			while (j < to && (c = this.keys[i].compareTo(keys[j])) > 0) // skip the keys smaller than the current key
+				j++;
+			if (j < to && c == 0) // if the current entry is removed
+				j++;
+			else {
+				this.keys[w] = this.keys[i];
+				pointers[w++] = pointers[i];
+			}
+		}
+		int removed = numberOfKeys - w;
+		java.util.Arrays.fill(this.keys, w, numberOfKeys, null);
+		java.util.Arrays.fill(pointers, w, numberOfKeys, null);
+		numberOfKeys = w;
+		return removed;
+	}
+
+	/**
+	 * Removes the entry at the specified position.
+	 * 
+	 * @param pos
+	 *            the position of the entry to remove.
+	 */
+	protected void remove(int pos) {
+		System.arraycopy(keys, pos + 1, keys, pos, numberOfKeys - pos - 1);
+		System.arraycopy(pointers, pos + 1, pointers, pos, numberOfKeys - pos - 1);
+		numberOfKeys--;
+		keys[numberOfKeys] = null;
+		pointers[numberOfKeys] = null;
+	}
+
+	/**
+	 * Moves the entries within the specified range to the specified position of the specified {@code LeafNode}, which
+	 * must have room for them. The successors of the {@code LeafNode}s are left unchanged.
+	 * 
+	 * @param from
+	 *            the beginning index of the entries, inclusive.
+	 * @param to
+	 *            the ending index of the entries, exclusive.
+	 * @param node
+	 *            the destination.
+	 * @param pos
+	 *            the position in the destination.
+	 */
+	protected void moveTo(int from, int to, LeafNode<K, V> node, int pos) {
+		int length = to - from;
+		System.arraycopy(node.keys, pos, node.keys, pos + length, node.numberOfKeys - pos);
+		System.arraycopy(node.pointers, pos, node.pointers, pos + length, node.numberOfKeys - pos);
+		System.arraycopy(keys, from, node.keys, pos, length);
+		System.arraycopy(pointers, from, node.pointers, pos, length);
+		node.numberOfKeys += length;
+		System.arraycopy(keys, to, keys, from, numberOfKeys - to);
+		System.arraycopy(pointers, to, pointers, from, numberOfKeys - to);
+		java.util.Arrays.fill(keys, numberOfKeys - length, numberOfKeys, null);
+		java.util.Arrays.fill(pointers, numberOfKeys - length, numberOfKeys, null);
+		numberOfKeys -= length;
+	}
+
 	/**
 	 * Returns the successor of this {@code LeafNode}.
 	 * 
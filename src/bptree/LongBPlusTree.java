@@ -0,0 +1,194 @@
+package bptree;
+
+/**
+ * The {@code LongBPlusTree} class implements B+-trees that map primitive {@code long} keys to object values. The keys
+ * are stored in {@code long[]} arrays and searched with a {@code LongKeySearch}, so no key is boxed on insertion or
+ * lookup.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <V>
+ *            the type of values
+ */
+public class LongBPlusTree<V> extends AbstractLongBPlusTree {
+
+	/**
+	 * The {@code Leaf} class implements {@code LongLeafNode}s that store object values.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	public static class Leaf extends LongLeafNode {
+
+		/**
+		 * The values that this {@code Leaf} maintains.
+		 */
+		protected Object[] values;
+
+		/**
+		 * Constructs a {@code Leaf}.
+		 * 
+		 * @param degree
+		 *            the degree of the {@code Leaf}.
+		 * @param search
+		 *            the strategy for searching the keys of the {@code Leaf}.
+		 */
+		public Leaf(int degree, LongKeySearch search) {
+			super(degree, search);
+			values = new Object[degree - 1];
+		}
+
+		/**
+		 * Returns the value at the specified index.
+		 * 
+		 * @param i
+		 *            the index of the value.
+		 * @return the value at the specified index.
+		 */
+		public Object value(int i) {
+			return values[i];
+		}
+
+		@Override
+		protected void copyValues(int from, LongLeafNode node, int to, int length) {
+			System.arraycopy(values, from, ((Leaf) node).values, to, length);
+		}
+
+		@Override
+		protected void clearValues(int from, int to) {
+			java.util.Arrays.fill(values, from, to, null);
+		}
+
+	}
+
+	/**
+	 * A {@code Range} is a {@code LongCursor} over a {@code LongBPlusTree}.
+	 * 
+	 * @param <V>
+	 *            the type of values
+	 */
+	public static class Range<V> extends LongCursor {
+
+		/**
+		 * Constructs a {@code Range}.
+		 * 
+		 * @param leaf
+		 *            the {@code LongLeafNode} containing the first entry; {@code null} if there are no entries.
+		 * @param index
+		 *            the index of the first entry in the {@code LongLeafNode}.
+		 * @param to
+		 *            the upper bound of the keys.
+		 * @param toInclusive
+		 *            a flag indicating whether or not the upper bound is inclusive.
+		 */
+		protected Range(LongLeafNode leaf, int index, long to, boolean toInclusive) {
+			super(leaf, index, to, toInclusive);
+		}
+
+		/**
+		 * Returns the value of the current entry.
+		 * 
+		 * @return the value of the current entry.
+		 * @throws java.util.NoSuchElementException
+		 *             if there is no current entry.
+		 */
+		@SuppressWarnings("unchecked")
+		public V value() {
+			check();
+			return (V) ((Leaf) leaf).values[index];
+		}
+
+	}
+
+	/**
+	 * Constructs a {@code LongBPlusTree} that chooses the {@code LongKeySearch} strategy from its degree.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code LongNode} of this {@code LongBPlusTree} can have.
+	 */
+	public LongBPlusTree(int degree) {
+		this(degree, LongKeySearch.forDegree(degree));
+	}
+
+	/**
+	 * Constructs a {@code LongBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code LongNode} of this {@code LongBPlusTree} can have.
+	 * @param search
+	 *            the strategy for searching the keys within each {@code LongNode} of this {@code LongBPlusTree}.
+	 */
+	public LongBPlusTree(int degree, LongKeySearch search) {
+		super(degree, search);
+	}
+
+	@Override
+	protected LongLeafNode newLeafNode() {
+		return new Leaf(degree, search);
+	}
+
+	/**
+	 * Inserts the specified key and the value into this {@code LongBPlusTree}.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	public void insert(long key, V value) {
+		Leaf leaf = (Leaf) insertKey(key);
+		leaf.values[position] = value;
+	}
+
+	/**
+	 * Returns the value associated with the specified key in this {@code LongBPlusTree}.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the value associated with the specified key; {@code null} if this {@code LongBPlusTree} has no such key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		LongLeafNode leaf = findFirst(key);
+		int i = indexOf(leaf, key);
+		return i < 0 ? null : (V) ((Leaf) leaf).values[i];
+	}
+
+	/**
+	 * Removes an entry with the specified key from this {@code LongBPlusTree}.
+	 * 
+	 * @param key
+	 *            the key to remove.
+	 * @return the value of the removed entry; {@code null} if this {@code LongBPlusTree} has no such key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		if (root == null)
+			return null;
+		LongLeafNode leaf = descend(key, true);
+		int i = indexOf(leaf, key);
+		if (i < 0)
+			return null;
+		V value = (V) ((Leaf) leaf).values[i];
+		removeAt(leaf, i);
+		return value;
+	}
+
+	/**
+	 * Returns a {@code Range} over the entries of this {@code LongBPlusTree} whose keys are within the specified range.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys.
+	 * @param fromInclusive
+	 *            a flag indicating whether or not the lower bound is inclusive.
+	 * @param to
+	 *            the upper bound of the keys.
+	 * @param toInclusive
+	 *            a flag indicating whether or not the upper bound is inclusive.
+	 * @return a {@code Range} over the entries whose keys are within the specified range.
+	 */
+	public Range<V> range(long from, boolean fromInclusive, long to, boolean toInclusive) {
+		LongLeafNode leaf = seek(from, fromInclusive);
+		return new Range<V>(leaf, position, to, toInclusive);
+	}
+
+}
@@ -0,0 +1,108 @@
+package bptree;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A {@code LongCursor} iterates over the entries of an {@code AbstractLongBPlusTree} in key order by walking the chain
+ * of {@code LongLeafNode}s (see {@link Cursor}). Subclasses read the value of the current entry. A {@code LongCursor}
+ * is positioned before its first entry when created and becomes invalid if the tree is modified.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public abstract class LongCursor {
+
+	/**
+	 * The {@code LongLeafNode} containing the current entry; {@code null} if this {@code LongCursor} is exhausted.
+	 */
+	protected LongLeafNode leaf;
+
+	/**
+	 * The index of the current entry in {@code leaf}.
+	 */
+	protected int index;
+
+	/**
+	 * A flag indicating whether or not {@code index} refers to an entry returned by {@link #next()}.
+	 */
+	protected boolean valid;
+
+	/**
+	 * The upper bound of the keys.
+	 */
+	protected long to;
+
+	/**
+	 * A flag indicating whether or not the upper bound is inclusive.
+	 */
+	protected boolean toInclusive;
+
+	/**
+	 * Constructs a {@code LongCursor}.
+	 * 
+	 * @param leaf
+	 *            the {@code LongLeafNode} containing the first entry; {@code null} if there are no entries.
+	 * @param index
+	 *            the index of the first entry in the {@code LongLeafNode}.
+	 * @param to
+	 *            the upper bound of the keys.
+	 * @param toInclusive
+	 *            a flag indicating whether or not the upper bound is inclusive.
+	 */
+	protected LongCursor(LongLeafNode leaf, int index, long to, boolean toInclusive) {
+		this.leaf = leaf;
+		this.index = index - 1;
+		this.to = to;
+		this.toInclusive = toInclusive;
+	}
+
+	/**
+	 * Moves this {@code LongCursor} to the next entry.
+	 * 
+	 * @return {@code true} if there is a next entry; {@code false} if this {@code LongCursor} is exhausted.
+	 */
+	public boolean next() {
+		if (leaf == null)
+			return false;
+		index++;
+		while (index >= leaf.numberOfKeys) { // if past the end of the leaf
+			leaf = leaf.successor;
+			index = 0;
+			if (leaf == null) {
+				valid = false;
+				return false;
+			}
+		}
+		long k = leaf.keys[index];
+		if (k > to || (k == to && !toInclusive)) { // if past the upper bound
+			leaf = null;
+			valid = false;
+			return false;
+		}
+		valid = true;
+		return true;
+	}
+
+	/**
+	 * Returns the key of the current entry.
+	 * 
+	 * @return the key of the current entry.
+	 * @throws NoSuchElementException
+	 *             if there is no current entry.
+	 */
+	public long key() {
+		check();
+		return leaf.keys[index];
+	}
+
+	/**
+	 * Verifies that this {@code LongCursor} is positioned at an entry.
+	 * 
+	 * @throws NoSuchElementException
+	 *             if there is no current entry.
+	 */
+	protected void check() {
+		if (!valid)
+			throw new NoSuchElementException();
+	}
+
+}
@@ -0,0 +1,121 @@
+package bptree;
+
+/**
+ * The {@code LongKeySearch} enum defines strategies for searching the sorted {@code long} keys within a
+ * {@code LongNode}. Each {@code AbstractLongBPlusTree} uses one strategy for all of its {@code LongNode}s (see
+ * {@link #forDegree(int)}).
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public enum LongKeySearch {
+
+	/**
+	 * Scans the keys from left to right.
+	 */
+	LINEAR {
+		@Override
+		public int lowerBound(long[] keys, int n, long key) {
+			int i = 0;
+			while (i < n && keys[i] < key)
+				i++;
+			return i;
+		}
+
+		@Override
+		public int upperBound(long[] keys, int n, long key) {
+			int i = 0;
+			while (i < n && keys[i] <= key)
+				i++;
+			return i;
+		}
+	},
+
+	/**
+	 * Performs a binary search that only moves a base index forward (see {@link KeySearch#BRANCHLESS}).
+	 */
+	BRANCHLESS {
+		@Override
+		public int lowerBound(long[] keys, int n, long key) {
+			if (n == 0)
+				return 0;
+			int base = 0;
+			int length = n;
+			while (length > 1) {
+				int half = length >>> 1;
+				base += keys[base + half] < key ? half : 0;
+				length -= half;
+			}
+			return base + (keys[base] < key ? 1 : 0);
+		}
+
+		@Override
+		public int upperBound(long[] keys, int n, long key) {
+			if (n == 0)
+				return 0;
+			int base = 0;
+			int length = n;
+			while (length > 1) {
+				int half = length >>> 1;
+				base += keys[base + half] <= key ? half : 0;
+				length -= half;
+			}
+			return base + (keys[base] <= key ? 1 : 0);
+		}
+	},
+
+	/**
+	 * Compares a whole vector of keys at once (see {@link VectorKeySearch}).
+	 */
+	VECTOR {
+		@Override
+		public int lowerBound(long[] keys, int n, long key) {
+			return VectorKeySearch.lowerBound(keys, n, key);
+		}
+
+		@Override
+		public int upperBound(long[] keys, int n, long key) {
+			return VectorKeySearch.upperBound(keys, n, key);
+		}
+	};
+
+	/**
+	 * Returns the first index i such that keys[i] >= the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] >= the given key; n if there is no such i.
+	 */
+	public abstract int lowerBound(long[] keys, int n, long key);
+
+	/**
+	 * Returns the first index i such that keys[i] > the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] > the given key; n if there is no such i.
+	 */
+	public abstract int upperBound(long[] keys, int n, long key);
+
+	/**
+	 * Returns the {@code LongKeySearch} suitable for {@code LongNode}s of the specified degree.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongNode}s.
+	 * @return {@link #VECTOR} if the Vector API is available; otherwise, {@link #LINEAR} for degrees up to
+	 *         {@link KeySearch#LINEAR_SEARCH_MAX_DEGREE} and {@link #BRANCHLESS} for larger degrees.
+	 */
+	public static LongKeySearch forDegree(int degree) {
+		if (VectorKeySearch.isAvailable())
+			return VECTOR;
+		return degree <= KeySearch.LINEAR_SEARCH_MAX_DEGREE ? LINEAR : BRANCHLESS;
+	}
+
+}
@@ -0,0 +1,140 @@
+package bptree;
+
+/**
+ * The {@code LongLeafNode} class implements leaf nodes in a B+-tree with primitive {@code long} keys. The values are
+ * kept by subclasses in arrays parallel to the keys, so that, for example, {@code long} values need not be boxed.
+ * {@code LongLeafNode}s are chained so each {@code LongLeafNode} except the last one has a successor.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public abstract class LongLeafNode extends LongNode {
+
+	/**
+	 * The successor of this {@code LongLeafNode}.
+	 */
+	protected LongLeafNode successor;
+
+	/**
+	 * Constructs a {@code LongLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongLeafNode}.
+	 * @param search
+	 *            the strategy for searching the keys of the {@code LongLeafNode}.
+	 */
+	public LongLeafNode(int degree, LongKeySearch search) {
+		super(degree, search);
+	}
+
+	/**
+	 * Returns the successor of this {@code LongLeafNode}.
+	 * 
+	 * @return the successor of this {@code LongLeafNode}.
+	 */
+	public LongLeafNode successor() {
+		return successor;
+	}
+
+	/**
+	 * Copies values from this {@code LongLeafNode} to the specified {@code LongLeafNode} (which may be this one).
+	 * 
+	 * @param from
+	 *            the index of the first value to copy.
+	 * @param node
+	 *            the destination.
+	 * @param to
+	 *            the index in the destination of the first value copied.
+	 * @param length
+	 *            the number of values to copy.
+	 */
+	protected abstract void copyValues(int from, LongLeafNode node, int to, int length);
+
+	/**
+	 * Releases the values within the specified range.
+	 * 
+	 * @param from
+	 *            the beginning index, inclusive.
+	 * @param to
+	 *            the ending index, exclusive.
+	 */
+	protected abstract void clearValues(int from, int to);
+
+	/**
+	 * Inserts the specified key at the specified position, leaving the value at that position to be set by the caller.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param pos
+	 *            the insertion position.
+	 */
+	protected void insertKey(long key, int pos) {
+		System.arraycopy(keys, pos, keys, pos + 1, numberOfKeys - pos);
+		copyValues(pos, this, pos + 1, numberOfKeys - pos);
+		keys[pos] = key;
+		numberOfKeys++;
+	}
+
+	/**
+	 * Removes the entry at the specified position.
+	 * 
+	 * @param pos
+	 *            the position of the entry to remove.
+	 */
+	protected void remove(int pos) {
+		System.arraycopy(keys, pos + 1, keys, pos, numberOfKeys - pos - 1);
+		copyValues(pos + 1, this, pos, numberOfKeys - pos - 1);
+		numberOfKeys--;
+		clearValues(numberOfKeys, numberOfKeys + 1);
+	}
+
+	/**
+	 * Moves the entries within the specified range to the specified position of the specified {@code LongLeafNode},
+	 * which must have room for them.
+	 * 
+	 * @param from
+	 *            the beginning index of the entries, inclusive.
+	 * @param to
+	 *            the ending index of the entries, exclusive.
+	 * @param node
+	 *            the destination.
+	 * @param pos
+	 *            the position in the destination.
+	 */
+	protected void moveTo(int from, int to, LongLeafNode node, int pos) {
+		int length = to - from;
+		System.arraycopy(node.keys, pos, node.keys, pos + length, node.numberOfKeys - pos);
+		node.copyValues(pos, node, pos + length, node.numberOfKeys - pos);
+		System.arraycopy(keys, from, node.keys, pos, length);
+		copyValues(from, node, pos, length);
+		node.numberOfKeys += length;
+		System.arraycopy(keys, to, keys, from, numberOfKeys - to);
+		copyValues(to, this, from, numberOfKeys - to);
+		clearValues(numberOfKeys - length, numberOfKeys);
+		numberOfKeys -= length;
+	}
+
+	/**
+	 * Splits this full {@code LongLeafNode} while inserting the specified key (see
+	 * {@link LeafNode#split(Comparable, Object, int, LeafNode)}). The value of the new entry is left to be set by the
+	 * caller.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param pos
+	 *            the position of the new entry among the entries of this {@code LongLeafNode}.
+	 * @param m
+	 *            the number of entries that stay in this {@code LongLeafNode}.
+	 * @param sibling
+	 *            the empty {@code LongLeafNode} that receives the remaining entries.
+	 */
+	protected void split(long key, int pos, int m, LongLeafNode sibling) {
+		moveTo(pos < m ? m - 1 : m, numberOfKeys, sibling, 0);
+		if (pos < m)
+			insertKey(key, pos);
+		else
+			sibling.insertKey(key, pos - m);
+		sibling.successor = successor;
+		successor = sibling;
+	}
+
+}
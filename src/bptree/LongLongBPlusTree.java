@@ -0,0 +1,197 @@
+package bptree;
+
+/**
+ * The {@code LongLongBPlusTree} class implements B+-trees that map primitive {@code long} keys to primitive
+ * {@code long} values. Both the keys and the values are stored in {@code long[]} arrays, so neither insertions nor
+ * lookups box anything and each entry occupies 16 bytes in its {@code LongLeafNode}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LongLongBPlusTree extends AbstractLongBPlusTree {
+
+	/**
+	 * The {@code Leaf} class implements {@code LongLeafNode}s that store {@code long} values.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	public static class Leaf extends LongLeafNode {
+
+		/**
+		 * The values that this {@code Leaf} maintains.
+		 */
+		protected long[] values;
+
+		/**
+		 * Constructs a {@code Leaf}.
+		 * 
+		 * @param degree
+		 *            the degree of the {@code Leaf}.
+		 * @param search
+		 *            the strategy for searching the keys of the {@code Leaf}.
+		 */
+		public Leaf(int degree, LongKeySearch search) {
+			super(degree, search);
+			values = new long[degree - 1];
+		}
+
+		/**
+		 * Returns the value at the specified index.
+		 * 
+		 * @param i
+		 *            the index of the value.
+		 * @return the value at the specified index.
+		 */
+		public long value(int i) {
+			return values[i];
+		}
+
+		@Override
+		protected void copyValues(int from, LongLeafNode node, int to, int length) {
+			System.arraycopy(values, from, ((Leaf) node).values, to, length);
+		}
+
+		@Override
+		protected void clearValues(int from, int to) {
+		}
+
+	}
+
+	/**
+	 * A {@code Range} is a {@code LongCursor} over a {@code LongLongBPlusTree}.
+	 */
+	public static class Range extends LongCursor {
+
+		/**
+		 * Constructs a {@code Range}.
+		 * 
+		 * @param leaf
+		 *            the {@code LongLeafNode} containing the first entry; {@code null} if there are no entries.
+		 * @param index
+		 *            the index of the first entry in the {@code LongLeafNode}.
+		 * @param to
+		 *            the upper bound of the keys.
+		 * @param toInclusive
+		 *            a flag indicating whether or not the upper bound is inclusive.
+		 */
+		protected Range(LongLeafNode leaf, int index, long to, boolean toInclusive) {
+			super(leaf, index, to, toInclusive);
+		}
+
+		/**
+		 * Returns the value of the current entry.
+		 * 
+		 * @return the value of the current entry.
+		 * @throws java.util.NoSuchElementException
+		 *             if there is no current entry.
+		 */
+		public long value() {
+			check();
+			return ((Leaf) leaf).values[index];
+		}
+
+	}
+
+	/**
+	 * Constructs a {@code LongLongBPlusTree} that chooses the {@code LongKeySearch} strategy from its degree.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code LongNode} of this {@code LongLongBPlusTree} can have.
+	 */
+	public LongLongBPlusTree(int degree) {
+		this(degree, LongKeySearch.forDegree(degree));
+	}
+
+	/**
+	 * Constructs a {@code LongLongBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code LongNode} of this {@code LongLongBPlusTree} can have.
+	 * @param search
+	 *            the strategy for searching the keys within each {@code LongNode} of this {@code LongLongBPlusTree}.
+	 */
+	public LongLongBPlusTree(int degree, LongKeySearch search) {
+		super(degree, search);
+	}
+
+	@Override
+	protected LongLeafNode newLeafNode() {
+		return new Leaf(degree, search);
+	}
+
+	/**
+	 * Inserts the specified key and the value into this {@code LongLongBPlusTree}.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	public void insert(long key, long value) {
+		Leaf leaf = (Leaf) insertKey(key);
+		leaf.values[position] = value;
+	}
+
+	/**
+	 * Determines whether or not this {@code LongLongBPlusTree} contains the specified key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return {@code true} if this {@code LongLongBPlusTree} contains the specified key; {@code false} otherwise.
+	 */
+	public boolean containsKey(long key) {
+		return indexOf(findFirst(key), key) >= 0;
+	}
+
+	/**
+	 * Returns the value associated with the specified key in this {@code LongLongBPlusTree}.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @param defaultValue
+	 *            the value to return if this {@code LongLongBPlusTree} has no such key.
+	 * @return the value associated with the specified key; {@code defaultValue} if there is no such key.
+	 */
+	public long get(long key, long defaultValue) {
+		LongLeafNode leaf = findFirst(key);
+		int i = indexOf(leaf, key);
+		return i < 0 ? defaultValue : ((Leaf) leaf).values[i];
+	}
+
+	/**
+	 * Removes an entry with the specified key from this {@code LongLongBPlusTree}.
+	 * 
+	 * @param key
+	 *            the key to remove.
+	 * @return {@code true} if an entry was removed; {@code false} if this {@code LongLongBPlusTree} has no such key.
+	 */
+	public boolean remove(long key) {
+		if (root == null)
+			return false;
+		LongLeafNode leaf = descend(key, true);
+		int i = indexOf(leaf, key);
+		if (i < 0)
+			return false;
+		removeAt(leaf, i);
+		return true;
+	}
+
+	/**
+	 * Returns a {@code Range} over the entries of this {@code LongLongBPlusTree} whose keys are within the specified
+	 * range.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys.
+	 * @param fromInclusive
+	 *            a flag indicating whether or not the lower bound is inclusive.
+	 * @param to
+	 *            the upper bound of the keys.
+	 * @param toInclusive
+	 *            a flag indicating whether or not the upper bound is inclusive.
+	 * @return a {@code Range} over the entries whose keys are within the specified range.
+	 */
+	public Range range(long from, boolean fromInclusive, long to, boolean toInclusive) {
+		LongLeafNode leaf = seek(from, fromInclusive);
+		return new Range(leaf, position, to, toInclusive);
+	}
+
+}
@@ -0,0 +1,67 @@
+package bptree;
+
+/**
+ * The {@code LongNode} class implements nodes that constitute a B+-tree with primitive {@code long} keys.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public abstract class LongNode {
+
+	/**
+	 * The number of keys that this {@code LongNode} currently maintains.
+	 */
+	protected int numberOfKeys;
+
+	/**
+	 * The keys that this {@code LongNode} maintains.
+	 */
+	protected long[] keys;
+
+	/**
+	 * The strategy for searching the keys of this {@code LongNode}.
+	 */
+	protected LongKeySearch search;
+
+	/**
+	 * Constructs a {@code LongNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongNode}.
+	 * @param search
+	 *            the strategy for searching the keys of the {@code LongNode}.
+	 */
+	public LongNode(int degree, LongKeySearch search) {
+		keys = new long[degree - 1];
+		this.search = search;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code LongNode}.
+	 * 
+	 * @return the number of keys in this {@code LongNode}.
+	 */
+	public int numberOfKeys() {
+		return numberOfKeys;
+	}
+
+	/**
+	 * Returns the key at the specified index.
+	 * 
+	 * @param i
+	 *            the index of the key.
+	 * @return the key at the specified index.
+	 */
+	public long key(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Determines whether or not this {@code LongNode} has room for a new entry.
+	 * 
+	 * @return {@code true} if this {@code LongNode} has room for a new entry; {@code false} otherwise.
+	 */
+	public boolean hasRoom() {
+		return numberOfKeys < keys.length;
+	}
+
+}
@@ -0,0 +1,132 @@
+package bptree;
+
+/**
+ * The {@code LongNonLeafNode} class implements non-leaf nodes in a B+-tree with primitive {@code long} keys.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LongNonLeafNode extends LongNode {
+
+	/**
+	 * The children of this {@code LongNonLeafNode}.
+	 */
+	protected LongNode[] children;
+
+	/**
+	 * Constructs a {@code LongNonLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongNonLeafNode}.
+	 * @param search
+	 *            the strategy for searching the keys of the {@code LongNonLeafNode}.
+	 */
+	public LongNonLeafNode(int degree, LongKeySearch search) {
+		super(degree, search);
+		children = new LongNode[degree];
+	}
+
+	/**
+	 * Returns the child {@code LongNode} at the specified index.
+	 * 
+	 * @param i
+	 *            the index of the child {@code LongNode}.
+	 * @return the child {@code LongNode} at the specified index.
+	 */
+	public LongNode child(int i) {
+		return children[i];
+	}
+
+	/**
+	 * Returns the child {@code LongNode} that is responsible for the specified key.
+	 * 
+	 * @param key
+	 *            a key.
+	 * @return the child {@code LongNode} that is responsible for the specified key.
+	 */
+	public LongNode child(long key) {
+		return children[search.upperBound(keys, numberOfKeys, key)]; // smallest i such that keys[i] > key
+	}
+
+	/**
+	 * Inserts the specified key and {@code LongNode} after the child {@code LongNode} at the specified index.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param node
+	 *            the {@code LongNode} to insert.
+	 * @param i
+	 *            the index of the child after which the key and the specified {@code LongNode} will be inserted.
+	 */
+	protected void insertAfter(long key, LongNode node, int i) {
+		System.arraycopy(keys, i, keys, i + 1, numberOfKeys - i);
+		System.arraycopy(children, i + 1, children, i + 2, numberOfKeys - i);
+		keys[i] = key;
+		children[i + 1] = node;
+		numberOfKeys++;
+	}
+
+	/**
+	 * Removes the key at the specified index and the child that follows it.
+	 * 
+	 * @param i
+	 *            the index of the key to remove.
+	 */
+	protected void removeAfter(int i) {
+		System.arraycopy(keys, i + 1, keys, i, numberOfKeys - i - 1);
+		System.arraycopy(children, i + 2, children, i + 1, numberOfKeys - i - 1);
+		children[numberOfKeys] = null;
+		numberOfKeys--;
+	}
+
+	/**
+	 * Splits this full {@code LongNonLeafNode} while inserting the specified key and {@code LongNode} after the child
+	 * at the specified index (see {@link NonLeafNode#split(Comparable, Node, int, int, NonLeafNode)}).
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param node
+	 *            the {@code LongNode} to insert.
+	 * @param i
+	 *            the index of the child after which the key and the specified {@code LongNode} will be inserted.
+	 * @param m
+	 *            the number of children that stay in this {@code LongNonLeafNode}.
+	 * @param sibling
+	 *            the empty {@code LongNonLeafNode} that receives the remaining children.
+	 * @return the key that separates this {@code LongNonLeafNode} from the sibling.
+	 */
+	protected long split(long key, LongNode node, int i, int m, LongNonLeafNode sibling) {
+		long separator;
+		int from; // the first existing key that moves to the sibling
+		if (i < m - 1) { // if the new key stays in this node
+			separator = keys[m - 2];
+			from = m - 1;
+		} else if (i == m - 1) { // if the new key moves up
+			separator = key;
+			from = m - 1;
+		} else { // if the new key moves to the sibling
+			separator = keys[m - 1];
+			from = m;
+		}
+		int moved = numberOfKeys - from;
+		System.arraycopy(keys, from, sibling.keys, 0, moved);
+		if (i == m - 1) {
+			sibling.children[0] = node;
+			System.arraycopy(children, m, sibling.children, 1, moved);
+		} else {
+			System.arraycopy(children, from, sibling.children, 0, moved + 1);
+		}
+		sibling.numberOfKeys = moved;
+		java.util.Arrays.fill(children, from + 1, numberOfKeys + 1, null);
+		numberOfKeys = from;
+		if (i != m - 1) { // if the separator is an existing key
+			numberOfKeys--;
+			children[numberOfKeys + 1] = null;
+			if (i < m - 1)
+				insertAfter(key, node, i);
+			else
+				sibling.insertAfter(key, node, i - m);
+		}
+		return separator;
+	}
+
+}
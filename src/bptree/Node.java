@@ -22,17 +22,42 @@ public abstract class Node<K extends Comparable<K>> {
 	 */
 	protected Object[] pointers;
 
+	/**
+	 * The strategy for searching the keys of this {@code Node}.
+	 */
+	protected KeySearch search;
+
+	/**
+	 * The version of the {@link PersistentBPlusTree} that created this {@code Node}; 0 in ordinary trees. A
+	 * {@code PersistentBPlusTree} updates only the {@code Node}s of its current version in place and copies the others,
+	 * which may be shared with snapshots.
+	 */
+	long version;
+
+	/**
+	 * Constructs a {@code Node} that searches its keys linearly.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code Node}.
+	 */
+	public Node(int degree) {
+		this(degree, KeySearch.LINEAR);
+	}
+
 	/**
 	 * Constructs a {@code Node}.
 	 * 
 	 * @param degree
 	 *            the degree of the {@code Node}.
+	 * @param search
+	 *            the strategy for searching the keys of the {@code Node}.
 	 */
 	@SuppressWarnings("unchecked")
-	public Node(int degree) {
+	public Node(int degree, KeySearch search) {
 		numberOfKeys = 0;
 		keys = (K[]) new Comparable[degree - 1];
 		pointers = new Object[degree];
+		this.search = search;
 	}
 
 	/**
@@ -44,6 +69,7 @@ public abstract class Node<K extends Comparable<K>> {
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public Node(Node<K> node) {
 		this.numberOfKeys = node.numberOfKeys;
+		this.search = node.search;
 		keys = (K[]) new Comparable[node.keys.length];
 		System.arraycopy(node.keys, 0, keys, 0, node.keys.length);
 		pointers = new Object[node.pointers.length];
@@ -115,11 +141,8 @@ public abstract class Node<K extends Comparable<K>> {
 	 * @return the first index i such that keys[i] >= the given key; -1 if there is no such i.
 	 */
 	protected int findIndexGE(K key) {
-		for (int i = 0; i < numberOfKeys; i++) {
-			if (keys[i].compareTo(key) >= 0)
-				return i;
-		}
-		return -1;
+		int i = search.lowerBound(keys, numberOfKeys, key);
+		return i < numberOfKeys ? i : -1;
 	}
 
 	/**
@@ -130,11 +153,7 @@ public abstract class Node<K extends Comparable<K>> {
 	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i.
 	 */
 	protected int findIndexL(K key) {
-		for (int i = numberOfKeys - 1; i >= 0; i--) {
-			if (keys[i].compareTo(key) < 0)
-				return i;
-		}
-		return -1;
+		return search.lowerBound(keys, numberOfKeys, key) - 1;
 	}
 
 	/**
@@ -148,10 +167,10 @@ public abstract class Node<K extends Comparable<K>> {
 	 *            the insertion position
 	 */
 	protected void insert(K key, Object object, int pos) {
-		for (int i = numberOfKeys; i > pos; i--) {
-			keys[i] = keys[i - 1];
-			pointers[i] = pointers[i - 1];
-		}
+		if (TreeMetrics.ENABLED)
+			TreeMetrics.shifted(numberOfKeys - pos);
+		System.arraycopy(keys, pos, keys, pos + 1, numberOfKeys - pos);
+		System.arraycopy(pointers, pos, pointers, pos + 1, numberOfKeys - pos);
 		keys[pos] = key;
 		pointers[pos] = object;
 		numberOfKeys++;
@@ -175,4 +194,18 @@ public abstract class Node<K extends Comparable<K>> {
 		}
 	}
 
+	/**
+	 * Returns the String representation of this {@code Node}.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder("[");
+		for (int i = 0; i < numberOfKeys; i++) {
+			if (i > 0)
+				b.append(", ");
+			b.append(keys[i]);
+		}
+		return b.append("]").toString();
+	}
+
 }
@@ -17,6 +17,18 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 		super(degree);
 	}
 
+	/**
+	 * Constructs a {@code NonLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code NonLeafNode}.
+	 * @param search
+	 *            the strategy for searching the keys of the {@code NonLeafNode}.
+	 */
+	public NonLeafNode(int degree, KeySearch search) {
+		super(degree, search);
+	}
+
 	/**
 	 * Copy-constructs a {@code NonLeafNode}.
 	 * 
@@ -49,6 +61,180 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 		numberOfKeys++;
 	}
 
+	/**
+	 * Inserts the specified key and {@code Node} after the child {@code Node} at the specified index.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param node
+	 *            the {@code Node} to insert.
+	 * @param i
+	 *            the index of the child {@code Node} after which the key and the specified {@code Node} will be
+	 *            inserted.
+	 */
+	protected void insertAfter(K key, Node<K> node, int i) {
+		System.arraycopy(keys, i, keys, i + 1, numberOfKeys - i);
+		System.arraycopy(pointers, i + 1, pointers, i + 2, numberOfKeys - i);
+		keys[i] = key;
+		pointers[i + 1] = node;
+		numberOfKeys++;
+	}
+
+	/**
+	 * Removes the key at the specified index and the child {@code Node} that follows it.
+	 * 
+	 * @param i
+	 *            the index of the key to remove.
+	 */
+	protected void removeAfter(int i) {
+		System.arraycopy(keys, i + 1, keys, i, numberOfKeys - i - 1);
+		System.arraycopy(pointers, i + 2, pointers, i + 1, numberOfKeys - i - 1);
+		keys[numberOfKeys - 1] = null;
+		pointers[numberOfKeys] = null;
+		numberOfKeys--;
+	}
+
+	/**
+	 * Moves the last child {@code Node} of the specified left sibling to the front of this {@code NonLeafNode}. The
+	 * separator between the two {@code NonLeafNode}s comes down in front of the keys of this {@code NonLeafNode}, and
+	 * the last key of the sibling replaces it.
+	 * 
+	 * @param separator
+	 *            the key that separates the left sibling from this {@code NonLeafNode} in their parent.
+	 * @param left
+	 *            the left sibling, which must have more than the minimum number of keys.
+	 * @return the key that replaces the separator in the parent.
+	 */
+	protected K borrowFromLeft(K separator, NonLeafNode<K> left) {
+		System.arraycopy(keys, 0, keys, 1, numberOfKeys);
+		System.arraycopy(pointers, 0, pointers, 1, numberOfKeys + 1);
+		keys[0] = separator;
+		pointers[0] = left.pointers[left.numberOfKeys];
+		numberOfKeys++;
+		K up = left.keys[left.numberOfKeys - 1];
+		left.keys[left.numberOfKeys - 1] = null;
+		left.pointers[left.numberOfKeys] = null;
+		left.numberOfKeys--;
+		return up;
+	}
+
+	/**
+	 * Moves the first child {@code Node} of the specified right sibling to the end of this {@code NonLeafNode}. The
+	 * separator between the two {@code NonLeafNode}s comes down after the keys of this {@code NonLeafNode}, and the
+	 * first key of the sibling replaces it.
+	 * 
+	 * @param separator
+	 *            the key that separates this {@code NonLeafNode} from the right sibling in their parent.
+	 * @param right
+	 *            the right sibling, which must have more than the minimum number of keys.
+	 * @return the key that replaces the separator in the parent.
+	 */
+	protected K borrowFromRight(K separator, NonLeafNode<K> right) {
+		return borrowFromRight(separator, right, 1);
+	}
+
+	/**
+	 * Moves the first {@code count} child {@code Node}s of the specified right sibling to the end of this
+	 * {@code NonLeafNode}, which must have room for them. The separator between the two {@code NonLeafNode}s comes
+	 * down in front of the moved children, and the key that followed them in the sibling replaces it.
+	 * 
+	 * @param separator
+	 *            the key that separates this {@code NonLeafNode} from the right sibling in their parent.
+	 * @param right
+	 *            the right sibling, which must keep at least one child.
+	 * @param count
+	 *            the number of children to move (1 &lt;= count &lt;= the number of keys of the sibling).
+	 * @return the key that replaces the separator in the parent.
+	 */
+	protected K borrowFromRight(K separator, NonLeafNode<K> right, int count) {
+		int n = numberOfKeys;
+		keys[n] = separator;
+		System.arraycopy(right.keys, 0, keys, n + 1, count - 1);
+		System.arraycopy(right.pointers, 0, pointers, n + 1, count);
+		numberOfKeys += count;
+		K up = right.keys[count - 1];
+		int rest = right.numberOfKeys - count; // the number of keys left in the sibling
+		System.arraycopy(right.keys, count, right.keys, 0, rest);
+		System.arraycopy(right.pointers, count, right.pointers, 0, rest + 1);
+		java.util.Arrays.fill(right.keys, rest, right.numberOfKeys, null);
+		java.util.Arrays.fill(right.pointers, rest + 1, right.numberOfKeys + 1, null);
+		right.numberOfKeys = rest;
+		return up;
+	}
+
+	/**
+	 * Appends the specified separator and the keys and children of the specified right sibling to this
+	 * {@code NonLeafNode}, which must have room for them.
+	 * 
+	 * @param separator
+	 *            the key that separates this {@code NonLeafNode} from the right sibling in their parent.
+	 * @param right
+	 *            the right sibling.
+	 */
+	protected void merge(K separator, NonLeafNode<K> right) {
+		int n = numberOfKeys;
+		keys[n] = separator;
+		System.arraycopy(right.keys, 0, keys, n + 1, right.numberOfKeys);
+		System.arraycopy(right.pointers, 0, pointers, n + 1, right.numberOfKeys + 1);
+		numberOfKeys += right.numberOfKeys + 1;
+	}
+
+	/**
+	 * Splits this full {@code NonLeafNode} while inserting the specified key and {@code Node} after the child
+	 * {@code Node} at the specified index. Of the resulting children, the first {@code m} stay in this
+	 * {@code NonLeafNode} and the rest move to the specified empty {@code NonLeafNode}. The key between the two groups
+	 * is removed from both and returned.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param node
+	 *            the {@code Node} to insert.
+	 * @param i
+	 *            the index of the child {@code Node} after which the key and the specified {@code Node} will be
+	 *            inserted.
+	 * @param m
+	 *            the number of children that stay in this {@code NonLeafNode} (2 &lt;= m &lt;= the number of keys).
+	 * @param sibling
+	 *            the empty {@code NonLeafNode} that receives the remaining children.
+	 * @return the key that separates this {@code NonLeafNode} from the sibling.
+	 */
+	protected K split(K key, Node<K> node, int i, int m, NonLeafNode<K> sibling) {
+		K separator;
+		int from; // the first existing key that moves to the sibling
+		if (i < m - 1) { // if the new key stays in this node
+			separator = keys[m - 2];
+			from = m - 1;
+		} else if (i == m - 1) { // if the new key moves up
+			separator = key;
+			from = m - 1;
+		} else { // if the new key moves to the sibling
+			separator = keys[m - 1];
+			from = m;
+		}
+		int moved = numberOfKeys - from;
+		System.arraycopy(keys, from, sibling.keys, 0, moved);
+		if (i == m - 1) {
+			sibling.pointers[0] = node;
+			System.arraycopy(pointers, m, sibling.pointers, 1, moved);
+		} else {
+			System.arraycopy(pointers, from, sibling.pointers, 0, moved + 1);
+		}
+		sibling.numberOfKeys = moved;
+		java.util.Arrays.fill(keys, from, numberOfKeys, null);
+		java.util.Arrays.fill(pointers, from + 1, numberOfKeys + 1, null);
+		numberOfKeys = from;
+		if (i != m - 1) { // if the separator is an existing key
+			numberOfKeys--;
+			keys[numberOfKeys] = null;
+			pointers[numberOfKeys + 1] = null;
+			if (i < m - 1)
+				insertAfter(key, node, i);
+			else
+				sibling.insertAfter(key, node, i - m);
+		}
+		return separator;
+	}
+
 	/**
 	 * Returns the child {@code Node} at the specified index.
 	 * 
@@ -70,14 +256,7 @@ public class NonLeafNode<K extends Comparable<K>> extends Node<K> {
 	 */
 	@SuppressWarnings("unchecked")
 	public Node<K> child(K key) {
-		int i = findIndexGE(key); // find smallest i such that keys[i] >= key
-		if (i < 0) { // if no i such that keys[i] >= key
-			return (Node<K>) pointers[numberOfKeys];
-		} else if (key.compareTo(keys[i]) == 0) {
-			return (Node<K>) pointers[i + 1];
-		} else {
-			return (Node<K>) pointers[i];
-		}
+		return (Node<K>) pointers[search.upperBound(keys, numberOfKeys, key)]; // smallest i such that keys[i] > key
 	}
 
 	/**
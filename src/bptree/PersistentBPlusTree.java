@@ -0,0 +1,413 @@
+package bptree;
+
+/**
+ * The {@code PersistentBPlusTree} class implements B+-trees whose versions share their unchanged {@code Node}s. An
+ * update copies only the {@code Node}s on the path from the root to the affected {@code LeafNode} (and the
+ * {@code Node}s created by splits), so {@link #snapshot()} takes constant time: it hands the current root to an
+ * immutable view and starts a new version, after which the {@code Node}s reachable from the view are never modified.
+ * Nodes are stamped with the version that created them, so a run of updates between two snapshots copies each
+ * {@code Node} at most once.
+ *
+ * Copying a {@code LeafNode} would also require copying its predecessor, whose successor pointer refers to it, and in
+ * turn every {@code LeafNode} to its left. A {@code PersistentBPlusTree} therefore does not chain its
+ * {@code LeafNode}s: its {@code Cursor}s keep the path from the root and move to the next {@code LeafNode} through
+ * the lowest ancestor that has a next child, which costs amortized constant time per {@code LeafNode}. Deletions
+ * rebalance the tree, copying the siblings they borrow from or merge with.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class PersistentBPlusTree<K extends Comparable<K>, V> extends BPlusTree<K, V> {
+
+	/**
+	 * The version of this {@code PersistentBPlusTree}. Only the {@code Node}s of this version can be updated in place.
+	 */
+	protected long version = 1;
+
+	/**
+	 * A flag indicating whether or not this {@code PersistentBPlusTree} is an immutable snapshot.
+	 */
+	protected final boolean immutable;
+
+	/**
+	 * Constructs a {@code PersistentBPlusTree} that chooses the {@code KeySearch} strategy from its degree.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code PersistentBPlusTree} can have.
+	 */
+	public PersistentBPlusTree(int degree) {
+		this(degree, KeySearch.forDegree(degree));
+	}
+
+	/**
+	 * Constructs a {@code PersistentBPlusTree}.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code PersistentBPlusTree} can have.
+	 * @param search
+	 *            the strategy for searching the keys within each {@code Node} of this {@code PersistentBPlusTree}.
+	 */
+	public PersistentBPlusTree(int degree, KeySearch search) {
+		super(degree, search);
+		this.immutable = false;
+	}
+
+	/**
+	 * Constructs an immutable snapshot of the specified {@code PersistentBPlusTree}.
+	 *
+	 * @param tree
+	 *            a {@code PersistentBPlusTree}.
+	 */
+	protected PersistentBPlusTree(PersistentBPlusTree<K, V> tree) {
+		super(tree.degree, tree.search);
+		this.root = tree.root;
+		this.version = tree.version;
+		this.immutable = true;
+	}
+
+	/**
+	 * Returns an immutable snapshot of this {@code PersistentBPlusTree} in constant time. The snapshot shares all of
+	 * its {@code Node}s with this {@code PersistentBPlusTree}, which copies them before updating them from now on.
+	 *
+	 * @return an immutable snapshot of this {@code PersistentBPlusTree}.
+	 */
+	public PersistentBPlusTree<K, V> snapshot() {
+		if (immutable)
+			return this;
+		PersistentBPlusTree<K, V> snapshot = new PersistentBPlusTree<K, V>(this);
+		version++; // the nodes of the previous version now belong to the snapshot
+		return snapshot;
+	}
+
+	/**
+	 * Determines whether or not this {@code PersistentBPlusTree} is an immutable snapshot.
+	 *
+	 * @return {@code true} if this {@code PersistentBPlusTree} is an immutable snapshot; {@code false} otherwise.
+	 */
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	@Override
+	public void insert(K key, V value) {
+		checkMutable();
+		super.insert(key, value);
+	}
+
+	@Override
+	public void insertAll(java.util.Collection<? extends java.util.Map.Entry<? extends K, ? extends V>> entries) {
+		checkMutable();
+		super.insertAll(entries);
+	}
+
+	@Override
+	public void deleteAll(java.util.Collection<? extends K> keys) {
+		checkMutable();
+		super.deleteAll(keys);
+	}
+
+	/**
+	 * Removes an entry with the specified key from this {@code PersistentBPlusTree}. Nothing is copied if there is no
+	 * such key.
+	 */
+	@Override
+	public V remove(K key) {
+		checkMutable();
+		if (root == null)
+			return null;
+		LeafNode<K, V> leaf = findFirst(key);
+		int i = leaf.findIndexGE(key);
+		if (i < 0 || key.compareTo(leaf.keys[i]) != 0) // if the key is not in the tree, copy nothing
+			return null;
+		return super.remove(key);
+	}
+
+	/**
+	 * Packs the {@code Node}s of this {@code PersistentBPlusTree} as {@link BPlusTree#compact(double, int)} does,
+	 * copying the {@code Node}s that are shared with snapshots before changing them.
+	 */
+	@Override
+	public boolean compact(double fillFactor, int nodes) {
+		checkMutable();
+		return super.compact(fillFactor, nodes);
+	}
+
+	@Override
+	public void bulkLoad(java.util.Iterator<? extends java.util.Map.Entry<? extends K, ? extends V>> entries,
+			double fillFactor) {
+		checkMutable();
+		super.bulkLoad(entries, fillFactor);
+	}
+
+	/**
+	 * Returns a {@code Cursor} over the entries of this {@code PersistentBPlusTree} whose keys are within the
+	 * specified range. The {@code Cursor} keeps the path from the root to its current {@code LeafNode} instead of
+	 * following successor pointers.
+	 */
+	@Override
+	public Cursor<K, V> range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		PathCursor<K, V> cursor = new PathCursor<K, V>(this, to, toInclusive);
+		if (root != null)
+			cursor.position(from, fromInclusive);
+		return cursor;
+	}
+
+	/**
+	 * Returns a sequential {@code Stream} of the entries of this {@code PersistentBPlusTree} whose keys are within the
+	 * specified range. Since the {@code LeafNode}s are not chained, the {@code Stream} is backed by a {@code Cursor}.
+	 */
+	@Override
+	public java.util.stream.Stream<java.util.Map.Entry<K, V>> rangeStream(K from, boolean fromInclusive, K to,
+			boolean toInclusive) {
+		return java.util.stream.StreamSupport.stream(java.util.Spliterators.spliteratorUnknownSize(range(from,
+				fromInclusive, to, toInclusive).asIterator(), java.util.Spliterator.ORDERED
+				| java.util.Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key and makes every {@code Node} on the way
+	 * belong to the current version, copying the {@code Node}s of older versions and linking the copies to their
+	 * copied parents.
+	 */
+	@Override
+	protected LeafNode<K, V> descend(K key, int level, boolean first) {
+		super.descend(key, level, first);
+		Node<K> n;
+		if (level == 0) {
+			n = own(root);
+			root = n;
+		} else {
+			while (level > 0 && path[level].version != version)
+				level--; // the descent moved right of the kept path, whose deepest copied node is path[level]
+			n = path[level]; // already copied by the previous descent
+		}
+		for (int d = level; d < depth; d++) {
+			NonLeafNode<K> p = (NonLeafNode<K>) n;
+			path[d] = p;
+			n = own(p.child(slots[d]));
+			p.pointers[slots[d]] = n;
+		}
+		@SuppressWarnings("unchecked")
+		LeafNode<K, V> leaf = (LeafNode<K, V>) n;
+		return leaf;
+	}
+
+	/**
+	 * Returns {@code null} so that every insertion descends from the root. The {@code LeafNode}s of a
+	 * {@code PersistentBPlusTree} have no successors to tell whether a cached {@code LeafNode} is still the rightmost,
+	 * and it may be shared with a snapshot taken since it was cached.
+	 */
+	@Override
+	protected LeafNode<K, V> rightmostLeaf() {
+		return null;
+	}
+
+	/**
+	 * Returns the specified sibling after making it belong to the current version and linking it to the parent, which
+	 * is on the recorded path and therefore already belongs to the current version.
+	 */
+	@Override
+	protected Node<K> sibling(NonLeafNode<K> p, int i) {
+		Node<K> n = own(p.child(i));
+		p.pointers[i] = n;
+		return n;
+	}
+
+	/**
+	 * Returns the specified {@code Node} if it belongs to the current version; otherwise, a copy of it that does.
+	 *
+	 * @param node
+	 *            a {@code Node}.
+	 * @return a {@code Node} of the current version with the same keys and pointers as the specified {@code Node}.
+	 */
+	protected Node<K> own(Node<K> node) {
+		if (node.version == version)
+			return node;
+		if (node instanceof LeafNode) {
+			LeafNode<K, V> copy = newLeafNode();
+			copy.copy(node, 0, node.numberOfKeys); // copies no successor
+			return copy;
+		}
+		NonLeafNode<K> copy = newNonLeafNode();
+		copy.copy((NonLeafNode<K>) node, 0, node.numberOfKeys);
+		return copy;
+	}
+
+	@Override
+	protected LeafNode<K, V> newLeafNode() {
+		Leaf<K, V> leaf = new Leaf<K, V>(degree, search);
+		leaf.version = version;
+		return leaf;
+	}
+
+	@Override
+	protected NonLeafNode<K> newNonLeafNode() {
+		NonLeafNode<K> node = new NonLeafNode<K>(degree, search);
+		node.version = version;
+		return node;
+	}
+
+	/**
+	 * Throws an {@code UnsupportedOperationException} if this {@code PersistentBPlusTree} is an immutable snapshot.
+	 */
+	protected void checkMutable() {
+		if (immutable)
+			throw new UnsupportedOperationException("snapshots are immutable");
+	}
+
+	/**
+	 * A {@code Leaf} is a {@code LeafNode} that has no successor, since a successor pointer would have to be copied
+	 * along with every {@code LeafNode} to its right.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	static class Leaf<K extends Comparable<K>, V> extends LeafNode<K, V> {
+
+		/**
+		 * Constructs a {@code Leaf}.
+		 *
+		 * @param degree
+		 *            the degree of the {@code Leaf}.
+		 * @param search
+		 *            the strategy for searching the keys of the {@code Leaf}.
+		 */
+		Leaf(int degree, KeySearch search) {
+			super(degree, search);
+		}
+
+		@Override
+		public LeafNode<K, V> setSuccessor(LeafNode<K, V> successor) {
+			return null;
+		}
+
+	}
+
+	/**
+	 * A {@code PathCursor} is a {@code Cursor} that keeps the {@code NonLeafNode}s from the root to its current
+	 * {@code LeafNode} and the index of the child taken at each of them.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	static class PathCursor<K extends Comparable<K>, V> extends Cursor<K, V> {
+
+		/**
+		 * The {@code NonLeafNode}s from the root to the current {@code LeafNode}.
+		 */
+		NonLeafNode<K>[] path;
+
+		/**
+		 * The index of the child taken at each {@code NonLeafNode} on {@code path}.
+		 */
+		int[] slots;
+
+		/**
+		 * The number of {@code NonLeafNode}s on {@code path}.
+		 */
+		int depth;
+
+		/**
+		 * Constructs a {@code PathCursor} that has no entries until it is positioned.
+		 *
+		 * @param tree
+		 *            the {@code BPlusTree} to iterate over.
+		 * @param to
+		 *            the upper bound of the keys; {@code null} if unbounded.
+		 * @param toInclusive
+		 *            a flag indicating whether or not the upper bound is inclusive.
+		 */
+		@SuppressWarnings("unchecked")
+		PathCursor(BPlusTree<K, V> tree, K to, boolean toInclusive) {
+			super(tree, null, 0, to, toInclusive);
+			int height = 0;
+			for (Node<K> c = tree.root; c instanceof NonLeafNode; c = ((NonLeafNode<K>) c).child(0))
+				height++;
+			path = (NonLeafNode<K>[]) new NonLeafNode[height];
+			slots = new int[height];
+		}
+
+		/**
+		 * Positions this {@code PathCursor} before the first entry whose key is within the specified lower bound.
+		 *
+		 * @param from
+		 *            the lower bound of the keys; {@code null} if unbounded.
+		 * @param fromInclusive
+		 *            a flag indicating whether or not the lower bound is inclusive.
+		 */
+		void position(K from, boolean fromInclusive) {
+			depth = 0;
+			Node<K> c = tree.root;
+			while (c instanceof NonLeafNode) {
+				int i = from == null ? 0 : fromInclusive ? c.search.lowerBound(c.keys, c.numberOfKeys, from)
+						: c.search.upperBound(c.keys, c.numberOfKeys, from);
+				c = push((NonLeafNode<K>) c, i);
+			}
+			leaf = cast(c);
+			index = (from == null ? 0 : fromInclusive ? leaf.search.lowerBound(leaf.keys, leaf.numberOfKeys, from)
+					: leaf.search.upperBound(leaf.keys, leaf.numberOfKeys, from)) - 1;
+		}
+
+		@Override
+		protected LeafNode<K, V> successor(LeafNode<K, V> leaf) {
+			int d = depth - 1;
+			while (d >= 0 && slots[d] == path[d].numberOfKeys) // climb to the lowest ancestor with a next child
+				d--;
+			if (d < 0) {
+				depth = 0;
+				return null;
+			}
+			depth = d;
+			Node<K> c = push(path[d], slots[d] + 1);
+			while (c instanceof NonLeafNode)
+				c = push((NonLeafNode<K>) c, 0);
+			return cast(c);
+		}
+
+		@Override
+		protected LeafNode<K, V> findLeftmost(K key) {
+			depth = 0;
+			Node<K> c = tree.root;
+			while (c instanceof NonLeafNode)
+				c = push((NonLeafNode<K>) c, c.search.lowerBound(c.keys, c.numberOfKeys, key));
+			return cast(c);
+		}
+
+		/**
+		 * Appends the specified {@code NonLeafNode} and child index to {@code path}.
+		 *
+		 * @param node
+		 *            a {@code NonLeafNode}.
+		 * @param i
+		 *            the index of the child taken.
+		 * @return the child {@code Node} at the specified index.
+		 */
+		Node<K> push(NonLeafNode<K> node, int i) {
+			path[depth] = node;
+			slots[depth++] = i;
+			return node.child(i);
+		}
+
+		/**
+		 * Casts the specified {@code Node} to a {@code LeafNode}.
+		 *
+		 * @param node
+		 *            a {@code Node} at the leaf level.
+		 * @return the {@code Node} as a {@code LeafNode}.
+		 */
+		@SuppressWarnings("unchecked")
+		LeafNode<K, V> cast(Node<K> node) {
+			return (LeafNode<K, V>) node;
+		}
+
+	}
+
+}
@@ -0,0 +1,284 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@code RangeSpliterator} traverses the entries of a {@code BPlusTree} whose keys are within a range. Before the
+ * traversal begins, a {@code RangeSpliterator} covers a run of consecutive children of a {@code NonLeafNode} and
+ * {@link #trySplit()} hands the first half of the run to a new {@code RangeSpliterator}; once a run shrinks to a
+ * single child, it continues one level down. Each half therefore covers whole subtrees, and parallel streams over a
+ * {@code BPlusTree} divide their work along subtree boundaries. The traversal itself follows the chain of
+ * {@code LeafNode}s from the leftmost to the rightmost {@code LeafNode} of the run.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class RangeSpliterator<K extends Comparable<K>, V> implements Spliterator<Map.Entry<K, V>> {
+
+	/**
+	 * The {@code Node} whose children this {@code RangeSpliterator} covers (the {@code LeafNode} itself if the tree
+	 * consists of one {@code LeafNode}).
+	 */
+	protected Node<K> node;
+
+	/**
+	 * The index of the first child covered, inclusive.
+	 */
+	protected int lo;
+
+	/**
+	 * The index of the last child covered, exclusive.
+	 */
+	protected int hi;
+
+	/**
+	 * The height of {@code node} (0 for a {@code LeafNode}).
+	 */
+	protected int height;
+
+	/**
+	 * The estimated number of entries in a subtree of each height, sampled along the leftmost path of the tree.
+	 */
+	protected long[] subtreeSizes;
+
+	/**
+	 * The lower bound of the keys; {@code null} if unbounded.
+	 */
+	protected K from;
+
+	/**
+	 * A flag indicating whether or not the lower bound is inclusive.
+	 */
+	protected boolean fromInclusive;
+
+	/**
+	 * The upper bound of the keys; {@code null} if unbounded.
+	 */
+	protected K to;
+
+	/**
+	 * A flag indicating whether or not the upper bound is inclusive.
+	 */
+	protected boolean toInclusive;
+
+	/**
+	 * The {@code LeafNode} being traversed; {@code null} if the traversal has not begun.
+	 */
+	protected LeafNode<K, V> leaf;
+
+	/**
+	 * The index of the next entry in {@code leaf}.
+	 */
+	protected int index;
+
+	/**
+	 * The last {@code LeafNode} to traverse; {@code null} once the traversal is over.
+	 */
+	protected LeafNode<K, V> last;
+
+	/**
+	 * Constructs a {@code RangeSpliterator} over the entries of the specified {@code BPlusTree}.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}.
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if unbounded.
+	 * @param fromInclusive
+	 *            a flag indicating whether or not the lower bound is inclusive.
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if unbounded.
+	 * @param toInclusive
+	 *            a flag indicating whether or not the upper bound is inclusive.
+	 */
+	@SuppressWarnings("unchecked")
+	public RangeSpliterator(BPlusTree<K, V> tree, K from, boolean fromInclusive, K to, boolean toInclusive) {
+		this.from = from;
+		this.fromInclusive = fromInclusive;
+		this.to = to;
+		this.toInclusive = toInclusive;
+		this.node = tree.root;
+		int h = 0;
+		for (Node<K> c = node; c instanceof NonLeafNode; c = ((NonLeafNode<K>) c).child(0))
+			h++;
+		this.height = h;
+		this.subtreeSizes = new long[h + 1];
+		Node<K> c = node;
+		for (int i = h; i >= 0; i--) { // sample the fan-out along the leftmost path
+			subtreeSizes[i] = c == null ? 0 : c instanceof NonLeafNode ? c.numberOfKeys + 1 : c.numberOfKeys;
+			if (c instanceof NonLeafNode)
+				c = ((NonLeafNode<K>) c).child(0);
+		}
+		for (int i = 1; i <= h; i++)
+			subtreeSizes[i] *= subtreeSizes[i - 1];
+		if (node == null)
+			last = null;
+		else
+			setChildren();
+	}
+
+	/**
+	 * Constructs a {@code RangeSpliterator} covering the specified children of the specified {@code NonLeafNode}.
+	 * 
+	 * @param other
+	 *            the {@code RangeSpliterator} being split.
+	 * @param lo
+	 *            the index of the first child covered, inclusive.
+	 * @param hi
+	 *            the index of the last child covered, exclusive.
+	 */
+	protected RangeSpliterator(RangeSpliterator<K, V> other, int lo, int hi) {
+		this.node = other.node;
+		this.lo = lo;
+		this.hi = hi;
+		this.height = other.height;
+		this.subtreeSizes = other.subtreeSizes;
+		this.from = other.from;
+		this.fromInclusive = other.fromInclusive;
+		this.to = other.to;
+		this.toInclusive = other.toInclusive;
+	}
+
+	/**
+	 * Sets {@code lo} and {@code hi} to the children of {@code node} that may contain keys within the range.
+	 */
+	protected void setChildren() {
+		if (node instanceof LeafNode) {
+			lo = 0;
+			hi = 1;
+			return;
+		}
+		lo = from == null ? 0 : node.search.lowerBound(node.keys, node.numberOfKeys, from);
+		hi = to == null ? node.numberOfKeys + 1 : node.search.upperBound(node.keys, node.numberOfKeys, to) + 1;
+		if (hi <= lo) // if the range is empty
+			hi = lo + 1;
+	}
+
+	@Override
+	public Spliterator<Map.Entry<K, V>> trySplit() {
+		if (leaf != null || node == null) // if the traversal has begun
+			return null;
+		while (hi - lo == 1 && node instanceof NonLeafNode) { // if only one child is covered, go one level down
+			node = ((NonLeafNode<K>) node).child(lo);
+			height--;
+			setChildren();
+		}
+		if (hi - lo < 2) // if this covers only a part of one leaf
+			return null;
+		int mid = (lo + hi) >>> 1;
+		RangeSpliterator<K, V> prefix = new RangeSpliterator<K, V>(this, lo, mid);
+		lo = mid;
+		return prefix;
+	}
+
+	/**
+	 * Begins the traversal by locating the first and the last {@code LeafNode}s to traverse.
+	 */
+	@SuppressWarnings("unchecked")
+	protected void begin() {
+		Node<K> c = node instanceof LeafNode ? node : ((NonLeafNode<K>) node).child(lo);
+		while (c instanceof NonLeafNode) // descend to the leftmost leaf that may contain the lower bound
+			c = ((NonLeafNode<K>) c).child(from == null ? 0 : c.search.lowerBound(c.keys, c.numberOfKeys, from));
+		leaf = (LeafNode<K, V>) c;
+		index = from == null ? 0 : leaf.search.lowerBound(leaf.keys, leaf.numberOfKeys, from);
+		c = node instanceof LeafNode ? node : ((NonLeafNode<K>) node).child(hi - 1);
+		while (c instanceof NonLeafNode) // descend to the rightmost leaf
+			c = ((NonLeafNode<K>) c).child(c.numberOfKeys);
+		last = (LeafNode<K, V>) c;
+	}
+
+	/**
+	 * Moves to the next entry within the range.
+	 * 
+	 * @return {@code true} if {@code leaf.keys[index]} is the next entry; {@code false} if the traversal is over.
+	 */
+	protected boolean advance() {
+		if (leaf == null) {
+			if (node == null)
+				return false;
+			begin();
+		}
+		while (last != null) {
+			if (index >= leaf.numberOfKeys) { // if past the end of the leaf
+				if (leaf == last) {
+					last = null;
+					return false;
+				}
+				leaf = leaf.successor();
+				index = 0;
+				if (leaf == null) { // if the rest of the tree is below the lower bound
+					last = null;
+					return false;
+				}
+				continue;
+			}
+			K key = leaf.keys[index];
+			if (from != null) {
+				int c = key.compareTo(from);
+				if (c < 0 || (c == 0 && !fromInclusive)) { // if still below the lower bound
+					index++;
+					continue;
+				}
+				from = null; // the remaining keys are all within the lower bound
+			}
+			if (to != null) {
+				int c = key.compareTo(to);
+				if (c > 0 || (c == 0 && !toInclusive)) { // if past the upper bound
+					last = null;
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+		if (!advance())
+			return false;
+		action.accept(new AbstractMap.SimpleImmutableEntry<K, V>(leaf.keys[index], (V) leaf.pointers[index]));
+		index++;
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+		while (advance()) {
+			if (to == null) { // if the whole rest of the leaf is within the range
+				for (; index < leaf.numberOfKeys; index++)
+					action.accept(new AbstractMap.SimpleImmutableEntry<K, V>(leaf.keys[index], (V) leaf.pointers[index]));
+			} else {
+				action.accept(new AbstractMap.SimpleImmutableEntry<K, V>(leaf.keys[index], (V) leaf.pointers[index]));
+				index++;
+			}
+		}
+	}
+
+	@Override
+	public long estimateSize() {
+		if (node == null || last == null && leaf != null)
+			return 0;
+		return (hi - lo) * subtreeSizes[Math.max(0, height - 1)];
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | SORTED | NONNULL;
+	}
+
+	@Override
+	public Comparator<? super Map.Entry<K, V>> getComparator() {
+		return Map.Entry.comparingByKey();
+	}
+
+}
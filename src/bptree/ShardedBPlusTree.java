@@ -0,0 +1,886 @@
+package bptree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code ShardedBPlusTree} class partitions the key space into ranges, each stored in its own {@link BLinkTree}
+ * (a shard) that is updated by a single writer thread. Insertions and deletions are appended to the lock-free queue of
+ * the responsible shard and applied asynchronously in queue order; {@link #flush()} waits until all the operations
+ * submitted before it have been applied. Lookups and scans read the shards directly without locking.
+ *
+ * Each writer counts the operations it applies and samples their keys. {@link #rebalance()} moves the boundary between
+ * the busiest shard and its less busy neighbor so that the neighbor takes over about half of the difference in load,
+ * based on the sampled keys. The keys in the moving range are handed over through the queues: the target shard stops
+ * at a marker until the source shard, after applying every operation routed to it under the old boundaries, has copied
+ * the range to it. Lookups that arrive during the handover also look in the source shard.
+ *
+ * Range scans merge the ordered scans of the shards with a k-way merge.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class ShardedBPlusTree<K extends Comparable<K>, V> implements java.io.Closeable {
+
+	/**
+	 * The number of keys each writer samples between two rebalancings.
+	 */
+	public static final int SAMPLE_SIZE = 1024;
+
+	/**
+	 * The default ratio of the load of the busiest shard to the average load above which {@link #rebalance()} moves a
+	 * boundary.
+	 */
+	public static final double IMBALANCE = 1.25;
+
+	/**
+	 * The shards.
+	 */
+	protected final Shard[] shards;
+
+	/**
+	 * The current partitioning of the key space.
+	 */
+	protected volatile Partition<K> partition;
+
+	/**
+	 * The number of operations applied by each shard at the last rebalancing.
+	 */
+	protected long[] operations;
+
+	/**
+	 * Constructs a {@code ShardedBPlusTree} with one shard more than the specified boundaries and starts the writer
+	 * threads.
+	 *
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of the shards can have.
+	 * @param boundaries
+	 *            the keys that separate the shards, in increasing order; shard i holds the keys that are at least
+	 *            {@code boundaries[i - 1]} and less than {@code boundaries[i]}.
+	 * @throws IllegalArgumentException
+	 *             if the boundaries are not strictly increasing.
+	 */
+	@SuppressWarnings("unchecked")
+	public ShardedBPlusTree(int degree, K[] boundaries) {
+		for (int i = 1; i < boundaries.length; i++)
+			if (boundaries[i - 1].compareTo(boundaries[i]) >= 0)
+				throw new IllegalArgumentException("boundaries must be strictly increasing");
+		this.partition = new Partition<K>(boundaries.clone(), -1, null, null);
+		this.partition.received = true;
+		this.shards = (Shard[]) java.lang.reflect.Array.newInstance(Shard.class, boundaries.length + 1);
+		this.operations = new long[shards.length];
+		for (int i = 0; i < shards.length; i++)
+			shards[i] = new Shard(i, degree);
+		for (Shard s : shards)
+			s.writer.start();
+	}
+
+	/**
+	 * Returns the number of shards of this {@code ShardedBPlusTree}.
+	 *
+	 * @return the number of shards of this {@code ShardedBPlusTree}.
+	 */
+	public int numberOfShards() {
+		return shards.length;
+	}
+
+	/**
+	 * Returns the current boundaries between the shards.
+	 *
+	 * @return the current boundaries between the shards.
+	 */
+	public K[] boundaries() {
+		return partition.boundaries.clone();
+	}
+
+	/**
+	 * Returns the tree of the specified shard.
+	 *
+	 * @param i
+	 *            the index of the shard.
+	 * @return the tree of the specified shard.
+	 */
+	public BLinkTree<K, V> shard(int i) {
+		return shards[i].tree;
+	}
+
+	/**
+	 * Submits the insertion of the specified key and value.
+	 *
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	public void insert(K key, V value) {
+		Partition<K> p = enter();
+		try {
+			shards[p.shardOf(key)].submit(new Insert(key, value));
+		} finally {
+			p.submitters.decrement();
+		}
+	}
+
+	/**
+	 * Submits the deletion of an entry with the specified key.
+	 *
+	 * @param key
+	 *            the key to delete.
+	 */
+	public void delete(K key) {
+		Partition<K> p = enter();
+		try {
+			shards[p.shardOf(key)].submit(new Delete(key));
+		} finally {
+			p.submitters.decrement();
+		}
+	}
+
+	/**
+	 * Waits until all the operations submitted before this call have been applied.
+	 */
+	public void flush() {
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+		for (Shard s : shards) {
+			Barrier b = new Barrier();
+			s.submit(b);
+			futures.add(b.done);
+		}
+		for (CompletableFuture<Void> f : futures)
+			f.join();
+	}
+
+	/**
+	 * Returns the value associated with the specified key. Operations that have been submitted but not yet applied are
+	 * not reflected.
+	 *
+	 * @param key
+	 *            the search key.
+	 * @return the value associated with the specified key; {@code null} if there is no such key.
+	 */
+	public V get(K key) {
+		while (true) {
+			Partition<K> p = partition;
+			boolean moving = p.moving(key);
+			V value = shards[p.shardOf(key)].tree.get(key);
+			if (value == null && moving) {
+				value = shards[p.source].tree.get(key); // the key may not have been handed over yet
+				if (value == null && p.received)
+					continue; // the source may have deleted the key after handing it over, so look in the target again
+			}
+			if (value != null || p == partition)
+				return value;
+			// a move made after p was read may have handed the key over to another shard, so look again
+		}
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the entries whose keys are greater than or equal to {@code from} and less than
+	 * {@code to}, merging the scans of the shards that overlap the range. The {@code Iterator} is weakly consistent.
+	 *
+	 * @param from
+	 *            the lower bound of the keys, inclusive; {@code null} if unbounded.
+	 * @param to
+	 *            the upper bound of the keys, exclusive; {@code null} if unbounded.
+	 * @return an {@code Iterator} over the entries whose keys are within the specified range.
+	 */
+	public Iterator<Map.Entry<K, V>> range(K from, K to) {
+		Partition<K> p = partition;
+		int first = from == null ? 0 : p.shardOf(from);
+		int last = to == null ? shards.length - 1 : p.shardOf(to);
+		List<Iterator<Map.Entry<K, V>>> scans = new ArrayList<Iterator<Map.Entry<K, V>>>();
+		boolean handover = !p.received; // if the range may still be in the source shard, which holds all its copies
+		if (handover)
+			scans.add(shards[p.source].tree.entries(from, to));
+		for (int i = first; i <= last; i++)
+			if (!handover || i != p.source)
+				scans.add(shards[i].tree.entries(from, to));
+		return new Merge<K, V>(scans);
+	}
+
+	/**
+	 * Moves one boundary if the busiest shard has applied more than {@link #IMBALANCE} times the average number of
+	 * operations since the last rebalancing.
+	 *
+	 * @return {@code true} if a boundary has been moved; {@code false} otherwise.
+	 */
+	public boolean rebalance() {
+		return rebalance(IMBALANCE);
+	}
+
+	/**
+	 * Moves one boundary if the busiest shard has applied more than the specified ratio of the average number of
+	 * operations since the last rebalancing. The load counts restart after each call.
+	 *
+	 * @param imbalance
+	 *            the ratio of the load of the busiest shard to the average load above which a boundary is moved.
+	 * @return {@code true} if a boundary has been moved; {@code false} otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized boolean rebalance(double imbalance) {
+		if (shards.length < 2)
+			return false;
+		long[] loads = new long[shards.length];
+		long total = 0;
+		int busiest = 0;
+		for (int i = 0; i < shards.length; i++) {
+			long o = shards[i].operations;
+			loads[i] = o - operations[i];
+			operations[i] = o;
+			total += loads[i];
+			if (loads[i] > loads[busiest])
+				busiest = i;
+		}
+		Sample sample = new Sample();
+		shards[busiest].submit(sample);
+		Object[] keys = sample.keys.join();
+		if (total == 0 || loads[busiest] <= imbalance * total / shards.length || keys.length < 2)
+			return false;
+		int neighbor = busiest == 0 ? 1 : busiest == shards.length - 1 ? busiest - 1
+				: loads[busiest - 1] <= loads[busiest + 1] ? busiest - 1 : busiest + 1;
+		double share = (loads[busiest] - loads[neighbor]) / 2.0 / loads[busiest]; // the fraction of the load to move
+		Partition<K> p = partition;
+		K[] boundaries = p.boundaries.clone();
+		K from, to, boundary;
+		if (neighbor > busiest) { // move the upper part of the busiest shard
+			boundary = (K) keys[Math.min(keys.length - 1, (int) ((1 - share) * keys.length))];
+			from = boundary;
+			to = boundaries[busiest];
+			if (busiest > 0 && boundary.compareTo(boundaries[busiest - 1]) <= 0 || boundary.compareTo(to) >= 0)
+				return false;
+			boundaries[busiest] = boundary;
+		} else { // move the lower part of the busiest shard
+			boundary = (K) keys[Math.max(1, (int) (share * keys.length))];
+			from = boundaries[neighbor];
+			to = boundary;
+			if (boundary.compareTo(from) <= 0 || busiest < boundaries.length && boundary.compareTo(boundaries[busiest]) >= 0)
+				return false;
+			boundaries[neighbor] = boundary;
+		}
+		move(new Partition<K>(boundaries, busiest, from, to), neighbor);
+		return true;
+	}
+
+	/**
+	 * Hands the keys within the moving range of the specified {@code Partition} over from its source shard to the
+	 * specified target shard and then makes the {@code Partition} current.
+	 *
+	 * @param next
+	 *            the new {@code Partition}.
+	 * @param target
+	 *            the index of the target shard.
+	 */
+	protected void move(Partition<K> next, int target) {
+		Partition<K> previous = partition;
+		Handoff handoff = new Handoff(next.from, next.to);
+		Receive receive = new Receive(handoff, next);
+		shards[target].submit(receive); // the target stops here until the source has copied the range
+		partition = next;
+		while (previous.submitters.sum() != 0) // wait until every operation routed by the previous partition is queued
+			Thread.yield();
+		shards[next.source].submit(handoff);
+		receive.done.join();
+		shards[next.source].submit(new Cleanup(handoff.entries.join()));
+	}
+
+	/**
+	 * Returns the current {@code Partition} after registering the caller as a submitter under it.
+	 *
+	 * @return the current {@code Partition}.
+	 */
+	protected Partition<K> enter() {
+		while (true) {
+			Partition<K> p = partition;
+			p.submitters.increment();
+			if (p == partition)
+				return p;
+			p.submitters.decrement();
+		}
+	}
+
+	/**
+	 * Applies all the submitted operations and stops the writer threads.
+	 */
+	@Override
+	public void close() {
+		flush();
+		for (Shard s : shards) {
+			s.closed = true;
+			LockSupport.unpark(s.writer);
+		}
+		for (Shard s : shards) {
+			try {
+				s.writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * A {@code Partition} is an immutable assignment of key ranges to shards. It also describes the range that was
+	 * moved to create it, until that range has been handed over.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 */
+	protected static class Partition<K extends Comparable<K>> {
+
+		/**
+		 * The keys that separate the shards.
+		 */
+		final K[] boundaries;
+
+		/**
+		 * The index of the shard that the moving range comes from; -1 if no range has moved.
+		 */
+		final int source;
+
+		/**
+		 * The lower bound (inclusive) of the moving range.
+		 */
+		final K from;
+
+		/**
+		 * The upper bound (exclusive) of the moving range.
+		 */
+		final K to;
+
+		/**
+		 * A flag indicating whether or not the moving range has been handed over to its new shard.
+		 */
+		volatile boolean received;
+
+		/**
+		 * The number of threads that are submitting operations routed by this {@code Partition}.
+		 */
+		final LongAdder submitters = new LongAdder();
+
+		/**
+		 * Constructs a {@code Partition}.
+		 *
+		 * @param boundaries
+		 *            the keys that separate the shards.
+		 * @param source
+		 *            the index of the shard that the moving range comes from; -1 if no range has moved.
+		 * @param from
+		 *            the lower bound (inclusive) of the moving range.
+		 * @param to
+		 *            the upper bound (exclusive) of the moving range.
+		 */
+		Partition(K[] boundaries, int source, K from, K to) {
+			this.boundaries = boundaries;
+			this.source = source;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Returns the index of the shard responsible for the specified key.
+		 *
+		 * @param key
+		 *            a key.
+		 * @return the index of the shard responsible for the specified key.
+		 */
+		int shardOf(K key) {
+			int low = 0;
+			int high = boundaries.length;
+			while (low < high) { // find the number of boundaries less than or equal to the key
+				int middle = (low + high) >>> 1;
+				if (boundaries[middle].compareTo(key) <= 0)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low;
+		}
+
+		/**
+		 * Determines whether or not the specified key is in a range that has not been handed over yet.
+		 *
+		 * @param key
+		 *            a key.
+		 * @return {@code true} if the key is in a range that has not been handed over yet; {@code false} otherwise.
+		 */
+		boolean moving(K key) {
+			return !received && key.compareTo(from) >= 0 && key.compareTo(to) < 0;
+		}
+
+	}
+
+	/**
+	 * A {@code Shard} is a {@code BLinkTree} with the queue of operations and the thread that applies them.
+	 */
+	protected class Shard implements Runnable {
+
+		/**
+		 * The tree of this {@code Shard}.
+		 */
+		final BLinkTree<K, V> tree;
+
+		/**
+		 * The operations to apply.
+		 */
+		final ConcurrentLinkedQueue<Operation> queue = new ConcurrentLinkedQueue<Operation>();
+
+		/**
+		 * The thread that applies the operations.
+		 */
+		final Thread writer;
+
+		/**
+		 * A flag indicating whether or not the writer is about to park because the queue is empty.
+		 */
+		volatile boolean waiting;
+
+		/**
+		 * A flag indicating whether or not the writer should stop.
+		 */
+		volatile boolean closed;
+
+		/**
+		 * The number of insertions and deletions applied.
+		 */
+		volatile long operations;
+
+		/**
+		 * The keys sampled since the last {@code Sample} (reservoir sampling).
+		 */
+		Object[] sample = new Object[SAMPLE_SIZE];
+
+		/**
+		 * The number of keys offered to the sample since the last {@code Sample}.
+		 */
+		long sampled;
+
+		/**
+		 * Constructs a {@code Shard}.
+		 *
+		 * @param index
+		 *            the index of the {@code Shard}.
+		 * @param degree
+		 *            the maximum number of pointers that each {@code Node} of the tree can have.
+		 */
+		Shard(int index, int degree) {
+			this.tree = new BLinkTree<K, V>(degree);
+			this.writer = new Thread(this, "shard-" + index);
+			this.writer.setDaemon(true);
+		}
+
+		/**
+		 * Appends the specified operation to the queue of this {@code Shard}.
+		 *
+		 * @param operation
+		 *            an operation.
+		 */
+		void submit(Operation operation) {
+			queue.offer(operation);
+			if (waiting)
+				LockSupport.unpark(writer);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				Operation o = queue.poll();
+				if (o != null) {
+					o.apply(this);
+					continue;
+				}
+				if (closed)
+					return;
+				waiting = true;
+				if (queue.isEmpty() && !closed) // if nothing was submitted after the last poll
+					LockSupport.park(this);
+				waiting = false;
+			}
+		}
+
+		/**
+		 * Counts an insertion or deletion of the specified key and offers the key to the sample.
+		 *
+		 * @param key
+		 *            the key.
+		 */
+		void count(K key) {
+			operations++; // only the writer updates the count
+			long n = sampled++;
+			if (n < sample.length)
+				sample[(int) n] = key;
+			else {
+				long i = ThreadLocalRandom.current().nextLong(n + 1);
+				if (i < sample.length)
+					sample[(int) i] = key;
+			}
+		}
+
+	}
+
+	/**
+	 * An {@code Operation} is applied to a {@code Shard} by its writer thread.
+	 */
+	protected abstract class Operation {
+
+		/**
+		 * Applies this {@code Operation} to the specified {@code Shard}.
+		 *
+		 * @param shard
+		 *            the {@code Shard} whose writer thread calls this method.
+		 */
+		abstract void apply(Shard shard);
+
+	}
+
+	/**
+	 * An {@code Insert} inserts a key and a value.
+	 */
+	protected class Insert extends Operation {
+
+		/**
+		 * The key to insert.
+		 */
+		final K key;
+
+		/**
+		 * The value to insert.
+		 */
+		final V value;
+
+		/**
+		 * Constructs an {@code Insert}.
+		 *
+		 * @param key
+		 *            the key to insert.
+		 * @param value
+		 *            the value to insert.
+		 */
+		Insert(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		void apply(Shard shard) {
+			shard.tree.insert(key, value);
+			shard.count(key);
+		}
+
+	}
+
+	/**
+	 * A {@code Delete} deletes an entry with a key.
+	 */
+	protected class Delete extends Operation {
+
+		/**
+		 * The key to delete.
+		 */
+		final K key;
+
+		/**
+		 * Constructs a {@code Delete}.
+		 *
+		 * @param key
+		 *            the key to delete.
+		 */
+		Delete(K key) {
+			this.key = key;
+		}
+
+		@Override
+		void apply(Shard shard) {
+			shard.tree.delete(key, null);
+			shard.count(key);
+		}
+
+	}
+
+	/**
+	 * A {@code Barrier} signals that the operations before it have been applied.
+	 */
+	protected class Barrier extends Operation {
+
+		/**
+		 * Completed when this {@code Barrier} is reached.
+		 */
+		final CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+		@Override
+		void apply(Shard shard) {
+			done.complete(null);
+		}
+
+	}
+
+	/**
+	 * A {@code Sample} returns the sorted keys sampled since the previous {@code Sample} and restarts the sampling.
+	 */
+	protected class Sample extends Operation {
+
+		/**
+		 * Completed with the sampled keys.
+		 */
+		final CompletableFuture<Object[]> keys = new CompletableFuture<Object[]>();
+
+		@Override
+		void apply(Shard shard) {
+			Object[] k = Arrays.copyOf(shard.sample, (int) Math.min(shard.sampled, shard.sample.length));
+			Arrays.sort(k);
+			Arrays.fill(shard.sample, null);
+			shard.sampled = 0;
+			keys.complete(k);
+		}
+
+	}
+
+	/**
+	 * A {@code Handoff} copies the entries within a range from the source shard of a move.
+	 */
+	protected class Handoff extends Operation {
+
+		/**
+		 * The lower bound (inclusive) of the range.
+		 */
+		final K from;
+
+		/**
+		 * The upper bound (exclusive) of the range.
+		 */
+		final K to;
+
+		/**
+		 * Completed with the entries within the range.
+		 */
+		final CompletableFuture<List<Map.Entry<K, V>>> entries = new CompletableFuture<List<Map.Entry<K, V>>>();
+
+		/**
+		 * Constructs a {@code Handoff}.
+		 *
+		 * @param from
+		 *            the lower bound (inclusive) of the range.
+		 * @param to
+		 *            the upper bound (exclusive) of the range.
+		 */
+		Handoff(K from, K to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		void apply(Shard shard) {
+			List<Map.Entry<K, V>> l = new ArrayList<Map.Entry<K, V>>();
+			for (Iterator<Map.Entry<K, V>> i = shard.tree.entries(from, to); i.hasNext();)
+				l.add(i.next());
+			entries.complete(l);
+		}
+
+	}
+
+	/**
+	 * A {@code Receive} makes the target shard of a move wait for the {@code Handoff} and insert the entries.
+	 */
+	protected class Receive extends Operation {
+
+		/**
+		 * The {@code Handoff} from the source shard.
+		 */
+		final Handoff handoff;
+
+		/**
+		 * The {@code Partition} created by the move.
+		 */
+		final Partition<K> partition;
+
+		/**
+		 * Completed when the entries have been inserted.
+		 */
+		final CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+		/**
+		 * Constructs a {@code Receive}.
+		 *
+		 * @param handoff
+		 *            the {@code Handoff} from the source shard.
+		 * @param partition
+		 *            the {@code Partition} created by the move.
+		 */
+		Receive(Handoff handoff, Partition<K> partition) {
+			this.handoff = handoff;
+			this.partition = partition;
+		}
+
+		@Override
+		void apply(Shard shard) {
+			for (Map.Entry<K, V> e : handoff.entries.join())
+				shard.tree.insert(e.getKey(), e.getValue());
+			partition.received = true;
+			done.complete(null);
+		}
+
+	}
+
+	/**
+	 * A {@code Cleanup} deletes the entries that the source shard of a move has handed over, each by its key and value
+	 * so that exactly the copies handed over are deleted.
+	 */
+	protected class Cleanup extends Operation {
+
+		/**
+		 * The entries handed over.
+		 */
+		final List<Map.Entry<K, V>> entries;
+
+		/**
+		 * Constructs a {@code Cleanup}.
+		 *
+		 * @param entries
+		 *            the entries handed over.
+		 */
+		Cleanup(List<Map.Entry<K, V>> entries) {
+			this.entries = entries;
+		}
+
+		@Override
+		void apply(Shard shard) {
+			for (Map.Entry<K, V> e : entries)
+				shard.tree.remove(e.getKey(), e.getValue());
+		}
+
+	}
+
+	/**
+	 * A {@code Merge} merges ordered {@code Iterator}s over disjoint shards. While a range is being handed over, the
+	 * same entries may come from two shards, and the target shard may hold only some of the copies of a key. The
+	 * {@code Iterator} over the source shard is therefore given first: the copies of a key are returned from the first
+	 * {@code Iterator} that has the key, and those from the other {@code Iterator}s are skipped.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	protected static class Merge<K extends Comparable<K>, V> implements Iterator<Map.Entry<K, V>> {
+
+		/**
+		 * The next entry of each {@code Iterator} that has one, ordered by key and then by the position of the
+		 * {@code Iterator}.
+		 */
+		final PriorityQueue<Head<K, V>> heads = new PriorityQueue<Head<K, V>>();
+
+		/**
+		 * The last entry returned.
+		 */
+		Head<K, V> last;
+
+		/**
+		 * The next entry to return; {@code null} if not determined yet.
+		 */
+		Map.Entry<K, V> next;
+
+		/**
+		 * Constructs a {@code Merge}.
+		 *
+		 * @param iterators
+		 *            the {@code Iterator}s to merge, in the order of preference for the copies of a key.
+		 */
+		Merge(List<Iterator<Map.Entry<K, V>>> iterators) {
+			for (int i = 0; i < iterators.size(); i++) {
+				Iterator<Map.Entry<K, V>> it = iterators.get(i);
+				if (it.hasNext())
+					heads.add(new Head<K, V>(it.next(), it, i));
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null && !heads.isEmpty()) {
+				Head<K, V> h = heads.poll();
+				Map.Entry<K, V> e = h.entry;
+				boolean duplicate = last != null && last.position != h.position
+						&& last.entry.getKey().compareTo(e.getKey()) == 0;
+				if (!duplicate) {
+					next = e;
+					last = new Head<K, V>(e, null, h.position);
+				}
+				if (h.iterator.hasNext())
+					heads.add(new Head<K, V>(h.iterator.next(), h.iterator, h.position));
+			}
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Map.Entry<K, V> e = next;
+			next = null;
+			return e;
+		}
+
+	}
+
+	/**
+	 * A {@code Head} is the next entry of an {@code Iterator} being merged.
+	 *
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	protected static class Head<K extends Comparable<K>, V> implements Comparable<Head<K, V>> {
+
+		/**
+		 * The entry.
+		 */
+		final Map.Entry<K, V> entry;
+
+		/**
+		 * The {@code Iterator} that returned the entry.
+		 */
+		final Iterator<Map.Entry<K, V>> iterator;
+
+		/**
+		 * The position of the {@code Iterator} among those merged.
+		 */
+		final int position;
+
+		/**
+		 * Constructs a {@code Head}.
+		 *
+		 * @param entry
+		 *            the entry.
+		 * @param iterator
+		 *            the {@code Iterator} that returned the entry.
+		 * @param position
+		 *            the position of the {@code Iterator} among those merged.
+		 */
+		Head(Map.Entry<K, V> entry, Iterator<Map.Entry<K, V>> iterator, int position) {
+			this.entry = entry;
+			this.iterator = iterator;
+			this.position = position;
+		}
+
+		@Override
+		public int compareTo(Head<K, V> other) {
+			int c = entry.getKey().compareTo(other.entry.getKey());
+			return c != 0 ? c : Integer.compare(position, other.position);
+		}
+
+	}
+
+}
@@ -0,0 +1,295 @@
+package bptree;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The {@code TreeEvents} class defines the Java Flight Recorder events emitted by {@code BPlusTree}s: splits, root
+ * growth, merges and redistributions of {@code Node}s, and operations that take longer than a threshold. The
+ * structural events carry the height of the {@code Node} (0 for {@code LeafNode}s), the degree of the tree, the
+ * occupancy of the {@code Node}s involved and the range of their keys, so latency spikes can be lined up with split
+ * cascades in JDK Mission Control.
+ *
+ * When no recording is running, an event is not committed and its fields, including the key strings, are never
+ * computed. The threshold of {@link Operation} defaults to 10 ms and can be changed like that of any JFR event, e.g.,
+ * with {@code jfr configure +bptree.Operation#threshold=1ms} or {@code Recording.enable("bptree.Operation")}.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public final class TreeEvents {
+
+	/**
+	 * Prevents instantiation.
+	 */
+	private TreeEvents() {
+	}
+
+	/**
+	 * An event recording the split of a {@code Node}.
+	 */
+	@Name("bptree.Split")
+	@Label("Node Split")
+	@Category("B+ Tree")
+	@Description("A node split into two")
+	@StackTrace(false)
+	public static class Split extends Event {
+
+		@Label("Height")
+		int height;
+
+		@Label("Degree")
+		int degree;
+
+		@Label("Keys")
+		@Description("The number of keys left in the split node")
+		int keys;
+
+		@Label("Sibling Keys")
+		@Description("The number of keys moved to the new sibling")
+		int siblingKeys;
+
+		@Label("Low Key")
+		String lowKey;
+
+		@Label("High Key")
+		String highKey;
+	}
+
+	/**
+	 * An event recording the growth of a tree by a new root.
+	 */
+	@Name("bptree.RootGrowth")
+	@Label("Root Growth")
+	@Category("B+ Tree")
+	@Description("A new root was added above the split root")
+	@StackTrace(false)
+	public static class RootGrowth extends Event {
+
+		@Label("Height")
+		@Description("The height of the new root")
+		int height;
+
+		@Label("Degree")
+		int degree;
+
+		@Label("Separator")
+		String separator;
+	}
+
+	/**
+	 * An event recording the merge of two sibling {@code Node}s.
+	 */
+	@Name("bptree.Merge")
+	@Label("Node Merge")
+	@Category("B+ Tree")
+	@Description("An underfull node merged with a sibling")
+	@StackTrace(false)
+	public static class Merge extends Event {
+
+		@Label("Height")
+		int height;
+
+		@Label("Degree")
+		int degree;
+
+		@Label("Keys")
+		@Description("The number of keys in the merged node")
+		int keys;
+
+		@Label("Low Key")
+		String lowKey;
+
+		@Label("High Key")
+		String highKey;
+	}
+
+	/**
+	 * An event recording the redistribution of keys from a sibling to an underfull {@code Node}.
+	 */
+	@Name("bptree.Redistribution")
+	@Label("Node Redistribution")
+	@Category("B+ Tree")
+	@Description("An underfull node borrowed keys from a sibling")
+	@StackTrace(false)
+	public static class Redistribution extends Event {
+
+		@Label("Height")
+		int height;
+
+		@Label("Degree")
+		int degree;
+
+		@Label("Keys")
+		@Description("The number of keys in the underfull node after borrowing")
+		int keys;
+
+		@Label("Sibling Keys")
+		@Description("The number of keys left in the lending sibling")
+		int siblingKeys;
+
+		@Label("Low Key")
+		String lowKey;
+
+		@Label("High Key")
+		String highKey;
+	}
+
+	/**
+	 * An event recording an operation that took longer than the threshold.
+	 */
+	@Name("bptree.Operation")
+	@Label("Slow Operation")
+	@Category("B+ Tree")
+	@Description("A tree operation that exceeded the threshold")
+	@Threshold("10 ms")
+	public static class Operation extends Event {
+
+		@Label("Operation")
+		String operation;
+
+		@Label("Degree")
+		int degree;
+
+		@Label("Key")
+		@Description("The key of a single-key operation")
+		String key;
+
+		@Label("Count")
+		@Description("The number of keys or entries of a batch operation")
+		int count;
+	}
+
+	/**
+	 * Starts timing an operation.
+	 *
+	 * @return an {@code Operation} event to pass to {@link #end(Operation, TreeMetrics.Operation, int, Object, int)}.
+	 */
+	static Operation begin() {
+		Operation event = new Operation();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Commits the specified {@code Operation} event if it took longer than the threshold.
+	 *
+	 * @param event
+	 *            the event returned by {@link #begin()}.
+	 * @param operation
+	 *            the type of the operation.
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param key
+	 *            the key of a single-key operation; {@code null} for a batch operation.
+	 * @param count
+	 *            the number of keys or entries of a batch operation; 1 for a single-key operation.
+	 */
+	static void end(Operation event, TreeMetrics.Operation operation, int degree, Object key, int count) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation.name();
+			event.degree = degree;
+			event.key = key == null ? null : key.toString();
+			event.count = count;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Emits a {@link Split} event.
+	 *
+	 * @param height
+	 *            the height of the split {@code Node}.
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param node
+	 *            the split {@code Node}.
+	 * @param sibling
+	 *            the new sibling.
+	 */
+	static void split(int height, int degree, Node<?> node, Node<?> sibling) {
+		Split event = new Split();
+		if (event.shouldCommit()) {
+			event.height = height;
+			event.degree = degree;
+			event.keys = node.numberOfKeys;
+			event.siblingKeys = sibling.numberOfKeys;
+			event.lowKey = String.valueOf(node.keys[0]);
+			event.highKey = String.valueOf(sibling.keys[sibling.numberOfKeys - 1]);
+			event.commit();
+		}
+	}
+
+	/**
+	 * Emits a {@link RootGrowth} event.
+	 *
+	 * @param height
+	 *            the height of the new root.
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param separator
+	 *            the only key of the new root.
+	 */
+	static void rootGrown(int height, int degree, Object separator) {
+		RootGrowth event = new RootGrowth();
+		if (event.shouldCommit()) {
+			event.height = height;
+			event.degree = degree;
+			event.separator = String.valueOf(separator);
+			event.commit();
+		}
+	}
+
+	/**
+	 * Emits a {@link Merge} event.
+	 *
+	 * @param height
+	 *            the height of the merged {@code Node}.
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param node
+	 *            the merged {@code Node}.
+	 */
+	static void merged(int height, int degree, Node<?> node) {
+		Merge event = new Merge();
+		if (event.shouldCommit()) {
+			event.height = height;
+			event.degree = degree;
+			event.keys = node.numberOfKeys;
+			event.lowKey = node.numberOfKeys == 0 ? null : String.valueOf(node.keys[0]);
+			event.highKey = node.numberOfKeys == 0 ? null : String.valueOf(node.keys[node.numberOfKeys - 1]);
+			event.commit();
+		}
+	}
+
+	/**
+	 * Emits a {@link Redistribution} event.
+	 *
+	 * @param height
+	 *            the height of the underfull {@code Node}.
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param node
+	 *            the underfull {@code Node}.
+	 * @param sibling
+	 *            the lending sibling.
+	 */
+	static void redistributed(int height, int degree, Node<?> node, Node<?> sibling) {
+		Redistribution event = new Redistribution();
+		if (event.shouldCommit()) {
+			event.height = height;
+			event.degree = degree;
+			event.keys = node.numberOfKeys;
+			event.siblingKeys = sibling.numberOfKeys;
+			event.lowKey = node.numberOfKeys == 0 ? null : String.valueOf(node.keys[0]);
+			event.highKey = node.numberOfKeys == 0 ? null : String.valueOf(node.keys[node.numberOfKeys - 1]);
+			event.commit();
+		}
+	}
+
+}
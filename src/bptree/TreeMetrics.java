@@ -0,0 +1,396 @@
+package bptree;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code TreeMetrics} class collects counters about the internals of {@code BPlusTree}s: the {@code Node}s visited
+ * and the keys compared by searches, the splits, borrows and merges at each height (0 being the {@code LeafNode}s),
+ * the walks of {@link BPlusTree#findParent(Node)}, the entries shifted to make room for insertions, and a latency
+ * histogram for each type of operation. The counters are {@code LongAdder}s shared by all trees, so updating them from
+ * many threads does not contend.
+ *
+ * Collection is off unless the JVM is started with {@code -Dbptree.metrics=true}. Every hook is guarded by
+ * {@link #ENABLED}, a {@code static final} constant, so when it is off the JIT removes the hooks together with the
+ * code computing their arguments, and the instrumentation can stay compiled into production builds.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public final class TreeMetrics {
+
+	/**
+	 * A flag indicating whether or not metrics are collected, read once from the {@code bptree.metrics} system
+	 * property.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("bptree.metrics");
+
+	/**
+	 * The number of heights tracked; events at greater heights are counted at the last one.
+	 */
+	public static final int HEIGHTS = 16;
+
+	/**
+	 * The number of buckets in each latency histogram. Bucket b counts latencies of less than 2^b nanoseconds that are
+	 * not counted by bucket b - 1.
+	 */
+	public static final int BUCKETS = 40;
+
+	/**
+	 * The types of operations whose latencies are recorded.
+	 */
+	public enum Operation {
+		GET, INSERT, REMOVE, GET_ALL, INSERT_ALL, DELETE_ALL
+	}
+
+	/**
+	 * The metrics shared by all trees.
+	 */
+	static final TreeMetrics GLOBAL = new TreeMetrics();
+
+	/**
+	 * The number of {@code Node}s visited by descents from the root.
+	 */
+	final LongAdder nodeVisits = new LongAdder();
+
+	/**
+	 * The number of key comparisons made by {@code KeySearch}es.
+	 */
+	final LongAdder comparisons = new LongAdder();
+
+	/**
+	 * The number of splits at each height.
+	 */
+	final LongAdder[] splits = adders(HEIGHTS);
+
+	/**
+	 * The number of borrows at each height.
+	 */
+	final LongAdder[] borrows = adders(HEIGHTS);
+
+	/**
+	 * The number of merges at each height.
+	 */
+	final LongAdder[] merges = adders(HEIGHTS);
+
+	/**
+	 * The number of walks from the root to find a parent.
+	 */
+	final LongAdder parentSearches = new LongAdder();
+
+	/**
+	 * The number of {@code Node}s visited by the walks to find a parent.
+	 */
+	final LongAdder parentSearchSteps = new LongAdder();
+
+	/**
+	 * The number of insertions into the middle of a {@code Node}.
+	 */
+	final LongAdder shifts = new LongAdder();
+
+	/**
+	 * The number of entries shifted by insertions into {@code Node}s.
+	 */
+	final LongAdder shiftedEntries = new LongAdder();
+
+	/**
+	 * The latency histogram of each type of operation.
+	 */
+	final LongAdder[][] latencies = new LongAdder[Operation.values().length][];
+
+	/**
+	 * Constructs a {@code TreeMetrics}.
+	 */
+	TreeMetrics() {
+		for (int i = 0; i < latencies.length; i++)
+			latencies[i] = adders(BUCKETS);
+	}
+
+	/**
+	 * Returns the metrics shared by all trees. They stay at zero unless {@link #ENABLED} is set.
+	 *
+	 * @return the metrics shared by all trees.
+	 */
+	public static TreeMetrics global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Creates an array of {@code LongAdder}s.
+	 *
+	 * @param n
+	 *            the length of the array.
+	 * @return an array of {@code n} {@code LongAdder}s.
+	 */
+	static LongAdder[] adders(int n) {
+		LongAdder[] adders = new LongAdder[n];
+		for (int i = 0; i < n; i++)
+			adders[i] = new LongAdder();
+		return adders;
+	}
+
+	/**
+	 * Records that a descent visited the specified number of {@code Node}s.
+	 *
+	 * @param nodes
+	 *            the number of {@code Node}s visited.
+	 */
+	static void visited(int nodes) {
+		GLOBAL.nodeVisits.add(nodes);
+	}
+
+	/**
+	 * Records that a {@code KeySearch} made the specified number of comparisons.
+	 *
+	 * @param count
+	 *            the number of comparisons.
+	 */
+	static void compared(int count) {
+		GLOBAL.comparisons.add(count);
+	}
+
+	/**
+	 * Records a split of a {@code Node} at the specified height.
+	 *
+	 * @param height
+	 *            the height of the {@code Node} split.
+	 */
+	static void split(int height) {
+		GLOBAL.splits[Math.min(height, HEIGHTS - 1)].increment();
+	}
+
+	/**
+	 * Records a borrow by an underfull {@code Node} at the specified height.
+	 *
+	 * @param height
+	 *            the height of the underfull {@code Node}.
+	 */
+	static void borrowed(int height) {
+		GLOBAL.borrows[Math.min(height, HEIGHTS - 1)].increment();
+	}
+
+	/**
+	 * Records a merge of two {@code Node}s at the specified height.
+	 *
+	 * @param height
+	 *            the height of the {@code Node}s merged.
+	 */
+	static void merged(int height) {
+		GLOBAL.merges[Math.min(height, HEIGHTS - 1)].increment();
+	}
+
+	/**
+	 * Records a walk from the root to find a parent.
+	 *
+	 * @param steps
+	 *            the number of {@code Node}s visited.
+	 */
+	static void parentSearched(int steps) {
+		GLOBAL.parentSearches.increment();
+		GLOBAL.parentSearchSteps.add(steps);
+	}
+
+	/**
+	 * Records an insertion into a {@code Node} that shifted the specified number of entries.
+	 *
+	 * @param entries
+	 *            the number of entries shifted.
+	 */
+	static void shifted(int entries) {
+		if (entries > 0) {
+			GLOBAL.shifts.increment();
+			GLOBAL.shiftedEntries.add(entries);
+		}
+	}
+
+	/**
+	 * Records the latency of an operation of the specified type.
+	 *
+	 * @param operation
+	 *            the type of the operation.
+	 * @param start
+	 *            the {@code System.nanoTime()} at which the operation started.
+	 */
+	static void completed(Operation operation, long start) {
+		long latency = System.nanoTime() - start;
+		int bucket = 64 - Long.numberOfLeadingZeros(Math.max(latency, 0));
+		GLOBAL.latencies[operation.ordinal()][Math.min(bucket, BUCKETS - 1)].increment();
+	}
+
+	/**
+	 * Returns the number of {@code Node}s visited by descents from the root.
+	 *
+	 * @return the number of {@code Node}s visited by descents from the root.
+	 */
+	public long nodeVisits() {
+		return nodeVisits.sum();
+	}
+
+	/**
+	 * Returns the number of key comparisons made by {@code KeySearch}es.
+	 *
+	 * @return the number of key comparisons made by {@code KeySearch}es.
+	 */
+	public long comparisons() {
+		return comparisons.sum();
+	}
+
+	/**
+	 * Returns the number of splits at the specified height.
+	 *
+	 * @param height
+	 *            a height (0 for {@code LeafNode}s).
+	 * @return the number of splits at the specified height.
+	 */
+	public long splits(int height) {
+		return splits[height].sum();
+	}
+
+	/**
+	 * Returns the number of borrows by underfull {@code Node}s at the specified height.
+	 *
+	 * @param height
+	 *            a height (0 for {@code LeafNode}s).
+	 * @return the number of borrows at the specified height.
+	 */
+	public long borrows(int height) {
+		return borrows[height].sum();
+	}
+
+	/**
+	 * Returns the number of merges at the specified height.
+	 *
+	 * @param height
+	 *            a height (0 for {@code LeafNode}s).
+	 * @return the number of merges at the specified height.
+	 */
+	public long merges(int height) {
+		return merges[height].sum();
+	}
+
+	/**
+	 * Returns the number of walks from the root to find a parent.
+	 *
+	 * @return the number of walks from the root to find a parent.
+	 */
+	public long parentSearches() {
+		return parentSearches.sum();
+	}
+
+	/**
+	 * Returns the number of {@code Node}s visited by the walks to find a parent.
+	 *
+	 * @return the number of {@code Node}s visited by the walks to find a parent.
+	 */
+	public long parentSearchSteps() {
+		return parentSearchSteps.sum();
+	}
+
+	/**
+	 * Returns the number of insertions that shifted entries within a {@code Node}.
+	 *
+	 * @return the number of insertions that shifted entries within a {@code Node}.
+	 */
+	public long shifts() {
+		return shifts.sum();
+	}
+
+	/**
+	 * Returns the number of entries shifted by insertions into {@code Node}s.
+	 *
+	 * @return the number of entries shifted by insertions into {@code Node}s.
+	 */
+	public long shiftedEntries() {
+		return shiftedEntries.sum();
+	}
+
+	/**
+	 * Returns the number of completed operations of the specified type.
+	 *
+	 * @param operation
+	 *            the type of operations.
+	 * @return the number of completed operations of the specified type.
+	 */
+	public long operations(Operation operation) {
+		long count = 0;
+		for (LongAdder a : latencies[operation.ordinal()])
+			count += a.sum();
+		return count;
+	}
+
+	/**
+	 * Returns the latency histogram of the specified type of operations.
+	 *
+	 * @param operation
+	 *            the type of operations.
+	 * @return an array whose element b is the number of operations that took less than 2^b but at least 2^(b-1)
+	 *         nanoseconds.
+	 */
+	public long[] latencies(Operation operation) {
+		LongAdder[] histogram = latencies[operation.ordinal()];
+		long[] counts = new long[histogram.length];
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = histogram[i].sum();
+		return counts;
+	}
+
+	/**
+	 * Returns an upper bound on the specified percentile of the latencies of the specified type of operations.
+	 *
+	 * @param operation
+	 *            the type of operations.
+	 * @param percentile
+	 *            a percentile (0 &lt; percentile &lt;= 100).
+	 * @return the smallest power of two, in nanoseconds, that is above the specified percentile of the latencies; 0 if
+	 *         there have been no such operations.
+	 */
+	public long latency(Operation operation, double percentile) {
+		long[] counts = latencies(operation);
+		long total = 0;
+		for (long c : counts)
+			total += c;
+		long rank = (long) Math.ceil(total * percentile / 100);
+		for (int b = 0; b < counts.length; b++) {
+			rank -= counts[b];
+			if (rank <= 0 && total > 0)
+				return 1L << b;
+		}
+		return 0;
+	}
+
+	/**
+	 * Resets all the counters to zero. Operations in progress may be counted partially.
+	 */
+	public void reset() {
+		for (LongAdder a : new LongAdder[] { nodeVisits, comparisons, parentSearches, parentSearchSteps, shifts,
+				shiftedEntries })
+			a.reset();
+		for (LongAdder[] adders : new LongAdder[][] { splits, borrows, merges })
+			for (LongAdder a : adders)
+				a.reset();
+		for (LongAdder[] histogram : latencies)
+			for (LongAdder a : histogram)
+				a.reset();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("nodeVisits=").append(nodeVisits()).append(", comparisons=").append(comparisons());
+		b.append(", parentSearches=").append(parentSearches()).append(" (").append(parentSearchSteps())
+				.append(" steps)");
+		b.append(", shifts=").append(shifts()).append(" (").append(shiftedEntries()).append(" entries)");
+		for (int h = 0; h < HEIGHTS; h++) {
+			long s = splits(h), l = borrows(h), m = merges(h);
+			if (s + l + m > 0)
+				b.append(", height ").append(h).append(": splits=").append(s).append(" borrows=").append(l)
+						.append(" merges=").append(m);
+		}
+		for (Operation o : Operation.values()) {
+			long n = operations(o);
+			if (n > 0)
+				b.append(", ").append(o).append(": n=").append(n).append(" p50<").append(latency(o, 50))
+						.append("ns p99<").append(latency(o, 99)).append("ns");
+		}
+		return b.toString();
+	}
+
+}
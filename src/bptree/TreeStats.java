@@ -0,0 +1,577 @@
+package bptree;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code TreeStats} class describes the structure of a {@code BPlusTree}: its height, the number of {@code Node}s
+ * at each level, how full the {@code Node}s are, whether the chain of {@code LeafNode}s follows key order, and an
+ * estimate of the heap the tree retains, broken down into keys, values, index entries, {@code Node} headers and unused
+ * slots of the {@code keys} and {@code pointers} arrays. A {@code TreeStats} is computed by walking the whole tree (see
+ * {@link BPlusTree#stats()} and {@link BPlusTree#parallelStats()}), so it must not run concurrently with updates.
+ *
+ * The byte estimates assume the usual HotSpot layout: 4-byte references and 12-byte object headers when the maximum
+ * heap is below 32 GiB (compressed oops), 8-byte references and 16-byte headers otherwise, and 8-byte alignment.
+ * Boxed primitives and {@code String}s are sized as objects; keys and values of other types are counted as references
+ * only, as are separator keys in {@code NonLeafNode}s, which are shared with the {@code LeafNode}s.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class TreeStats {
+
+	/**
+	 * The number of buckets of the fill-factor histograms; bucket b counts the {@code Node}s whose fill factor is at
+	 * least b / {@code FILL_BUCKETS} and below (b + 1) / {@code FILL_BUCKETS} (full {@code Node}s are in the last
+	 * bucket).
+	 */
+	public static final int FILL_BUCKETS = 10;
+
+	/**
+	 * The leaf fill factor that {@link #recommendsCompaction()} compares the current one against.
+	 */
+	public static final double COMPACTION_FILL_FACTOR = 0.9;
+
+	/**
+	 * The size of a reference in bytes.
+	 */
+	static final int REFERENCE = Runtime.getRuntime().maxMemory() < (32L << 30) ? 4 : 8;
+
+	/**
+	 * The size of an object header in bytes.
+	 */
+	static final int OBJECT_HEADER = REFERENCE == 4 ? 12 : 16;
+
+	/**
+	 * The size of an array header in bytes.
+	 */
+	static final int ARRAY_HEADER = REFERENCE == 4 ? 16 : 24;
+
+	/**
+	 * The subtrees expected to have fewer {@code LeafNode}s than this are walked sequentially by
+	 * {@link BPlusTree#parallelStats()}.
+	 */
+	static final int SEQUENTIAL_LEAVES = 1 << 12;
+
+	/**
+	 * The degree of the tree.
+	 */
+	final int degree;
+
+	/**
+	 * The number of levels of the tree.
+	 */
+	int height;
+
+	/**
+	 * The number of entries.
+	 */
+	long entries;
+
+	/**
+	 * The number of {@code Node}s at each level, the root being at level 0.
+	 */
+	long[] nodes;
+
+	/**
+	 * The fill-factor histogram of the {@code LeafNode}s.
+	 */
+	final long[] leafFill = new long[FILL_BUCKETS];
+
+	/**
+	 * The fill-factor histogram of the {@code NonLeafNode}s.
+	 */
+	final long[] nonLeafFill = new long[FILL_BUCKETS];
+
+	/**
+	 * The number of {@code LeafNode}s whose successor is not the next {@code LeafNode} in key order.
+	 */
+	long chainBreaks;
+
+	/**
+	 * The number of {@code LeafNode}s from the first one reached by the walk up to the first broken link.
+	 */
+	long chainLength;
+
+	/**
+	 * A flag indicating whether or not a broken link has been found.
+	 */
+	boolean chainBroken;
+
+	/**
+	 * The first {@code LeafNode} in key order that the walk reached.
+	 */
+	LeafNode<?, ?> firstLeaf;
+
+	/**
+	 * The last {@code LeafNode} in key order that the walk reached.
+	 */
+	LeafNode<?, ?> lastLeaf;
+
+	/**
+	 * The estimated bytes of the keys in the {@code LeafNode}s, including the references to them.
+	 */
+	long keyBytes;
+
+	/**
+	 * The estimated bytes of the values, including the references to them.
+	 */
+	long valueBytes;
+
+	/**
+	 * The bytes of the separators and child pointers in the {@code NonLeafNode}s.
+	 */
+	long indexBytes;
+
+	/**
+	 * The bytes of the {@code Node} objects and the headers of their arrays, including the successor pointers.
+	 */
+	long headerBytes;
+
+	/**
+	 * The bytes of the unused slots of the {@code keys} and {@code pointers} arrays.
+	 */
+	long unusedBytes;
+
+	/**
+	 * Constructs an empty {@code TreeStats}.
+	 *
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param height
+	 *            the number of levels of the tree.
+	 */
+	TreeStats(int degree, int height) {
+		this.degree = degree;
+		this.height = height;
+		this.nodes = new long[height];
+	}
+
+	/**
+	 * Computes the {@code TreeStats} of the tree rooted at the specified {@code Node}.
+	 *
+	 * @param root
+	 *            the root of the tree; {@code null} if the tree is empty.
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param parallel
+	 *            a flag indicating whether or not the subtrees are walked in parallel in the common
+	 *            {@code ForkJoinPool}.
+	 * @return the {@code TreeStats} of the tree.
+	 */
+	static TreeStats of(Node<?> root, int degree, boolean parallel) {
+		int height = 0;
+		for (Node<?> n = root; n != null; n = n instanceof NonLeafNode ? (Node<?>) n.pointers[0] : null)
+			height++;
+		if (!parallel || small(degree, height)) {
+			TreeStats stats = new TreeStats(degree, height);
+			if (root != null)
+				stats.walk(root, 0);
+			return stats;
+		}
+		return ForkJoinPool.commonPool().invoke(new Walk(root, 0, degree, height));
+	}
+
+	/**
+	 * Returns whether or not a subtree of the specified height is expected to have fewer than
+	 * {@link #SEQUENTIAL_LEAVES} {@code LeafNode}s, assuming that {@code Node}s are about 70% full.
+	 *
+	 * @param degree
+	 *            the degree of the tree.
+	 * @param height
+	 *            the number of levels of the subtree.
+	 * @return {@code true} if the subtree is expected to be small; {@code false} otherwise.
+	 */
+	static boolean small(int degree, int height) {
+		return Math.pow(Math.max(2, 0.7 * degree), height - 1) < SEQUENTIAL_LEAVES;
+	}
+
+	/**
+	 * Adds the specified {@code Node} and its descendants to this {@code TreeStats}, in key order.
+	 *
+	 * @param n
+	 *            a {@code Node}.
+	 * @param level
+	 *            the level of the {@code Node}.
+	 */
+	void walk(Node<?> n, int level) {
+		visit(n, level);
+		if (n instanceof NonLeafNode)
+			for (int i = 0; i <= n.numberOfKeys; i++)
+				walk((Node<?>) n.pointers[i], level + 1);
+	}
+
+	/**
+	 * Adds the specified {@code Node}, but not its descendants, to this {@code TreeStats}.
+	 *
+	 * @param n
+	 *            a {@code Node}.
+	 * @param level
+	 *            the level of the {@code Node}.
+	 */
+	void visit(Node<?> n, int level) {
+		nodes[level]++;
+		int capacity = n.keys.length;
+		int used = n.numberOfKeys;
+		long[] fill = n instanceof LeafNode ? leafFill : nonLeafFill;
+		fill[Math.min(used * FILL_BUCKETS / Math.max(capacity, 1), FILL_BUCKETS - 1)]++;
+		headerBytes += align(OBJECT_HEADER + 4 + 3 * REFERENCE + 8) // numberOfKeys, keys, pointers, search, version
+				+ align(ARRAY_HEADER + (long) n.keys.length * REFERENCE) - (long) n.keys.length * REFERENCE
+				+ align(ARRAY_HEADER + (long) n.pointers.length * REFERENCE) - (long) n.pointers.length * REFERENCE;
+		if (n instanceof LeafNode) {
+			LeafNode<?, ?> leaf = (LeafNode<?, ?>) n;
+			entries += used;
+			for (int i = 0; i < used; i++) {
+				keyBytes += REFERENCE + sizeOf(n.keys[i]);
+				valueBytes += REFERENCE + sizeOf(n.pointers[i]);
+			}
+			headerBytes += REFERENCE; // the successor pointer
+			unusedBytes += 2L * (capacity - used) * REFERENCE;
+			if (lastLeaf != null && lastLeaf.successor() != leaf) {
+				chainBreaks++;
+				chainBroken = true;
+			}
+			if (!chainBroken)
+				chainLength++;
+			if (firstLeaf == null)
+				firstLeaf = leaf;
+			lastLeaf = leaf;
+		} else {
+			indexBytes += (2L * used + 1) * REFERENCE;
+			unusedBytes += (2L * (capacity - used)) * REFERENCE;
+		}
+	}
+
+	/**
+	 * Adds the specified {@code TreeStats}, which covers the keys right after those of this {@code TreeStats}, to this
+	 * {@code TreeStats}.
+	 *
+	 * @param other
+	 *            the other {@code TreeStats}.
+	 */
+	void add(TreeStats other) {
+		entries += other.entries;
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] += other.nodes[i];
+		for (int i = 0; i < FILL_BUCKETS; i++) {
+			leafFill[i] += other.leafFill[i];
+			nonLeafFill[i] += other.nonLeafFill[i];
+		}
+		chainBreaks += other.chainBreaks;
+		boolean linked = lastLeaf == null || other.firstLeaf == null || lastLeaf.successor() == other.firstLeaf;
+		if (!linked)
+			chainBreaks++;
+		if (!chainBroken) {
+			if (linked)
+				chainLength += other.chainLength;
+			chainBroken = !linked || other.chainBroken;
+		}
+		if (firstLeaf == null)
+			firstLeaf = other.firstLeaf;
+		if (other.lastLeaf != null)
+			lastLeaf = other.lastLeaf;
+		keyBytes += other.keyBytes;
+		valueBytes += other.valueBytes;
+		indexBytes += other.indexBytes;
+		headerBytes += other.headerBytes;
+		unusedBytes += other.unusedBytes;
+	}
+
+	/**
+	 * The {@code Walk} class computes the {@code TreeStats} of a subtree, forking a task for each child of a
+	 * {@code NonLeafNode} unless the subtree is small.
+	 */
+	@SuppressWarnings("serial")
+	static class Walk extends RecursiveTask<TreeStats> {
+
+		/**
+		 * The root of the subtree.
+		 */
+		final Node<?> node;
+
+		/**
+		 * The level of the root of the subtree.
+		 */
+		final int level;
+
+		/**
+		 * The degree of the tree.
+		 */
+		final int degree;
+
+		/**
+		 * The number of levels of the tree.
+		 */
+		final int height;
+
+		/**
+		 * Constructs a {@code Walk}.
+		 *
+		 * @param node
+		 *            the root of the subtree.
+		 * @param level
+		 *            the level of the root of the subtree.
+		 * @param degree
+		 *            the degree of the tree.
+		 * @param height
+		 *            the number of levels of the tree.
+		 */
+		Walk(Node<?> node, int level, int degree, int height) {
+			this.node = node;
+			this.level = level;
+			this.degree = degree;
+			this.height = height;
+		}
+
+		@Override
+		protected TreeStats compute() {
+			TreeStats stats = new TreeStats(degree, height);
+			if (small(degree, height - level)) {
+				stats.walk(node, level);
+				return stats;
+			}
+			stats.visit(node, level);
+			Walk[] children = new Walk[node.numberOfKeys + 1];
+			for (int i = 0; i < children.length; i++)
+				children[i] = new Walk((Node<?>) node.pointers[i], level + 1, degree, height);
+			invokeAll(children);
+			for (Walk child : children)
+				stats.add(child.join());
+			return stats;
+		}
+	}
+
+	/**
+	 * Returns the estimated size of the specified key or value object, excluding the reference to it.
+	 *
+	 * @param o
+	 *            an object.
+	 * @return the estimated size of the specified object in bytes; 0 for {@code null} and for objects of types that
+	 *         are not sized.
+	 */
+	static long sizeOf(Object o) {
+		if (o instanceof Integer || o instanceof Float || o instanceof Short || o instanceof Character
+				|| o instanceof Byte || o instanceof Boolean)
+			return align(OBJECT_HEADER + 4);
+		if (o instanceof Long || o instanceof Double)
+			return align(OBJECT_HEADER + 8);
+		if (o instanceof String) // a String (value, hash, coder and hashIsZero) and its Latin-1 byte array
+			return align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1) + align(ARRAY_HEADER + ((String) o).length());
+		return 0;
+	}
+
+	/**
+	 * Rounds the specified size up to a multiple of 8 bytes.
+	 *
+	 * @param size
+	 *            a size in bytes.
+	 * @return the aligned size.
+	 */
+	static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * Returns the number of levels of the tree.
+	 *
+	 * @return the number of levels of the tree; 0 if the tree is empty.
+	 */
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Returns the number of entries in the tree.
+	 *
+	 * @return the number of entries in the tree.
+	 */
+	public long entries() {
+		return entries;
+	}
+
+	/**
+	 * Returns the number of {@code Node}s at the specified level.
+	 *
+	 * @param level
+	 *            a level (0 for the root, {@code height() - 1} for the {@code LeafNode}s).
+	 * @return the number of {@code Node}s at the specified level.
+	 */
+	public long nodes(int level) {
+		return nodes[level];
+	}
+
+	/**
+	 * Returns the number of {@code LeafNode}s.
+	 *
+	 * @return the number of {@code LeafNode}s.
+	 */
+	public long leaves() {
+		return height == 0 ? 0 : nodes[height - 1];
+	}
+
+	/**
+	 * Returns the fill-factor histogram of the {@code LeafNode}s.
+	 *
+	 * @return an array whose element b is the number of {@code LeafNode}s whose fill factor is at least b /
+	 *         {@link #FILL_BUCKETS} and below (b + 1) / {@link #FILL_BUCKETS}.
+	 */
+	public long[] leafFillHistogram() {
+		return leafFill.clone();
+	}
+
+	/**
+	 * Returns the fill-factor histogram of the {@code NonLeafNode}s.
+	 *
+	 * @return an array whose element b is the number of {@code NonLeafNode}s whose fill factor is at least b /
+	 *         {@link #FILL_BUCKETS} and below (b + 1) / {@link #FILL_BUCKETS}.
+	 */
+	public long[] nonLeafFillHistogram() {
+		return nonLeafFill.clone();
+	}
+
+	/**
+	 * Returns the average fill factor of the {@code LeafNode}s.
+	 *
+	 * @return the number of entries divided by the capacity of the {@code LeafNode}s; 0 if the tree is empty.
+	 */
+	public double leafFillFactor() {
+		long leaves = leaves();
+		return leaves == 0 ? 0 : (double) entries / (leaves * (degree - 1));
+	}
+
+	/**
+	 * Returns the number of {@code LeafNode}s whose successor is not the next {@code LeafNode} in key order, counting
+	 * the last {@code LeafNode} if it has a successor. The chain is intact if this is 0; {@code PersistentBPlusTree}s
+	 * do not chain their {@code LeafNode}s, so every link but the last is broken there.
+	 *
+	 * @return the number of broken links of the chain of {@code LeafNode}s.
+	 */
+	public long leafChainBreaks() {
+		return chainBreaks + (lastLeaf != null && lastLeaf.successor() != null ? 1 : 0);
+	}
+
+	/**
+	 * Returns the length of the chain of {@code LeafNode}s starting from the leftmost one.
+	 *
+	 * @return the number of {@code LeafNode}s reachable from the leftmost {@code LeafNode} through successors,
+	 *         including itself, while they follow key order.
+	 */
+	public long leafChainLength() {
+		return chainLength;
+	}
+
+	/**
+	 * Returns the estimated bytes of the keys in the {@code LeafNode}s, including the references to them.
+	 *
+	 * @return the estimated bytes of the keys.
+	 */
+	public long keyBytes() {
+		return keyBytes;
+	}
+
+	/**
+	 * Returns the estimated bytes of the values, including the references to them.
+	 *
+	 * @return the estimated bytes of the values.
+	 */
+	public long valueBytes() {
+		return valueBytes;
+	}
+
+	/**
+	 * Returns the bytes of the separators and child pointers in the {@code NonLeafNode}s.
+	 *
+	 * @return the bytes of the separators and child pointers in the {@code NonLeafNode}s.
+	 */
+	public long indexBytes() {
+		return indexBytes;
+	}
+
+	/**
+	 * Returns the bytes of the {@code Node} objects and of the headers of their arrays.
+	 *
+	 * @return the bytes of the {@code Node} objects and of the headers of their arrays.
+	 */
+	public long headerBytes() {
+		return headerBytes;
+	}
+
+	/**
+	 * Returns the bytes of the unused slots of the {@code keys} and {@code pointers} arrays.
+	 *
+	 * @return the bytes of the unused slots.
+	 */
+	public long unusedBytes() {
+		return unusedBytes;
+	}
+
+	/**
+	 * Returns the estimated bytes retained by the tree.
+	 *
+	 * @return the estimated bytes retained by the tree.
+	 */
+	public long totalBytes() {
+		return keyBytes + valueBytes + indexBytes + headerBytes + unusedBytes;
+	}
+
+	/**
+	 * Returns the estimated bytes retained by the tree per entry.
+	 *
+	 * @return the estimated bytes retained by the tree per entry; 0 if the tree is empty.
+	 */
+	public double bytesPerEntry() {
+		return entries == 0 ? 0 : (double) totalBytes() / entries;
+	}
+
+	/**
+	 * Returns the number of {@code LeafNode}s that compacting the tree to the specified fill factor would remove.
+	 *
+	 * @param fillFactor
+	 *            the target fill factor of the {@code LeafNode}s (0 &lt; fillFactor &lt;= 1).
+	 * @return the number of {@code LeafNode}s that compacting the tree would remove; 0 if none.
+	 */
+	public long reclaimableLeaves(double fillFactor) {
+		long perLeaf = Math.max(1, (long) ((degree - 1) * fillFactor));
+		return Math.max(0, leaves() - (entries + perLeaf - 1) / perLeaf);
+	}
+
+	/**
+	 * Returns whether or not compacting the tree is worthwhile, i.e., whether compacting it to
+	 * {@link #COMPACTION_FILL_FACTOR} would remove at least a quarter of the {@code LeafNode}s.
+	 *
+	 * @return {@code true} if compacting the tree is worthwhile; {@code false} otherwise.
+	 */
+	public boolean recommendsCompaction() {
+		return reclaimableLeaves(COMPACTION_FILL_FACTOR) * 4 >= leaves() && leaves() > 1;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("height=").append(height).append(", entries=").append(entries).append(", nodes per level=")
+				.append(java.util.Arrays.toString(nodes));
+		b.append(String.format(", leaf fill=%.2f", leafFillFactor())).append(' ')
+				.append(java.util.Arrays.toString(leafFill));
+		b.append(", non-leaf fill=").append(java.util.Arrays.toString(nonLeafFill));
+		b.append(", leaf chain=").append(leafChainLength()).append(" (").append(leafChainBreaks())
+				.append(" breaks)");
+		b.append(String.format(", bytes/entry=%.1f (keys %.1f, values %.1f, index %.1f, headers %.1f, unused %.1f)",
+				bytesPerEntry(), perEntry(keyBytes), perEntry(valueBytes), perEntry(indexBytes),
+				perEntry(headerBytes), perEntry(unusedBytes)));
+		if (recommendsCompaction())
+			b.append(", compaction recommended (").append(reclaimableLeaves(COMPACTION_FILL_FACTOR))
+					.append(" leaves reclaimable)");
+		return b.toString();
+	}
+
+	/**
+	 * Returns the specified number of bytes per entry.
+	 *
+	 * @param bytes
+	 *            a number of bytes.
+	 * @return the specified number of bytes divided by the number of entries; 0 if the tree is empty.
+	 */
+	double perEntry(long bytes) {
+		return entries == 0 ? 0 : (double) bytes / entries;
+	}
+
+}
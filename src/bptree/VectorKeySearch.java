@@ -0,0 +1,157 @@
+package bptree;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@code VectorKeySearch} class searches sorted {@code int} and {@code long} keys with SIMD comparisons from the
+ * {@code jdk.incubator.vector} module: a whole vector of keys is compared against the search key at once and the
+ * number of smaller keys is counted. If the JVM was not started with {@code --add-modules jdk.incubator.vector}, the
+ * searches fall back to scalar loops.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public final class VectorKeySearch {
+
+	/**
+	 * A flag indicating whether or not the Vector API can be used.
+	 */
+	static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private VectorKeySearch() {
+	}
+
+	/**
+	 * Determines whether or not the searches are vectorized.
+	 * 
+	 * @return {@code true} if the Vector API is available; {@code false} otherwise.
+	 */
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	/**
+	 * Returns the first index i such that keys[i] >= the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] >= the given key; n if there is no such i.
+	 */
+	public static int lowerBound(long[] keys, int n, long key) {
+		if (AVAILABLE)
+			return Kernels.count(keys, n, key, false);
+		int i = 0;
+		while (i < n && keys[i] < key)
+			i++;
+		return i;
+	}
+
+	/**
+	 * Returns the first index i such that keys[i] > the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] > the given key; n if there is no such i.
+	 */
+	public static int upperBound(long[] keys, int n, long key) {
+		if (AVAILABLE)
+			return Kernels.count(keys, n, key, true);
+		int i = 0;
+		while (i < n && keys[i] <= key)
+			i++;
+		return i;
+	}
+
+	/**
+	 * Returns the first index i such that keys[i] >= the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] >= the given key; n if there is no such i.
+	 */
+	public static int lowerBound(int[] keys, int n, int key) {
+		if (AVAILABLE)
+			return Kernels.count(keys, n, key, false);
+		int i = 0;
+		while (i < n && keys[i] < key)
+			i++;
+		return i;
+	}
+
+	/**
+	 * Returns the first index i such that keys[i] > the given key.
+	 * 
+	 * @param keys
+	 *            the sorted keys.
+	 * @param n
+	 *            the number of keys to search.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that keys[i] > the given key; n if there is no such i.
+	 */
+	public static int upperBound(int[] keys, int n, int key) {
+		if (AVAILABLE)
+			return Kernels.count(keys, n, key, true);
+		int i = 0;
+		while (i < n && keys[i] <= key)
+			i++;
+		return i;
+	}
+
+	/**
+	 * The vectorized searches. This class is only loaded if the Vector API is available.
+	 */
+	static final class Kernels {
+
+		static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+		static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+		/**
+		 * Counts the leading keys that are smaller than (or, if {@code inclusive}, equal to) the given key.
+		 */
+		static int count(long[] keys, int n, long key, boolean inclusive) {
+			VectorOperators.Comparison op = inclusive ? VectorOperators.LE : VectorOperators.LT;
+			int i = 0;
+			for (int bound = LONGS.loopBound(n); i < bound; i += LONGS.length()) {
+				int c = LongVector.fromArray(LONGS, keys, i).compare(op, key).trueCount();
+				if (c < LONGS.length()) // the remaining keys are all larger since the keys are sorted
+					return i + c;
+			}
+			while (i < n && (inclusive ? keys[i] <= key : keys[i] < key))
+				i++;
+			return i;
+		}
+
+		/**
+		 * Counts the leading keys that are smaller than (or, if {@code inclusive}, equal to) the given key.
+		 */
+		static int count(int[] keys, int n, int key, boolean inclusive) {
+			VectorOperators.Comparison op = inclusive ? VectorOperators.LE : VectorOperators.LT;
+			int i = 0;
+			for (int bound = INTS.loopBound(n); i < bound; i += INTS.length()) {
+				int c = IntVector.fromArray(INTS, keys, i).compare(op, key).trueCount();
+				if (c < INTS.length()) // the remaining keys are all larger since the keys are sorted
+					return i + c;
+			}
+			while (i < n && (inclusive ? keys[i] <= key : keys[i] < key))
+				i++;
+			return i;
+		}
+	}
+
+}
@@ -0,0 +1,372 @@
+package bptree.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.function.IntFunction;
+
+/**
+ * A {@code BufferPool} caches the pages of a {@code FileNodeStore} in a bounded number of frames so that a
+ * {@code PagedBPlusTree} much larger than the main memory reads only the pages that are not already cached. A page
+ * stays in its frame while pinned; when a frame is needed for another page, an {@code EvictionPolicy} chooses an
+ * unpinned frame, and the page there is written back first if it is dirty. The frames are carved from direct buffers
+ * of at most {@link OffHeapNodeStore#DEFAULT_SLAB_SIZE} bytes, as the pages of an {@code OffHeapNodeStore} are, so the
+ * capacity is not limited by the 2 GB size of a single buffer. Counters of hits, misses, evictions and write-backs
+ * help size the pool against a working set.
+ * 
+ * <pre>
+ * BufferPool pool = new BufferPool(new FileNodeStore(file, 16384), 256L &lt;&lt; 20, LruKPolicy::new);
+ * PagedBPlusTree&lt;Long, Long&gt; tree = new PagedBPlusTree&lt;Long, Long&gt;(pool, Codec.LONG, Codec.LONG);
+ * </pre>
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BufferPool implements NodeStore {
+
+	/**
+	 * The {@code FileNodeStore} whose pages are cached.
+	 */
+	protected FileNodeStore file;
+
+	/**
+	 * The {@code EvictionPolicy} of this {@code BufferPool}.
+	 */
+	protected EvictionPolicy policy;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected int pageSize;
+
+	/**
+	 * The contents of each frame.
+	 */
+	protected ByteBuffer[] buffers;
+
+	/**
+	 * The id of the page in each frame; {@link NodeStore#NIL} if the frame is empty.
+	 */
+	protected long[] ids;
+
+	/**
+	 * The number of times the page in each frame is currently pinned.
+	 */
+	protected int[] pins;
+
+	/**
+	 * A flag for each frame indicating whether or not its page has been modified since it was read.
+	 */
+	protected boolean[] dirty;
+
+	/**
+	 * The frame of each cached page.
+	 */
+	protected HashMap<Long, Integer> frames = new HashMap<Long, Integer>();
+
+	/**
+	 * The empty frames.
+	 */
+	protected int[] emptyFrames;
+
+	/**
+	 * The number of empty frames.
+	 */
+	protected int numberOfEmptyFrames;
+
+	/**
+	 * The number of pins that found their pages in this {@code BufferPool}.
+	 */
+	protected long hits;
+
+	/**
+	 * The number of pins that had to read their pages.
+	 */
+	protected long misses;
+
+	/**
+	 * The number of pages evicted.
+	 */
+	protected long evictions;
+
+	/**
+	 * The number of dirty pages written back.
+	 */
+	protected long writes;
+
+	/**
+	 * Constructs a {@code BufferPool} that uses a {@code ClockPolicy}.
+	 * 
+	 * @param file
+	 *            the {@code FileNodeStore} whose pages are cached.
+	 * @param capacity
+	 *            the capacity of this {@code BufferPool} in bytes.
+	 */
+	public BufferPool(FileNodeStore file, long capacity) {
+		this(file, capacity, ClockPolicy::new);
+	}
+
+	/**
+	 * Constructs a {@code BufferPool}.
+	 * 
+	 * @param file
+	 *            the {@code FileNodeStore} whose pages are cached.
+	 * @param capacity
+	 *            the capacity of this {@code BufferPool} in bytes; enough for at least 8 pages.
+	 * @param policy
+	 *            creates the {@code EvictionPolicy} given the number of frames (e.g., {@code ClockPolicy::new},
+	 *            {@code LruKPolicy::new} or {@code TwoQueuePolicy::new}).
+	 */
+	public BufferPool(FileNodeStore file, long capacity, IntFunction<? extends EvictionPolicy> policy) {
+		this.file = file;
+		this.pageSize = file.pageSize();
+		long n = capacity / pageSize;
+		if (n < 8 || n > Integer.MAX_VALUE - 8) // the frames are indexed by ints
+			throw new IllegalArgumentException("invalid capacity: " + capacity);
+		int frames = (int) n;
+		this.policy = policy.apply(frames);
+		this.buffers = new ByteBuffer[frames];
+		this.ids = new long[frames];
+		this.pins = new int[frames];
+		this.dirty = new boolean[frames];
+		this.emptyFrames = new int[frames];
+		int framesPerSlab = Math.max(1, OffHeapNodeStore.DEFAULT_SLAB_SIZE / pageSize);
+		ByteBuffer slab = null;
+		for (int f = 0; f < frames; f++) {
+			if (f % framesPerSlab == 0) // the last slab is only as large as needed
+				slab = ByteBuffer.allocateDirect(Math.min(framesPerSlab, frames - f) * pageSize);
+			buffers[f] = slab.slice(f % framesPerSlab * pageSize, pageSize).order(ByteOrder.LITTLE_ENDIAN);
+			ids[f] = NIL;
+			emptyFrames[f] = frames - 1 - f;
+		}
+		numberOfEmptyFrames = frames;
+	}
+
+	/**
+	 * Returns the number of frames in this {@code BufferPool}.
+	 * 
+	 * @return the number of frames in this {@code BufferPool}.
+	 */
+	public int capacity() {
+		return buffers.length;
+	}
+
+	/**
+	 * Determines whether or not the page in the specified frame can be evicted.
+	 * 
+	 * @param frame
+	 *            the index of a frame.
+	 * @return {@code true} if the frame holds a page that is not pinned; {@code false} otherwise.
+	 */
+	public boolean evictable(int frame) {
+		return ids[frame] != NIL && pins[frame] == 0;
+	}
+
+	/**
+	 * Determines whether or not the specified frame holds a page of a non-leaf node.
+	 * 
+	 * @param frame
+	 *            the index of a frame.
+	 * @return {@code true} if the frame holds a page of a non-leaf node; {@code false} otherwise.
+	 */
+	public boolean isNonLeaf(int frame) {
+		return NodeLayout.isNonLeaf(buffers[frame]);
+	}
+
+	@Override
+	public int pageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public long allocate() {
+		return file.allocate();
+	}
+
+	/**
+	 * Releases the specified page, discarding its cached contents.
+	 */
+	@Override
+	public void free(long id) {
+		Integer f = frames.get(id);
+		if (f != null) {
+			if (pins[f] > 0)
+				throw new IllegalStateException("page " + id + " is pinned");
+			remove(f);
+		}
+		file.free(id);
+	}
+
+	@Override
+	public ByteBuffer pin(long id) {
+		Integer cached = frames.get(id);
+		if (cached != null) {
+			int f = cached;
+			hits++;
+			pins[f]++;
+			policy.accessed(f, id, false);
+			return buffers[f];
+		}
+		misses++;
+		int f;
+		if (numberOfEmptyFrames > 0)
+			f = emptyFrames[--numberOfEmptyFrames];
+		else {
+			f = policy.victim(this);
+			if (f < 0)
+				throw new IllegalStateException("all " + buffers.length + " frames are pinned");
+			evictions++;
+			writeBack(f);
+			remove(f);
+			numberOfEmptyFrames--; // reuse the frame just emptied
+		}
+		try {
+			file.readPage(id, buffers[f]);
+		} catch (IOException e) {
+			emptyFrames[numberOfEmptyFrames++] = f;
+			throw new UncheckedIOException(e);
+		}
+		ids[f] = id;
+		pins[f] = 1;
+		frames.put(id, f);
+		policy.accessed(f, id, true);
+		return buffers[f];
+	}
+
+	@Override
+	public void unpin(long id, boolean dirty) {
+		Integer f = frames.get(id);
+		if (f == null || pins[f] == 0)
+			throw new IllegalStateException("page " + id + " is not pinned");
+		pins[f]--;
+		this.dirty[f] |= dirty;
+	}
+
+	/**
+	 * Writes the page in the specified frame back to the file if it is dirty.
+	 * 
+	 * @param f
+	 *            the index of a frame.
+	 */
+	void writeBack(int f) {
+		if (!dirty[f])
+			return;
+		try {
+			file.writePage(ids[f], buffers[f]);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		dirty[f] = false;
+		writes++;
+	}
+
+	/**
+	 * Empties the specified frame without writing its page back.
+	 * 
+	 * @param f
+	 *            the index of a frame.
+	 */
+	void remove(int f) {
+		long id = ids[f];
+		frames.remove(id);
+		policy.removed(f, id);
+		ids[f] = NIL;
+		dirty[f] = false;
+		emptyFrames[numberOfEmptyFrames++] = f;
+	}
+
+	@Override
+	public long root() {
+		return file.root();
+	}
+
+	@Override
+	public void setRoot(long id) {
+		file.setRoot(id);
+	}
+
+	/**
+	 * Writes all dirty pages back and flushes the {@code FileNodeStore}.
+	 */
+	@Override
+	public void flush() throws IOException {
+		for (int f = 0; f < buffers.length; f++) {
+			if (ids[f] != NIL && dirty[f]) {
+				file.writePage(ids[f], buffers[f]);
+				dirty[f] = false;
+				writes++;
+			}
+		}
+		file.flush();
+	}
+
+	/**
+	 * Flushes this {@code BufferPool} and closes the {@code FileNodeStore}.
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		file.close();
+	}
+
+	/**
+	 * Returns the number of pins that found their pages in this {@code BufferPool}.
+	 * 
+	 * @return the number of pins that found their pages in this {@code BufferPool}.
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of pins that had to read their pages from the file.
+	 * 
+	 * @return the number of pins that had to read their pages from the file.
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of pages evicted.
+	 * 
+	 * @return the number of pages evicted.
+	 */
+	public long evictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the number of dirty pages written back to the file.
+	 * 
+	 * @return the number of dirty pages written back to the file.
+	 */
+	public long writes() {
+		return writes;
+	}
+
+	/**
+	 * Returns the fraction of pins that found their pages in this {@code BufferPool}.
+	 * 
+	 * @return the fraction of pins that found their pages in this {@code BufferPool}; 0 if there has been no pin.
+	 */
+	public double hitRatio() {
+		long n = hits + misses;
+		return n == 0 ? 0 : (double) hits / n;
+	}
+
+	/**
+	 * Resets the counters of this {@code BufferPool}.
+	 */
+	public void resetCounters() {
+		hits = misses = evictions = writes = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "BufferPool[frames=" + buffers.length + ", hits=" + hits + ", misses=" + misses + ", evictions="
+				+ evictions + ", writes=" + writes + "]";
+	}
+
+}
@@ -0,0 +1,76 @@
+package bptree.storage;
+
+/**
+ * A {@code ClockPolicy} approximates LRU with the CLOCK algorithm: a hand sweeps the frames and evicts the first
+ * unpinned frame whose reference count is zero, decrementing the nonzero counts it passes. The first time the hand
+ * passes a frame after an access, it sets the count of the frame to 1, or to {@link #NON_LEAF_CHANCES} if the frame
+ * holds a non-leaf node, so that such a frame survives that many more sweeps. The type of a page is checked by the
+ * hand rather than on access because a newly allocated page is initialized only after it is pinned.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ClockPolicy implements EvictionPolicy {
+
+	/**
+	 * The reference count given to frames holding non-leaf nodes.
+	 */
+	public static final int NON_LEAF_CHANCES = 3;
+
+	/**
+	 * The reference count of each frame.
+	 */
+	protected int[] references;
+
+	/**
+	 * A flag for each frame indicating whether or not it has been accessed since the hand last passed it.
+	 */
+	protected boolean[] accessed;
+
+	/**
+	 * The index of the frame that the hand points to.
+	 */
+	protected int hand;
+
+	/**
+	 * Constructs a {@code ClockPolicy}.
+	 * 
+	 * @param frames
+	 *            the number of frames.
+	 */
+	public ClockPolicy(int frames) {
+		references = new int[frames];
+		accessed = new boolean[frames];
+	}
+
+	@Override
+	public void accessed(int frame, long id, boolean loaded) {
+		accessed[frame] = true;
+	}
+
+	@Override
+	public void removed(int frame, long id) {
+		references[frame] = 0;
+		accessed[frame] = false;
+	}
+
+	@Override
+	public int victim(BufferPool pool) {
+		int n = references.length;
+		for (int i = 0; i < (NON_LEAF_CHANCES + 2) * n; i++) {
+			int f = hand;
+			hand = hand + 1 == n ? 0 : hand + 1;
+			if (!pool.evictable(f))
+				continue;
+			if (accessed[f]) {
+				accessed[f] = false;
+				references[f] = pool.isNonLeaf(f) ? NON_LEAF_CHANCES : 1;
+			}
+			if (references[f] > 0)
+				references[f]--;
+			else
+				return f;
+		}
+		return -1;
+	}
+
+}
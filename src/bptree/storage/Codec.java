@@ -0,0 +1,110 @@
+package bptree.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@code Codec} encodes values of a type into a fixed number of bytes so that they can be stored in the pages of a
+ * {@code PagedBPlusTree}. Values are read and written at absolute offsets, so the position of the buffer is never
+ * changed.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <T>
+ *            the type of values
+ */
+public interface Codec<T> {
+
+	/**
+	 * A {@code Codec} for {@code Long}s.
+	 */
+	Codec<Long> LONG = new Codec<Long>() {
+
+		@Override
+		public int width() {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void write(ByteBuffer buffer, int offset, Long value) {
+			buffer.putLong(offset, value);
+		}
+
+		@Override
+		public Long read(ByteBuffer buffer, int offset) {
+			return buffer.getLong(offset);
+		}
+	};
+
+	/**
+	 * A {@code Codec} for {@code Integer}s.
+	 */
+	Codec<Integer> INTEGER = new Codec<Integer>() {
+
+		@Override
+		public int width() {
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void write(ByteBuffer buffer, int offset, Integer value) {
+			buffer.putInt(offset, value);
+		}
+
+		@Override
+		public Integer read(ByteBuffer buffer, int offset) {
+			return buffer.getInt(offset);
+		}
+	};
+
+	/**
+	 * A {@code Codec} for {@code Double}s.
+	 */
+	Codec<Double> DOUBLE = new Codec<Double>() {
+
+		@Override
+		public int width() {
+			return Double.BYTES;
+		}
+
+		@Override
+		public void write(ByteBuffer buffer, int offset, Double value) {
+			buffer.putDouble(offset, value);
+		}
+
+		@Override
+		public Double read(ByteBuffer buffer, int offset) {
+			return buffer.getDouble(offset);
+		}
+	};
+
+	/**
+	 * Returns the number of bytes that each encoded value occupies.
+	 * 
+	 * @return the number of bytes that each encoded value occupies.
+	 */
+	int width();
+
+	/**
+	 * Encodes the specified value at the specified offset of the specified buffer.
+	 * 
+	 * @param buffer
+	 *            a buffer.
+	 * @param offset
+	 *            the offset in the buffer.
+	 * @param value
+	 *            the value to encode (not {@code null}).
+	 */
+	void write(ByteBuffer buffer, int offset, T value);
+
+	/**
+	 * Decodes the value at the specified offset of the specified buffer.
+	 * 
+	 * @param buffer
+	 *            a buffer.
+	 * @param offset
+	 *            the offset in the buffer.
+	 * @return the decoded value.
+	 */
+	T read(ByteBuffer buffer, int offset);
+
+}
@@ -0,0 +1,397 @@
+package bptree.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+import bptree.BPlusTree;
+import bptree.Cursor;
+
+/**
+ * A {@code DurableBPlusTree} makes an in-memory {@code BPlusTree} survive crashes. Every insertion and deletion is
+ * applied to the tree and appended to a {@code WriteAheadLog} in the same order, and the caller returns once the log
+ * record is durable according to the {@link WriteAheadLog.Durability} mode. {@link #checkpoint()} writes all entries
+ * of the tree to a checkpoint file and restarts the log, and opening a {@code DurableBPlusTree} recovers the tree by
+ * bulk loading the last checkpoint and replaying the log records that follow it. All operations may be called
+ * concurrently; updates are serialized, but their commits are not, so that {@link WriteAheadLog.Durability#GROUP}
+ * can batch them.
+ * 
+ * <pre>
+ * checkpoint: | magic (8) | LSN (8) | number of entries (8) | key, value ... | CRC32 of the entries (4) |
+ * </pre>
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class DurableBPlusTree<K extends Comparable<K>, V> implements Closeable {
+
+	/**
+	 * The name of the log file.
+	 */
+	public static final String LOG = "wal";
+
+	/**
+	 * The name of the checkpoint file.
+	 */
+	public static final String CHECKPOINT = "checkpoint";
+
+	/**
+	 * The number that identifies checkpoint files.
+	 */
+	static final long MAGIC = 0x4250545245454350L; // "BPTREECP"
+
+	/**
+	 * The size of the header of checkpoint files.
+	 */
+	static final int HEADER = 24;
+
+	/**
+	 * The fill factor of the {@code Node}s bulk loaded from a checkpoint, leaving room for later insertions.
+	 */
+	static final double FILL_FACTOR = 0.75;
+
+	/**
+	 * The directory containing the log and checkpoint files.
+	 */
+	protected Path directory;
+
+	/**
+	 * The tree.
+	 */
+	protected BPlusTree<K, V> tree;
+
+	/**
+	 * The log.
+	 */
+	protected WriteAheadLog<K, V> log;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for values.
+	 */
+	protected Codec<V> valueCodec;
+
+	/**
+	 * Opens the {@code DurableBPlusTree} in the specified directory, recovering its contents from the files there.
+	 * 
+	 * @param directory
+	 *            the directory containing the log and checkpoint files; created if it does not exist.
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of the tree can have.
+	 * @param keyCodec
+	 *            the {@code Codec} for keys.
+	 * @param valueCodec
+	 *            the {@code Codec} for values.
+	 * @param durability
+	 *            the durability mode of the log.
+	 * @throws IOException
+	 *             if an I/O error occurs or a file is corrupt.
+	 */
+	public DurableBPlusTree(Path directory, int degree, Codec<K> keyCodec, Codec<V> valueCodec,
+			WriteAheadLog.Durability durability) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.tree = new BPlusTree<K, V>(degree);
+		long lsn = Long.MIN_VALUE;
+		Path checkpoint = directory.resolve(CHECKPOINT);
+		if (Files.exists(checkpoint)) {
+			try (CheckpointReader reader = new CheckpointReader(checkpoint)) {
+				lsn = reader.lsn;
+				tree.bulkLoad(reader, FILL_FACTOR);
+				reader.verify();
+			}
+		}
+		log = new WriteAheadLog<K, V>(directory.resolve(LOG), keyCodec, valueCodec, durability);
+		log.replay(lsn, (type, key, value) -> {
+			if (type == WriteAheadLog.INSERT)
+				tree.insert(key, value);
+			else
+				tree.delete(key, value);
+		});
+	}
+
+	/**
+	 * Returns the {@code WriteAheadLog} of this {@code DurableBPlusTree}.
+	 * 
+	 * @return the {@code WriteAheadLog} of this {@code DurableBPlusTree}.
+	 */
+	public WriteAheadLog<K, V> log() {
+		return log;
+	}
+
+	/**
+	 * Returns the underlying {@code BPlusTree}. It must not be modified directly, and reading it must be synchronized
+	 * on this {@code DurableBPlusTree} if updates may happen concurrently.
+	 * 
+	 * @return the underlying {@code BPlusTree}.
+	 */
+	public BPlusTree<K, V> tree() {
+		return tree;
+	}
+
+	/**
+	 * Returns the value associated with the specified key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the value associated with the specified key; {@code null} if there is no such key.
+	 */
+	public synchronized V get(K key) {
+		return tree.get(key);
+	}
+
+	/**
+	 * Inserts the specified key and the value and returns once the insertion is durable.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 * @throws UncheckedIOException
+	 *             if the insertion cannot be logged.
+	 */
+	public void insert(K key, V value) {
+		apply(WriteAheadLog.INSERT, key, value);
+	}
+
+	/**
+	 * Deletes the specified key and the value and returns once the deletion is durable.
+	 * 
+	 * @param key
+	 *            the key to delete.
+	 * @param value
+	 *            the value to delete.
+	 * @throws UncheckedIOException
+	 *             if the deletion cannot be logged.
+	 */
+	public void delete(K key, V value) {
+		apply(WriteAheadLog.DELETE, key, value);
+	}
+
+	/**
+	 * Applies an operation to the tree, logs it and waits for it to become durable.
+	 * 
+	 * @param type
+	 *            the type of the operation.
+	 * @param key
+	 *            the key of the operation.
+	 * @param value
+	 *            the value of the operation.
+	 */
+	void apply(byte type, K key, V value) {
+		try {
+			long lsn;
+			synchronized (this) { // the log order must match the order in which the tree is updated
+				lsn = log.append(type, key, value);
+				if (type == WriteAheadLog.INSERT)
+					tree.insert(key, value);
+				else
+					tree.delete(key, value);
+			}
+			log.commit(lsn);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes all entries of the tree to a new checkpoint file and restarts the log, so that recovery no longer needs
+	 * the records logged so far. Updates wait until the checkpoint is complete.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public synchronized void checkpoint() throws IOException {
+		long lsn = log.end();
+		Path tmp = directory.resolve(CHECKPOINT + ".tmp");
+		try (FileChannel c = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			int entrySize = keyCodec.width() + valueCodec.width();
+			ByteBuffer b = WriteAheadLog.newBuffer(Math.max(HEADER, entrySize * 4096));
+			b.putLong(MAGIC).putLong(lsn).putLong(0);
+			long count = 0;
+			CRC32 crc = new CRC32();
+			Cursor<K, V> cursor = tree.range(null, true, null, true);
+			while (cursor.next()) {
+				if (b.remaining() < entrySize)
+					write(c, b, crc);
+				keyCodec.write(b, b.position(), cursor.key());
+				valueCodec.write(b, b.position() + keyCodec.width(), cursor.value());
+				b.position(b.position() + entrySize);
+				count++;
+			}
+			write(c, b, crc);
+			b.putInt((int) crc.getValue());
+			b.flip();
+			while (b.hasRemaining())
+				c.write(b);
+			b.clear();
+			b.putLong(0, count);
+			b.limit(Long.BYTES);
+			c.write(b, 16);
+			c.force(true);
+		}
+		WriteAheadLog.replace(tmp, directory.resolve(CHECKPOINT)); // durable before the log it covers is dropped
+		log.restart();
+	}
+
+	/**
+	 * Writes the contents of the specified buffer to the specified channel, adding the entries in it to the checksum.
+	 * 
+	 * @param c
+	 *            a channel.
+	 * @param b
+	 *            a buffer; the header at its beginning, if any, is not added to the checksum.
+	 * @param crc
+	 *            the checksum of the entries.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	static void write(FileChannel c, ByteBuffer b, CRC32 crc) throws IOException {
+		int start = c.position() == 0 ? HEADER : 0;
+		crc.update(b.array(), start, b.position() - start);
+		b.flip();
+		while (b.hasRemaining())
+			c.write(b);
+		b.clear();
+	}
+
+	/**
+	 * Forces the log and closes this {@code DurableBPlusTree}.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		log.close();
+	}
+
+	/**
+	 * A {@code CheckpointReader} reads the entries of a checkpoint file in key order.
+	 */
+	class CheckpointReader implements Iterator<Map.Entry<K, V>>, Closeable {
+
+		/**
+		 * The channel to the checkpoint file.
+		 */
+		FileChannel channel;
+
+		/**
+		 * The LSN covered by the checkpoint.
+		 */
+		long lsn;
+
+		/**
+		 * The number of entries not yet read.
+		 */
+		long remaining;
+
+		/**
+		 * The entries read from the file but not yet returned.
+		 */
+		ByteBuffer buffer;
+
+		/**
+		 * The checksum of the entries read so far.
+		 */
+		CRC32 crc = new CRC32();
+
+		/**
+		 * Opens the specified checkpoint file.
+		 * 
+		 * @param file
+		 *            a checkpoint file.
+		 * @throws IOException
+		 *             if an I/O error occurs or the file is not a checkpoint file.
+		 */
+		CheckpointReader(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			int entrySize = keyCodec.width() + valueCodec.width();
+			buffer = WriteAheadLog.newBuffer(Math.max(HEADER, entrySize * 4096));
+			fill(HEADER);
+			if (buffer.getLong() != MAGIC)
+				throw new IOException("not a checkpoint file: " + file);
+			lsn = buffer.getLong();
+			remaining = buffer.getLong();
+			buffer.clear().limit(0);
+		}
+
+		/**
+		 * Reads the specified number of bytes into the buffer.
+		 * 
+		 * @param n
+		 *            the number of bytes to read.
+		 * @throws IOException
+		 *             if an I/O error occurs or the file ends early.
+		 */
+		void fill(int n) throws IOException {
+			buffer.clear().limit(n);
+			while (buffer.hasRemaining())
+				if (channel.read(buffer) < 0)
+					throw new IOException("truncated checkpoint file");
+			buffer.flip();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (remaining == 0)
+				throw new NoSuchElementException();
+			int entrySize = keyCodec.width() + valueCodec.width();
+			if (!buffer.hasRemaining()) {
+				try {
+					fill((int) Math.min(remaining, buffer.capacity() / entrySize) * entrySize);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				crc.update(buffer.array(), 0, buffer.limit());
+			}
+			int offset = buffer.position();
+			K key = keyCodec.read(buffer, offset);
+			V value = valueCodec.read(buffer, offset + keyCodec.width());
+			buffer.position(offset + entrySize);
+			remaining--;
+			return new AbstractMap.SimpleImmutableEntry<K, V>(key, value);
+		}
+
+		/**
+		 * Verifies the checksum of the entries after all of them have been read.
+		 * 
+		 * @throws IOException
+		 *             if an I/O error occurs or the checksum does not match.
+		 */
+		void verify() throws IOException {
+			fill(Integer.BYTES);
+			if (buffer.getInt() != (int) crc.getValue())
+				throw new IOException("corrupt checkpoint file");
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,43 @@
+package bptree.storage;
+
+/**
+ * An {@code EvictionPolicy} decides which page a {@code BufferPool} evicts when it needs a frame for another page.
+ * Frames are identified by their index in the {@code BufferPool}. Policies should keep the pages of non-leaf nodes
+ * longer than those of leaf nodes, because every lookup passes through the former.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public interface EvictionPolicy {
+
+	/**
+	 * Is called whenever the page in the specified frame is pinned.
+	 * 
+	 * @param frame
+	 *            the index of the frame.
+	 * @param id
+	 *            the id of the page in the frame.
+	 * @param loaded
+	 *            a flag indicating whether or not the page has just been read into the frame.
+	 */
+	void accessed(int frame, long id, boolean loaded);
+
+	/**
+	 * Is called when the page in the specified frame is evicted or freed.
+	 * 
+	 * @param frame
+	 *            the index of the frame.
+	 * @param id
+	 *            the id of the page that was in the frame.
+	 */
+	void removed(int frame, long id);
+
+	/**
+	 * Chooses the frame whose page will be evicted.
+	 * 
+	 * @param pool
+	 *            the {@code BufferPool}, which tells which frames can be evicted and which hold non-leaf nodes.
+	 * @return the index of the chosen frame; -1 if every frame is pinned.
+	 */
+	int victim(BufferPool pool);
+
+}
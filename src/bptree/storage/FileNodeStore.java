@@ -0,0 +1,332 @@
+package bptree.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * A {@code FileNodeStore} keeps pages in a single file accessed through a {@code FileChannel}, so that a
+ * {@code PagedBPlusTree} can be larger than the main memory and can be reopened without being rebuilt. Page 0 is a
+ * superblock that records the page size, the number of pages, the head of the list of free pages and the root page.
+ * A freed page is marked as free and linked to the previously freed page, and allocation reuses the most recently
+ * freed page before the file is extended.
+ * 
+ * <pre>
+ * superblock: | magic (8) | version (4) | pageSize (4) | numberOfPages (8) | freeList (8) | root (8) |
+ * free page:  | FREE (4) | unused (4) | next free page (8) |
+ * </pre>
+ * 
+ * A pinned page is read from the file into a buffer and, if modified, written back when it is unpinned for the last
+ * time; no unpinned page is cached. The superblock is written by {@link #flush()} and
+ * {@link #close()}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class FileNodeStore implements NodeStore {
+
+	/**
+	 * The number that identifies files created by {@code FileNodeStore}.
+	 */
+	public static final long MAGIC = 0x4250545245453031L; // "BPTREE01"
+
+	/**
+	 * The version of the file format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The smallest page size.
+	 */
+	public static final int MIN_PAGE_SIZE = 4 << 10;
+
+	/**
+	 * The largest page size.
+	 */
+	public static final int MAX_PAGE_SIZE = 64 << 10;
+
+	/**
+	 * The value at the beginning of a free page.
+	 */
+	static final int FREE = -1;
+
+	/**
+	 * A page pinned in memory.
+	 */
+	static class Frame {
+
+		/**
+		 * The contents of the page.
+		 */
+		ByteBuffer buffer;
+
+		/**
+		 * The number of times the page is currently pinned.
+		 */
+		int pins;
+
+		/**
+		 * A flag indicating whether or not the page has been modified since it was read.
+		 */
+		boolean dirty;
+
+	}
+
+	/**
+	 * The channel to the file.
+	 */
+	protected FileChannel channel;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected int pageSize;
+
+	/**
+	 * The number of pages in the file, including the superblock.
+	 */
+	protected long numberOfPages;
+
+	/**
+	 * The id of the most recently freed page; {@link NodeStore#NIL} if there is none.
+	 */
+	protected long freeList = NIL;
+
+	/**
+	 * The id of the root page.
+	 */
+	protected long root = NIL;
+
+	/**
+	 * The pinned pages.
+	 */
+	protected HashMap<Long, Frame> pinned = new HashMap<Long, Frame>();
+
+	/**
+	 * Opens the specified file, creating it if it does not exist.
+	 * 
+	 * @param file
+	 *            the file.
+	 * @param pageSize
+	 *            the size of each page in bytes; a power of two from {@link #MIN_PAGE_SIZE} to
+	 *            {@link #MAX_PAGE_SIZE}.
+	 * @throws IOException
+	 *             if the file cannot be opened or was created with a different page size.
+	 */
+	public FileNodeStore(Path file, int pageSize) throws IOException {
+		if (pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE || Integer.bitCount(pageSize) != 1)
+			throw new IllegalArgumentException("invalid page size: " + pageSize);
+		this.pageSize = pageSize;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		if (channel.size() == 0) { // if a new file
+			numberOfPages = 1;
+			writeSuperblock();
+		} else
+			readSuperblock();
+	}
+
+	/**
+	 * Reads the superblock.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a valid page file.
+	 */
+	protected void readSuperblock() throws IOException {
+		ByteBuffer b = newBuffer(pageSize);
+		readPage(0, b);
+		if (b.getLong(0) != MAGIC || b.getInt(8) != VERSION)
+			throw new IOException("not a page file");
+		if (b.getInt(12) != pageSize)
+			throw new IOException("page size mismatch: " + b.getInt(12) + " != " + pageSize);
+		numberOfPages = b.getLong(16);
+		freeList = b.getLong(24);
+		root = b.getLong(32);
+	}
+
+	/**
+	 * Writes the superblock.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	protected void writeSuperblock() throws IOException {
+		ByteBuffer b = newBuffer(pageSize);
+		b.putLong(0, MAGIC);
+		b.putInt(8, VERSION);
+		b.putInt(12, pageSize);
+		b.putLong(16, numberOfPages);
+		b.putLong(24, freeList);
+		b.putLong(32, root);
+		writePage(0, b);
+	}
+
+	/**
+	 * Creates a buffer in the byte order used by pages. The buffer is on the Java heap: pins, allocations and
+	 * superblock writes each create one, and direct buffers would be costly to allocate and only released by the
+	 * garbage collector.
+	 * 
+	 * @param size
+	 *            the size of the buffer.
+	 * @return a buffer in the byte order used by pages.
+	 */
+	static ByteBuffer newBuffer(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Reads the specified page from the file. Bytes beyond the end of the file are read as zeros.
+	 * 
+	 * @param id
+	 *            the id of the page.
+	 * @param buffer
+	 *            the buffer to read into.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public void readPage(long id, ByteBuffer buffer) throws IOException {
+		buffer.clear();
+		long position = id * pageSize;
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position + buffer.position());
+			if (n < 0) { // if the page has not been written yet
+				while (buffer.hasRemaining())
+					buffer.put((byte) 0);
+			}
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the specified page to the file.
+	 * 
+	 * @param id
+	 *            the id of the page.
+	 * @param buffer
+	 *            the contents of the page.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public void writePage(long id, ByteBuffer buffer) throws IOException {
+		buffer.clear();
+		long position = id * pageSize;
+		while (buffer.hasRemaining())
+			channel.write(buffer, position + buffer.position());
+		buffer.clear();
+	}
+
+	@Override
+	public int pageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns the number of pages in the file, including the superblock and free pages.
+	 * 
+	 * @return the number of pages in the file.
+	 */
+	public long numberOfPages() {
+		return numberOfPages;
+	}
+
+	@Override
+	public long allocate() {
+		try {
+			if (freeList == NIL)
+				return numberOfPages++;
+			long id = freeList;
+			ByteBuffer b = newBuffer(pageSize);
+			readPage(id, b);
+			freeList = b.getLong(8);
+			writePage(id, newBuffer(pageSize)); // the new page must be all zeros
+			return id;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void free(long id) {
+		if (pinned.containsKey(id))
+			throw new IllegalStateException("page " + id + " is pinned");
+		ByteBuffer b = newBuffer(pageSize);
+		b.putInt(0, FREE);
+		b.putLong(8, freeList);
+		try {
+			writePage(id, b);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		freeList = id;
+	}
+
+	@Override
+	public ByteBuffer pin(long id) {
+		Frame f = pinned.get(id);
+		if (f == null) {
+			f = new Frame();
+			f.buffer = newBuffer(pageSize);
+			try {
+				readPage(id, f.buffer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			pinned.put(id, f);
+		}
+		f.pins++;
+		return f.buffer;
+	}
+
+	@Override
+	public void unpin(long id, boolean dirty) {
+		Frame f = pinned.get(id);
+		if (f == null)
+			throw new IllegalStateException("page " + id + " is not pinned");
+		f.dirty |= dirty;
+		if (--f.pins > 0)
+			return;
+		pinned.remove(id);
+		if (f.dirty) {
+			try {
+				writePage(id, f.buffer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	@Override
+	public long root() {
+		return root;
+	}
+
+	@Override
+	public void setRoot(long id) {
+		root = id;
+	}
+
+	/**
+	 * Writes the superblock and forces all written pages to the storage device.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeSuperblock();
+		channel.force(false);
+	}
+
+	/**
+	 * Flushes this {@code FileNodeStore} and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		flush();
+		channel.close();
+	}
+
+}
@@ -0,0 +1,102 @@
+package bptree.storage;
+
+/**
+ * A {@code LruKPolicy} implements LRU-K (O'Neil et al., SIGMOD 1993): it evicts the page whose K-th most recent
+ * access lies furthest in the past, treating pages accessed fewer than K times as the oldest and breaking ties by the
+ * most recent access. Unlike LRU, a single scan over many leaf pages does not push out pages that are used
+ * repeatedly. Pages of non-leaf nodes are evicted only if no page of a leaf node can be. A victim is found by
+ * scanning all frames, which is cheap compared with the disk read that follows an eviction.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LruKPolicy implements EvictionPolicy {
+
+	/**
+	 * The default K.
+	 */
+	public static final int DEFAULT_K = 2;
+
+	/**
+	 * The number of accesses remembered for each frame.
+	 */
+	protected int k;
+
+	/**
+	 * The times of the last K accesses to each frame, most recent first; 0 if unknown.
+	 */
+	protected long[] history;
+
+	/**
+	 * The logical time of the last access.
+	 */
+	protected long time;
+
+	/**
+	 * Constructs a {@code LruKPolicy} with K = {@link #DEFAULT_K}.
+	 * 
+	 * @param frames
+	 *            the number of frames.
+	 */
+	public LruKPolicy(int frames) {
+		this(frames, DEFAULT_K);
+	}
+
+	/**
+	 * Constructs a {@code LruKPolicy}.
+	 * 
+	 * @param frames
+	 *            the number of frames.
+	 * @param k
+	 *            the number of accesses remembered for each frame.
+	 */
+	public LruKPolicy(int frames, int k) {
+		this.k = k;
+		this.history = new long[frames * k];
+	}
+
+	@Override
+	public void accessed(int frame, long id, boolean loaded) {
+		int base = frame * k;
+		System.arraycopy(history, base, history, base + 1, k - 1);
+		history[base] = ++time;
+	}
+
+	@Override
+	public void removed(int frame, long id) {
+		java.util.Arrays.fill(history, frame * k, frame * k + k, 0);
+	}
+
+	@Override
+	public int victim(BufferPool pool) {
+		int victim = -1;
+		boolean victimNonLeaf = true;
+		for (int f = 0; f < history.length / k; f++) {
+			if (!pool.evictable(f))
+				continue;
+			boolean nonLeaf = pool.isNonLeaf(f);
+			if (victim < 0 || (nonLeaf == victimNonLeaf ? older(f, victim) : !nonLeaf)) { // leaf nodes go first
+				victim = f;
+				victimNonLeaf = nonLeaf;
+			}
+		}
+		return victim;
+	}
+
+	/**
+	 * Determines whether or not the specified frame should be evicted before the other.
+	 * 
+	 * @param f
+	 *            the index of a frame.
+	 * @param g
+	 *            the index of another frame.
+	 * @return {@code true} if frame {@code f} has an older K-th most recent access (or, if equal, an older most recent
+	 *         access) than frame {@code g}; {@code false} otherwise.
+	 */
+	boolean older(int f, int g) {
+		long a = history[f * k + k - 1], b = history[g * k + k - 1];
+		if (a != b)
+			return a < b;
+		return history[f * k] < history[g * k];
+	}
+
+}
@@ -0,0 +1,438 @@
+package bptree.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@code MappedSnapshot} answers lookups and range queries directly against a snapshot file written by a
+ * {@code SnapshotWriter}. The file is mapped into memory with {@code FileChannel.map} in chunks of up to 1 GiB, so
+ * opening a snapshot reads only its header regardless of its size, no node is created on the heap, and the operating
+ * system pages the file in as it is used. Since the leaf pages are contiguous, a range scan reads the file
+ * sequentially. A {@code MappedSnapshot} is immutable and may be queried by many threads at once.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class MappedSnapshot<K extends Comparable<K>, V> implements Closeable {
+
+	/**
+	 * The default largest size of each mapped chunk.
+	 */
+	static final long CHUNK_SIZE = 1L << 30;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for values.
+	 */
+	protected Codec<V> valueCodec;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected int pageSize;
+
+	/**
+	 * The number of pages in each chunk.
+	 */
+	protected int pagesPerChunk;
+
+	/**
+	 * The mapped chunks of the file.
+	 */
+	protected ByteBuffer[] chunks;
+
+	/**
+	 * The number of entries.
+	 */
+	protected long size;
+
+	/**
+	 * The number of leaf pages, which are pages 1 to {@code leaves}.
+	 */
+	protected long leaves;
+
+	/**
+	 * The number of non-leaf levels.
+	 */
+	protected int height;
+
+	/**
+	 * The root page; {@link NodeStore#NIL} if the snapshot is empty.
+	 */
+	protected long root;
+
+	/**
+	 * The number of entries in each leaf page.
+	 */
+	protected int leafCapacity;
+
+	/**
+	 * The degree of the non-leaf pages.
+	 */
+	protected int degree;
+
+	/**
+	 * Opens the specified snapshot file.
+	 * 
+	 * @param file
+	 *            a snapshot file.
+	 * @param keyCodec
+	 *            the {@code Codec} for keys, which must match the one the file was written with.
+	 * @param valueCodec
+	 *            the {@code Codec} for values, which must match the one the file was written with.
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a valid snapshot file.
+	 */
+	public MappedSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+		this(file, keyCodec, valueCodec, CHUNK_SIZE);
+	}
+
+	/**
+	 * Opens the specified snapshot file, mapping it in chunks of up to the specified size.
+	 * 
+	 * @param file
+	 *            a snapshot file.
+	 * @param keyCodec
+	 *            the {@code Codec} for keys, which must match the one the file was written with.
+	 * @param valueCodec
+	 *            the {@code Codec} for values, which must match the one the file was written with.
+	 * @param chunkSize
+	 *            the largest size of each mapped chunk, which must hold at least one page.
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a valid snapshot file.
+	 */
+	MappedSnapshot(Path file, Codec<K> keyCodec, Codec<V> valueCodec, long chunkSize) throws IOException {
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = FileNodeStore.newBuffer(64);
+			while (header.hasRemaining() && channel.read(header, header.position()) >= 0)
+				;
+			if (header.getLong(0) != SnapshotWriter.MAGIC || header.getInt(8) != SnapshotWriter.VERSION)
+				throw new IOException("not a snapshot file: " + file);
+			if (header.getInt(16) != keyCodec.width() || header.getInt(20) != valueCodec.width())
+				throw new IOException("codec mismatch: " + file);
+			pageSize = header.getInt(12);
+			size = header.getLong(24);
+			leaves = header.getLong(32);
+			height = header.getInt(40);
+			root = header.getLong(48);
+			leafCapacity = SnapshotWriter.leafCapacity(pageSize, keyCodec.width(), valueCodec.width());
+			degree = SnapshotWriter.degree(pageSize, keyCodec.width());
+			if (chunkSize < pageSize)
+				throw new IllegalArgumentException("chunk size " + chunkSize + " below page size " + pageSize);
+			pagesPerChunk = (int) (chunkSize / pageSize);
+			long length = channel.size();
+			long chunkBytes = (long) pagesPerChunk * pageSize;
+			chunks = new ByteBuffer[(int) ((length + chunkBytes - 1) / chunkBytes)];
+			for (int i = 0; i < chunks.length; i++) {
+				long position = i * chunkBytes;
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(chunkBytes, length - position)).order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entries in this {@code MappedSnapshot}.
+	 * 
+	 * @return the number of entries in this {@code MappedSnapshot}.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of non-leaf levels of this {@code MappedSnapshot}.
+	 * 
+	 * @return the number of non-leaf levels of this {@code MappedSnapshot}.
+	 */
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Returns the chunk containing the specified page.
+	 * 
+	 * @param page
+	 *            a page number.
+	 * @return the chunk containing the specified page.
+	 */
+	ByteBuffer chunk(long page) {
+		return chunks[(int) (page / pagesPerChunk)];
+	}
+
+	/**
+	 * Returns the offset of the specified page in its chunk.
+	 * 
+	 * @param page
+	 *            a page number.
+	 * @return the offset of the specified page in its chunk.
+	 */
+	int offset(long page) {
+		return (int) (page % pagesPerChunk) * pageSize;
+	}
+
+	/**
+	 * Returns the number of keys in the specified page.
+	 * 
+	 * @param page
+	 *            a page number.
+	 * @return the number of keys in the specified page.
+	 */
+	int numberOfKeys(long page) {
+		return chunk(page).getInt(offset(page));
+	}
+
+	/**
+	 * Returns the i-th key in the specified page.
+	 * 
+	 * @param page
+	 *            a page number.
+	 * @param i
+	 *            the index of the key.
+	 * @return the i-th key in the specified page.
+	 */
+	K key(long page, int i) {
+		return keyCodec.read(chunk(page), offset(page) + SnapshotWriter.PAGE_HEADER + i * keyCodec.width());
+	}
+
+	/**
+	 * Returns the i-th value in the specified leaf page.
+	 * 
+	 * @param page
+	 *            a leaf page number.
+	 * @param i
+	 *            the index of the value.
+	 * @return the i-th value in the specified leaf page.
+	 */
+	V value(long page, int i) {
+		return valueCodec.read(chunk(page), offset(page) + SnapshotWriter.PAGE_HEADER + leafCapacity
+				* keyCodec.width() + i * valueCodec.width());
+	}
+
+	/**
+	 * Returns the i-th child of the specified non-leaf page.
+	 * 
+	 * @param page
+	 *            a non-leaf page number.
+	 * @param i
+	 *            the index of the child.
+	 * @return the i-th child of the specified non-leaf page.
+	 */
+	long child(long page, int i) {
+		return chunk(page).getLong(offset(page) + SnapshotWriter.PAGE_HEADER + (degree - 1) * keyCodec.width() + i
+				* Long.BYTES);
+	}
+
+	/**
+	 * Returns the first index i such that the i-th key of the specified page is greater than (or equal to) the
+	 * specified key.
+	 * 
+	 * @param page
+	 *            a page number.
+	 * @param key
+	 *            a key.
+	 * @param inclusive
+	 *            a flag indicating whether or not keys equal to the specified key are counted as greater.
+	 * @return the first index i such that the i-th key is greater than (or equal to) the specified key.
+	 */
+	int search(long page, K key, boolean inclusive) {
+		int lo = 0, hi = numberOfKeys(page);
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = key(page, mid).compareTo(key);
+			if (c < 0 || (c == 0 && !inclusive))
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Finds the leaf page that may contain the specified key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @param leftmost
+	 *            a flag indicating whether or not to move to the left child at a separator equal to the key.
+	 * @return the leaf page that may contain the specified key.
+	 */
+	long find(K key, boolean leftmost) {
+		long page = root;
+		for (int level = 0; level < height; level++)
+			page = child(page, search(page, key, leftmost));
+		return page;
+	}
+
+	/**
+	 * Returns the value associated with the specified key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the value associated with the specified key; {@code null} if there is no such key.
+	 */
+	public V get(K key) {
+		if (root == NodeStore.NIL)
+			return null;
+		long page = find(key, true);
+		int i = search(page, key, true);
+		if (i == numberOfKeys(page)) { // if the key can only be at the beginning of the successor
+			if (page == leaves)
+				return null;
+			page++;
+			i = 0;
+		}
+		return key(page, i).compareTo(key) == 0 ? value(page, i) : null;
+	}
+
+	/**
+	 * Returns a {@code Range} over the entries whose keys are within the specified range.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if unbounded.
+	 * @param fromInclusive
+	 *            a flag indicating whether or not the lower bound is inclusive.
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if unbounded.
+	 * @param toInclusive
+	 *            a flag indicating whether or not the upper bound is inclusive.
+	 * @return a {@code Range} over the entries whose keys are within the specified range.
+	 */
+	public Range range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		if (root == NodeStore.NIL || from == null) // if empty or unbounded, start at the first leaf
+			return new Range(1, 0, to, toInclusive);
+		long page = find(from, fromInclusive);
+		return new Range(page, search(page, from, fromInclusive), to, toInclusive);
+	}
+
+	/**
+	 * Releases this {@code MappedSnapshot}. The mapped chunks are unmapped once they become unreachable.
+	 */
+	@Override
+	public void close() {
+		chunks = null;
+	}
+
+	/**
+	 * A {@code Range} iterates over the entries of a {@code MappedSnapshot} in key order by reading the contiguous leaf
+	 * pages one after another.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	public class Range {
+
+		/**
+		 * The leaf page containing the current entry.
+		 */
+		protected long page;
+
+		/**
+		 * The index of the current entry in the leaf page.
+		 */
+		protected int index;
+
+		/**
+		 * The upper bound of the keys; {@code null} if unbounded.
+		 */
+		protected K to;
+
+		/**
+		 * A flag indicating whether or not the upper bound is inclusive.
+		 */
+		protected boolean toInclusive;
+
+		/**
+		 * A flag indicating whether or not {@code index} refers to an entry returned by {@link #next()}.
+		 */
+		protected boolean valid;
+
+		/**
+		 * Constructs a {@code Range}.
+		 * 
+		 * @param page
+		 *            the leaf page containing the first entry.
+		 * @param index
+		 *            the index of the first entry in the leaf page.
+		 * @param to
+		 *            the upper bound of the keys; {@code null} if unbounded.
+		 * @param toInclusive
+		 *            a flag indicating whether or not the upper bound is inclusive.
+		 */
+		protected Range(long page, int index, K to, boolean toInclusive) {
+			this.page = page;
+			this.index = index - 1;
+			this.to = to;
+			this.toInclusive = toInclusive;
+		}
+
+		/**
+		 * Moves this {@code Range} to the next entry.
+		 * 
+		 * @return {@code true} if there is a next entry; {@code false} if this {@code Range} is exhausted.
+		 */
+		public boolean next() {
+			valid = false;
+			if (page > leaves)
+				return false;
+			index++;
+			while (index >= numberOfKeys(page)) { // if past the end of the leaf
+				if (++page > leaves)
+					return false;
+				index = 0;
+			}
+			if (to != null) {
+				int c = MappedSnapshot.this.key(page, index).compareTo(to);
+				if (c > 0 || (c == 0 && !toInclusive)) { // if past the upper bound
+					page = leaves + 1;
+					return false;
+				}
+			}
+			valid = true;
+			return true;
+		}
+
+		/**
+		 * Returns the key of the current entry.
+		 * 
+		 * @return the key of the current entry.
+		 * @throws NoSuchElementException
+		 *             if there is no current entry.
+		 */
+		public K key() {
+			if (!valid)
+				throw new NoSuchElementException();
+			return MappedSnapshot.this.key(page, index);
+		}
+
+		/**
+		 * Returns the value of the current entry.
+		 * 
+		 * @return the value of the current entry.
+		 * @throws NoSuchElementException
+		 *             if there is no current entry.
+		 */
+		public V value() {
+			if (!valid)
+				throw new NoSuchElementException();
+			return MappedSnapshot.this.value(page, index);
+		}
+
+	}
+
+}
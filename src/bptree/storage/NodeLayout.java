@@ -0,0 +1,331 @@
+package bptree.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@code NodeLayout} describes how the nodes of a {@code PagedBPlusTree} are laid out in pages. Each page starts
+ * with a header holding the type of the node, its number of keys and, for leaf nodes, the id of the successor. The
+ * keys follow the header, and the child ids (in a non-leaf node) or the values (in a leaf node) follow the keys.
+ * 
+ * <pre>
+ * | type (4) | numberOfKeys (4) | successor (8) | keys (degree - 1) | children (degree) or values (degree - 1) |
+ * </pre>
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+final class NodeLayout<K extends Comparable<K>, V> {
+
+	/**
+	 * The offset of the type of the node (1 for leaf nodes and 0 for non-leaf nodes).
+	 */
+	static final int TYPE = 0;
+
+	/**
+	 * The offset of the number of keys.
+	 */
+	static final int NUMBER_OF_KEYS = 4;
+
+	/**
+	 * The offset of the id of the successor.
+	 */
+	static final int SUCCESSOR = 8;
+
+	/**
+	 * The size of the header.
+	 */
+	static final int HEADER = 16;
+
+	/**
+	 * The degree of the nodes.
+	 */
+	final int degree;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	final Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for values.
+	 */
+	final Codec<V> valueCodec;
+
+	/**
+	 * The number of bytes of each key.
+	 */
+	final int keyWidth;
+
+	/**
+	 * The number of bytes of each value.
+	 */
+	final int valueWidth;
+
+	/**
+	 * The offset of the children or the values.
+	 */
+	final int pointers;
+
+	/**
+	 * Constructs a {@code NodeLayout}.
+	 * 
+	 * @param degree
+	 *            the degree of the nodes.
+	 * @param keyCodec
+	 *            the {@code Codec} for keys.
+	 * @param valueCodec
+	 *            the {@code Codec} for values.
+	 */
+	NodeLayout(int degree, Codec<K> keyCodec, Codec<V> valueCodec) {
+		this.degree = degree;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.keyWidth = keyCodec.width();
+		this.valueWidth = valueCodec.width();
+		this.pointers = HEADER + (degree - 1) * keyWidth;
+	}
+
+	/**
+	 * Returns the number of bytes needed for a node of the specified degree.
+	 * 
+	 * @param degree
+	 *            the degree of the node.
+	 * @param keyWidth
+	 *            the number of bytes of each key.
+	 * @param valueWidth
+	 *            the number of bytes of each value.
+	 * @return the number of bytes needed for a node of the specified degree.
+	 */
+	static long pageSize(int degree, int keyWidth, int valueWidth) {
+		return HEADER + (long) (degree - 1) * keyWidth + Math.max((long) degree * Long.BYTES,
+				(long) (degree - 1) * valueWidth);
+	}
+
+	/**
+	 * Returns the largest degree of the nodes that fit in pages of the specified size.
+	 * 
+	 * @param pageSize
+	 *            the size of each page in bytes.
+	 * @param keyWidth
+	 *            the number of bytes of each key.
+	 * @param valueWidth
+	 *            the number of bytes of each value.
+	 * @return the largest degree of the nodes that fit in pages of the specified size; less than 3 if the pages are
+	 *         too small.
+	 */
+	static int maxDegree(int pageSize, int keyWidth, int valueWidth) {
+		int degree = 2;
+		while (pageSize(degree + 1, keyWidth, valueWidth) <= pageSize)
+			degree++;
+		return degree;
+	}
+
+	/**
+	 * Initializes the specified page as an empty node.
+	 * 
+	 * @param page
+	 *            a page.
+	 * @param leaf
+	 *            a flag indicating whether or not the node is a leaf node.
+	 */
+	void init(ByteBuffer page, boolean leaf) {
+		page.putInt(TYPE, leaf ? 1 : 0);
+		page.putInt(NUMBER_OF_KEYS, 0);
+		page.putLong(SUCCESSOR, NodeStore.NIL);
+	}
+
+	/**
+	 * Determines whether or not the specified page holds a non-leaf node. Unlike the other accessors, this method does
+	 * not depend on the degree or the {@code Codec}s, so it can be used by {@code NodeStore}s.
+	 * 
+	 * @param page
+	 *            a page.
+	 * @return {@code true} if the page holds a non-leaf node; {@code false} otherwise.
+	 */
+	static boolean isNonLeaf(ByteBuffer page) {
+		return page.getInt(TYPE) == 0;
+	}
+
+	/**
+	 * Determines whether or not the specified page holds a leaf node.
+	 */
+	boolean isLeaf(ByteBuffer page) {
+		return page.getInt(TYPE) == 1;
+	}
+
+	/**
+	 * Returns the number of keys in the specified page.
+	 */
+	int numberOfKeys(ByteBuffer page) {
+		return page.getInt(NUMBER_OF_KEYS);
+	}
+
+	/**
+	 * Sets the number of keys in the specified page.
+	 */
+	void setNumberOfKeys(ByteBuffer page, int n) {
+		page.putInt(NUMBER_OF_KEYS, n);
+	}
+
+	/**
+	 * Returns the id of the successor of the leaf node in the specified page.
+	 */
+	long successor(ByteBuffer page) {
+		return page.getLong(SUCCESSOR);
+	}
+
+	/**
+	 * Sets the id of the successor of the leaf node in the specified page.
+	 */
+	void setSuccessor(ByteBuffer page, long id) {
+		page.putLong(SUCCESSOR, id);
+	}
+
+	/**
+	 * Returns the i-th key in the specified page.
+	 */
+	K key(ByteBuffer page, int i) {
+		return keyCodec.read(page, HEADER + i * keyWidth);
+	}
+
+	/**
+	 * Sets the i-th key in the specified page.
+	 */
+	void setKey(ByteBuffer page, int i, K key) {
+		keyCodec.write(page, HEADER + i * keyWidth, key);
+	}
+
+	/**
+	 * Returns the id of the i-th child in the specified page.
+	 */
+	long child(ByteBuffer page, int i) {
+		return page.getLong(pointers + i * Long.BYTES);
+	}
+
+	/**
+	 * Sets the id of the i-th child in the specified page.
+	 */
+	void setChild(ByteBuffer page, int i, long id) {
+		page.putLong(pointers + i * Long.BYTES, id);
+	}
+
+	/**
+	 * Returns the i-th value in the specified page.
+	 */
+	V value(ByteBuffer page, int i) {
+		return valueCodec.read(page, pointers + i * valueWidth);
+	}
+
+	/**
+	 * Sets the i-th value in the specified page.
+	 */
+	void setValue(ByteBuffer page, int i, V value) {
+		valueCodec.write(page, pointers + i * valueWidth, value);
+	}
+
+	/**
+	 * Copies keys between pages (or within a page).
+	 * 
+	 * @param src
+	 *            the source page.
+	 * @param from
+	 *            the index of the first key to copy.
+	 * @param dst
+	 *            the destination page.
+	 * @param to
+	 *            the index in the destination of the first key copied.
+	 * @param length
+	 *            the number of keys to copy.
+	 */
+	void copyKeys(ByteBuffer src, int from, ByteBuffer dst, int to, int length) {
+		dst.put(HEADER + to * keyWidth, src, HEADER + from * keyWidth, length * keyWidth);
+	}
+
+	/**
+	 * Copies child ids between pages (or within a page).
+	 * 
+	 * @param src
+	 *            the source page.
+	 * @param from
+	 *            the index of the first child to copy.
+	 * @param dst
+	 *            the destination page.
+	 * @param to
+	 *            the index in the destination of the first child copied.
+	 * @param length
+	 *            the number of children to copy.
+	 */
+	void copyChildren(ByteBuffer src, int from, ByteBuffer dst, int to, int length) {
+		dst.put(pointers + to * Long.BYTES, src, pointers + from * Long.BYTES, length * Long.BYTES);
+	}
+
+	/**
+	 * Copies values between pages (or within a page).
+	 * 
+	 * @param src
+	 *            the source page.
+	 * @param from
+	 *            the index of the first value to copy.
+	 * @param dst
+	 *            the destination page.
+	 * @param to
+	 *            the index in the destination of the first value copied.
+	 * @param length
+	 *            the number of values to copy.
+	 */
+	void copyValues(ByteBuffer src, int from, ByteBuffer dst, int to, int length) {
+		dst.put(pointers + to * valueWidth, src, pointers + from * valueWidth, length * valueWidth);
+	}
+
+	/**
+	 * Returns the first index i such that the i-th key of the specified page is greater than or equal to the specified
+	 * key.
+	 * 
+	 * @param page
+	 *            a page.
+	 * @param n
+	 *            the number of keys in the page.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that the i-th key is greater than or equal to the specified key; n if none.
+	 */
+	int lowerBound(ByteBuffer page, int n, K key) {
+		int lo = 0, hi = n;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (key(page, mid).compareTo(key) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the first index i such that the i-th key of the specified page is greater than the specified key.
+	 * 
+	 * @param page
+	 *            a page.
+	 * @param n
+	 *            the number of keys in the page.
+	 * @param key
+	 *            a key.
+	 * @return the first index i such that the i-th key is greater than the specified key; n if none.
+	 */
+	int upperBound(ByteBuffer page, int n, K key) {
+		int lo = 0, hi = n;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (key(page, mid).compareTo(key) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+}
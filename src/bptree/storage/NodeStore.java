@@ -0,0 +1,86 @@
+package bptree.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@code NodeStore} keeps the fixed-size pages that hold the nodes of a {@code PagedBPlusTree}. Pages are addressed
+ * by id rather than by Java references. A page must be pinned to be accessed and unpinned when the access is over,
+ * so that implementations may move pages between memory and disk.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public interface NodeStore extends Closeable {
+
+	/**
+	 * The id that refers to no page.
+	 */
+	long NIL = -1;
+
+	/**
+	 * Returns the size of each page in bytes.
+	 * 
+	 * @return the size of each page in bytes.
+	 */
+	int pageSize();
+
+	/**
+	 * Allocates a page. The contents of the new page are all zeros.
+	 * 
+	 * @return the id of the new page.
+	 */
+	long allocate();
+
+	/**
+	 * Releases the specified page so that its space can be reused.
+	 * 
+	 * @param id
+	 *            the id of a page.
+	 */
+	void free(long id);
+
+	/**
+	 * Pins the specified page and returns a buffer over its contents. The buffer remains valid until the page is
+	 * unpinned as many times as it has been pinned.
+	 * 
+	 * @param id
+	 *            the id of a page.
+	 * @return a buffer whose bytes 0 to {@link #pageSize()} - 1 are the contents of the page.
+	 */
+	ByteBuffer pin(long id);
+
+	/**
+	 * Unpins the specified page.
+	 * 
+	 * @param id
+	 *            the id of a pinned page.
+	 * @param dirty
+	 *            a flag indicating whether or not the page was modified while pinned.
+	 */
+	void unpin(long id, boolean dirty);
+
+	/**
+	 * Returns the id of the root page.
+	 * 
+	 * @return the id of the root page; {@link #NIL} if there is none.
+	 */
+	long root();
+
+	/**
+	 * Sets the id of the root page.
+	 * 
+	 * @param id
+	 *            the id of the root page; {@link #NIL} if there is none.
+	 */
+	void setRoot(long id);
+
+	/**
+	 * Writes all modified pages and the root to the underlying storage, if any.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	void flush() throws IOException;
+
+}
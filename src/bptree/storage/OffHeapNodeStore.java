@@ -0,0 +1,164 @@
+package bptree.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * An {@code OffHeapNodeStore} keeps pages in direct {@code ByteBuffer}s outside the Java heap. Pages are carved from
+ * slabs of {@code pagesPerSlab} pages, so the heap holds one buffer object per slab rather than several objects per
+ * node, and the garbage collector never scans the contents of the pages. Freed pages are reused before new slabs are
+ * allocated. Pinning is free: the returned buffer is a view of the slab.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class OffHeapNodeStore implements NodeStore {
+
+	/**
+	 * The default size of each slab in bytes.
+	 */
+	public static final int DEFAULT_SLAB_SIZE = 64 << 20;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected int pageSize;
+
+	/**
+	 * The number of pages in each slab.
+	 */
+	protected int pagesPerSlab;
+
+	/**
+	 * The slabs.
+	 */
+	protected ArrayList<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+	/**
+	 * The number of pages allocated from the slabs, including freed ones.
+	 */
+	protected long allocated;
+
+	/**
+	 * The ids of the freed pages.
+	 */
+	protected long[] freePages = new long[16];
+
+	/**
+	 * The number of ids in {@code freePages}.
+	 */
+	protected int numberOfFreePages;
+
+	/**
+	 * The id of the root page.
+	 */
+	protected long root = NIL;
+
+	/**
+	 * Constructs an {@code OffHeapNodeStore} with slabs of {@link #DEFAULT_SLAB_SIZE} bytes.
+	 * 
+	 * @param pageSize
+	 *            the size of each page in bytes.
+	 */
+	public OffHeapNodeStore(int pageSize) {
+		this(pageSize, Math.max(1, DEFAULT_SLAB_SIZE / pageSize));
+	}
+
+	/**
+	 * Constructs an {@code OffHeapNodeStore}.
+	 * 
+	 * @param pageSize
+	 *            the size of each page in bytes.
+	 * @param pagesPerSlab
+	 *            the number of pages in each slab.
+	 */
+	public OffHeapNodeStore(int pageSize, int pagesPerSlab) {
+		if (pageSize <= 0 || pagesPerSlab <= 0 || (long) pageSize * pagesPerSlab > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("invalid slab: " + pagesPerSlab + " pages of " + pageSize + " bytes");
+		this.pageSize = pageSize;
+		this.pagesPerSlab = pagesPerSlab;
+	}
+
+	@Override
+	public int pageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public long allocate() {
+		if (numberOfFreePages > 0) {
+			long id = freePages[--numberOfFreePages];
+			ByteBuffer page = pin(id);
+			int i = 0;
+			for (; i + Long.BYTES <= pageSize; i += Long.BYTES)
+				page.putLong(i, 0);
+			for (; i < pageSize; i++)
+				page.put(i, (byte) 0);
+			return id;
+		}
+		if (allocated == (long) slabs.size() * pagesPerSlab)
+			slabs.add(ByteBuffer.allocateDirect(pageSize * pagesPerSlab).order(ByteOrder.LITTLE_ENDIAN));
+		return allocated++;
+	}
+
+	@Override
+	public void free(long id) {
+		if (numberOfFreePages == freePages.length)
+			freePages = java.util.Arrays.copyOf(freePages, 2 * numberOfFreePages);
+		freePages[numberOfFreePages++] = id;
+	}
+
+	@Override
+	public ByteBuffer pin(long id) {
+		ByteBuffer slab = slabs.get((int) (id / pagesPerSlab));
+		return slab.slice((int) (id % pagesPerSlab) * pageSize, pageSize).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public void unpin(long id, boolean dirty) {
+	}
+
+	@Override
+	public long root() {
+		return root;
+	}
+
+	@Override
+	public void setRoot(long id) {
+		root = id;
+	}
+
+	/**
+	 * Returns the number of pages in use.
+	 * 
+	 * @return the number of pages in use.
+	 */
+	public long numberOfPages() {
+		return allocated - numberOfFreePages;
+	}
+
+	/**
+	 * Returns the number of bytes reserved off the heap.
+	 * 
+	 * @return the number of bytes reserved off the heap.
+	 */
+	public long reservedBytes() {
+		return (long) slabs.size() * pagesPerSlab * pageSize;
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	/**
+	 * Releases all slabs. Direct buffers are reclaimed once they become unreachable.
+	 */
+	@Override
+	public void close() {
+		slabs.clear();
+		allocated = 0;
+		numberOfFreePages = 0;
+		root = NIL;
+	}
+
+}
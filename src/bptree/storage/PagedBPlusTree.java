@@ -0,0 +1,853 @@
+package bptree.storage;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * The {@code PagedBPlusTree} class implements B+-trees whose nodes are fixed-size pages kept by a {@code NodeStore}
+ * rather than {@code Node} objects on the Java heap. Nodes refer to each other by page id, and keys and values are
+ * encoded in place with {@code Codec}s, so the heap holds only this handle no matter how large the tree grows. The
+ * tree uses the same degree and split rules as {@code BPlusTree}: a full node keeps its first ceil(degree / 2)
+ * entries and moves the rest to a new sibling, and a removal that leaves a node underfull borrows from or merges with
+ * a sibling. Pages emptied by merges are returned to the {@code NodeStore}, which reuses them for later splits.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class PagedBPlusTree<K extends Comparable<K>, V> {
+
+	/**
+	 * The {@code NodeStore} that keeps the pages of this {@code PagedBPlusTree}.
+	 */
+	protected NodeStore store;
+
+	/**
+	 * The layout of the nodes in the pages.
+	 */
+	protected NodeLayout<K, V> layout;
+
+	/**
+	 * The maximum number of pointers that each node of this {@code PagedBPlusTree} can have.
+	 */
+	protected int degree;
+
+	/**
+	 * The id of the root page; {@link NodeStore#NIL} if this {@code PagedBPlusTree} is empty.
+	 */
+	protected long root;
+
+	/**
+	 * The ids of the non-leaf pages visited by the last insertion or removal, from the root down.
+	 */
+	protected long[] path = new long[8];
+
+	/**
+	 * The index of the child taken at each page on {@code path}.
+	 */
+	protected int[] slots = new int[8];
+
+	/**
+	 * The number of pages on {@code path}.
+	 */
+	protected int depth;
+
+	/**
+	 * Constructs a {@code PagedBPlusTree} whose nodes have the largest degree that fits in the pages of the specified
+	 * {@code NodeStore}. If the {@code NodeStore} already has a root, the tree stored there is used.
+	 * 
+	 * @param store
+	 *            the {@code NodeStore} that keeps the pages.
+	 * @param keyCodec
+	 *            the {@code Codec} for keys.
+	 * @param valueCodec
+	 *            the {@code Codec} for values.
+	 */
+	public PagedBPlusTree(NodeStore store, Codec<K> keyCodec, Codec<V> valueCodec) {
+		this(store, NodeLayout.maxDegree(store.pageSize(), keyCodec.width(), valueCodec.width()), keyCodec,
+				valueCodec);
+	}
+
+	/**
+	 * Constructs a {@code PagedBPlusTree}. If the {@code NodeStore} already has a root, the tree stored there is used
+	 * and must have been created with the same degree and {@code Codec}s.
+	 * 
+	 * @param store
+	 *            the {@code NodeStore} that keeps the pages.
+	 * @param degree
+	 *            the maximum number of pointers that each node can have.
+	 * @param keyCodec
+	 *            the {@code Codec} for keys.
+	 * @param valueCodec
+	 *            the {@code Codec} for values.
+	 * @throws IllegalArgumentException
+	 *             if the degree is less than 3 or nodes of the degree do not fit in the pages.
+	 */
+	public PagedBPlusTree(NodeStore store, int degree, Codec<K> keyCodec, Codec<V> valueCodec) {
+		if (degree < 3 || NodeLayout.pageSize(degree, keyCodec.width(), valueCodec.width()) > store.pageSize())
+			throw new IllegalArgumentException("nodes of degree " + degree + " do not fit in pages of "
+					+ store.pageSize() + " bytes");
+		this.store = store;
+		this.degree = degree;
+		this.layout = new NodeLayout<K, V>(degree, keyCodec, valueCodec);
+		this.root = store.root();
+	}
+
+	/**
+	 * Returns the degree of this {@code PagedBPlusTree}.
+	 * 
+	 * @return the degree of this {@code PagedBPlusTree}.
+	 */
+	public int degree() {
+		return degree;
+	}
+
+	/**
+	 * Returns the {@code NodeStore} that keeps the pages of this {@code PagedBPlusTree}.
+	 * 
+	 * @return the {@code NodeStore} that keeps the pages of this {@code PagedBPlusTree}.
+	 */
+	public NodeStore store() {
+		return store;
+	}
+
+	/**
+	 * Finds the leaf page in this {@code PagedBPlusTree} that must be responsible for the specified key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the id of the leaf page that must be responsible for the specified key; {@link NodeStore#NIL} if this
+	 *         {@code PagedBPlusTree} is empty.
+	 */
+	public long find(K key) {
+		return find(key, false);
+	}
+
+	/**
+	 * Finds the leaf page that must be responsible for the specified key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @param leftmost
+	 *            a flag indicating whether or not to move to the left child at a separator equal to the key, so that
+	 *            the leftmost leaf page that may contain the key is found.
+	 * @return the id of the leaf page; {@link NodeStore#NIL} if this {@code PagedBPlusTree} is empty.
+	 */
+	protected long find(K key, boolean leftmost) {
+		long id = root;
+		while (id != NodeStore.NIL) {
+			ByteBuffer page = store.pin(id);
+			long child;
+			if (layout.isLeaf(page))
+				child = NodeStore.NIL;
+			else {
+				int n = layout.numberOfKeys(page);
+				child = layout.child(page, leftmost ? layout.lowerBound(page, n, key) : layout.upperBound(page, n, key));
+			}
+			store.unpin(id, false);
+			if (child == NodeStore.NIL)
+				return id;
+			id = child;
+		}
+		return NodeStore.NIL;
+	}
+
+	/**
+	 * Returns the value associated with the specified key in this {@code PagedBPlusTree}.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the value associated with the specified key; {@code null} if this {@code PagedBPlusTree} has no such
+	 *         key.
+	 */
+	public V get(K key) {
+		long id = findFirst(key);
+		if (id == NodeStore.NIL)
+			return null;
+		ByteBuffer page = store.pin(id);
+		try {
+			int n = layout.numberOfKeys(page);
+			int i = layout.lowerBound(page, n, key);
+			return i < n && layout.key(page, i).compareTo(key) == 0 ? layout.value(page, i) : null;
+		} finally {
+			store.unpin(id, false);
+		}
+	}
+
+	/**
+	 * Finds the leaf page that holds the first entry with the specified key, if there is one. Copies of a key can be on
+	 * both sides of a separator equal to the key, so this method finds the leftmost leaf page that may contain the key
+	 * and, if that page holds no key greater than or equal to the key, follows the chain of leaf pages to the next one
+	 * that holds any key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the id of the leaf page that holds the first entry with the specified key if there is one;
+	 *         {@link NodeStore#NIL} if this {@code PagedBPlusTree} is empty.
+	 */
+	protected long findFirst(K key) {
+		long id = find(key, true);
+		while (id != NodeStore.NIL) {
+			ByteBuffer page = store.pin(id);
+			int n = layout.numberOfKeys(page);
+			boolean covered = layout.lowerBound(page, n, key) < n; // if the page has a key greater than or equal to key
+			long successor = layout.successor(page);
+			store.unpin(id, false);
+			if (covered || successor == NodeStore.NIL)
+				return id;
+			id = successor;
+		}
+		return NodeStore.NIL;
+	}
+
+	/**
+	 * Finds the leaf page that must be responsible for the specified key and records the non-leaf pages visited on
+	 * the way in {@code path}.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @return the id of the leaf page that must be responsible for the specified key.
+	 */
+	protected long descend(K key) {
+		return descend(key, false);
+	}
+
+	/**
+	 * Finds the leaf page where a new entry with the specified key goes or, if {@code first} is set, the leaf page that
+	 * holds the first entry with the key, and records the non-leaf pages visited on the way in {@code path}. In the
+	 * latter case, the descent moves to the left child at a separator equal to the key and, if the leaf page reached
+	 * holds no key greater than or equal to the key while the separator to its right equals the key, moves on to the
+	 * leftmost leaf page right of that separator.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @param first
+	 *            a flag indicating whether to find the first entry with the key, as removals do, rather than where a
+	 *            new entry with the key goes.
+	 * @return the id of the leaf page reached.
+	 */
+	protected long descend(K key, boolean first) {
+		depth = 0;
+		long id = root;
+		while (true) {
+			ByteBuffer page = store.pin(id);
+			int n = layout.numberOfKeys(page);
+			if (layout.isLeaf(page)) {
+				boolean covered = !first || layout.lowerBound(page, n, key) < n;
+				store.unpin(id, false);
+				return covered ? id : next(key, id);
+			}
+			int i = first ? layout.lowerBound(page, n, key) : layout.upperBound(page, n, key);
+			long child = layout.child(page, i);
+			store.unpin(id, false);
+			push(id, i);
+			id = child;
+		}
+	}
+
+	/**
+	 * Moves the descent recorded in {@code path} to the leftmost leaf page right of the separator just right of the
+	 * specified leaf page if that separator equals the specified key.
+	 * 
+	 * @param key
+	 *            the search key.
+	 * @param id
+	 *            the id of the leaf page reached.
+	 * @return the id of the leftmost leaf page right of the separator if it equals the key; {@code id} otherwise.
+	 */
+	long next(K key, long id) {
+		for (int l = depth - 1; l >= 0; l--) {
+			ByteBuffer page = store.pin(path[l]);
+			int n = layout.numberOfKeys(page);
+			int i = slots[l];
+			boolean equal = i < n && layout.key(page, i).compareTo(key) == 0;
+			long child = i < n ? layout.child(page, i + 1) : NodeStore.NIL;
+			store.unpin(path[l], false);
+			if (i == n) // if the separator to the right is further up
+				continue;
+			if (!equal)
+				return id;
+			depth = l;
+			push(path[l], i + 1);
+			for (long c = child;;) { // descend to the leftmost leaf page
+				page = store.pin(c);
+				long grandchild = layout.isLeaf(page) ? NodeStore.NIL : layout.child(page, 0);
+				store.unpin(c, false);
+				if (grandchild == NodeStore.NIL)
+					return c;
+				push(c, 0);
+				c = grandchild;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Appends the specified non-leaf page and the index of a child to {@code path}.
+	 * 
+	 * @param id
+	 *            the id of a non-leaf page.
+	 * @param i
+	 *            the index of the child to descend to.
+	 */
+	void push(long id, int i) {
+		if (depth == path.length) { // if the tree has grown taller than the path
+			path = java.util.Arrays.copyOf(path, 2 * depth);
+			slots = java.util.Arrays.copyOf(slots, 2 * depth);
+		}
+		path[depth] = id;
+		slots[depth++] = i;
+	}
+
+	/**
+	 * Allocates a page for an empty node.
+	 * 
+	 * @param leaf
+	 *            a flag indicating whether or not the node is a leaf node.
+	 * @return the id of the new page.
+	 */
+	protected long allocate(boolean leaf) {
+		long id = store.allocate();
+		layout.init(store.pin(id), leaf);
+		store.unpin(id, true);
+		return id;
+	}
+
+	/**
+	 * Inserts the specified key and the value into this {@code PagedBPlusTree}.
+	 * 
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	public void insert(K key, V value) {
+		long id;
+		if (root == NodeStore.NIL) {
+			id = allocate(true);
+			setRoot(id);
+			depth = 0;
+		} else
+			id = descend(key);
+		ByteBuffer page = store.pin(id);
+		int n = layout.numberOfKeys(page);
+		int i = layout.upperBound(page, n, key);
+		if (n < degree - 1) { // if the leaf node has room for the new entry
+			insert(page, n, i, key, value);
+			store.unpin(id, true);
+			return;
+		}
+		long sid = allocate(true);
+		ByteBuffer sibling = store.pin(sid);
+		int m = (degree + 1) / 2; // compute the split point
+		int from = i < m ? m - 1 : m; // the first entry that moves to the sibling
+		layout.copyKeys(page, from, sibling, 0, n - from);
+		layout.copyValues(page, from, sibling, 0, n - from);
+		if (i < m) {
+			insert(page, from, i, key, value);
+			layout.setNumberOfKeys(sibling, n - from);
+		} else {
+			layout.setNumberOfKeys(page, from);
+			insert(sibling, n - from, i - m, key, value);
+		}
+		layout.setSuccessor(sibling, layout.successor(page));
+		layout.setSuccessor(page, sid);
+		K separator = layout.key(sibling, 0);
+		store.unpin(sid, true);
+		store.unpin(id, true);
+		insertInParent(depth - 1, id, separator, sid);
+	}
+
+	/**
+	 * Inserts an entry into the specified leaf page, which must have room for it.
+	 * 
+	 * @param page
+	 *            a leaf page.
+	 * @param n
+	 *            the number of keys in the page.
+	 * @param i
+	 *            the insertion position.
+	 * @param key
+	 *            the key to insert.
+	 * @param value
+	 *            the value to insert.
+	 */
+	void insert(ByteBuffer page, int n, int i, K key, V value) {
+		layout.copyKeys(page, i, page, i + 1, n - i);
+		layout.copyValues(page, i, page, i + 1, n - i);
+		layout.setKey(page, i, key);
+		layout.setValue(page, i, value);
+		layout.setNumberOfKeys(page, n + 1);
+	}
+
+	/**
+	 * Inserts the specified key and child after the i-th child of the specified non-leaf page, which must have room
+	 * for them.
+	 * 
+	 * @param page
+	 *            a non-leaf page.
+	 * @param n
+	 *            the number of keys in the page.
+	 * @param i
+	 *            the index of the child after which the key and the child will be inserted.
+	 * @param key
+	 *            the key to insert.
+	 * @param child
+	 *            the id of the child to insert.
+	 */
+	void insertAfter(ByteBuffer page, int n, int i, K key, long child) {
+		layout.copyKeys(page, i, page, i + 1, n - i);
+		layout.copyChildren(page, i + 1, page, i + 2, n - i);
+		layout.setKey(page, i, key);
+		layout.setChild(page, i + 1, child);
+		layout.setNumberOfKeys(page, n + 1);
+	}
+
+	/**
+	 * Inserts a pointer to a new page right after the specified page in its parent.
+	 * 
+	 * @param level
+	 *            the position on {@code path} of the parent; -1 if the specified page is the root.
+	 * @param id
+	 *            the id of a page.
+	 * @param key
+	 *            the key that separates the pages.
+	 * @param nid
+	 *            the id of the new page.
+	 */
+	void insertInParent(int level, long id, K key, long nid) {
+		if (level < 0) { // if the root was split
+			long rid = allocate(false);
+			ByteBuffer r = store.pin(rid);
+			layout.setKey(r, 0, key);
+			layout.setChild(r, 0, id);
+			layout.setChild(r, 1, nid);
+			layout.setNumberOfKeys(r, 1);
+			store.unpin(rid, true);
+			setRoot(rid);
+			return;
+		}
+		long pid = path[level];
+		int i = slots[level]; // the index of the page in its parent
+		ByteBuffer p = store.pin(pid);
+		int n = layout.numberOfKeys(p);
+		if (n < degree - 1) {
+			insertAfter(p, n, i, key, nid);
+			store.unpin(pid, true);
+			return;
+		}
+		long sid = allocate(false);
+		ByteBuffer sibling = store.pin(sid);
+		int m = (degree + 1) / 2; // the number of children that stay
+		K separator;
+		int from; // the first existing key that moves to the sibling
+		if (i < m - 1) { // if the new key stays in the page
+			separator = layout.key(p, m - 2);
+			from = m - 1;
+		} else if (i == m - 1) { // if the new key moves up
+			separator = key;
+			from = m - 1;
+		} else { // if the new key moves to the sibling
+			separator = layout.key(p, m - 1);
+			from = m;
+		}
+		int moved = n - from;
+		layout.copyKeys(p, from, sibling, 0, moved);
+		if (i == m - 1) {
+			layout.setChild(sibling, 0, nid);
+			layout.copyChildren(p, m, sibling, 1, moved);
+		} else
+			layout.copyChildren(p, from, sibling, 0, moved + 1);
+		layout.setNumberOfKeys(sibling, moved);
+		layout.setNumberOfKeys(p, from);
+		if (i < m - 1)
+			insertAfter(p, from - 1, i, key, nid);
+		else if (i > m - 1) {
+			layout.setNumberOfKeys(p, from - 1);
+			insertAfter(sibling, moved, i - m, key, nid);
+		}
+		store.unpin(sid, true);
+		store.unpin(pid, true);
+		insertInParent(level - 1, pid, separator, sid);
+	}
+
+	/**
+	 * Sets the root of this {@code PagedBPlusTree}.
+	 * 
+	 * @param id
+	 *            the id of the root page; {@link NodeStore#NIL} if this {@code PagedBPlusTree} is empty.
+	 */
+	protected void setRoot(long id) {
+		root = id;
+		store.setRoot(id);
+	}
+
+	/**
+	 * Removes an entry with the specified key from this {@code PagedBPlusTree}. As in {@code BPlusTree}, a page left
+	 * with fewer than the minimum number of keys borrows from a sibling under the same parent or is merged with it,
+	 * using the path recorded on the way down, and the pages emptied by merges are freed.
+	 * 
+	 * @param key
+	 *            the key to remove.
+	 * @return the value of the removed entry; {@code null} if this {@code PagedBPlusTree} has no such key.
+	 */
+	public V remove(K key) {
+		if (root == NodeStore.NIL)
+			return null;
+		long id = descend(key, true);
+		ByteBuffer page = store.pin(id);
+		int n = layout.numberOfKeys(page);
+		int i = layout.lowerBound(page, n, key);
+		if (i == n || layout.key(page, i).compareTo(key) != 0) {
+			store.unpin(id, false);
+			return null;
+		}
+		V value = layout.value(page, i);
+		layout.copyKeys(page, i + 1, page, i, n - i - 1);
+		layout.copyValues(page, i + 1, page, i, n - i - 1);
+		layout.setNumberOfKeys(page, n - 1);
+		store.unpin(id, true);
+		rebalance(id);
+		return value;
+	}
+
+	/**
+	 * Restores the minimum number of keys in the specified page, the last one reached by the last descent, after a
+	 * removal. An underfull page borrows from a sibling as long as the sibling has more than the minimum number of
+	 * keys and is otherwise merged with it, which may leave the parent underfull in turn. The right sibling is
+	 * preferred. A root left without keys is replaced with its only child.
+	 * 
+	 * @param id
+	 *            the id of the page that may be underfull.
+	 */
+	protected void rebalance(long id) {
+		int leafMinimum = Math.max(1, degree / 2);
+		int nonLeafMinimum = (degree + 1) / 2 - 1;
+		for (int level = depth - 1;; level--) {
+			ByteBuffer page = store.pin(id);
+			boolean leaf = layout.isLeaf(page);
+			int n = layout.numberOfKeys(page);
+			if (level < 0) { // if the page is the root
+				long child = n > 0 || leaf ? NodeStore.NIL : layout.child(page, 0);
+				store.unpin(id, false);
+				if (n == 0) {
+					setRoot(child);
+					store.free(id);
+				}
+				return;
+			}
+			int minimum = leaf ? leafMinimum : nonLeafMinimum;
+			if (n >= minimum) {
+				store.unpin(id, false);
+				return;
+			}
+			long pid = path[level];
+			int s = slots[level];
+			ByteBuffer p = store.pin(pid);
+			boolean right = s < layout.numberOfKeys(p); // use the right sibling if there is one
+			long sid = layout.child(p, right ? s + 1 : s - 1);
+			ByteBuffer sibling = store.pin(sid);
+			int lend = Math.min(minimum - n, layout.numberOfKeys(sibling) - minimum);
+			if (lend > 0) {
+				borrow(p, s, page, sibling, lend, right);
+				n += lend;
+			}
+			if (n >= minimum) { // if borrowing sufficed
+				store.unpin(sid, true);
+				store.unpin(pid, true);
+				store.unpin(id, true);
+				return;
+			}
+			if (right)
+				merge(p, s, page, sibling);
+			else
+				merge(p, s - 1, sibling, page);
+			store.unpin(sid, true);
+			store.unpin(pid, true);
+			store.unpin(id, true);
+			store.free(right ? sid : id);
+			id = pid;
+		}
+	}
+
+	/**
+	 * Moves entries (or children) from the specified sibling to the specified underfull page and updates the separator
+	 * between them in their parent.
+	 * 
+	 * @param p
+	 *            the parent page.
+	 * @param s
+	 *            the index of the underfull page in the parent.
+	 * @param page
+	 *            the underfull page.
+	 * @param sibling
+	 *            the sibling, which must keep at least the minimum number of keys.
+	 * @param count
+	 *            the number of entries (or children) to move.
+	 * @param right
+	 *            a flag indicating whether the sibling is the right sibling.
+	 */
+	void borrow(ByteBuffer p, int s, ByteBuffer page, ByteBuffer sibling, int count, boolean right) {
+		int n = layout.numberOfKeys(page);
+		int sn = layout.numberOfKeys(sibling);
+		if (layout.isLeaf(page)) {
+			if (right) {
+				layout.copyKeys(sibling, 0, page, n, count);
+				layout.copyValues(sibling, 0, page, n, count);
+				layout.copyKeys(sibling, count, sibling, 0, sn - count);
+				layout.copyValues(sibling, count, sibling, 0, sn - count);
+				layout.setKey(p, s, layout.key(sibling, 0));
+			} else {
+				layout.copyKeys(page, 0, page, count, n);
+				layout.copyValues(page, 0, page, count, n);
+				layout.copyKeys(sibling, sn - count, page, 0, count);
+				layout.copyValues(sibling, sn - count, page, 0, count);
+				layout.setKey(p, s - 1, layout.key(page, 0));
+			}
+		} else if (right) { // the separator comes down in front of the moved children
+			layout.setKey(page, n, layout.key(p, s));
+			layout.copyKeys(sibling, 0, page, n + 1, count - 1);
+			layout.copyChildren(sibling, 0, page, n + 1, count);
+			layout.setKey(p, s, layout.key(sibling, count - 1));
+			layout.copyKeys(sibling, count, sibling, 0, sn - count);
+			layout.copyChildren(sibling, count, sibling, 0, sn - count + 1);
+		} else { // the separator comes down after the moved children
+			layout.copyKeys(page, 0, page, count, n);
+			layout.copyChildren(page, 0, page, count, n + 1);
+			layout.setKey(page, count - 1, layout.key(p, s - 1));
+			layout.copyKeys(sibling, sn - count + 1, page, 0, count - 1);
+			layout.copyChildren(sibling, sn - count + 1, page, 0, count);
+			layout.setKey(p, s - 1, layout.key(sibling, sn - count));
+		}
+		layout.setNumberOfKeys(page, n + count);
+		layout.setNumberOfKeys(sibling, sn - count);
+	}
+
+	/**
+	 * Merges the specified right page into the specified left page and removes the right page from their parent. The
+	 * caller frees the right page.
+	 * 
+	 * @param p
+	 *            the parent page.
+	 * @param s
+	 *            the index of the left page in the parent.
+	 * @param left
+	 *            the left page.
+	 * @param right
+	 *            the right page.
+	 */
+	void merge(ByteBuffer p, int s, ByteBuffer left, ByteBuffer right) {
+		int n = layout.numberOfKeys(left);
+		int rn = layout.numberOfKeys(right);
+		if (layout.isLeaf(left)) {
+			layout.copyKeys(right, 0, left, n, rn);
+			layout.copyValues(right, 0, left, n, rn);
+			layout.setNumberOfKeys(left, n + rn);
+			layout.setSuccessor(left, layout.successor(right));
+		} else {
+			layout.setKey(left, n, layout.key(p, s));
+			layout.copyKeys(right, 0, left, n + 1, rn);
+			layout.copyChildren(right, 0, left, n + 1, rn + 1);
+			layout.setNumberOfKeys(left, n + 1 + rn);
+		}
+		int pn = layout.numberOfKeys(p);
+		layout.copyKeys(p, s + 1, p, s, pn - s - 1);
+		layout.copyChildren(p, s + 2, p, s + 1, pn - s - 1);
+		layout.setNumberOfKeys(p, pn - 1);
+	}
+
+	/**
+	 * Removes all entries from this {@code PagedBPlusTree} and frees all of its pages.
+	 */
+	public void clear() {
+		if (root != NodeStore.NIL)
+			free(root);
+		setRoot(NodeStore.NIL);
+	}
+
+	/**
+	 * Frees the specified page and all pages below it.
+	 * 
+	 * @param id
+	 *            the id of a page.
+	 */
+	void free(long id) {
+		ByteBuffer page = store.pin(id);
+		long[] children = null;
+		if (!layout.isLeaf(page)) {
+			children = new long[layout.numberOfKeys(page) + 1];
+			for (int i = 0; i < children.length; i++)
+				children[i] = layout.child(page, i);
+		}
+		store.unpin(id, false);
+		if (children != null)
+			for (long child : children)
+				free(child);
+		store.free(id);
+	}
+
+	/**
+	 * Returns a {@code Range} over the entries of this {@code PagedBPlusTree} whose keys are within the specified
+	 * range.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if unbounded.
+	 * @param fromInclusive
+	 *            a flag indicating whether or not the lower bound is inclusive.
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if unbounded.
+	 * @param toInclusive
+	 *            a flag indicating whether or not the upper bound is inclusive.
+	 * @return a {@code Range} over the entries whose keys are within the specified range.
+	 */
+	public Range range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		long id;
+		int i = 0;
+		if (from == null) { // if unbounded, start at the leftmost leaf
+			id = root;
+			while (id != NodeStore.NIL) {
+				ByteBuffer page = store.pin(id);
+				long child = layout.isLeaf(page) ? NodeStore.NIL : layout.child(page, 0);
+				store.unpin(id, false);
+				if (child == NodeStore.NIL)
+					break;
+				id = child;
+			}
+		} else {
+			id = find(from, fromInclusive);
+			if (id != NodeStore.NIL) {
+				ByteBuffer page = store.pin(id);
+				int n = layout.numberOfKeys(page);
+				i = fromInclusive ? layout.lowerBound(page, n, from) : layout.upperBound(page, n, from);
+				store.unpin(id, false);
+			}
+		}
+		return new Range(id, i, to, toInclusive);
+	}
+
+	/**
+	 * A {@code Range} iterates over the entries of a {@code PagedBPlusTree} in key order by walking the chain of leaf
+	 * pages. Each call to {@link #next()} decodes the current entry, so no page stays pinned between calls. A
+	 * {@code Range} becomes invalid if the tree is modified.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	public class Range {
+
+		/**
+		 * The id of the leaf page containing the current entry; {@link NodeStore#NIL} if exhausted.
+		 */
+		protected long id;
+
+		/**
+		 * The index of the current entry in the leaf page.
+		 */
+		protected int index;
+
+		/**
+		 * The upper bound of the keys; {@code null} if unbounded.
+		 */
+		protected K to;
+
+		/**
+		 * A flag indicating whether or not the upper bound is inclusive.
+		 */
+		protected boolean toInclusive;
+
+		/**
+		 * The key of the current entry; {@code null} if there is no current entry.
+		 */
+		protected K key;
+
+		/**
+		 * The value of the current entry.
+		 */
+		protected V value;
+
+		/**
+		 * Constructs a {@code Range}.
+		 * 
+		 * @param id
+		 *            the id of the leaf page containing the first entry; {@link NodeStore#NIL} if none.
+		 * @param index
+		 *            the index of the first entry in the leaf page.
+		 * @param to
+		 *            the upper bound of the keys; {@code null} if unbounded.
+		 * @param toInclusive
+		 *            a flag indicating whether or not the upper bound is inclusive.
+		 */
+		protected Range(long id, int index, K to, boolean toInclusive) {
+			this.id = id;
+			this.index = index - 1;
+			this.to = to;
+			this.toInclusive = toInclusive;
+		}
+
+		/**
+		 * Moves this {@code Range} to the next entry.
+		 * 
+		 * @return {@code true} if there is a next entry; {@code false} if this {@code Range} is exhausted.
+		 */
+		public boolean next() {
+			key = null;
+			value = null;
+			if (id == NodeStore.NIL)
+				return false;
+			index++;
+			ByteBuffer page = store.pin(id);
+			while (index >= layout.numberOfKeys(page)) { // if past the end of the leaf
+				long successor = layout.successor(page);
+				store.unpin(id, false);
+				id = successor;
+				index = 0;
+				if (id == NodeStore.NIL)
+					return false;
+				page = store.pin(id);
+			}
+			K k = layout.key(page, index);
+			if (to != null) {
+				int c = k.compareTo(to);
+				if (c > 0 || (c == 0 && !toInclusive)) { // if past the upper bound
+					store.unpin(id, false);
+					id = NodeStore.NIL;
+					return false;
+				}
+			}
+			key = k;
+			value = layout.value(page, index);
+			store.unpin(id, false);
+			return true;
+		}
+
+		/**
+		 * Returns the key of the current entry.
+		 * 
+		 * @return the key of the current entry.
+		 * @throws NoSuchElementException
+		 *             if there is no current entry.
+		 */
+		public K key() {
+			if (key == null)
+				throw new NoSuchElementException();
+			return key;
+		}
+
+		/**
+		 * Returns the value of the current entry.
+		 * 
+		 * @return the value of the current entry.
+		 * @throws NoSuchElementException
+		 *             if there is no current entry.
+		 */
+		public V value() {
+			if (key == null)
+				throw new NoSuchElementException();
+			return value;
+		}
+
+	}
+
+}
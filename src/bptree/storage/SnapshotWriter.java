@@ -0,0 +1,282 @@
+package bptree.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+
+import bptree.BPlusTree;
+import bptree.Cursor;
+
+/**
+ * A {@code SnapshotWriter} writes entries in key order to an immutable snapshot file that a {@code MappedSnapshot}
+ * queries in place. The file consists of pages of a fixed size. Page 0 is a header; the leaf pages follow, completely
+ * filled and stored contiguously in key order, so that page p + 1 is the successor of leaf page p; the non-leaf
+ * pages are then written level by level from the bottom up, and the root is the last page.
+ * 
+ * <pre>
+ * header:   | magic (8) | version (4) | pageSize (4) | keyWidth (4) | valueWidth (4) | size (8) | leaves (8) |
+ *           | height (4) | unused (4) | root (8) |
+ * leaf:     | numberOfKeys (4) | unused (4) | keys (leafCapacity) | values (leafCapacity) |
+ * non-leaf: | numberOfKeys (4) | unused (4) | keys (degree - 1) | children (degree) |
+ * </pre>
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class SnapshotWriter<K extends Comparable<K>, V> {
+
+	/**
+	 * The number that identifies snapshot files.
+	 */
+	public static final long MAGIC = 0x4250545245455353L; // "BPTREESS"
+
+	/**
+	 * The version of the file format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The size of the header of each leaf and non-leaf page.
+	 */
+	static final int PAGE_HEADER = 8;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for values.
+	 */
+	protected Codec<V> valueCodec;
+
+	/**
+	 * The size of each page in bytes.
+	 */
+	protected int pageSize;
+
+	/**
+	 * Constructs a {@code SnapshotWriter}.
+	 * 
+	 * @param keyCodec
+	 *            the {@code Codec} for keys.
+	 * @param valueCodec
+	 *            the {@code Codec} for values.
+	 * @param pageSize
+	 *            the size of each page in bytes, from {@link FileNodeStore#MIN_PAGE_SIZE} to
+	 *            {@link FileNodeStore#MAX_PAGE_SIZE}.
+	 */
+	public SnapshotWriter(Codec<K> keyCodec, Codec<V> valueCodec, int pageSize) {
+		if (pageSize < FileNodeStore.MIN_PAGE_SIZE || pageSize > FileNodeStore.MAX_PAGE_SIZE
+				|| Integer.bitCount(pageSize) != 1)
+			throw new IllegalArgumentException("invalid page size: " + pageSize);
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Returns the number of entries in each leaf page.
+	 * 
+	 * @param pageSize
+	 *            the size of each page in bytes.
+	 * @param keyWidth
+	 *            the number of bytes of each key.
+	 * @param valueWidth
+	 *            the number of bytes of each value.
+	 * @return the number of entries in each leaf page.
+	 */
+	static int leafCapacity(int pageSize, int keyWidth, int valueWidth) {
+		return (pageSize - PAGE_HEADER) / (keyWidth + valueWidth);
+	}
+
+	/**
+	 * Returns the degree of the non-leaf pages.
+	 * 
+	 * @param pageSize
+	 *            the size of each page in bytes.
+	 * @param keyWidth
+	 *            the number of bytes of each key.
+	 * @return the degree of the non-leaf pages.
+	 */
+	static int degree(int pageSize, int keyWidth) {
+		return (pageSize - PAGE_HEADER + keyWidth) / (keyWidth + Long.BYTES);
+	}
+
+	/**
+	 * Writes all entries of the specified {@code BPlusTree} to the specified file.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}.
+	 * @param file
+	 *            the snapshot file.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public void write(BPlusTree<K, V> tree, Path file) throws IOException {
+		Cursor<K, V> cursor = tree.range(null, true, null, true);
+		write(new Iterator<Map.Entry<K, V>>() {
+
+			boolean ready = cursor.next();
+
+			@Override
+			public boolean hasNext() {
+				return ready;
+			}
+
+			@Override
+			public Map.Entry<K, V> next() {
+				Map.Entry<K, V> e = new java.util.AbstractMap.SimpleImmutableEntry<K, V>(cursor.key(),
+						cursor.value());
+				ready = cursor.next();
+				return e;
+			}
+		}, file);
+	}
+
+	/**
+	 * Writes the specified entries, which must be given in key order, to the specified file. The file is written aside
+	 * and renamed when complete, so readers never see a partial snapshot.
+	 * 
+	 * @param entries
+	 *            the entries in key order.
+	 * @param file
+	 *            the snapshot file.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 * @throws IllegalArgumentException
+	 *             if the entries are not sorted by key.
+	 */
+	public void write(Iterator<? extends Map.Entry<? extends K, ? extends V>> entries, Path file) throws IOException {
+		int keyWidth = keyCodec.width(), valueWidth = valueCodec.width();
+		int capacity = leafCapacity(pageSize, keyWidth, valueWidth);
+		int degree = degree(pageSize, keyWidth);
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer page = FileNodeStore.newBuffer(pageSize);
+			ByteBuffer firstKeys = FileNodeStore.newBuffer(Math.max(keyWidth, 1 << 16)); // the first key of each page
+			long next = 1; // the next page to write
+			long size = 0;
+			int n = 0;
+			K last = null;
+			while (entries.hasNext()) {
+				Map.Entry<? extends K, ? extends V> e = entries.next();
+				K key = e.getKey();
+				if (last != null && key.compareTo(last) < 0)
+					throw new IllegalArgumentException("keys are not sorted: " + key + " after " + last);
+				last = key;
+				if (n == 0)
+					firstKeys = append(firstKeys, key);
+				keyCodec.write(page, PAGE_HEADER + n * keyWidth, key);
+				valueCodec.write(page, PAGE_HEADER + capacity * keyWidth + n * valueWidth, e.getValue());
+				size++;
+				if (++n == capacity) {
+					write(channel, page, next++, n);
+					n = 0;
+				}
+			}
+			if (n > 0)
+				write(channel, page, next++, n);
+			long leaves = next - 1;
+			int height = 0;
+			long root = leaves == 0 ? NodeStore.NIL : 1;
+			long first = 1, count = leaves; // the pages of the current level
+			while (count > 1) { // build the level above
+				firstKeys.flip();
+				ByteBuffer keys = firstKeys;
+				firstKeys = FileNodeStore.newBuffer(Math.max(keyWidth, (int) ((count / degree + 1) * keyWidth)));
+				long levelStart = next;
+				for (long c = 0; c < count; c += degree) {
+					int children = (int) Math.min(degree, count - c);
+					page.clear();
+					for (int i = 0; i < children; i++) {
+						if (i > 0)
+							page.put(PAGE_HEADER + (i - 1) * keyWidth, keys, (int) (c + i) * keyWidth, keyWidth);
+						page.putLong(PAGE_HEADER + (degree - 1) * keyWidth + i * Long.BYTES, first + c + i);
+					}
+					firstKeys = append(firstKeys, keyCodec.read(keys, (int) c * keyWidth));
+					write(channel, page, next++, children - 1);
+				}
+				first = levelStart;
+				count = next - levelStart;
+				root = first;
+				height++;
+			}
+			page.clear();
+			for (int i = 0; i < pageSize; i++)
+				page.put(i, (byte) 0);
+			page.putLong(0, MAGIC);
+			page.putInt(8, VERSION);
+			page.putInt(12, pageSize);
+			page.putInt(16, keyWidth);
+			page.putInt(20, valueWidth);
+			page.putLong(24, size);
+			page.putLong(32, leaves);
+			page.putInt(40, height);
+			page.putLong(48, root);
+			page.clear();
+			while (page.hasRemaining())
+				channel.write(page, page.position());
+			channel.force(true);
+		}
+		Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Appends the specified key to the specified buffer, growing the buffer if necessary.
+	 * 
+	 * @param buffer
+	 *            a buffer.
+	 * @param key
+	 *            a key.
+	 * @return the buffer containing the key.
+	 */
+	ByteBuffer append(ByteBuffer buffer, K key) {
+		if (buffer.remaining() < keyCodec.width()) {
+			if (2L * buffer.capacity() > Integer.MAX_VALUE)
+				throw new IllegalStateException("too many pages");
+			ByteBuffer b = FileNodeStore.newBuffer(2 * buffer.capacity());
+			buffer.flip();
+			b.put(buffer);
+			buffer = b;
+		}
+		keyCodec.write(buffer, buffer.position(), key);
+		buffer.position(buffer.position() + keyCodec.width());
+		return buffer;
+	}
+
+	/**
+	 * Writes the specified page.
+	 * 
+	 * @param channel
+	 *            the channel to the file.
+	 * @param page
+	 *            the contents of the page.
+	 * @param id
+	 *            the page number.
+	 * @param numberOfKeys
+	 *            the number of keys in the page.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	void write(FileChannel channel, ByteBuffer page, long id, int numberOfKeys) throws IOException {
+		page.putInt(0, numberOfKeys);
+		page.clear();
+		long position = id * pageSize;
+		while (page.hasRemaining())
+			channel.write(page, position + page.position());
+		page.clear();
+	}
+
+}
@@ -0,0 +1,112 @@
+package bptree.storage;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * A {@code TwoQueuePolicy} implements 2Q (Johnson and Shasha, VLDB 1994). A page read for the first time enters a
+ * FIFO queue A1in; if it is evicted from there, its id is remembered in a ghost queue A1out. A page that is read again
+ * while remembered in A1out enters an LRU queue Am, and hits in Am move pages to its end. Pages are evicted from A1in
+ * while it holds more than a quarter of the frames and from Am otherwise, so that pages touched only once, such as
+ * those of a long scan, cannot flush the pages that are used repeatedly. Within each queue, pages of non-leaf nodes
+ * are passed over as long as a page of a leaf node can be evicted.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class TwoQueuePolicy implements EvictionPolicy {
+
+	/**
+	 * The frames in A1in, oldest first.
+	 */
+	protected LinkedHashSet<Integer> in = new LinkedHashSet<Integer>();
+
+	/**
+	 * The frames in Am, least recently used first.
+	 */
+	protected LinkedHashSet<Integer> main = new LinkedHashSet<Integer>();
+
+	/**
+	 * The ids of the pages recently evicted from A1in, oldest first.
+	 */
+	protected LinkedHashSet<Long> out = new LinkedHashSet<Long>();
+
+	/**
+	 * The target size of A1in.
+	 */
+	protected int inCapacity;
+
+	/**
+	 * The maximum size of A1out.
+	 */
+	protected int outCapacity;
+
+	/**
+	 * Constructs a {@code TwoQueuePolicy} with A1in holding a quarter of the frames and A1out remembering half as many
+	 * pages as there are frames, as recommended by Johnson and Shasha.
+	 * 
+	 * @param frames
+	 *            the number of frames.
+	 */
+	public TwoQueuePolicy(int frames) {
+		this.inCapacity = Math.max(1, frames / 4);
+		this.outCapacity = Math.max(1, frames / 2);
+	}
+
+	@Override
+	public void accessed(int frame, long id, boolean loaded) {
+		if (!loaded) {
+			if (main.remove(frame)) // if a hit in Am, move the frame to the end
+				main.add(frame);
+			return; // hits in A1in do not change the queues
+		}
+		if (out.remove(id))
+			main.add(frame);
+		else
+			in.add(frame);
+	}
+
+	@Override
+	public void removed(int frame, long id) {
+		if (in.remove(frame)) {
+			out.add(id);
+			if (out.size() > outCapacity) {
+				Iterator<Long> i = out.iterator();
+				i.next();
+				i.remove();
+			}
+		} else
+			main.remove(frame);
+	}
+
+	@Override
+	public int victim(BufferPool pool) {
+		int f = in.size() > inCapacity ? victim(pool, in) : victim(pool, main);
+		if (f < 0)
+			f = in.size() > inCapacity ? victim(pool, main) : victim(pool, in);
+		return f;
+	}
+
+	/**
+	 * Chooses the frame to evict from the specified queue.
+	 * 
+	 * @param pool
+	 *            the {@code BufferPool}.
+	 * @param queue
+	 *            a queue of frames.
+	 * @return the first evictable frame holding a leaf node, or the first evictable frame if there is none; -1 if no
+	 *         frame in the queue can be evicted.
+	 */
+	int victim(BufferPool pool, LinkedHashSet<Integer> queue) {
+		int nonLeaf = -1;
+		for (int f : queue) {
+			if (!pool.evictable(f))
+				continue;
+			if (!pool.isNonLeaf(f))
+				return f;
+			if (nonLeaf < 0)
+				nonLeaf = f;
+		}
+		return nonLeaf;
+	}
+
+}
@@ -0,0 +1,541 @@
+package bptree.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A {@code WriteAheadLog} is a redo log of the insertions and deletions applied to a B+-tree. Each operation is
+ * appended as a fixed-size record, which carries its key, its value and a checksum, and is identified by its log
+ * sequence number (LSN), the position in the log just past the record. An operation is durable once it is committed
+ * with {@link #commit(long)}, which, depending on the {@link Durability} mode, forces the log to the storage device
+ * for each operation, forces once for a whole group of concurrently committing operations, or does not wait at all.
+ * 
+ * <pre>
+ * header: | magic (8) | base LSN (8) |
+ * record: | type (1) | key | value | CRC32 of type, key and value (4) |
+ * </pre>
+ * 
+ * The LSN of the first byte after the header is the base LSN, so LSNs keep growing when the log is restarted after a
+ * checkpoint (see {@link #restart()}). When a log is opened, a partially written record at its end, left by a
+ * crash, is discarded.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public class WriteAheadLog<K, V> implements Closeable {
+
+	/**
+	 * The durability modes of a {@code WriteAheadLog}.
+	 */
+	public enum Durability {
+
+		/**
+		 * Each commit forces the log to the storage device by itself.
+		 */
+		SYNC,
+
+		/**
+		 * Concurrent commits share a single force: the first committer to find no force in progress becomes the
+		 * leader and forces every record appended so far, while the others wait for it.
+		 */
+		GROUP,
+
+		/**
+		 * Commits do not wait; records are written when the log buffer fills up and forced by {@link #sync()}, so a
+		 * crash may lose the most recent operations.
+		 */
+		ASYNC
+	}
+
+	/**
+	 * The callback that receives the records of a {@code WriteAheadLog} during replay.
+	 * 
+	 * @param <K>
+	 *            the type of keys
+	 * @param <V>
+	 *            the type of values
+	 */
+	public interface Replayer<K, V> {
+
+		/**
+		 * Applies a logged operation.
+		 * 
+		 * @param type
+		 *            the type of the operation ({@link WriteAheadLog#INSERT} or {@link WriteAheadLog#DELETE}).
+		 * @param key
+		 *            the key of the operation.
+		 * @param value
+		 *            the value of the operation.
+		 */
+		void apply(byte type, K key, V value);
+	}
+
+	/**
+	 * The type of insertion records.
+	 */
+	public static final byte INSERT = 1;
+
+	/**
+	 * The type of deletion records.
+	 */
+	public static final byte DELETE = 2;
+
+	/**
+	 * The number that identifies log files.
+	 */
+	static final long MAGIC = 0x4250545245454C47L; // "BPTREELG"
+
+	/**
+	 * The size of the header.
+	 */
+	static final int HEADER = 16;
+
+	/**
+	 * The number of bytes buffered in {@link Durability#ASYNC} mode before they are written.
+	 */
+	static final int ASYNC_BUFFER = 64 << 10;
+
+	/**
+	 * The log file.
+	 */
+	protected Path file;
+
+	/**
+	 * The channel to the log file.
+	 */
+	protected FileChannel channel;
+
+	/**
+	 * The {@code Codec} for keys.
+	 */
+	protected Codec<K> keyCodec;
+
+	/**
+	 * The {@code Codec} for values.
+	 */
+	protected Codec<V> valueCodec;
+
+	/**
+	 * The size of each record.
+	 */
+	protected int recordSize;
+
+	/**
+	 * The durability mode.
+	 */
+	protected Durability durability;
+
+	/**
+	 * The LSN of the first record in the file.
+	 */
+	protected long base;
+
+	/**
+	 * The records appended but not yet written to the file.
+	 */
+	protected ByteBuffer pending;
+
+	/**
+	 * The buffer that a group commit leader writes while new records are appended to {@code pending}.
+	 */
+	protected ByteBuffer spare;
+
+	/**
+	 * The LSN just past the last appended record.
+	 */
+	protected long appended;
+
+	/**
+	 * The LSN just past the last record written to the file.
+	 */
+	protected long written;
+
+	/**
+	 * The LSN just past the last record forced to the storage device.
+	 */
+	protected long durable;
+
+	/**
+	 * A flag indicating whether or not a group commit leader is writing and forcing the log.
+	 */
+	protected boolean flushing;
+
+	/**
+	 * The number of times the log has been forced.
+	 */
+	protected long forces;
+
+	/**
+	 * Opens the specified log file, creating it if it does not exist.
+	 * 
+	 * @param file
+	 *            the log file.
+	 * @param keyCodec
+	 *            the {@code Codec} for keys.
+	 * @param valueCodec
+	 *            the {@code Codec} for values.
+	 * @param durability
+	 *            the durability mode.
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a log file.
+	 */
+	public WriteAheadLog(Path file, Codec<K> keyCodec, Codec<V> valueCodec, Durability durability)
+			throws IOException {
+		this.file = file;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.durability = durability;
+		this.recordSize = 1 + keyCodec.width() + valueCodec.width() + Integer.BYTES;
+		this.pending = newBuffer(Math.max(ASYNC_BUFFER, recordSize));
+		this.spare = newBuffer(pending.capacity());
+		if (!Files.exists(file))
+			create(file, 0);
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ByteBuffer header = newBuffer(HEADER);
+		read(header, 0);
+		if (header.getLong(0) != MAGIC)
+			throw new IOException("not a log file: " + file);
+		base = header.getLong(8);
+		long end = scan(null, Long.MIN_VALUE);
+		channel.truncate(HEADER + end - base); // discard a partially written record
+		appended = written = durable = end;
+	}
+
+	/**
+	 * Creates a buffer in the byte order used by logs.
+	 * 
+	 * @param size
+	 *            the size of the buffer.
+	 * @return a buffer in the byte order used by logs.
+	 */
+	static ByteBuffer newBuffer(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Creates an empty log file.
+	 * 
+	 * @param file
+	 *            the log file.
+	 * @param base
+	 *            the LSN of the first record.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	static void create(Path file, long base) throws IOException {
+		try (FileChannel c = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = newBuffer(HEADER);
+			header.putLong(0, MAGIC);
+			header.putLong(8, base);
+			while (header.hasRemaining())
+				c.write(header);
+			c.force(true);
+		}
+	}
+
+	/**
+	 * Renames the specified file over the specified target and forces the directory containing them, so that the
+	 * rename itself survives a crash and a later file operation cannot be reordered before it.
+	 * 
+	 * @param source
+	 *            the file to rename.
+	 * @param target
+	 *            the file to replace.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	static void replace(Path source, Path target) throws IOException {
+		Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		try (FileChannel directory = FileChannel.open(target.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		}
+	}
+
+	/**
+	 * Reads bytes from the log file until the buffer is full or the end of the file is reached.
+	 * 
+	 * @param buffer
+	 *            the buffer to read into.
+	 * @param position
+	 *            the position in the file.
+	 * @return the number of bytes read.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	int read(ByteBuffer buffer, long position) throws IOException {
+		buffer.clear();
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position + buffer.position());
+			if (n < 0)
+				break;
+		}
+		int n = buffer.position();
+		buffer.flip();
+		return n;
+	}
+
+	/**
+	 * Reads the valid records of the log file in order.
+	 * 
+	 * @param replayer
+	 *            receives the records; {@code null} if the records are only validated.
+	 * @param from
+	 *            the LSN after which records are passed to the replayer.
+	 * @return the LSN just past the last valid record.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	long scan(Replayer<K, V> replayer, long from) throws IOException {
+		ByteBuffer b = newBuffer(recordSize * Math.max(1, ASYNC_BUFFER / recordSize));
+		CRC32 crc = new CRC32();
+		long lsn = base;
+		while (true) {
+			int n = read(b, HEADER + lsn - base);
+			for (int offset = 0; offset + recordSize <= n; offset += recordSize) {
+				crc.reset();
+				crc.update(b.array(), offset, recordSize - Integer.BYTES);
+				if ((int) crc.getValue() != b.getInt(offset + recordSize - Integer.BYTES))
+					return lsn; // a torn or corrupt record ends the log
+				lsn += recordSize;
+				if (replayer != null && lsn > from)
+					replayer.apply(b.get(offset), keyCodec.read(b, offset + 1),
+							valueCodec.read(b, offset + 1 + keyCodec.width()));
+			}
+			if (n < b.capacity())
+				return lsn;
+		}
+	}
+
+	/**
+	 * Replays the records whose LSNs are greater than the specified LSN.
+	 * 
+	 * @param from
+	 *            an LSN, typically that of a checkpoint.
+	 * @param replayer
+	 *            receives the records.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public synchronized void replay(long from, Replayer<K, V> replayer) throws IOException {
+		scan(replayer, from);
+	}
+
+	/**
+	 * Returns the durability mode of this {@code WriteAheadLog}.
+	 * 
+	 * @return the durability mode of this {@code WriteAheadLog}.
+	 */
+	public Durability durability() {
+		return durability;
+	}
+
+	/**
+	 * Returns the LSN just past the last appended record.
+	 * 
+	 * @return the LSN just past the last appended record.
+	 */
+	public synchronized long end() {
+		return appended;
+	}
+
+	/**
+	 * Returns the number of times this {@code WriteAheadLog} has been forced to the storage device.
+	 * 
+	 * @return the number of times this {@code WriteAheadLog} has been forced to the storage device.
+	 */
+	public synchronized long forces() {
+		return forces;
+	}
+
+	/**
+	 * Appends a record. The record is not necessarily durable until {@link #commit(long)} returns.
+	 * 
+	 * @param type
+	 *            the type of the operation ({@link #INSERT} or {@link #DELETE}).
+	 * @param key
+	 *            the key of the operation.
+	 * @param value
+	 *            the value of the operation.
+	 * @return the LSN of the record.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public synchronized long append(byte type, K key, V value) throws IOException {
+		if (pending.remaining() < recordSize) {
+			if (durability == Durability.ASYNC && !flushing)
+				write(pending);
+			else { // grow the buffer while a group commit leader is writing
+				ByteBuffer b = newBuffer(2 * pending.capacity());
+				pending.flip();
+				b.put(pending);
+				pending = b;
+			}
+		}
+		int offset = pending.position();
+		pending.put(type);
+		keyCodec.write(pending, offset + 1, key);
+		valueCodec.write(pending, offset + 1 + keyCodec.width(), value);
+		CRC32 crc = new CRC32();
+		crc.update(pending.array(), offset, recordSize - Integer.BYTES);
+		pending.putInt(offset + recordSize - Integer.BYTES, (int) crc.getValue());
+		pending.position(offset + recordSize);
+		appended += recordSize;
+		return appended;
+	}
+
+	/**
+	 * Writes the contents of the specified buffer at the end of the log file and clears the buffer.
+	 * 
+	 * @param buffer
+	 *            a buffer holding records.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	void write(ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		long position = HEADER + written - base;
+		int n = buffer.remaining();
+		while (buffer.hasRemaining())
+			channel.write(buffer, position + buffer.position());
+		buffer.clear();
+		written += n;
+	}
+
+	/**
+	 * Waits until the record with the specified LSN is durable, as far as the durability mode requires.
+	 * 
+	 * @param lsn
+	 *            the LSN of a record.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public void commit(long lsn) throws IOException {
+		switch (durability) {
+		case ASYNC:
+			return;
+		case SYNC:
+			synchronized (this) {
+				if (durable < lsn) {
+					write(pending);
+					channel.force(false);
+					forces++;
+					durable = written;
+				}
+			}
+			return;
+		default:
+			groupCommit(lsn);
+		}
+	}
+
+	/**
+	 * Waits until the record with the specified LSN has been forced, forcing the log as the group commit leader if no
+	 * other thread is doing so.
+	 * 
+	 * @param lsn
+	 *            the LSN of a record.
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	void groupCommit(long lsn) throws IOException {
+		ByteBuffer batch;
+		synchronized (this) {
+			while (flushing && durable < lsn)
+				waitForLeader();
+			if (durable >= lsn)
+				return;
+			flushing = true; // become the leader
+			batch = pending;
+			pending = spare;
+			spare = batch;
+		}
+		boolean done = false;
+		try {
+			write(batch); // only the leader touches the written part of the file
+			channel.force(false);
+			done = true;
+		} finally {
+			synchronized (this) {
+				flushing = false;
+				if (done) {
+					forces++;
+					durable = written;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits for the group commit leader to finish.
+	 * 
+	 * @throws IOException
+	 *             if the waiting thread is interrupted.
+	 */
+	void waitForLeader() throws IOException {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new java.io.InterruptedIOException();
+		}
+	}
+
+	/**
+	 * Writes and forces all appended records.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public synchronized void sync() throws IOException {
+		while (flushing)
+			waitForLeader();
+		write(pending);
+		channel.force(false);
+		forces++;
+		durable = written;
+	}
+
+	/**
+	 * Replaces the log file with an empty one whose first record will follow the last appended record. This is called
+	 * right after a checkpoint that covers every appended record. The new file is written aside and renamed over the
+	 * old one, so a crash leaves either the old log or the new one.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public synchronized void restart() throws IOException {
+		sync();
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		create(tmp, appended);
+		channel.close();
+		replace(tmp, file);
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		base = appended;
+	}
+
+	/**
+	 * Forces all appended records and closes the log file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		sync();
+		channel.close();
+	}
+
+}
@@ -0,0 +1,245 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code BLinkTree} against a multiset of entries, with copies of a key on both sides of a high key, and with
+ * several threads.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BLinkTreeTest {
+
+	@Test
+	public void findsCopiesLeftOfAnEqualHighKey() {
+		BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(4);
+		for (int i = 0; i < 12; i++)
+			tree.insert(5, i);
+		for (int copies = 12; copies > 0; copies--) {
+			assertNotNull(tree.get(5), copies + " copies left");
+			assertEquals(copies, entries(tree, 5, 6).size());
+			assertNotNull(tree.remove(5), copies + " copies left");
+		}
+		assertNull(tree.get(5));
+		assertNull(tree.remove(5));
+		assertTrue(entries(tree, null, null).isEmpty());
+	}
+
+	@Test
+	public void removesTheGivenCopy() {
+		BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(4);
+		List<Integer> values = new ArrayList<Integer>();
+		for (int i = 0; i < 12; i++) {
+			tree.insert(5, i);
+			values.add(i);
+		}
+		tree.insert(6, 0);
+		Collections.shuffle(values, new Random(0));
+		for (int v : values) {
+			assertTrue(tree.remove(5, v), "copy " + v);
+			assertFalse(tree.remove(5, v), "copy " + v);
+			for (Map.Entry<Integer, Integer> e : entries(tree, 5, 6))
+				assertNotEquals(v, e.getValue());
+		}
+		assertNull(tree.get(5));
+		assertEquals(List.of(Map.entry(6, 0)), entries(tree, null, null));
+	}
+
+	@Test
+	public void matchesMultisetUnderRandomOperations() {
+		for (int degree : new int[] { 3, 4, 5, 8, 16 }) {
+			BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(degree);
+			Random random = new Random(degree);
+			TreeMap<Integer, List<Integer>> model = new TreeMap<Integer, List<Integer>>();
+			int range = 2 + random.nextInt(4 * degree);
+			for (int op = 0; op < 10000; op++) {
+				int key = random.nextInt(range);
+				switch (random.nextInt(10)) {
+				case 0:
+				case 1:
+				case 2:
+				case 3:
+					tree.insert(key, op);
+					model.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(op);
+					break;
+				case 4:
+				case 5:
+				case 6:
+					BPlusTreeTest.removed(model, key, tree.remove(key));
+					break;
+				case 7:
+					BPlusTreeTest.found(model, key, tree.get(key));
+					break;
+				case 8: {
+					List<Map.Entry<Integer, Integer>> batch = new ArrayList<Map.Entry<Integer, Integer>>();
+					for (int i = random.nextInt(3 * degree); i > 0; i--) {
+						batch.add(Map.entry(random.nextInt(range), op));
+						model.computeIfAbsent(batch.get(batch.size() - 1).getKey(), k -> new ArrayList<Integer>())
+								.add(op);
+					}
+					tree.insertAll(batch);
+					break;
+				}
+				default: {
+					Integer[] keys = new Integer[random.nextInt(3 * degree)];
+					for (int i = 0; i < keys.length; i++)
+						keys[i] = random.nextInt(range);
+					Integer[] out = new Integer[keys.length];
+					tree.getAll(keys, out);
+					for (int i = 0; i < keys.length; i++)
+						BPlusTreeTest.found(model, keys[i], out[i]);
+					tree.deleteAll(Arrays.asList(keys));
+					TreeMap<Integer, Integer> deleted = new TreeMap<Integer, Integer>();
+					for (Integer k : keys)
+						deleted.merge(k, 1, Integer::sum);
+					for (Map.Entry<Integer, Integer> e : deleted.entrySet())
+						retained(model, e.getKey(), e.getValue(), tree);
+					break;
+				}
+				}
+				if (op % 1000 == 0) {
+					assertEquals(BPlusTreeTest.sorted(model), BPlusTreeTest.sorted(entries(tree, null, null)));
+					int from = random.nextInt(range);
+					int to = from + random.nextInt(4);
+					assertEquals(BPlusTreeTest.count(new TreeMap<Integer, List<Integer>>(model.subMap(from, to))),
+							entries(tree, from, to).size(), "range [" + from + ", " + to + ")");
+				}
+			}
+			assertEquals(BPlusTreeTest.sorted(model), BPlusTreeTest.sorted(entries(tree, null, null)));
+			while (!model.isEmpty()) {
+				int key = model.firstKey();
+				BPlusTreeTest.removed(model, key, tree.remove(key));
+			}
+			assertTrue(entries(tree, null, null).isEmpty());
+		}
+	}
+
+	@Test
+	public void concurrentUpdatesKeepEveryEntry() throws Exception {
+		BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(4);
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		for (int k = 0; k < 1000; k++) { // entries that readers must always find
+			tree.insert(-1 - k, k);
+			expected.put(-1 - k, k);
+		}
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<TreeMap<Integer, Integer>>> workers = new ArrayList<Future<TreeMap<Integer, Integer>>>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				workers.add(executor.submit(() -> ConcurrentBPlusTreeTest.churn(tree, thread, threads)));
+			}
+			for (Future<TreeMap<Integer, Integer>> f : workers)
+				expected.putAll(f.get());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet()), entries(tree, null, null));
+	}
+
+	@Test
+	public void concurrentUpdatesOfFewKeysKeepEveryCopy() throws Exception {
+		BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(4);
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<String> expected = new ArrayList<String>();
+		try {
+			List<Future<List<String>>> workers = new ArrayList<Future<List<String>>>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				workers.add(executor.submit(() -> {
+					Random random = new Random(thread);
+					List<String> inserted = new ArrayList<String>(); // and the removed ones, marked with a minus
+					for (int op = 0; op < 5000; op++) {
+						int key = random.nextInt(20);
+						if (random.nextInt(3) > 0) {
+							tree.insert(key, thread * 100000 + op);
+							inserted.add(key + "=" + (thread * 100000 + op));
+						} else {
+							Integer value = tree.remove(key); // may be a copy inserted by another thread
+							if (value != null)
+								inserted.add(key + "=-" + value);
+						}
+					}
+					return inserted;
+				}));
+			}
+			for (Future<List<String>> f : workers)
+				expected.addAll(f.get());
+		} finally {
+			executor.shutdown();
+		}
+		List<String> removed = new ArrayList<String>();
+		for (String e : expected)
+			if (e.contains("=-"))
+				removed.add(e.replace("=-", "="));
+		expected.removeIf(e -> e.contains("=-"));
+		for (String e : removed)
+			assertTrue(expected.remove(e), "removed " + e + " twice or without inserting it");
+		expected.sort(null);
+		assertEquals(expected, BPlusTreeTest.sorted(entries(tree, null, null)));
+	}
+
+	@Test
+	public void rejectsCompaction() {
+		BLinkTree<Integer, Integer> tree = new BLinkTree<Integer, Integer>(8);
+		for (int i = 0; i < 1000; i++)
+			tree.insert(i, i);
+		for (int i = 0; i < 1000; i += 2)
+			tree.remove(i);
+		assertThrows(UnsupportedOperationException.class, () -> tree.compact(0.9, 2));
+		assertThrows(UnsupportedOperationException.class, () -> tree.compact(0.9));
+		int count = 0;
+		for (Iterator<Map.Entry<Integer, Integer>> i = tree.entries(null, null); i.hasNext(); count++)
+			assertEquals(2 * count + 1, i.next().getKey());
+		assertEquals(500, count);
+	}
+
+	/**
+	 * Checks that deleting the specified number of copies of the specified key left the right number of copies in the
+	 * tree, all of which were inserted, and makes the model hold exactly them.
+	 */
+	static void retained(TreeMap<Integer, List<Integer>> model, int key, int deleted, BLinkTree<Integer, Integer> tree) {
+		List<Integer> inserted = model.remove(key);
+		List<Integer> left = new ArrayList<Integer>();
+		for (Map.Entry<Integer, Integer> e : entries(tree, key, key + 1))
+			left.add(e.getValue());
+		int expected = inserted == null ? 0 : Math.max(0, inserted.size() - deleted);
+		assertEquals(expected, left.size(), "copies of key " + key);
+		for (Integer v : left)
+			assertTrue(inserted.remove(v), "value " + v + " of key " + key + " was not inserted");
+		if (!left.isEmpty())
+			model.put(key, left);
+	}
+
+	/**
+	 * Returns the entries of the specified {@code BLinkTree} from {@link BLinkTree#entries(Comparable, Comparable)}.
+	 */
+	static List<Map.Entry<Integer, Integer>> entries(BLinkTree<Integer, Integer> tree, Integer from, Integer to) {
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		tree.entries(from, to).forEachRemaining(e -> entries.add(Map.entry(e.getKey(), e.getValue())));
+		return entries;
+	}
+
+}
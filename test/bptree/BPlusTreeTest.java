@@ -0,0 +1,271 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code BPlusTree}, {@code PersistentBPlusTree} and {@code ConcurrentBPlusTree} against a multiset of
+ * entries, with few distinct keys so that copies of a key straddle separators.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BPlusTreeTest {
+
+	@Test
+	public void removeFindsCopiesLeftOfAnEqualSeparator() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(8);
+		int[] keys = { 17, 28, 15, 0, 15, 13, 2, 28, 16 };
+		for (int i = 0; i < keys.length; i++)
+			tree.insert(keys[i], i);
+		List<Integer> removed = new ArrayList<Integer>();
+		removed.add(tree.remove(15));
+		removed.add(tree.remove(15));
+		removed.sort(null);
+		assertEquals(Arrays.asList(2, 4), removed);
+		assertNull(tree.get(15));
+		assertFalse(tree.range(15, true, 15, true).next());
+		assertNull(tree.remove(15));
+	}
+
+	@Test
+	public void getAllAndDeleteAllFindEveryCopy() {
+		for (BPlusTree<Integer, Integer> tree : trees(4)) {
+			for (int i = 0; i < 40; i++) {
+				tree.insert(i, i);
+				tree.insert(20, 100 + i); // copies of 20 spread over several leaves
+			}
+			Integer[] keys = new Integer[40];
+			Arrays.fill(keys, 20);
+			Integer[] out = new Integer[keys.length];
+			tree.getAll(keys, out);
+			for (Integer v : out)
+				assertNotNull(v);
+			tree.deleteAll(Arrays.asList(keys));
+			assertNotNull(tree.get(20)); // one of the 41 copies is left
+			assertNotNull(tree.remove(20));
+			assertNull(tree.get(20));
+			check(tree);
+			assertEquals(39, tree.stream().count());
+		}
+	}
+
+	@Test
+	public void appendsOnlyKeysGreaterThanTheLast() {
+		List<List<Map.Entry<Integer, Integer>>> results = new ArrayList<List<Map.Entry<Integer, Integer>>>();
+		for (BPlusTree<Integer, Integer> tree : trees(8)) { // PersistentBPlusTree caches no rightmost leaf
+			int[] keys = { 1, 5, 5, 5, 7, 7, 9 };
+			for (int i = 0; i < keys.length; i++)
+				tree.insert(keys[i], i);
+			results.add(entries(tree));
+		}
+		for (List<Map.Entry<Integer, Integer>> r : results)
+			assertEquals(results.get(0), r);
+	}
+
+	@Test
+	public void matchesMultisetUnderRandomOperations() {
+		for (int degree : new int[] { 3, 4, 5, 8, 16 }) {
+			for (BPlusTree<Integer, Integer> tree : trees(degree)) {
+				Random random = new Random(degree);
+				TreeMap<Integer, List<Integer>> model = new TreeMap<Integer, List<Integer>>();
+				PersistentBPlusTree<Integer, Integer> snapshot = null;
+				List<Map.Entry<Integer, Integer>> snapshotEntries = null;
+				int range = 2 + random.nextInt(4 * degree);
+				for (int op = 0; op < 20000; op++) {
+					if (op == 10000 && tree instanceof PersistentBPlusTree) {
+						snapshot = ((PersistentBPlusTree<Integer, Integer>) tree).snapshot();
+						snapshotEntries = entries(snapshot);
+					}
+					int key = random.nextInt(range);
+					switch (random.nextInt(10)) {
+					case 0:
+					case 1:
+					case 2:
+					case 3:
+						tree.insert(key, op);
+						model.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(op);
+						break;
+					case 4:
+					case 5:
+					case 6:
+						removed(model, key, tree.remove(key));
+						break;
+					case 7:
+						found(model, key, tree.get(key));
+						break;
+					case 8: {
+						List<Map.Entry<Integer, Integer>> batch = new ArrayList<Map.Entry<Integer, Integer>>();
+						for (int i = random.nextInt(3 * degree); i > 0; i--) {
+							batch.add(Map.entry(random.nextInt(range), op));
+							model.computeIfAbsent(batch.get(batch.size() - 1).getKey(), k -> new ArrayList<Integer>())
+									.add(op);
+						}
+						tree.insertAll(batch);
+						break;
+					}
+					default: {
+						Integer[] keys = new Integer[random.nextInt(3 * degree)];
+						for (int i = 0; i < keys.length; i++)
+							keys[i] = random.nextInt(range);
+						Integer[] out = new Integer[keys.length];
+						tree.getAll(keys, out);
+						for (int i = 0; i < keys.length; i++)
+							found(model, keys[i], out[i]);
+						tree.deleteAll(Arrays.asList(keys));
+						TreeMap<Integer, Integer> deleted = new TreeMap<Integer, Integer>();
+						for (Integer k : keys)
+							deleted.merge(k, 1, Integer::sum);
+						for (Map.Entry<Integer, Integer> e : deleted.entrySet())
+							retained(model, e.getKey(), e.getValue(), tree);
+						break;
+					}
+					}
+					if (op % 1000 == 0)
+						assertEquals(count(model), check(tree));
+				}
+				assertEquals(sorted(model), sorted(entries(tree)));
+				while (!model.isEmpty()) {
+					int key = model.firstKey();
+					removed(model, key, tree.remove(key));
+				}
+				assertTrue(tree.root() == null || tree.root().numberOfKeys() == 0);
+				if (snapshot != null)
+					assertEquals(snapshotEntries, entries(snapshot));
+			}
+		}
+	}
+
+	/**
+	 * Returns an empty {@code BPlusTree}, {@code PersistentBPlusTree} and {@code ConcurrentBPlusTree} of the specified
+	 * degree.
+	 */
+	static List<BPlusTree<Integer, Integer>> trees(int degree) {
+		return Arrays.asList(new BPlusTree<Integer, Integer>(degree), new PersistentBPlusTree<Integer, Integer>(degree),
+				new ConcurrentBPlusTree<Integer, Integer>(degree));
+	}
+
+	/**
+	 * Checks that the specified value was stored with the specified key and removes it from the model.
+	 */
+	static void removed(TreeMap<Integer, List<Integer>> model, int key, Integer value) {
+		List<Integer> values = model.get(key);
+		if (values == null) {
+			assertNull(value, "removed a missing key " + key);
+			return;
+		}
+		assertTrue(values.remove(value), "removed " + value + " for key " + key + " not in " + values);
+		if (values.isEmpty())
+			model.remove(key);
+	}
+
+	/**
+	 * Checks that deleting the specified number of copies of the specified key left the right number of copies in the
+	 * tree, all of which were inserted, and makes the model hold exactly them.
+	 */
+	static void retained(TreeMap<Integer, List<Integer>> model, int key, int deleted, BPlusTree<Integer, Integer> tree) {
+		List<Integer> inserted = model.remove(key);
+		List<Integer> left = new ArrayList<Integer>();
+		Cursor<Integer, Integer> cursor = tree.range(key, true, key, true);
+		while (cursor.next())
+			left.add(cursor.value());
+		int expected = inserted == null ? 0 : Math.max(0, inserted.size() - deleted);
+		assertEquals(expected, left.size(), "copies of key " + key);
+		for (Integer v : left)
+			assertTrue(inserted.remove(v), "value " + v + " of key " + key + " was not inserted");
+		if (!left.isEmpty())
+			model.put(key, left);
+	}
+
+	/**
+	 * Checks that the specified value is stored with the specified key, or that the key is missing.
+	 */
+	static void found(TreeMap<Integer, List<Integer>> model, int key, Integer value) {
+		List<Integer> values = model.get(key);
+		if (values == null)
+			assertNull(value, "found a missing key " + key);
+		else
+			assertTrue(values.contains(value), "found " + value + " for key " + key + " not in " + values);
+	}
+
+	static int count(TreeMap<Integer, List<Integer>> model) {
+		int count = 0;
+		for (List<Integer> values : model.values())
+			count += values.size();
+		return count;
+	}
+
+	static List<Map.Entry<Integer, Integer>> entries(BPlusTree<Integer, Integer> tree) {
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		Cursor<Integer, Integer> cursor = tree.range(null, true, null, true);
+		while (cursor.next())
+			entries.add(Map.entry(cursor.key(), cursor.value()));
+		return entries;
+	}
+
+	static List<String> sorted(TreeMap<Integer, List<Integer>> model) {
+		List<String> entries = new ArrayList<String>();
+		for (Map.Entry<Integer, List<Integer>> e : model.entrySet())
+			for (Integer v : e.getValue())
+				entries.add(e.getKey() + "=" + v);
+		entries.sort(null);
+		return entries;
+	}
+
+	static List<String> sorted(List<Map.Entry<Integer, Integer>> entries) {
+		List<String> list = new ArrayList<String>();
+		for (Map.Entry<Integer, Integer> e : entries)
+			list.add(e.getKey() + "=" + e.getValue());
+		list.sort(null);
+		return list;
+	}
+
+	/**
+	 * Checks the structure of the specified tree: the keys of each {@code Node} are sorted, the keys of each child lie
+	 * between the separators around it (copies of a separator may be on both sides), every {@code NonLeafNode} has a
+	 * key, and all {@code LeafNode}s are at the same depth.
+	 *
+	 * @return the number of entries in the tree.
+	 */
+	static int check(BPlusTree<Integer, Integer> tree) {
+		if (tree.root() == null)
+			return 0;
+		int[] entries = new int[1];
+		check(tree.root(), null, null, entries);
+		return entries[0];
+	}
+
+	static int check(Node<Integer> node, Integer low, Integer high, int[] entries) {
+		for (int i = 0; i < node.numberOfKeys(); i++) {
+			Integer k = node.key(i);
+			assertTrue(low == null || k >= low, "key " + k + " below " + low);
+			assertTrue(high == null || k <= high, "key " + k + " above " + high);
+			assertTrue(i == 0 || node.key(i - 1) <= k, "keys out of order");
+		}
+		if (node instanceof LeafNode) {
+			entries[0] += node.numberOfKeys();
+			return 0;
+		}
+		NonLeafNode<Integer> p = (NonLeafNode<Integer>) node;
+		assertTrue(p.numberOfKeys() > 0, "non-leaf node without keys");
+		int height = -1;
+		for (int i = 0; i <= p.numberOfKeys(); i++) {
+			int h = check(p.child(i), i == 0 ? low : p.key(i - 1), i == p.numberOfKeys() ? high : p.key(i), entries);
+			assertTrue(height < 0 || h == height, "leaves at different depths");
+			height = h;
+		}
+		return height + 1;
+	}
+
+}
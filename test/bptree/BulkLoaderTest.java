@@ -0,0 +1,128 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@code BPlusTree.bulkLoad} builds the same entries as inserting them one by one, with the
+ * {@code LeafNode}s packed to the requested fill factor and the tree still usable for updates.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BulkLoaderTest {
+
+	@Test
+	public void matchesInsertsAtSeveralFillFactors() {
+		Random random = new Random(0);
+		for (int degree : new int[] { 3, 4, 5, 8, 16, 64 })
+			for (double fillFactor : new double[] { 0.01, 0.5, 0.7, 1 })
+				for (int size : new int[] { 0, 1, degree - 1, degree, degree + 1, 2 * degree, 1000, 3000 }) {
+					List<Map.Entry<Integer, Integer>> entries = sortedEntries(random, size);
+					BPlusTree<Integer, Integer> loaded = new BPlusTree<Integer, Integer>(degree);
+					loaded.insert(-1, -1); // replaced by the load
+					loaded.bulkLoad(entries.iterator(), fillFactor);
+					BPlusTree<Integer, Integer> inserted = new BPlusTree<Integer, Integer>(degree);
+					for (Map.Entry<Integer, Integer> e : entries)
+						inserted.insert(e.getKey(), e.getValue());
+					String context = "degree " + degree + ", fill factor " + fillFactor + ", size " + size;
+					assertEquals(entries, BPlusTreeTest.entries(loaded), context);
+					assertEquals(BPlusTreeTest.sorted(BPlusTreeTest.entries(inserted)),
+							BPlusTreeTest.sorted(BPlusTreeTest.entries(loaded)), context);
+					assertEquals(size, BPlusTreeTest.check(loaded), context);
+					checkFill(loaded, fillFactor, context);
+					for (Map.Entry<Integer, Integer> e : entries)
+						assertEquals(e.getKey(), loaded.get(e.getKey()) / 10, context);
+					assertNull(loaded.get(-1), context);
+				}
+	}
+
+	@Test
+	public void acceptsUpdatesAfterLoading() {
+		Random random = new Random(1);
+		for (double fillFactor : new double[] { 0.5, 1 }) {
+			List<Map.Entry<Integer, Integer>> entries = sortedEntries(random, 3000);
+			BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(8);
+			tree.bulkLoad(entries.iterator(), fillFactor);
+			TreeMap<Integer, List<Integer>> model = new TreeMap<Integer, List<Integer>>();
+			for (Map.Entry<Integer, Integer> e : entries)
+				model.computeIfAbsent(e.getKey(), k -> new ArrayList<Integer>()).add(e.getValue());
+			for (int op = 0; op < 5000; op++) {
+				int key = random.nextInt(1100);
+				if (random.nextBoolean()) {
+					tree.insert(key, 10 * key + 9);
+					model.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(10 * key + 9);
+				} else
+					BPlusTreeTest.removed(model, key, tree.remove(key));
+			}
+			assertEquals(BPlusTreeTest.count(model), BPlusTreeTest.check(tree));
+			assertEquals(BPlusTreeTest.sorted(model), BPlusTreeTest.sorted(BPlusTreeTest.entries(tree)));
+			tree.insert(100000, 0); // appends to the rightmost leaf, which the load must not leave stale
+			assertEquals(0, tree.get(100000));
+			assertEquals(BPlusTreeTest.count(model) + 1, BPlusTreeTest.check(tree));
+		}
+	}
+
+	@Test
+	public void rejectsUnsortedEntries() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		for (int k = 0; k < 20; k++)
+			tree.insert(k, k);
+		List<Map.Entry<Integer, Integer>> before = BPlusTreeTest.entries(tree);
+		List<Map.Entry<Integer, Integer>> unsorted = List.of(Map.entry(1, 1), Map.entry(3, 3), Map.entry(2, 2));
+		assertThrows(IllegalArgumentException.class, () -> tree.bulkLoad(unsorted.iterator(), 1));
+		assertEquals(before, BPlusTreeTest.entries(tree));
+		assertThrows(IllegalArgumentException.class, () -> tree.bulkLoad(before.iterator(), 0));
+		assertThrows(IllegalArgumentException.class, () -> tree.bulkLoad(before.iterator(), 1.5));
+	}
+
+	/**
+	 * Returns the specified number of entries in key order, with keys from 0 to about 1000 so that larger inputs hold
+	 * runs of equal keys. The value of an entry is ten times its key plus a digit.
+	 */
+	static List<Map.Entry<Integer, Integer>> sortedEntries(Random random, int size) {
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		int key = 0;
+		for (int i = 0; i < size; i++) {
+			entries.add(Map.entry(key, 10 * key + random.nextInt(9)));
+			key += random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(size < 1000 ? 3 : 1);
+		}
+		return entries;
+	}
+
+	/**
+	 * Checks that the {@code LeafNode}s of the specified tree, followed along their chain, are all filled to the
+	 * capacity implied by the fill factor except for the last two, which share the remainder, and that none but the
+	 * root is below the minimum occupancy.
+	 */
+	static void checkFill(BPlusTree<Integer, Integer> tree, double fillFactor, String context) {
+		if (tree.root() == null)
+			return;
+		int capacity = Math.max(tree.leafMinimum, (int) Math.round(fillFactor * (tree.degree() - 1)));
+		List<Integer> sizes = new ArrayList<Integer>();
+		Node<Integer> n = tree.root();
+		while (n instanceof NonLeafNode)
+			n = ((NonLeafNode<Integer>) n).child(0);
+		for (LeafNode<Integer, Integer> l = (LeafNode<Integer, Integer>) n; l != null; l = l.successor())
+			sizes.add(l.numberOfKeys());
+		for (int i = 0; i < sizes.size(); i++) {
+			int s = sizes.get(i);
+			if (i < sizes.size() - 2)
+				assertEquals(capacity, s, context + ", leaf " + i + " of " + sizes);
+			else // a leaf merged with the remainder may exceed the capacity
+				assertTrue((s >= tree.leafMinimum || sizes.size() == 1) && s < tree.degree(),
+						context + ", leaf " + i + " of " + sizes);
+		}
+		assertEquals(tree.stats().leaves(), sizes.size(), context);
+	}
+
+}
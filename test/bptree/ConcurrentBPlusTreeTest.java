@@ -0,0 +1,136 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code ConcurrentBPlusTree} with several threads.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ConcurrentBPlusTreeTest {
+
+	@Test
+	public void concurrentUpdatesKeepEveryEntry() throws Exception {
+		ConcurrentBPlusTree<Integer, Integer> tree = new ConcurrentBPlusTree<Integer, Integer>(4);
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		for (int k = 0; k < 1000; k++) { // entries that readers must always find
+			tree.insert(-1 - k, k);
+			expected.put(-1 - k, k);
+		}
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<TreeMap<Integer, Integer>>> workers = new ArrayList<Future<TreeMap<Integer, Integer>>>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				workers.add(executor.submit(() -> churn(tree, thread, threads)));
+			}
+			for (Future<TreeMap<Integer, Integer>> f : workers)
+				expected.putAll(f.get());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(expected.size(), BPlusTreeTest.check(tree));
+		assertEquals(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet()), BPlusTreeTest.entries(tree));
+	}
+
+	/**
+	 * Inserts and removes the keys of the specified thread, which are those congruent to it modulo the number of
+	 * threads, while checking that the negative keys inserted beforehand can always be found.
+	 *
+	 * @return the entries of the specified thread left in the tree.
+	 */
+	static TreeMap<Integer, Integer> churn(BPlusTree<Integer, Integer> tree, int thread, int threads) {
+		Random random = new Random(thread);
+		TreeMap<Integer, Integer> own = new TreeMap<Integer, Integer>();
+		for (int op = 0; op < 20000; op++) {
+			int key = random.nextInt(2000) * threads + thread;
+			Integer value = own.remove(key);
+			if (value != null)
+				assertEquals(value, tree.remove(key), "removal of key " + key);
+			else {
+				tree.insert(key, op);
+				own.put(key, op);
+			}
+			int stable = random.nextInt(1000);
+			assertEquals(stable, tree.get(-1 - stable), "lookup of key " + (-1 - stable));
+			if (op % 100 == 0)
+				assertEquals(own.get(key), tree.get(key), "lookup of key " + key);
+		}
+		return own;
+	}
+
+	@Test
+	public void compactionStepsFromSeveralThreadsAreSerialized() throws Exception {
+		ConcurrentBPlusTree<Integer, Integer> tree = new ConcurrentBPlusTree<Integer, Integer>(8);
+		Random random = new Random(1);
+		for (int i = 0; i < 20000; i++)
+			tree.insert(random.nextInt(5000), i);
+		for (int i = 0; i < 15000; i++)
+			tree.remove(random.nextInt(5000));
+		List<Map.Entry<Integer, Integer>> expected = BPlusTreeTest.entries(tree);
+		double before = tree.stats().leafFillFactor();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> steps = new ArrayList<Future<?>>();
+			for (int t = 0; t < 4; t++)
+				steps.add(executor.submit(() -> {
+					while (!tree.compact(0.9, 4))
+						;
+				}));
+			for (Future<?> f : steps)
+				f.get();
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(expected.size(), BPlusTreeTest.check(tree));
+		assertEquals(expected, BPlusTreeTest.entries(tree));
+		assertTrue(tree.stats().leafFillFactor() > before);
+	}
+
+	@Test
+	public void compactionStepsInterleaveWithUpdates() throws Exception {
+		ConcurrentBPlusTree<Integer, Integer> tree = new ConcurrentBPlusTree<Integer, Integer>(4);
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		for (int k = 0; k < 1000; k++) { // entries that readers must always find
+			tree.insert(-1 - k, k);
+			expected.put(-1 - k, k);
+		}
+		int threads = 3;
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		try {
+			List<Future<TreeMap<Integer, Integer>>> workers = new ArrayList<Future<TreeMap<Integer, Integer>>>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				workers.add(executor.submit(() -> churn(tree, thread, threads)));
+			}
+			Future<Integer> compactor = executor.submit(() -> {
+				int passes = 0;
+				while (workers.stream().anyMatch(f -> !f.isDone()))
+					if (tree.compact(0.9, 4))
+						passes++;
+				return passes;
+			});
+			for (Future<TreeMap<Integer, Integer>> f : workers)
+				expected.putAll(f.get());
+			assertTrue(compactor.get() > 0);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(expected.size(), BPlusTreeTest.check(tree));
+		assertEquals(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet()), BPlusTreeTest.entries(tree));
+	}
+
+}
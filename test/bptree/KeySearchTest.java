@@ -0,0 +1,94 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that every {@code KeySearch}, {@code LongKeySearch} and {@code VectorKeySearch} strategy returns the same lower
+ * and upper bounds as a plain scan, over sorted keys with duplicates and search keys at both ends.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class KeySearchTest {
+
+	@Test
+	public void strategiesAgree() {
+		assertTrue(VectorKeySearch.isAvailable(), "the tests run with --add-modules jdk.incubator.vector");
+		Random random = new Random(0);
+		for (int degree : new int[] { 3, 4, 16, 17, 64, 256 })
+			for (int n = 0; n <= degree; n++)
+				for (int trial = 0; trial < 6; trial++) {
+					long[] keys = keys(random, degree, n, trial % 2 == 0 ? 4 : 1000); // few distinct keys or many
+					for (long key : searchKeys(random, keys, n))
+						check(keys, n, key);
+				}
+	}
+
+	/**
+	 * Returns {@code degree} keys whose first {@code n} are sorted and drawn from {@code range} distinct values; the
+	 * slots past {@code n} hold smaller values, which the searches must ignore.
+	 */
+	static long[] keys(Random random, int degree, int n, int range) {
+		long[] keys = new long[degree];
+		for (int i = 0; i < n; i++)
+			keys[i] = random.nextInt(range) - range / 2;
+		Arrays.sort(keys, 0, n);
+		for (int i = n; i < degree; i++)
+			keys[i] = Long.MIN_VALUE;
+		return keys;
+	}
+
+	/**
+	 * Returns search keys below, at and above both ends of the first {@code n} keys, and some keys from between them.
+	 */
+	static long[] searchKeys(Random random, long[] keys, int n) {
+		long first = n == 0 ? 0 : keys[0];
+		long last = n == 0 ? 0 : keys[n - 1];
+		long[] search = new long[12];
+		search[0] = Long.MIN_VALUE + 1;
+		search[1] = first - 1;
+		search[2] = first;
+		search[3] = last;
+		search[4] = last + 1;
+		search[5] = Long.MAX_VALUE;
+		for (int i = 6; i < search.length; i++)
+			search[i] = n == 0 ? random.nextInt(10) : keys[random.nextInt(n)] + random.nextInt(3) - 1;
+		return search;
+	}
+
+	static void check(long[] keys, int n, long key) {
+		int lower = 0;
+		while (lower < n && keys[lower] < key)
+			lower++;
+		int upper = lower;
+		while (upper < n && keys[upper] <= key)
+			upper++;
+		String context = "key " + key + " in " + Arrays.toString(Arrays.copyOf(keys, n));
+		Long[] boxed = new Long[keys.length];
+		for (int i = 0; i < keys.length; i++)
+			boxed[i] = keys[i];
+		for (KeySearch s : KeySearch.values()) {
+			assertEquals(lower, s.lowerBound(boxed, n, key), s + " lowerBound of " + context);
+			assertEquals(upper, s.upperBound(boxed, n, key), s + " upperBound of " + context);
+		}
+		for (LongKeySearch s : LongKeySearch.values()) {
+			assertEquals(lower, s.lowerBound(keys, n, key), s + " lowerBound of " + context);
+			assertEquals(upper, s.upperBound(keys, n, key), s + " upperBound of " + context);
+		}
+		assertEquals(lower, VectorKeySearch.lowerBound(keys, n, key), "VectorKeySearch lowerBound of " + context);
+		assertEquals(upper, VectorKeySearch.upperBound(keys, n, key), "VectorKeySearch upperBound of " + context);
+		if (key >= Integer.MIN_VALUE && key <= Integer.MAX_VALUE) {
+			int[] ints = new int[keys.length];
+			for (int i = 0; i < keys.length; i++)
+				ints[i] = (int) Math.max(keys[i], Integer.MIN_VALUE);
+			assertEquals(lower, VectorKeySearch.lowerBound(ints, n, (int) key), "int lowerBound of " + context);
+			assertEquals(upper, VectorKeySearch.upperBound(ints, n, (int) key), "int upperBound of " + context);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@code LongBPlusTree} and {@code LongLongBPlusTree} against a multiset of entries, with few distinct keys so
+ * that copies of a key straddle separators.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LongBPlusTreeTest {
+
+	@Test
+	public void removeFindsCopiesLeftOfAnEqualSeparator() {
+		LongBPlusTree<Integer> tree = new LongBPlusTree<Integer>(8);
+		LongLongBPlusTree longs = new LongLongBPlusTree(8);
+		long[] keys = { 17, 28, 15, 0, 15, 13, 2, 28, 16 };
+		for (int i = 0; i < keys.length; i++) {
+			tree.insert(keys[i], i);
+			longs.insert(keys[i], i);
+		}
+		List<Integer> removed = new ArrayList<Integer>();
+		removed.add(tree.remove(15));
+		removed.add(tree.remove(15));
+		removed.sort(null);
+		assertEquals(List.of(2, 4), removed);
+		assertNull(tree.get(15));
+		assertNull(tree.remove(15));
+		assertTrue(longs.remove(15));
+		assertTrue(longs.remove(15));
+		assertFalse(longs.containsKey(15));
+		assertFalse(longs.remove(15));
+		assertEquals(7, tree.size());
+		assertEquals(7, longs.size());
+	}
+
+	@Test
+	public void matchesMultisetUnderRandomOperations() {
+		for (int degree : new int[] { 3, 4, 5, 8, 16 }) {
+			Random random = new Random(degree);
+			LongBPlusTree<Integer> tree = new LongBPlusTree<Integer>(degree);
+			LongLongBPlusTree longs = new LongLongBPlusTree(degree);
+			TreeMap<Long, List<Integer>> model = new TreeMap<Long, List<Integer>>();
+			int range = 2 + random.nextInt(4 * degree);
+			for (int op = 0; op < 20000; op++) {
+				long key = random.nextInt(range);
+				List<Integer> values = model.get(key);
+				switch (random.nextInt(4)) {
+				case 0:
+				case 1:
+					tree.insert(key, op);
+					longs.insert(key, 10 * key);
+					model.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(op);
+					break;
+				case 2: {
+					Integer value = tree.remove(key);
+					assertEquals(values != null, longs.remove(key), "removal of key " + key);
+					if (values == null) {
+						assertNull(value, "removed a missing key " + key);
+						break;
+					}
+					assertTrue(values.remove(value), "removed " + value + " for key " + key + " not in " + values);
+					if (values.isEmpty())
+						model.remove(key);
+					break;
+				}
+				default:
+					Integer value = tree.get(key);
+					assertTrue(values == null ? value == null : values.contains(value), "found " + value + " for " + key);
+					assertEquals(values != null, longs.containsKey(key));
+					assertEquals(values == null ? -1 : 10 * key, longs.get(key, -1));
+				}
+			}
+			List<String> expected = new ArrayList<String>();
+			for (List<Integer> values : model.values())
+				for (Integer v : values)
+					expected.add(Integer.toString(v));
+			expected.sort(null);
+			List<String> actual = new ArrayList<String>();
+			LongBPlusTree.Range<Integer> r = tree.range(Long.MIN_VALUE, true, Long.MAX_VALUE, true);
+			while (r.next())
+				actual.add(Integer.toString(r.value()));
+			actual.sort(null);
+			assertEquals(expected, actual);
+			assertEquals(expected.size(), longs.size());
+			while (!model.isEmpty()) {
+				long key = model.firstKey();
+				assertTrue(longs.remove(key));
+				assertTrue(model.get(key).remove(tree.remove(key)));
+				if (model.get(key).isEmpty())
+					model.remove(key);
+			}
+			assertNull(tree.root());
+			assertNull(longs.root());
+		}
+	}
+
+}
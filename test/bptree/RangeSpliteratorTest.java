@@ -0,0 +1,122 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that parallel streams over a {@code BPlusTree}, which split their {@code RangeSpliterator}s along subtrees,
+ * return the same entries in the same order as the sequential {@code Cursor}, on bounded and unbounded ranges.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class RangeSpliteratorTest {
+
+	@Test
+	public void parallelStreamsMatchTheCursor() {
+		Random random = new Random(0);
+		for (int degree : new int[] { 3, 4, 8, 64 })
+			for (int size : new int[] { 0, 1, degree, 1000, 20000 }) {
+				BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree);
+				int range = 1 + size / 3; // about three copies of each key
+				for (int i = 0; i < size; i++)
+					tree.insert(random.nextInt(range), i);
+				for (int trial = 0; trial < 30; trial++) {
+					Integer from = trial % 5 == 0 ? null : random.nextInt(range + 2) - 1;
+					Integer to = trial % 7 == 0 ? null : random.nextInt(range + 2) - 1;
+					if (from != null && to != null && from > to && random.nextBoolean()) { // mostly non-empty ranges
+						Integer t = from;
+						from = to;
+						to = t;
+					}
+					boolean fromInclusive = random.nextBoolean();
+					boolean toInclusive = random.nextBoolean();
+					String context = "degree " + degree + ", size " + size + ", range " + (fromInclusive ? "[" : "(")
+							+ from + ", " + to + (toInclusive ? "]" : ")");
+					List<Map.Entry<Integer, Integer>> expected = cursor(tree, from, fromInclusive, to, toInclusive);
+					assertEquals(expected,
+							tree.rangeStream(from, fromInclusive, to, toInclusive).collect(Collectors.toList()), context);
+					assertEquals(expected,
+							tree.rangeStream(from, fromInclusive, to, toInclusive).parallel().collect(Collectors.toList()),
+							context);
+					assertEquals(expected.size(), tree.rangeStream(from, fromInclusive, to, toInclusive).parallel().count(),
+							context);
+					assertEquals(expected, splitFully(new RangeSpliterator<Integer, Integer>(tree, from, fromInclusive, to,
+							toInclusive)), context);
+				}
+				assertEquals(size, tree.stream().parallel().count());
+				assertEquals(BPlusTreeTest.entries(tree), tree.stream().parallel().collect(Collectors.toList()));
+			}
+	}
+
+	@Test
+	public void splitsAlongSubtrees() {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(8);
+		for (int k = 0; k < 100000; k++)
+			tree.insert(k, k);
+		RangeSpliterator<Integer, Integer> s = new RangeSpliterator<Integer, Integer>(tree, null, true, null, true);
+		assertTrue(s.estimateSize() > 0);
+		List<Spliterator<Map.Entry<Integer, Integer>>> parts = new ArrayList<Spliterator<Map.Entry<Integer, Integer>>>();
+		split(s, 6, parts);
+		assertTrue(parts.size() >= 32, "only " + parts.size() + " parts");
+		int next = 0;
+		for (Spliterator<Map.Entry<Integer, Integer>> p : parts) {
+			int[] first = { -1 };
+			int[] count = { 0 };
+			p.forEachRemaining(e -> {
+				if (first[0] < 0)
+					first[0] = e.getKey();
+				count[0]++;
+			});
+			assertEquals(next, first[0]); // the parts are contiguous, in order and disjoint
+			next += count[0];
+		}
+		assertEquals(100000, next);
+	}
+
+	static List<Map.Entry<Integer, Integer>> cursor(BPlusTree<Integer, Integer> tree, Integer from,
+			boolean fromInclusive, Integer to, boolean toInclusive) {
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		Cursor<Integer, Integer> cursor = tree.range(from, fromInclusive, to, toInclusive);
+		while (cursor.next())
+			entries.add(Map.entry(cursor.key(), cursor.value()));
+		return entries;
+	}
+
+	/**
+	 * Splits the specified {@code Spliterator} as far as it goes and returns the entries of the parts in order.
+	 */
+	static List<Map.Entry<Integer, Integer>> splitFully(Spliterator<Map.Entry<Integer, Integer>> s) {
+		List<Spliterator<Map.Entry<Integer, Integer>>> parts = new ArrayList<Spliterator<Map.Entry<Integer, Integer>>>();
+		split(s, Integer.MAX_VALUE, parts);
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (Spliterator<Map.Entry<Integer, Integer>> p : parts) {
+			if (p.tryAdvance(e -> entries.add(Map.entry(e.getKey(), e.getValue())))) // one entry at a time, then the rest
+				p.forEachRemaining(e -> entries.add(Map.entry(e.getKey(), e.getValue())));
+		}
+		return entries;
+	}
+
+	/**
+	 * Splits the specified {@code Spliterator} up to the specified depth and adds the parts to the list in order.
+	 */
+	static void split(Spliterator<Map.Entry<Integer, Integer>> s, int depth,
+			List<Spliterator<Map.Entry<Integer, Integer>>> parts) {
+		Spliterator<Map.Entry<Integer, Integer>> prefix = depth > 0 ? s.trySplit() : null;
+		if (prefix == null) {
+			parts.add(s);
+			return;
+		}
+		split(prefix, depth - 1, parts);
+		split(s, depth - 1, parts);
+	}
+
+}
@@ -0,0 +1,189 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a {@code ShardedBPlusTree} keeps every entry, including every copy of a key, while its boundaries move
+ * and keys are handed over between shards, with readers running during the handovers.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ShardedBPlusTreeTest {
+
+	@Test
+	public void handoversKeepEveryEntry() throws Exception {
+		Integer[] boundaries = { 10000, 20000, 30000 };
+		ShardedBPlusTree<Integer, Integer> tree = new ShardedBPlusTree<Integer, Integer>(8, boundaries);
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		for (int k = 0; k < 40000; k += 100) { // entries that are never deleted
+			tree.insert(k, k);
+			expected.put(k, k);
+		}
+		tree.flush();
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicLong misses = new AtomicLong();
+		Thread reader = new Thread(() -> {
+			Random random = new Random(0);
+			while (!done.get()) {
+				int k = 100 * random.nextInt(400);
+				if (tree.get(k) == null)
+					misses.incrementAndGet();
+			}
+		});
+		reader.start();
+		Random random = new Random(1);
+		int moves = 0;
+		try {
+			for (int round = 0; round < 20; round++) {
+				for (int i = 0; i < 5000; i++) {
+					int k = random.nextInt(4) == 0 ? random.nextInt(40000) : random.nextInt(10000); // shard 0 is busy
+					if (k % 100 == 0)
+						continue;
+					if (expected.remove(k) != null)
+						tree.delete(k);
+					else {
+						tree.insert(k, round);
+						expected.put(k, round);
+					}
+				}
+				if (tree.rebalance())
+					moves++;
+				tree.flush();
+				assertEquals(expected, contents(tree));
+			}
+		} finally {
+			done.set(true);
+			reader.join();
+			tree.close();
+		}
+		assertTrue(moves > 0);
+		assertNotEquals(boundaries[0], tree.boundaries()[0]);
+		assertEquals(0, misses.get());
+		for (Map.Entry<Integer, Integer> e : expected.entrySet())
+			assertEquals(e.getValue(), tree.get(e.getKey()));
+	}
+
+	@Test
+	public void handoversKeepEveryCopyOfAKey() throws Exception {
+		Integer[] boundaries = { 100, 200, 300 };
+		ShardedBPlusTree<Integer, Integer> tree = new ShardedBPlusTree<Integer, Integer>(4, boundaries);
+		TreeMap<Integer, List<Integer>> expected = new TreeMap<Integer, List<Integer>>();
+		for (int k = 0; k < 400; k += 10) // three copies of each key that is never deleted
+			for (int c = 0; c < 3; c++) {
+				tree.insert(k, 1000 * k + c);
+				expected.computeIfAbsent(k, key -> new ArrayList<Integer>()).add(1000 * k + c);
+			}
+		tree.flush();
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicLong misses = new AtomicLong();
+		Thread reader = new Thread(() -> {
+			Random random = new Random(0);
+			while (!done.get()) {
+				int k = 10 * random.nextInt(40);
+				Integer v = tree.get(k);
+				if (v == null || v / 1000 != k)
+					misses.incrementAndGet();
+			}
+		});
+		reader.start();
+		Random random = new Random(1);
+		int moves = 0;
+		try {
+			for (int round = 0; round < 20; round++) {
+				for (int i = 0; i < 2000; i++) {
+					int k = random.nextInt(4) == 0 ? random.nextInt(400) : random.nextInt(100); // shard 0 is busy
+					if (k % 10 == 0)
+						continue;
+					List<Integer> copies = expected.get(k);
+					if (copies != null && random.nextBoolean()) {
+						tree.delete(k); // deletes an arbitrary copy
+						copies.remove(0);
+						if (copies.isEmpty())
+							expected.remove(k);
+					} else {
+						tree.insert(k, 1000 * k + round);
+						expected.computeIfAbsent(k, key -> new ArrayList<Integer>()).add(1000 * k + round);
+					}
+				}
+				if (tree.rebalance())
+					moves++;
+				tree.flush();
+				TreeMap<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+				for (Map.Entry<Integer, Integer> e : entries(tree)) {
+					assertEquals(e.getKey(), e.getValue() / 1000);
+					counts.merge(e.getKey(), 1, Integer::sum);
+				}
+				assertEquals(counts(expected), counts);
+			}
+		} finally {
+			done.set(true);
+			reader.join();
+			tree.close();
+		}
+		assertTrue(moves > 0);
+		assertEquals(0, misses.get());
+	}
+
+	@Test
+	public void mergeTakesTheCopiesOfAKeyFromTheFirstScan() {
+		List<Iterator<Map.Entry<Integer, Integer>>> scans = new ArrayList<Iterator<Map.Entry<Integer, Integer>>>();
+		scans.add(List.of(Map.entry(5, 1), Map.entry(5, 2), Map.entry(5, 3), Map.entry(7, 1)).iterator()); // source
+		scans.add(List.of(Map.entry(3, 1), Map.entry(5, 2), Map.entry(6, 1)).iterator()); // partly received
+		List<Map.Entry<Integer, Integer>> merged = new ArrayList<Map.Entry<Integer, Integer>>();
+		new ShardedBPlusTree.Merge<Integer, Integer>(scans).forEachRemaining(merged::add);
+		assertEquals(List.of(Map.entry(3, 1), Map.entry(5, 1), Map.entry(5, 2), Map.entry(5, 3), Map.entry(6, 1),
+				Map.entry(7, 1)), merged);
+	}
+
+	/**
+	 * Returns the number of copies of each key in the specified model.
+	 */
+	static TreeMap<Integer, Integer> counts(TreeMap<Integer, List<Integer>> model) {
+		TreeMap<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+		for (Map.Entry<Integer, List<Integer>> e : model.entrySet())
+			counts.put(e.getKey(), e.getValue().size());
+		return counts;
+	}
+
+	/**
+	 * Returns the entries of the specified {@code ShardedBPlusTree}, checking that they are in key order.
+	 */
+	static List<Map.Entry<Integer, Integer>> entries(ShardedBPlusTree<Integer, Integer> tree) {
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (Iterator<Map.Entry<Integer, Integer>> i = tree.range(null, null); i.hasNext();) {
+			Map.Entry<Integer, Integer> e = i.next();
+			assertTrue(entries.isEmpty() || entries.get(entries.size() - 1).getKey() <= e.getKey());
+			entries.add(e);
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns the entries of the specified {@code ShardedBPlusTree}, checking that they are in key order.
+	 */
+	static TreeMap<Integer, Integer> contents(ShardedBPlusTree<Integer, Integer> tree) {
+		TreeMap<Integer, Integer> entries = new TreeMap<Integer, Integer>();
+		List<Integer> keys = new ArrayList<Integer>();
+		for (Iterator<Map.Entry<Integer, Integer>> i = tree.range(null, null); i.hasNext();) {
+			Map.Entry<Integer, Integer> e = i.next();
+			keys.add(e.getKey());
+			entries.put(e.getKey(), e.getValue());
+		}
+		assertEquals(new ArrayList<Integer>(entries.keySet()), keys);
+		return entries;
+	}
+
+}
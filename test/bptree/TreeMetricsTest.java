@@ -0,0 +1,43 @@
+package bptree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@code TreeMetrics} counts every operation, including those on empty trees. The counters are only
+ * collected when the JVM runs with {@code -Dbptree.metrics=true}, as the Maven build does for tests.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class TreeMetricsTest {
+
+	@Test
+	public void countsOperationsOnEmptyTrees() {
+		assumeTrue(TreeMetrics.ENABLED);
+		TreeMetrics metrics = TreeMetrics.global();
+		for (BPlusTree<Integer, Integer> tree : Arrays.asList(new BPlusTree<Integer, Integer>(4),
+				new ConcurrentBPlusTree<Integer, Integer>(4))) {
+			long gets = metrics.operations(TreeMetrics.Operation.GET);
+			long removes = metrics.operations(TreeMetrics.Operation.REMOVE);
+			tree.get(1);
+			tree.remove(1);
+			assertEquals(gets + 1, metrics.operations(TreeMetrics.Operation.GET));
+			assertEquals(removes + 1, metrics.operations(TreeMetrics.Operation.REMOVE));
+			tree.insert(1, 1);
+			tree.get(1);
+			tree.remove(1);
+			tree.get(1); // the tree is empty again
+			assertEquals(gets + 3, metrics.operations(TreeMetrics.Operation.GET));
+			assertEquals(removes + 2, metrics.operations(TreeMetrics.Operation.REMOVE));
+		}
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4);
+		long deletes = metrics.operations(TreeMetrics.Operation.DELETE_ALL);
+		tree.deleteAll(Arrays.asList(1, 2));
+		assertEquals(deletes + 1, metrics.operations(TreeMetrics.Operation.DELETE_ALL));
+	}
+
+}
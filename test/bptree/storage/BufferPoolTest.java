@@ -0,0 +1,70 @@
+package bptree.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that a {@code PagedBPlusTree} keeps its contents through a {@code BufferPool} much smaller than the tree with
+ * each {@code EvictionPolicy}, and through a {@code BufferPool} whose frames span several slabs.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BufferPoolTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void reopensWithEachEvictionPolicy() throws IOException {
+		List<IntFunction<? extends EvictionPolicy>> policies = List.of(ClockPolicy::new, LruKPolicy::new,
+				TwoQueuePolicy::new);
+		for (int p = 0; p < policies.size(); p++) {
+			Path file = directory.resolve("tree" + p);
+			TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+			try (BufferPool pool = new BufferPool(new FileNodeStore(file, 4096), 16 * 4096, policies.get(p))) {
+				PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(pool, 16, Codec.LONG, Codec.LONG);
+				PagedBPlusTreeTest.update(tree, expected, new Random(p));
+				assertTrue(pool.evictions() > 0);
+			}
+			try (BufferPool pool = new BufferPool(new FileNodeStore(file, 4096), 16 * 4096, policies.get(p))) {
+				PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(pool, 16, Codec.LONG, Codec.LONG);
+				assertEquals(expected, PagedBPlusTreeTest.entries(tree));
+			}
+		}
+	}
+
+	@Test
+	public void spansSeveralSlabs() throws IOException {
+		int pageSize = FileNodeStore.MAX_PAGE_SIZE;
+		int framesPerSlab = OffHeapNodeStore.DEFAULT_SLAB_SIZE / pageSize;
+		int frames = framesPerSlab + 400;
+		Path file = directory.resolve("tree");
+		TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+		try (BufferPool pool = new BufferPool(new FileNodeStore(file, pageSize), (long) frames * pageSize)) {
+			assertEquals(frames, pool.capacity());
+			PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(pool, 16, Codec.LONG, Codec.LONG);
+			for (long k = 0; k < 8 * (framesPerSlab + 100); k++) { // leaves half full after splits
+				tree.insert(k, -k);
+				expected.put(k, -k);
+			}
+			assertTrue(pool.file.numberOfPages() > framesPerSlab + 100); // pages in both slabs
+			assertEquals(0, pool.evictions());
+			assertEquals(expected, PagedBPlusTreeTest.entries(tree));
+		}
+		try (FileNodeStore store = new FileNodeStore(file, pageSize)) {
+			PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(store, 16, Codec.LONG, Codec.LONG);
+			assertEquals(expected, PagedBPlusTreeTest.entries(tree));
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package bptree.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import bptree.Cursor;
+
+/**
+ * Tests that a {@code DurableBPlusTree} that is not closed recovers from its checkpoint and log in every
+ * {@link WriteAheadLog.Durability} mode.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class DurableBPlusTreeTest {
+
+	@TempDir
+	Path directory;
+
+	@ParameterizedTest
+	@EnumSource(WriteAheadLog.Durability.class)
+	public void recoversWithoutClose(WriteAheadLog.Durability durability) throws IOException {
+		Random random = new Random(durability.ordinal());
+		DurableBPlusTree<Long, Long> tree = open(durability);
+		for (int i = 0; i < 2000; i++)
+			update(tree, random);
+		tree.checkpoint();
+		for (int i = 0; i < 500; i++)
+			update(tree, random);
+		tree.checkpoint(); // restarts the log a second time
+		List<List<Long>> states = new ArrayList<List<Long>>(); // the contents after each update since the checkpoint
+		states.add(keys(tree));
+		for (int i = 0; i < 500; i++) {
+			update(tree, random);
+			states.add(keys(tree));
+		}
+		DurableBPlusTree<Long, Long> recovered = open(durability); // as if the process had crashed
+		List<Long> keys = keys(recovered);
+		if (durability == WriteAheadLog.Durability.ASYNC) // records not yet written are lost
+			assertTrue(states.contains(keys), "recovered a state that never existed");
+		else
+			assertEquals(states.get(states.size() - 1), keys);
+		for (int i = 0; i < 100; i++)
+			update(recovered, random);
+		List<Long> expected = keys(recovered);
+		recovered.close();
+		recovered = open(durability);
+		assertEquals(expected, keys(recovered));
+		recovered.close();
+	}
+
+	DurableBPlusTree<Long, Long> open(WriteAheadLog.Durability durability) throws IOException {
+		return new DurableBPlusTree<Long, Long>(directory, 8, Codec.LONG, Codec.LONG, durability);
+	}
+
+	/**
+	 * Inserts a random key or deletes it, using a value determined by the key so that the copy a deletion removes does
+	 * not matter.
+	 */
+	static void update(DurableBPlusTree<Long, Long> tree, Random random) {
+		long key = random.nextInt(300);
+		if (random.nextInt(3) == 0)
+			tree.delete(key, 2 * key);
+		else
+			tree.insert(key, 2 * key);
+	}
+
+	/**
+	 * Returns the keys of the specified {@code DurableBPlusTree} in order, checking the value of each.
+	 */
+	static List<Long> keys(DurableBPlusTree<Long, Long> tree) {
+		List<Long> keys = new ArrayList<Long>();
+		Cursor<Long, Long> cursor = tree.tree().range(null, true, null, true);
+		while (cursor.next()) {
+			assertEquals(2 * cursor.key(), (long) cursor.value());
+			keys.add(cursor.key());
+		}
+		return keys;
+	}
+
+}
@@ -0,0 +1,156 @@
+package bptree.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import bptree.BPlusTree;
+import bptree.Cursor;
+
+/**
+ * Tests that a {@code MappedSnapshot} answers lookups and range queries over a file written by a
+ * {@code SnapshotWriter} the same way a {@code TreeMap} does, for an empty snapshot, snapshots with runs of equal keys
+ * across leaf pages, and files mapped in many chunks.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class MappedSnapshotTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void answersNothingWhenEmpty() throws IOException {
+		Path file = directory.resolve("empty");
+		new SnapshotWriter<Long, Long>(Codec.LONG, Codec.LONG, 4096).write(new BPlusTree<Long, Long>(4), file);
+		try (MappedSnapshot<Long, Long> snapshot = new MappedSnapshot<Long, Long>(file, Codec.LONG, Codec.LONG)) {
+			assertEquals(0, snapshot.size());
+			assertEquals(0, snapshot.height());
+			assertNull(snapshot.get(0L));
+			assertFalse(snapshot.range(null, true, null, true).next());
+			assertFalse(snapshot.range(0L, true, 10L, true).next());
+			MappedSnapshot<Long, Long>.Range range = snapshot.range(null, true, null, true);
+			assertThrows(NoSuchElementException.class, range::key);
+		}
+	}
+
+	@Test
+	public void matchesATreeMap() throws IOException {
+		Random random = new Random(0);
+		for (int size : new int[] { 1, 254, 255, 256, 5000 }) {
+			BPlusTree<Long, Long> tree = new BPlusTree<Long, Long>(16);
+			for (int i = 0; i < size; i++)
+				tree.insert((long) random.nextInt(1 + size / 3), (long) i); // about three copies of each key
+			TreeMap<Long, List<Long>> expected = new TreeMap<Long, List<Long>>(); // the copies in the order of the tree
+			Cursor<Long, Long> cursor = tree.range(null, true, null, true);
+			while (cursor.next())
+				expected.computeIfAbsent(cursor.key(), k -> new ArrayList<Long>()).add(cursor.value());
+			Path file = directory.resolve("snapshot" + size);
+			new SnapshotWriter<Long, Long>(Codec.LONG, Codec.LONG, 4096).write(tree, file);
+			try (MappedSnapshot<Long, Long> snapshot = new MappedSnapshot<Long, Long>(file, Codec.LONG, Codec.LONG)) {
+				check(snapshot, expected, random, "size " + size);
+			}
+		}
+	}
+
+	@Test
+	public void spansSeveralChunks() throws IOException {
+		Random random = new Random(1);
+		TreeMap<Long, List<Long>> expected = new TreeMap<Long, List<Long>>();
+		List<Map.Entry<Long, Long>> entries = new ArrayList<Map.Entry<Long, Long>>();
+		for (long key = 0; entries.size() < 70000; key += 1 + random.nextInt(3)) // enough for two non-leaf levels
+			for (int copies = random.nextInt(4) == 0 ? 300 : 1; copies > 0; copies--) { // some runs span leaf pages
+				long value = entries.size();
+				entries.add(Map.entry(key, value));
+				expected.computeIfAbsent(key, k -> new ArrayList<Long>()).add(value);
+			}
+		Path file = directory.resolve("chunked");
+		new SnapshotWriter<Long, Long>(Codec.LONG, Codec.LONG, 4096).write(entries.iterator(), file);
+		for (long chunkSize : new long[] { 4096, 3 * 4096 + 100, MappedSnapshot.CHUNK_SIZE })
+			try (MappedSnapshot<Long, Long> snapshot = new MappedSnapshot<Long, Long>(file, Codec.LONG, Codec.LONG,
+					chunkSize)) {
+				String context = "chunk size " + chunkSize;
+				if (chunkSize < MappedSnapshot.CHUNK_SIZE)
+					assertTrue(snapshot.chunks.length > 1, context);
+				else
+					assertEquals(1, snapshot.chunks.length, context);
+				assertEquals(2, snapshot.height(), context);
+				check(snapshot, expected, random, context);
+			}
+		assertThrows(IllegalArgumentException.class, () -> new MappedSnapshot<Long, Long>(file, Codec.LONG,
+				Codec.LONG, 1000));
+	}
+
+	/**
+	 * Checks that the specified {@code MappedSnapshot} holds the entries of the specified model, finds each key, and
+	 * returns the same entries as the model on bounded and unbounded ranges.
+	 */
+	static void check(MappedSnapshot<Long, Long> snapshot, TreeMap<Long, List<Long>> expected, Random random,
+			String context) {
+		long size = 0;
+		for (List<Long> values : expected.values())
+			size += values.size();
+		assertEquals(size, snapshot.size(), context);
+		for (Map.Entry<Long, List<Long>> e : expected.entrySet())
+			assertEquals(e.getValue().get(0), snapshot.get(e.getKey()), context + ", key " + e.getKey());
+		long last = expected.lastKey();
+		for (long key = -1; key <= last + 1; key++)
+			if (!expected.containsKey(key))
+				assertNull(snapshot.get(key), context + ", key " + key);
+		assertEquals(entries(expected), entries(snapshot.range(null, true, null, true)), context);
+		for (int trial = 0; trial < 200; trial++) {
+			Long from = trial % 5 == 0 ? null : (long) random.nextInt((int) last + 3) - 1;
+			Long to = trial % 7 == 0 ? null : (long) random.nextInt((int) last + 3) - 1;
+			if (from != null && to != null && from > to) {
+				Long t = from;
+				from = to;
+				to = t;
+			}
+			boolean fromInclusive = random.nextBoolean();
+			boolean toInclusive = random.nextBoolean();
+			NavigableMap<Long, List<Long>> sub = from == null ? (to == null ? expected : expected.headMap(to,
+					toInclusive)) : to == null ? expected.tailMap(from, fromInclusive) : expected.subMap(from,
+							fromInclusive, to, toInclusive);
+			assertEquals(entries(sub), entries(snapshot.range(from, fromInclusive, to, toInclusive)), context
+					+ ", range " + (fromInclusive ? "[" : "(") + from + ", " + to + (toInclusive ? "]" : ")"));
+		}
+	}
+
+	/**
+	 * Returns the entries of the specified model in key order, with the values of each key in the order given.
+	 */
+	static List<Map.Entry<Long, Long>> entries(NavigableMap<Long, List<Long>> model) {
+		List<Map.Entry<Long, Long>> entries = new ArrayList<Map.Entry<Long, Long>>();
+		for (Map.Entry<Long, List<Long>> e : model.entrySet())
+			for (Long value : e.getValue())
+				entries.add(Map.entry(e.getKey(), value));
+		return entries;
+	}
+
+	/**
+	 * Returns the remaining entries of the specified {@code Range}.
+	 */
+	static List<Map.Entry<Long, Long>> entries(MappedSnapshot<Long, Long>.Range range) {
+		List<Map.Entry<Long, Long>> entries = new ArrayList<Map.Entry<Long, Long>>();
+		while (range.next())
+			entries.add(Map.entry(range.key(), range.value()));
+		assertFalse(range.next()); // stays exhausted
+		return entries;
+	}
+
+}
@@ -0,0 +1,251 @@
+package bptree.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that a {@code PagedBPlusTree} finds every copy of a key, rebalances and frees its pages on removals, and keeps
+ * its contents across reopening its file.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class PagedBPlusTreeTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void reopensFromAFileNodeStore() throws IOException {
+		Path file = directory.resolve("tree");
+		TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+		try (FileNodeStore store = new FileNodeStore(file, 4096)) {
+			update(new PagedBPlusTree<Long, Long>(store, 16, Codec.LONG, Codec.LONG), expected, new Random(1));
+		}
+		try (FileNodeStore store = new FileNodeStore(file, 4096)) {
+			PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(store, 16, Codec.LONG, Codec.LONG);
+			assertEquals(expected, entries(tree));
+			update(tree, expected, new Random(2));
+		}
+		try (FileNodeStore store = new FileNodeStore(file, 4096)) {
+			assertEquals(expected, entries(new PagedBPlusTree<Long, Long>(store, 16, Codec.LONG, Codec.LONG)));
+		}
+	}
+
+	@Test
+	public void findsCopiesLeftOfAnEqualSeparator() {
+		PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(new OffHeapNodeStore(4096, 16), 4, Codec.LONG,
+				Codec.LONG);
+		for (long i = 0; i < 6; i++)
+			tree.insert(5L, i);
+		assertNotNull(tree.remove(5L));
+		assertNotNull(tree.remove(5L));
+		for (int copies = 4; copies > 0; copies--) {
+			assertNotNull(tree.get(5L), copies + " copies left");
+			assertNotNull(tree.remove(5L), copies + " copies left");
+		}
+		assertNull(tree.get(5L));
+		assertNull(tree.remove(5L));
+	}
+
+	@Test
+	public void matchesMultisetUnderRandomOperations() {
+		for (int degree : new int[] { 3, 4, 5, 8 }) {
+			PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(new OffHeapNodeStore(4096, 16), degree,
+					Codec.LONG, Codec.LONG);
+			Random random = new Random(degree);
+			TreeMap<Long, List<Long>> model = new TreeMap<Long, List<Long>>();
+			long range = 2 + random.nextInt(4 * degree); // few distinct keys, so copies straddle separators
+			for (long op = 0; op < 20000; op++) {
+				long key = random.nextInt((int) range);
+				List<Long> values = model.get(key);
+				switch (random.nextInt(3)) {
+				case 0:
+					tree.insert(key, op);
+					model.computeIfAbsent(key, k -> new ArrayList<Long>()).add(op);
+					break;
+				case 1: {
+					Long value = tree.remove(key);
+					if (values == null)
+						assertNull(value, "removed a missing key " + key);
+					else {
+						assertTrue(values.remove(value), "removed " + value + " for key " + key + " not in " + values);
+						if (values.isEmpty())
+							model.remove(key);
+					}
+					break;
+				}
+				default: {
+					Long value = tree.get(key);
+					if (values == null)
+						assertNull(value, "found a missing key " + key);
+					else
+						assertTrue(values.contains(value), "found " + value + " for key " + key + " not in " + values);
+				}
+				}
+				if (op % 1000 == 0)
+					assertEquals(count(model), check(tree));
+			}
+			List<String> entries = new ArrayList<String>();
+			PagedBPlusTree<Long, Long>.Range r = tree.range(null, true, null, true);
+			while (r.next())
+				entries.add(r.key() + "=" + r.value());
+			List<String> expected = new ArrayList<String>();
+			for (Map.Entry<Long, List<Long>> e : model.entrySet())
+				for (Long v : e.getValue())
+					expected.add(e.getKey() + "=" + v);
+			entries.sort(null);
+			expected.sort(null);
+			assertEquals(expected, entries);
+		}
+	}
+
+	@Test
+	public void removalsMergePagesAndFreeThem() throws IOException {
+		Path file = directory.resolve("tree");
+		try (FileNodeStore store = new FileNodeStore(file, 4096)) {
+			PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(store, 8, Codec.LONG, Codec.LONG);
+			List<Long> keys = new ArrayList<Long>();
+			for (long k = 0; k < 5000; k++)
+				keys.add(k);
+			Random random = new Random(0);
+			for (int round = 0; round < 2; round++) {
+				Collections.shuffle(keys, random);
+				for (Long k : keys)
+					tree.insert(k, k);
+				long pages = store.numberOfPages();
+				Collections.shuffle(keys, random);
+				for (int i = 0; i < keys.size(); i++) {
+					assertEquals(keys.get(i), tree.remove(keys.get(i)));
+					if (i % 500 == 0)
+						assertEquals(keys.size() - i - 1, check(tree));
+				}
+				assertEquals(NodeStore.NIL, store.root()); // every page has been freed
+				assertEquals(pages, store.numberOfPages());
+				assertTrue(pages > 5000 / 7, "only " + pages + " pages");
+			}
+		}
+		try (FileNodeStore store = new FileNodeStore(file, 4096)) { // the free pages are reused after reopening
+			long pages = store.numberOfPages();
+			PagedBPlusTree<Long, Long> tree = new PagedBPlusTree<Long, Long>(store, 8, Codec.LONG, Codec.LONG);
+			for (long k = 0; k < 2000; k++)
+				tree.insert(k, k);
+			assertEquals(2000, check(tree));
+			assertEquals(pages, store.numberOfPages());
+		}
+	}
+
+	/**
+	 * Inserts distinct keys into the specified {@code PagedBPlusTree} in random order and removes some of them, doing
+	 * the same to the specified map.
+	 */
+	static void update(PagedBPlusTree<Long, Long> tree, TreeMap<Long, Long> expected, Random random) {
+		List<Long> keys = new ArrayList<Long>();
+		for (long k = 0; k < 5000; k++)
+			if (!expected.containsKey(k) && random.nextBoolean())
+				keys.add(k);
+		Collections.shuffle(keys, random);
+		for (Long k : keys) {
+			tree.insert(k, 3 * k);
+			expected.put(k, 3 * k);
+		}
+		for (int i = 0; i < 1000; i++) {
+			long k = random.nextInt(5000);
+			assertEquals(expected.remove(k), tree.remove(k));
+			assertNull(tree.get(k));
+		}
+	}
+
+	static int count(TreeMap<Long, List<Long>> model) {
+		int count = 0;
+		for (List<Long> values : model.values())
+			count += values.size();
+		return count;
+	}
+
+	/**
+	 * Checks the structure of the specified tree: the keys of each page are sorted and lie between the separators
+	 * around it, every page other than the root has at least the minimum number of keys, all leaf pages are at the same
+	 * depth and the chain of leaf pages visits them in order.
+	 *
+	 * @return the number of entries in the tree.
+	 */
+	static int check(PagedBPlusTree<Long, Long> tree) {
+		if (tree.root == NodeStore.NIL)
+			return 0;
+		List<Long> leaves = new ArrayList<Long>();
+		int[] entries = new int[1];
+		check(tree, tree.root, true, null, null, leaves, entries);
+		for (int i = 0; i < leaves.size(); i++) {
+			ByteBuffer page = tree.store.pin(leaves.get(i));
+			long successor = tree.layout.successor(page);
+			tree.store.unpin(leaves.get(i), false);
+			assertEquals(i + 1 < leaves.size() ? leaves.get(i + 1) : NodeStore.NIL, successor, "broken leaf chain");
+		}
+		return entries[0];
+	}
+
+	static int check(PagedBPlusTree<Long, Long> tree, long id, boolean root, Long low, Long high, List<Long> leaves,
+			int[] entries) {
+		ByteBuffer page = tree.store.pin(id);
+		NodeLayout<Long, Long> layout = tree.layout;
+		int n = layout.numberOfKeys(page);
+		boolean leaf = layout.isLeaf(page);
+		for (int i = 0; i < n; i++) {
+			long k = layout.key(page, i);
+			assertTrue(low == null || k >= low, "key " + k + " below " + low);
+			assertTrue(high == null || k <= high, "key " + k + " above " + high);
+			assertTrue(i == 0 || layout.key(page, i - 1) <= k, "keys out of order");
+		}
+		int degree = tree.degree();
+		if (!root)
+			assertTrue(n >= (leaf ? Math.max(1, degree / 2) : (degree + 1) / 2 - 1), "underfull page " + id);
+		if (leaf) {
+			tree.store.unpin(id, false);
+			leaves.add(id);
+			entries[0] += n;
+			return 0;
+		}
+		assertTrue(n > 0, "non-leaf page without keys");
+		long[] children = new long[n + 1];
+		Long[] separators = new Long[n];
+		for (int i = 0; i <= n; i++)
+			children[i] = layout.child(page, i);
+		for (int i = 0; i < n; i++)
+			separators[i] = layout.key(page, i);
+		tree.store.unpin(id, false);
+		int height = -1;
+		for (int i = 0; i <= n; i++) {
+			int h = check(tree, children[i], false, i == 0 ? low : separators[i - 1], i == n ? high : separators[i],
+					leaves, entries);
+			assertTrue(height < 0 || h == height, "leaves at different depths");
+			height = h;
+		}
+		return height + 1;
+	}
+
+	static TreeMap<Long, Long> entries(PagedBPlusTree<Long, Long> tree) {
+		TreeMap<Long, Long> entries = new TreeMap<Long, Long>();
+		PagedBPlusTree<Long, Long>.Range range = tree.range(null, true, null, true);
+		while (range.next())
+			entries.put(range.key(), range.value());
+		for (Map.Entry<Long, Long> e : entries.entrySet())
+			assertEquals(e.getValue(), tree.get(e.getKey()));
+		return entries;
+	}
+
+}
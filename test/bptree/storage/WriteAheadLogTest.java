@@ -0,0 +1,132 @@
+package bptree.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the recovery of a {@code WriteAheadLog} from torn records and restarts, and group commits from several
+ * threads.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class WriteAheadLogTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void discardsATornRecordAtTheEnd() throws IOException {
+		Path file = directory.resolve("wal");
+		long end;
+		try (WriteAheadLog<Long, Long> log = open(file, WriteAheadLog.Durability.SYNC)) {
+			for (long k = 0; k < 100; k++)
+				log.commit(log.append(k % 3 == 0 ? WriteAheadLog.DELETE : WriteAheadLog.INSERT, k, -k));
+			end = log.end();
+		}
+		try (FileChannel c = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			c.truncate(c.size() - 5); // as if the last record had been partially written
+		}
+		try (WriteAheadLog<Long, Long> log = open(file, WriteAheadLog.Durability.SYNC)) {
+			List<Long> keys = keys(log, Long.MIN_VALUE);
+			assertEquals(99, keys.size());
+			for (int i = 0; i < keys.size(); i++)
+				assertEquals(i, keys.get(i));
+			log.replay(Long.MIN_VALUE, (type, key, value) -> {
+				assertEquals(key % 3 == 0 ? WriteAheadLog.DELETE : WriteAheadLog.INSERT, type);
+				assertEquals(-key, value);
+			});
+			int recordSize = 1 + 2 * Long.BYTES + Integer.BYTES;
+			assertEquals(end - recordSize, log.end());
+			log.commit(log.append(WriteAheadLog.INSERT, 1000L, 0L)); // goes where the torn record was
+		}
+		try (WriteAheadLog<Long, Long> log = open(file, WriteAheadLog.Durability.SYNC)) {
+			List<Long> keys = keys(log, Long.MIN_VALUE);
+			assertEquals(100, keys.size());
+			assertEquals(1000L, keys.get(99));
+		}
+	}
+
+	@Test
+	public void keepsLsnsGrowingAcrossRestarts() throws IOException {
+		Path file = directory.resolve("wal");
+		long checkpoint;
+		try (WriteAheadLog<Long, Long> log = open(file, WriteAheadLog.Durability.ASYNC)) {
+			for (long k = 0; k < 50; k++)
+				log.commit(log.append(WriteAheadLog.INSERT, k, k));
+			checkpoint = log.end();
+			log.restart();
+			assertEquals(checkpoint, log.end());
+			for (long k = 50; k < 80; k++)
+				log.commit(log.append(WriteAheadLog.INSERT, k, k));
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(List.of(file), files.toList()); // no temporary file is left
+		}
+		try (WriteAheadLog<Long, Long> log = open(file, WriteAheadLog.Durability.ASYNC)) {
+			List<Long> keys = keys(log, checkpoint);
+			assertEquals(30, keys.size());
+			assertEquals(50L, keys.get(0));
+			assertEquals(keys, keys(log, Long.MIN_VALUE)); // the records before the restart are gone
+		}
+	}
+
+	@Test
+	public void groupCommitMakesEveryRecordDurable() throws Exception {
+		Path file = directory.resolve("wal");
+		int threads = 8, records = 500;
+		try (WriteAheadLog<Long, Long> log = open(file, WriteAheadLog.Durability.GROUP)) {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<?>> writers = new ArrayList<Future<?>>();
+				for (int t = 0; t < threads; t++) {
+					long first = (long) t * records;
+					writers.add(executor.submit(() -> {
+						for (long k = first; k < first + records; k++)
+							log.commit(log.append(WriteAheadLog.INSERT, k, k));
+						return null;
+					}));
+				}
+				for (Future<?> f : writers)
+					f.get();
+			} finally {
+				executor.shutdown();
+			}
+			assertEquals(threads * records, keys(log, Long.MIN_VALUE).stream().distinct().count());
+		}
+		try (WriteAheadLog<Long, Long> log = open(file, WriteAheadLog.Durability.GROUP)) {
+			List<Long> keys = keys(log, Long.MIN_VALUE);
+			keys.sort(null);
+			for (int i = 0; i < keys.size(); i++)
+				assertEquals(i, keys.get(i));
+			assertEquals(threads * records, keys.size());
+		}
+	}
+
+	static WriteAheadLog<Long, Long> open(Path file, WriteAheadLog.Durability durability) throws IOException {
+		return new WriteAheadLog<Long, Long>(file, Codec.LONG, Codec.LONG, durability);
+	}
+
+	/**
+	 * Returns the keys of the records after the specified LSN in log order.
+	 */
+	static List<Long> keys(WriteAheadLog<Long, Long> log, long from) throws IOException {
+		List<Long> keys = new ArrayList<Long>();
+		log.replay(from, (type, key, value) -> keys.add(key));
+		return keys;
+	}
+
+}